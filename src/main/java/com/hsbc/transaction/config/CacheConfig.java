@@ -1,31 +1,108 @@
 package com.hsbc.transaction.config;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hsbc.transaction.service.cache.CacheGenerations;
+import com.hsbc.transaction.service.cache.GenerationalCache;
+import com.hsbc.transaction.service.cache.RefreshAhead;
+import com.hsbc.transaction.service.cache.RetainedSize;
+import com.hsbc.transaction.service.cache.TransactionCacheInvalidator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
 
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Configuration
 @EnableCaching
 public class CacheConfig {
     
+    // Values are stamped with the generations of CacheGenerations, so a write drops an account's or a type's
+    // entries, or all of them, by advancing a counter. Statistics are served stale while they are refreshed,
+    // unless max-staleness is zero; they then never expire, as an expired entry would be recomputed on the reading
+    // request, and leave only by the size bound. Each cache is bounded by the estimated bytes its values retain rather than
+    // by entry count, as one account's or type's list can outweigh thousands of single transactions.
+    // Stale-while-revalidate settings of the statistics cache; null, so absent to Optional injection points, when
+    // max-staleness is zero.
     @Bean
-    public CacheManager cacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager("transactions", "transactionStats");
-        cacheManager.setCaffeine(caffeineCacheBuilder());
+    public RefreshAhead statsRefreshAhead(@Value("${transaction.cache.stats.refresh-after:5s}") Duration refreshAfter,
+                                          @Value("${transaction.cache.stats.max-staleness:30s}") Duration maxStaleness,
+                                          @Value("${transaction.cache.stats.refresh-threads:2}") int refreshThreads) {
+        return maxStaleness.isZero() ? null : new RefreshAhead(refreshAfter, maxStaleness, refreshExecutor(refreshThreads));
+    }
+    
+    @Bean
+    public CacheManager cacheManager(CacheGenerations generations, Optional<RefreshAhead> statsRefreshAhead,
+                                     @Value("${transaction.cache.transactions.budget:64MB}") DataSize transactionsBudget,
+                                     @Value("${transaction.cache.transactions.expire-after-write:10m}") Duration transactionsExpireAfterWrite,
+                                     @Value("${transaction.cache.transactions.expire-after-access:5m}") Duration transactionsExpireAfterAccess,
+                                     @Value("${transaction.cache.stats.budget:8MB}") DataSize statsBudget,
+                                     @Value("${transaction.cache.stats.expire-after-write:10m}") Duration statsExpireAfterWrite,
+                                     @Value("${transaction.cache.stats.expire-after-access:5m}") Duration statsExpireAfterAccess) {
+        RefreshAhead statsRefresh = statsRefreshAhead.orElse(null);
+        Map<String, Caffeine<Object, Object>> builders = Map.of(
+                TransactionCacheInvalidator.TRANSACTIONS,
+                caffeineCacheBuilder(transactionsBudget, transactionsExpireAfterWrite, transactionsExpireAfterAccess),
+                TransactionCacheInvalidator.STATS,
+                statsRefresh != null ? caffeineCacheBuilder(statsBudget)
+                        : caffeineCacheBuilder(statsBudget, statsExpireAfterWrite, statsExpireAfterAccess));
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected com.github.benmanes.caffeine.cache.Cache<Object, Object> createNativeCaffeineCache(String name) {
+                return builders.get(name).build();
+            }
+    
+            @Override
+            protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                return new GenerationalCache(super.adaptCaffeineCache(name, cache), generations,
+                        name.equals(TransactionCacheInvalidator.STATS) ? statsRefresh : null);
+            }
+        };
+        cacheManager.setCacheNames(builders.keySet());
         return cacheManager;
     }
     
-    private Caffeine<Object, Object> caffeineCacheBuilder() {
+    @Bean
+    public GenerationalCacheMeterBinderProvider generationalCacheMeterBinderProvider() {
+        return new GenerationalCacheMeterBinderProvider();
+    }
+    
+    // Not a bean, so Boot still configures its own task executor. With the queue full, further refreshes are
+    // dropped and retried by a later read.
+    private static Executor refreshExecutor(int threads) {
+        AtomicInteger created = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(64), task -> {
+            Thread thread = new Thread(task, "stats-refresh-" + created.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    // Entries weigh the estimated bytes of the value, unwrapped from its stamp; Caffeine weighs each once, when
+    // it is stored.
+    private static Caffeine<Object, Object> caffeineCacheBuilder(DataSize budget) {
         return Caffeine.newBuilder()
                 .initialCapacity(100)
-                .maximumSize(1000)
-                .expireAfterWrite(10, TimeUnit.MINUTES)
-                .expireAfterAccess(5, TimeUnit.MINUTES)
+                .maximumWeight(budget.toBytes())
+                .weigher((Object key, Object value) -> (int) Math.min(Integer.MAX_VALUE, RetainedSize.of(value)))
                 .recordStats();
     }
+    
+    private static Caffeine<Object, Object> caffeineCacheBuilder(DataSize budget, Duration expireAfterWrite,
+                                                                 Duration expireAfterAccess) {
+        return caffeineCacheBuilder(budget)
+                .expireAfterWrite(expireAfterWrite)
+                .expireAfterAccess(expireAfterAccess);
+    }
 } 
\ No newline at end of file
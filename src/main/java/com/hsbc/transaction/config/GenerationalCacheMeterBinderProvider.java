@@ -0,0 +1,36 @@
+package com.hsbc.transaction.config;
+
+import com.hsbc.transaction.service.cache.GenerationalCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+
+// Binds the Caffeine statistics behind each GenerationalCache, which Boot's Caffeine provider does not recognise,
+// and the reads it coalesced, found stale or served stale while refreshing.
+public class GenerationalCacheMeterBinderProvider implements CacheMeterBinderProvider<GenerationalCache> {
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public MeterBinder getMeterBinder(GenerationalCache cache, Iterable<Tag> tags) {
+        Tags cacheTags = Tags.concat(tags, "cache", cache.getName());
+        return registry -> {
+            new CaffeineCacheMetrics<>((com.github.benmanes.caffeine.cache.Cache<Object, Object>) cache.getNativeCache(),
+                    cache.getName(), tags).bindTo(registry);
+            FunctionCounter.builder("cache.coalesced", cache, GenerationalCache::coalescedLoads)
+                    .tags(cacheTags)
+                    .description("Misses that waited for another caller's load of the same key")
+                    .register(registry);
+            FunctionCounter.builder("cache.stale", cache, GenerationalCache::staleReads)
+                    .tags(cacheTags)
+                    .description("Reads that found a value of an older generation")
+                    .register(registry);
+            FunctionCounter.builder("cache.served.stale", cache, GenerationalCache::staleServed)
+                    .tags(cacheTags)
+                    .description("Stale values served within the staleness bound while they were refreshed")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,94 @@
+package com.hsbc.transaction.config;
+
+import com.hsbc.transaction.repository.TransactionRepository;
+import com.hsbc.transaction.repository.TransactionStore;
+import com.hsbc.transaction.repository.TransactionStoreProvider;
+import com.hsbc.transaction.repository.columnar.ColumnarTransactionStore;
+import com.hsbc.transaction.repository.id.IdAllocator;
+import com.hsbc.transaction.repository.offheap.OffHeapTransactionStore;
+import com.hsbc.transaction.repository.persistence.DurabilityMode;
+import com.hsbc.transaction.repository.persistence.DurableTransactionStore;
+import com.hsbc.transaction.repository.persistence.WalOptions;
+import com.hsbc.transaction.repository.sharded.ShardedTransactionStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Configuration
+public class StorageConfig {
+    
+    @Bean
+    public IdAllocator idAllocator(@Value("${transaction.id.strategy:sequence}") String strategy,
+                                   @Value("${transaction.id.block-size:64}") int blockSize,
+                                   @Value("${transaction.id.node:0}") int node) {
+        return switch (strategy.toLowerCase()) {
+            case "sequence" -> IdAllocator.sequential(1, 1, blockSize);
+            case "time" -> IdAllocator.timeOrdered(node, blockSize);
+            default -> throw new IllegalArgumentException(
+                "Unknown transaction.id.strategy '" + strategy + "', expected sequence or time");
+        };
+    }
+    
+    @Bean
+    public TransactionStoreProvider heapStoreProvider(TransactionRepository transactionRepository) {
+        return TransactionStoreProvider.of("heap", () -> transactionRepository);
+    }
+    
+    @Bean
+    public TransactionStoreProvider columnarStoreProvider(IdAllocator idAllocator) {
+        return TransactionStoreProvider.of("columnar", () -> new ColumnarTransactionStore(idAllocator));
+    }
+    
+    @Bean
+    public TransactionStoreProvider offHeapStoreProvider(IdAllocator idAllocator) {
+        return TransactionStoreProvider.of("offheap", () -> new OffHeapTransactionStore(idAllocator));
+    }
+    
+    // Sharded ids name their shard by their residue modulo the shard count, which time-ordered ids cannot keep.
+    @Bean
+    public TransactionStoreProvider shardedStoreProvider(@Value("${transaction.storage.shards:0}") int shards,
+                                                         @Value("${transaction.id.strategy:sequence}") String strategy,
+                                                         @Value("${transaction.id.block-size:64}") int blockSize) {
+        int shardCount = shards > 0 ? shards : Runtime.getRuntime().availableProcessors();
+        return TransactionStoreProvider.of("sharded", () -> {
+            if (!strategy.equalsIgnoreCase("sequence")) {
+                throw new IllegalArgumentException("transaction.storage.mode 'sharded' requires transaction.id.strategy "
+                    + "'sequence', was '" + strategy + "'");
+            }
+            return new ShardedTransactionStore(shardCount, blockSize);
+        });
+    }
+    
+    @Bean
+    @Primary
+    public TransactionStore transactionStore(List<TransactionStoreProvider> providers,
+                                             @Value("${transaction.storage.mode:heap}") String mode,
+                                             @Value("${transaction.wal.enabled:false}") boolean walEnabled,
+                                             @Value("${transaction.wal.directory:data/wal}") Path walDirectory,
+                                             @Value("${transaction.wal.durability:batch}") String durability,
+                                             @Value("${transaction.wal.group-commit-window:2ms}") Duration groupCommitWindow,
+                                             @Value("${transaction.wal.sync-interval:100ms}") Duration syncInterval,
+                                             @Value("${transaction.wal.segment-size:64MB}") DataSize segmentSize,
+                                             @Value("${transaction.wal.snapshot-interval:10m}") Duration snapshotInterval) throws IOException {
+        TransactionStore store = providers.stream()
+            .filter(provider -> provider.name().equalsIgnoreCase(mode))
+            .findFirst()
+            .orElseThrow(() -> new IllegalArgumentException("Unknown transaction.storage.mode '" + mode + "', expected one of "
+                + providers.stream().map(TransactionStoreProvider::name).collect(Collectors.joining(", "))))
+            .create();
+        if (!walEnabled) {
+            return store;
+        }
+        WalOptions options = new WalOptions(walDirectory, DurabilityMode.valueOf(durability.toUpperCase()),
+            groupCommitWindow, syncInterval, segmentSize.toBytes());
+        return DurableTransactionStore.open(store, options, snapshotInterval);
+    }
+}
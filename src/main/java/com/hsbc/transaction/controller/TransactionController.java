@@ -1,10 +1,19 @@
 package com.hsbc.transaction.controller;
 
+import com.hsbc.transaction.dto.AmountSummaryDTO;
+import com.hsbc.transaction.dto.CursorPageDTO;
 import com.hsbc.transaction.dto.PagedResponseDTO;
+import com.hsbc.transaction.dto.SearchResponseDTO;
+import com.hsbc.transaction.dto.TimeBucketDTO;
 import com.hsbc.transaction.dto.TransactionRequestDTO;
 import com.hsbc.transaction.dto.TransactionResponseDTO;
 import com.hsbc.transaction.model.TransactionType;
+import com.hsbc.transaction.repository.TransactionFilter;
+import com.hsbc.transaction.repository.query.SortOrder;
+import com.hsbc.transaction.repository.rollup.Granularity;
+import com.hsbc.transaction.repository.rollup.TimeSeriesQuery;
 import com.hsbc.transaction.service.TransactionService;
+import com.hsbc.transaction.service.cache.RefreshAhead;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -21,17 +30,25 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/v1/transactions")
 @Tag(name = "Transaction Management", description = "APIs for managing banking transactions")
 public class TransactionController {
     
+    // How long a statistic may lag the writes before it, as an ISO-8601 duration, when statistics can be served
+    // while refreshed in the background.
+    public static final String MAX_STALENESS_HEADER = "X-Max-Staleness";
+    
     private final TransactionService transactionService;
+    private final String statisticsMaxStaleness;
     
     @Autowired
-    public TransactionController(TransactionService transactionService) {
+    public TransactionController(TransactionService transactionService, Optional<RefreshAhead> statsRefreshAhead) {
         this.transactionService = transactionService;
+        this.statisticsMaxStaleness = statsRefreshAhead.map(refreshAhead -> refreshAhead.maxStaleness().toString()).orElse(null);
     }
     
     @PostMapping
@@ -75,6 +92,21 @@ public class TransactionController {
         return ResponseEntity.ok(responseDTO);
     }
     
+    @GetMapping(params = "cursor")
+    @Operation(summary = "Get all transactions by cursor", description = "Retrieves all transactions newest first, resuming after the cursor returned by the previous page")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Transactions retrieved successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid cursor or page size")
+    })
+    public ResponseEntity<CursorPageDTO<TransactionResponseDTO>> getAllTransactionsByCursor(
+            @Parameter(description = "nextCursor of the previous page; an empty value (cursor=) starts the walk at the newest transaction")
+            @RequestParam(defaultValue = "") String cursor,
+            @Parameter(description = "Page size (max 1000)", example = "100")
+            @RequestParam(defaultValue = "100") int size) {
+        CursorPageDTO<TransactionResponseDTO> responseDTO = transactionService.getTransactionsAfter(TransactionFilter.all(), cursor, size);
+        return ResponseEntity.ok(responseDTO);
+    }
+    
     @GetMapping("/account/{accountNumber}")
     @Operation(summary = "Get transactions by account number", description = "Retrieves all transactions for a specific account")
     @ApiResponses(value = {
@@ -88,6 +120,23 @@ public class TransactionController {
         return ResponseEntity.ok(transactions);
     }
     
+    @GetMapping(value = "/account/{accountNumber}", params = "cursor")
+    @Operation(summary = "Get transactions by account number by cursor", description = "Retrieves the transactions of an account newest first, resuming after the cursor returned by the previous page")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Transactions retrieved successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid cursor or page size")
+    })
+    public ResponseEntity<CursorPageDTO<TransactionResponseDTO>> getTransactionsByAccountNumberByCursor(
+            @Parameter(description = "Account number (10-16 digits)", required = true)
+            @PathVariable String accountNumber,
+            @Parameter(description = "nextCursor of the previous page; an empty value (cursor=) starts the walk at the newest transaction")
+            @RequestParam(defaultValue = "") String cursor,
+            @Parameter(description = "Page size (max 1000)", example = "100")
+            @RequestParam(defaultValue = "100") int size) {
+        CursorPageDTO<TransactionResponseDTO> responseDTO = transactionService.getTransactionsAfter(TransactionFilter.account(accountNumber), cursor, size);
+        return ResponseEntity.ok(responseDTO);
+    }
+    
     @GetMapping("/type/{type}")
     @Operation(summary = "Get transactions by type", description = "Retrieves all transactions of a specific type")
     @ApiResponses(value = {
@@ -101,6 +150,23 @@ public class TransactionController {
         return ResponseEntity.ok(transactions);
     }
     
+    @GetMapping(value = "/type/{type}", params = "cursor")
+    @Operation(summary = "Get transactions by type by cursor", description = "Retrieves the transactions of a type newest first, resuming after the cursor returned by the previous page")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Transactions retrieved successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid cursor or page size")
+    })
+    public ResponseEntity<CursorPageDTO<TransactionResponseDTO>> getTransactionsByTypeByCursor(
+            @Parameter(description = "Transaction type", required = true)
+            @PathVariable TransactionType type,
+            @Parameter(description = "nextCursor of the previous page; an empty value (cursor=) starts the walk at the newest transaction")
+            @RequestParam(defaultValue = "") String cursor,
+            @Parameter(description = "Page size (max 1000)", example = "100")
+            @RequestParam(defaultValue = "100") int size) {
+        CursorPageDTO<TransactionResponseDTO> responseDTO = transactionService.getTransactionsAfter(TransactionFilter.type(type), cursor, size);
+        return ResponseEntity.ok(responseDTO);
+    }
+    
     @GetMapping("/amount-range")
     @Operation(summary = "Get transactions by amount range", description = "Retrieves transactions within a specified amount range")
     @ApiResponses(value = {
@@ -116,6 +182,25 @@ public class TransactionController {
         return ResponseEntity.ok(transactions);
     }
     
+    @GetMapping(value = "/amount-range", params = "cursor")
+    @Operation(summary = "Get transactions by amount range by cursor", description = "Retrieves the transactions within an amount range newest first, resuming after the cursor returned by the previous page")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Transactions retrieved successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid cursor or page size")
+    })
+    public ResponseEntity<CursorPageDTO<TransactionResponseDTO>> getTransactionsByAmountRangeByCursor(
+            @Parameter(description = "Minimum amount", required = true)
+            @RequestParam BigDecimal minAmount,
+            @Parameter(description = "Maximum amount", required = true)
+            @RequestParam BigDecimal maxAmount,
+            @Parameter(description = "nextCursor of the previous page; an empty value (cursor=) starts the walk at the newest transaction")
+            @RequestParam(defaultValue = "") String cursor,
+            @Parameter(description = "Page size (max 1000)", example = "100")
+            @RequestParam(defaultValue = "100") int size) {
+        CursorPageDTO<TransactionResponseDTO> responseDTO = transactionService.getTransactionsAfter(TransactionFilter.amountBetween(minAmount, maxAmount), cursor, size);
+        return ResponseEntity.ok(responseDTO);
+    }
+    
     @GetMapping("/date-range")
     @Operation(summary = "Get transactions by date range", description = "Retrieves transactions within a specified date range")
     @ApiResponses(value = {
@@ -131,6 +216,54 @@ public class TransactionController {
         return ResponseEntity.ok(transactions);
     }
     
+    @GetMapping(value = "/date-range", params = "cursor")
+    @Operation(summary = "Get transactions by date range by cursor", description = "Retrieves the transactions within a date range newest first, resuming after the cursor returned by the previous page")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Transactions retrieved successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid cursor or page size")
+    })
+    public ResponseEntity<CursorPageDTO<TransactionResponseDTO>> getTransactionsByDateRangeByCursor(
+            @Parameter(description = "Start date (ISO format)", required = true)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @Parameter(description = "End date (ISO format)", required = true)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @Parameter(description = "nextCursor of the previous page; an empty value (cursor=) starts the walk at the newest transaction")
+            @RequestParam(defaultValue = "") String cursor,
+            @Parameter(description = "Page size (max 1000)", example = "100")
+            @RequestParam(defaultValue = "100") int size) {
+        CursorPageDTO<TransactionResponseDTO> responseDTO = transactionService.getTransactionsAfter(TransactionFilter.dateBetween(startDate, endDate), cursor, size);
+        return ResponseEntity.ok(responseDTO);
+    }
+    
+    @GetMapping("/search")
+    @Operation(summary = "Search transactions", description = "Retrieves transactions matching every given filter in the requested order, with the query plan used to find them")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Transactions retrieved successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid filter, sort order or limit")
+    })
+    public ResponseEntity<SearchResponseDTO> searchTransactions(
+            @Parameter(description = "Account number")
+            @RequestParam(required = false) String accountNumber,
+            @Parameter(description = "Transaction types, any of which matches")
+            @RequestParam(required = false) List<TransactionType> type,
+            @Parameter(description = "Minimum amount (inclusive)")
+            @RequestParam(required = false) BigDecimal minAmount,
+            @Parameter(description = "Maximum amount (inclusive)")
+            @RequestParam(required = false) BigDecimal maxAmount,
+            @Parameter(description = "Start date, exclusive (ISO format)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @Parameter(description = "End date, exclusive (ISO format)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @Parameter(description = "Sort order", example = "NEWEST_FIRST")
+            @RequestParam(defaultValue = "NEWEST_FIRST") SortOrder sort,
+            @Parameter(description = "Maximum number of transactions (max 1000)", example = "100")
+            @RequestParam(defaultValue = "100") int limit) {
+        TransactionFilter filter = new TransactionFilter(accountNumber, type == null ? null : Set.copyOf(type),
+            minAmount, maxAmount, startDate, endDate);
+        SearchResponseDTO responseDTO = transactionService.searchTransactions(filter, sort, limit);
+        return ResponseEntity.ok(responseDTO);
+    }
+    
     @PutMapping("/{id}")
     @Operation(summary = "Update transaction", description = "Updates an existing transaction")
     @ApiResponses(value = {
@@ -164,7 +297,67 @@ public class TransactionController {
     @ApiResponse(responseCode = "200", description = "Transaction count retrieved successfully")
     public ResponseEntity<Long> getTotalTransactionCount() {
         long count = transactionService.getTotalTransactionCount();
-        return ResponseEntity.ok(count);
+        return statistics(count);
+    }
+    
+    @GetMapping("/statistics/count-matching")
+    @Operation(summary = "Get transaction count by account and types", description = "Retrieves the number of transactions of the account, if given, with any of the given types")
+    @ApiResponse(responseCode = "200", description = "Transaction count retrieved successfully")
+    public ResponseEntity<Long> getTransactionCount(
+            @Parameter(description = "Account number")
+            @RequestParam(required = false) String accountNumber,
+            @Parameter(description = "Transaction types, any of which matches")
+            @RequestParam(required = false) List<TransactionType> type) {
+        long count = transactionService.getTransactionCount(
+            new TransactionFilter(accountNumber, type == null ? null : Set.copyOf(type), null, null, null, null));
+        return statistics(count);
+    }
+    
+    @GetMapping("/statistics/amount-summary")
+    @Operation(summary = "Get amount summary", description = "Retrieves the count, sum, minimum and maximum amount of the transactions matching every given filter")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Amount summary retrieved successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid filter")
+    })
+    public ResponseEntity<AmountSummaryDTO> getAmountSummary(
+            @Parameter(description = "Account number")
+            @RequestParam(required = false) String accountNumber,
+            @Parameter(description = "Transaction types, any of which matches")
+            @RequestParam(required = false) List<TransactionType> type,
+            @Parameter(description = "Minimum amount (inclusive)")
+            @RequestParam(required = false) BigDecimal minAmount,
+            @Parameter(description = "Maximum amount (inclusive)")
+            @RequestParam(required = false) BigDecimal maxAmount,
+            @Parameter(description = "Start date, exclusive (ISO format)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @Parameter(description = "End date, exclusive (ISO format)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+        TransactionFilter filter = new TransactionFilter(accountNumber, type == null ? null : Set.copyOf(type),
+            minAmount, maxAmount, startDate, endDate);
+        AmountSummaryDTO summary = transactionService.getAmountSummary(filter);
+        return statistics(summary);
+    }
+    
+    @GetMapping("/statistics/time-series")
+    @Operation(summary = "Get transaction time series", description = "Retrieves the count and total amount of transactions per minute, hour or day between two dates, optionally for one account and one type")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Time series retrieved successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid date range or too many buckets")
+    })
+    public ResponseEntity<List<TimeBucketDTO>> getTimeSeries(
+            @Parameter(description = "Bucket width", example = "HOUR")
+            @RequestParam(defaultValue = "HOUR") Granularity granularity,
+            @Parameter(description = "Start date; the series starts with the bucket holding it (ISO format)")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @Parameter(description = "End date, exclusive (ISO format)")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @Parameter(description = "Account number")
+            @RequestParam(required = false) String accountNumber,
+            @Parameter(description = "Transaction type")
+            @RequestParam(required = false) TransactionType type) {
+        List<TimeBucketDTO> series = transactionService.getTimeSeries(
+            new TimeSeriesQuery(granularity, startDate, endDate, accountNumber, type));
+        return statistics(series);
     }
     
     @GetMapping("/statistics/count-by-type")
@@ -172,7 +365,7 @@ public class TransactionController {
     @ApiResponse(responseCode = "200", description = "Transaction counts by type retrieved successfully")
     public ResponseEntity<Map<TransactionType, Long>> getTransactionCountByType() {
         Map<TransactionType, Long> counts = transactionService.getTransactionCountByType();
-        return ResponseEntity.ok(counts);
+        return statistics(counts);
     }
     
     @GetMapping("/statistics/count-by-account")
@@ -180,7 +373,7 @@ public class TransactionController {
     @ApiResponse(responseCode = "200", description = "Transaction counts by account retrieved successfully")
     public ResponseEntity<Map<String, Long>> getTransactionCountByAccount() {
         Map<String, Long> counts = transactionService.getTransactionCountByAccount();
-        return ResponseEntity.ok(counts);
+        return statistics(counts);
     }
     
     @GetMapping("/statistics/total-amount")
@@ -188,7 +381,7 @@ public class TransactionController {
     @ApiResponse(responseCode = "200", description = "Total transaction amount retrieved successfully")
     public ResponseEntity<BigDecimal> getTotalTransactionAmount() {
         BigDecimal totalAmount = transactionService.getTotalTransactionAmount();
-        return ResponseEntity.ok(totalAmount);
+        return statistics(totalAmount);
     }
     
     @GetMapping("/statistics/total-amount-by-type/{type}")
@@ -198,7 +391,7 @@ public class TransactionController {
             @Parameter(description = "Transaction type", required = true)
             @PathVariable TransactionType type) {
         BigDecimal totalAmount = transactionService.getTotalAmountByType(type);
-        return ResponseEntity.ok(totalAmount);
+        return statistics(totalAmount);
     }
     
     @GetMapping("/statistics/total-amount-by-account/{accountNumber}")
@@ -208,7 +401,7 @@ public class TransactionController {
             @Parameter(description = "Account number", required = true)
             @PathVariable String accountNumber) {
         BigDecimal totalAmount = transactionService.getTotalAmountByAccount(accountNumber);
-        return ResponseEntity.ok(totalAmount);
+        return statistics(totalAmount);
     }
     
     @DeleteMapping
@@ -218,4 +411,13 @@ public class TransactionController {
         transactionService.deleteAllTransactions();
         return ResponseEntity.noContent().build();
     }
-} 
\ No newline at end of file
+    
+    private <T> ResponseEntity<T> statistics(T body) {
+        if (statisticsMaxStaleness == null) {
+            return ResponseEntity.ok(body);
+        }
+        return ResponseEntity.ok()
+            .header(MAX_STALENESS_HEADER, statisticsMaxStaleness)
+            .body(body);
+    }
+}
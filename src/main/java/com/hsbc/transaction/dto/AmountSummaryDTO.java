@@ -0,0 +1,56 @@
+package com.hsbc.transaction.dto;
+
+import com.hsbc.transaction.repository.AmountSummary;
+
+import java.math.BigDecimal;
+
+public class AmountSummaryDTO {
+    
+    private long count;
+    private BigDecimal sum;
+    private BigDecimal min;
+    private BigDecimal max;
+    
+    public AmountSummaryDTO() {}
+    
+    public AmountSummaryDTO(AmountSummary summary) {
+        this.count = summary.count();
+        this.sum = summary.sum();
+        this.min = summary.min();
+        this.max = summary.max();
+    }
+    
+    // Getters
+    public long getCount() {
+        return count;
+    }
+    
+    public BigDecimal getSum() {
+        return sum;
+    }
+    
+    public BigDecimal getMin() {
+        return min;
+    }
+    
+    public BigDecimal getMax() {
+        return max;
+    }
+    
+    // Setters
+    public void setCount(long count) {
+        this.count = count;
+    }
+    
+    public void setSum(BigDecimal sum) {
+        this.sum = sum;
+    }
+    
+    public void setMin(BigDecimal min) {
+        this.min = min;
+    }
+    
+    public void setMax(BigDecimal max) {
+        this.max = max;
+    }
+}
@@ -0,0 +1,54 @@
+package com.hsbc.transaction.dto;
+
+import java.util.List;
+
+public class CursorPageDTO<T> {
+    
+    private List<T> content;
+    private int size;
+    private String nextCursor;
+    private boolean hasNext;
+    
+    public CursorPageDTO() {}
+    
+    public CursorPageDTO(List<T> content, int size, String nextCursor) {
+        this.content = content;
+        this.size = size;
+        this.nextCursor = nextCursor;
+        this.hasNext = nextCursor != null;
+    }
+    
+    // Getters
+    public List<T> getContent() {
+        return content;
+    }
+    
+    public int getSize() {
+        return size;
+    }
+    
+    public String getNextCursor() {
+        return nextCursor;
+    }
+    
+    public boolean isHasNext() {
+        return hasNext;
+    }
+    
+    // Setters
+    public void setContent(List<T> content) {
+        this.content = content;
+    }
+    
+    public void setSize(int size) {
+        this.size = size;
+    }
+    
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+    
+    public void setHasNext(boolean hasNext) {
+        this.hasNext = hasNext;
+    }
+}
@@ -0,0 +1,76 @@
+package com.hsbc.transaction.dto;
+
+import com.hsbc.transaction.repository.query.QueryPlan;
+
+import java.util.List;
+
+public class QueryPlanDTO {
+    
+    private String accessPath;
+    private long estimatedRowsRead;
+    private long estimatedMatches;
+    private long rowsExamined;
+    private List<String> residualPredicates;
+    private boolean sortedByIndex;
+    
+    public QueryPlanDTO() {}
+    
+    public QueryPlanDTO(QueryPlan plan, long rowsExamined) {
+        this.accessPath = plan.accessPath().name();
+        this.estimatedRowsRead = plan.estimatedRowsRead();
+        this.estimatedMatches = plan.estimatedMatches();
+        this.rowsExamined = rowsExamined;
+        this.residualPredicates = plan.residualPredicates();
+        this.sortedByIndex = plan.sortedByIndex();
+    }
+    
+    // Getters
+    public String getAccessPath() {
+        return accessPath;
+    }
+    
+    public long getEstimatedRowsRead() {
+        return estimatedRowsRead;
+    }
+    
+    public long getEstimatedMatches() {
+        return estimatedMatches;
+    }
+    
+    public long getRowsExamined() {
+        return rowsExamined;
+    }
+    
+    public List<String> getResidualPredicates() {
+        return residualPredicates;
+    }
+    
+    public boolean isSortedByIndex() {
+        return sortedByIndex;
+    }
+    
+    // Setters
+    public void setAccessPath(String accessPath) {
+        this.accessPath = accessPath;
+    }
+    
+    public void setEstimatedRowsRead(long estimatedRowsRead) {
+        this.estimatedRowsRead = estimatedRowsRead;
+    }
+    
+    public void setEstimatedMatches(long estimatedMatches) {
+        this.estimatedMatches = estimatedMatches;
+    }
+    
+    public void setRowsExamined(long rowsExamined) {
+        this.rowsExamined = rowsExamined;
+    }
+    
+    public void setResidualPredicates(List<String> residualPredicates) {
+        this.residualPredicates = residualPredicates;
+    }
+    
+    public void setSortedByIndex(boolean sortedByIndex) {
+        this.sortedByIndex = sortedByIndex;
+    }
+}
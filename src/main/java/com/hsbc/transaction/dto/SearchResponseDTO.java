@@ -0,0 +1,34 @@
+package com.hsbc.transaction.dto;
+
+import java.util.List;
+
+public class SearchResponseDTO {
+    
+    private List<TransactionResponseDTO> content;
+    private QueryPlanDTO plan;
+    
+    public SearchResponseDTO() {}
+    
+    public SearchResponseDTO(List<TransactionResponseDTO> content, QueryPlanDTO plan) {
+        this.content = content;
+        this.plan = plan;
+    }
+    
+    // Getters
+    public List<TransactionResponseDTO> getContent() {
+        return content;
+    }
+    
+    public QueryPlanDTO getPlan() {
+        return plan;
+    }
+    
+    // Setters
+    public void setContent(List<TransactionResponseDTO> content) {
+        this.content = content;
+    }
+    
+    public void setPlan(QueryPlanDTO plan) {
+        this.plan = plan;
+    }
+}
@@ -0,0 +1,47 @@
+package com.hsbc.transaction.dto;
+
+import com.hsbc.transaction.repository.rollup.TimeBucket;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public class TimeBucketDTO {
+    
+    private LocalDateTime bucketStart;
+    private long count;
+    private BigDecimal totalAmount;
+    
+    public TimeBucketDTO() {}
+    
+    public TimeBucketDTO(TimeBucket bucket) {
+        this.bucketStart = bucket.start();
+        this.count = bucket.count();
+        this.totalAmount = bucket.sum();
+    }
+    
+    // Getters
+    public LocalDateTime getBucketStart() {
+        return bucketStart;
+    }
+    
+    public long getCount() {
+        return count;
+    }
+    
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+    
+    // Setters
+    public void setBucketStart(LocalDateTime bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+    
+    public void setCount(long count) {
+        this.count = count;
+    }
+    
+    public void setTotalAmount(BigDecimal totalAmount) {
+        this.totalAmount = totalAmount;
+    }
+}
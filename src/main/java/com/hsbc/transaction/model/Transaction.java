@@ -49,6 +49,16 @@ public class Transaction {
         this.reference = reference;
     }
     
+    public Transaction(Transaction other) {
+        this.id = other.id;
+        this.accountNumber = other.accountNumber;
+        this.amount = other.amount;
+        this.type = other.type;
+        this.description = other.description;
+        this.transactionDate = other.transactionDate;
+        this.reference = other.reference;
+    }
+    
     // Getters
     public Long getId() {
         return id;
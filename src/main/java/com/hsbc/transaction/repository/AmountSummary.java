@@ -0,0 +1,26 @@
+package com.hsbc.transaction.repository;
+
+import com.hsbc.transaction.repository.support.CentsAggregate;
+
+import java.math.BigDecimal;
+
+// Count, sum and range of the amounts of the rows matching a filter; min and max are null when none match.
+public record AmountSummary(long count, BigDecimal sum, BigDecimal min, BigDecimal max) {
+    
+    public static final AmountSummary EMPTY = new AmountSummary(0, BigDecimal.ZERO.setScale(2), null, null);
+    
+    public static AmountSummary of(CentsAggregate aggregate) {
+        return new AmountSummary(aggregate.count(), aggregate.sum(), aggregate.min(), aggregate.max());
+    }
+    
+    // The summary of the rows of both, which must not overlap.
+    public AmountSummary plus(AmountSummary other) {
+        if (other.count == 0) {
+            return this;
+        }
+        if (count == 0) {
+            return other;
+        }
+        return new AmountSummary(count + other.count, sum.add(other.sum), min.min(other.min), max.max(other.max));
+    }
+}
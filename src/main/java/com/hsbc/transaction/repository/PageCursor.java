@@ -0,0 +1,61 @@
+package com.hsbc.transaction.repository;
+
+import com.hsbc.transaction.model.Transaction;
+
+import java.nio.ByteBuffer;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.Comparator;
+
+// Position of the last row of a newest-first page. Listings order rows by date and then id, both descending, so
+// the order is total and a page resumes exactly after the cursor however many rows were added before it.
+public record PageCursor(LocalDateTime transactionDate, long id) {
+    
+    public static final Comparator<Transaction> NEWEST_FIRST = Comparator
+            .comparing(Transaction::getTransactionDate)
+            .thenComparing(Transaction::getId)
+            .reversed();
+    
+    // Epoch second, nano of second and id.
+    private static final int TOKEN_BYTES = Long.BYTES + Integer.BYTES + Long.BYTES;
+    
+    public static PageCursor of(Transaction transaction) {
+        return new PageCursor(transaction.getTransactionDate(), transaction.getId());
+    }
+    
+    // True if a row with this date and id is ordered after the cursor, that is, belongs to a later page.
+    public boolean precedes(LocalDateTime transactionDate, long id) {
+        int order = transactionDate.compareTo(this.transactionDate);
+        return order < 0 || order == 0 && id < this.id;
+    }
+    
+    public boolean precedes(Transaction transaction) {
+        return precedes(transaction.getTransactionDate(), transaction.getId());
+    }
+    
+    // URL-safe token handed to clients; its layout is not part of the API.
+    public String encode() {
+        ByteBuffer token = ByteBuffer.allocate(TOKEN_BYTES)
+                .putLong(transactionDate.toEpochSecond(ZoneOffset.UTC))
+                .putInt(transactionDate.getNano())
+                .putLong(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.array());
+    }
+    
+    public static PageCursor decode(String token) {
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(token);
+            if (bytes.length != TOKEN_BYTES) {
+                throw new IllegalArgumentException("Invalid page cursor");
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            long epochSecond = buffer.getLong();
+            int nanos = buffer.getInt();
+            return new PageCursor(LocalDateTime.ofEpochSecond(epochSecond, nanos, ZoneOffset.UTC), buffer.getLong());
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new IllegalArgumentException("Invalid page cursor", e);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.hsbc.transaction.repository;
+
+import com.hsbc.transaction.model.Transaction;
+import com.hsbc.transaction.model.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Rows covered by a listing; null fields are unconstrained. A row matches types if its type is any of them.
+// Amount bounds are inclusive and date bounds exclusive, as in findByAmountBetween and findByDateBetween.
+public record TransactionFilter(String accountNumber, Set<TransactionType> types, BigDecimal minAmount,
+                                BigDecimal maxAmount, LocalDateTime startDate, LocalDateTime endDate) {
+    
+    public TransactionFilter {
+        types = types == null || types.isEmpty() ? null : Collections.unmodifiableSet(EnumSet.copyOf(types));
+    }
+    
+    public static TransactionFilter all() {
+        return new TransactionFilter(null, null, null, null, null, null);
+    }
+    
+    public static TransactionFilter account(String accountNumber) {
+        return new TransactionFilter(accountNumber, null, null, null, null, null);
+    }
+    
+    public static TransactionFilter type(TransactionType type) {
+        return new TransactionFilter(null, EnumSet.of(type), null, null, null, null);
+    }
+    
+    public static TransactionFilter types(Set<TransactionType> types) {
+        return new TransactionFilter(null, types, null, null, null, null);
+    }
+    
+    public static TransactionFilter amountBetween(BigDecimal minAmount, BigDecimal maxAmount) {
+        return new TransactionFilter(null, null, minAmount, maxAmount, null, null);
+    }
+    
+    public static TransactionFilter dateBetween(LocalDateTime startDate, LocalDateTime endDate) {
+        return new TransactionFilter(null, null, null, null, startDate, endDate);
+    }
+    
+    // The constrained predicates in a readable form, for query plans.
+    public List<String> predicates() {
+        List<String> predicates = new ArrayList<>();
+        if (accountNumber != null) {
+            predicates.add("accountNumber = " + accountNumber);
+        }
+        if (types != null && types.size() == 1) {
+            predicates.add("type = " + types.iterator().next());
+        } else if (types != null) {
+            predicates.add(types.stream().map(Enum::name).collect(Collectors.joining(", ", "type IN (", ")")));
+        }
+        if (minAmount != null) {
+            predicates.add("amount >= " + minAmount.toPlainString());
+        }
+        if (maxAmount != null) {
+            predicates.add("amount <= " + maxAmount.toPlainString());
+        }
+        if (startDate != null) {
+            predicates.add("transactionDate > " + startDate);
+        }
+        if (endDate != null) {
+            predicates.add("transactionDate < " + endDate);
+        }
+        return predicates;
+    }
+    
+    public boolean matches(Transaction transaction) {
+        return (accountNumber == null || accountNumber.equals(transaction.getAccountNumber()))
+                && (types == null || types.contains(transaction.getType()))
+                && (minAmount == null || transaction.getAmount().compareTo(minAmount) >= 0)
+                && (maxAmount == null || transaction.getAmount().compareTo(maxAmount) <= 0)
+                && (startDate == null || transaction.getTransactionDate().isAfter(startDate))
+                && (endDate == null || transaction.getTransactionDate().isBefore(endDate));
+    }
+}
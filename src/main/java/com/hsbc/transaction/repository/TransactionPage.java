@@ -0,0 +1,8 @@
+package com.hsbc.transaction.repository;
+
+import com.hsbc.transaction.model.Transaction;
+
+import java.util.List;
+
+public record TransactionPage(List<Transaction> content, long totalElements) {
+}
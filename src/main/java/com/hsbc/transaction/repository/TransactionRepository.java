@@ -2,136 +2,556 @@ package com.hsbc.transaction.repository;
 
 import com.hsbc.transaction.model.Transaction;
 import com.hsbc.transaction.model.TransactionType;
+import com.hsbc.transaction.repository.id.IdAllocator;
+import com.hsbc.transaction.repository.index.AccountIndex;
+import com.hsbc.transaction.repository.index.AggregateRegistry;
+import com.hsbc.transaction.repository.index.AmountIndex;
+import com.hsbc.transaction.repository.index.BitmapIndex;
+import com.hsbc.transaction.repository.index.TimeIndex;
+import com.hsbc.transaction.repository.index.TimeKey;
+import com.hsbc.transaction.repository.index.TimeRollups;
+import com.hsbc.transaction.repository.index.TypePartition;
+import com.hsbc.transaction.repository.index.TypePartitions;
+import com.hsbc.transaction.repository.mvcc.RowVersion;
+import com.hsbc.transaction.repository.mvcc.SnapshotRegistry;
+import com.hsbc.transaction.repository.query.Cardinalities;
+import com.hsbc.transaction.repository.query.QueryPlan;
+import com.hsbc.transaction.repository.query.QueryPlanner;
+import com.hsbc.transaction.repository.query.SearchResult;
+import com.hsbc.transaction.repository.query.SortOrder;
+import com.hsbc.transaction.repository.query.TransactionQuery;
+import com.hsbc.transaction.repository.rollup.TimeBucket;
+import com.hsbc.transaction.repository.rollup.TimeSeriesBuilder;
+import com.hsbc.transaction.repository.rollup.TimeSeriesQuery;
+import com.hsbc.transaction.repository.support.AccountDictionary;
+import com.hsbc.transaction.repository.support.Cents;
+import com.hsbc.transaction.repository.support.CentsAggregate;
+import com.hsbc.transaction.repository.support.EpochMicros;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.Collectors;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 @Repository
-public class TransactionRepository {
+public class TransactionRepository implements TransactionStore {
     
-    private final Map<Long, Transaction> transactions = new ConcurrentHashMap<>();
-    private final AtomicLong idGenerator = new AtomicLong(1);
+    public static final int DEFAULT_ID_BLOCK_SIZE = 64;
     
+    private static final Comparator<Transaction> NEWEST_FIRST =
+            Comparator.comparing(Transaction::getTransactionDate).reversed();
+    // Replaced versions are reclaimed in batches so the pinned snapshots are scanned once per batch.
+    private static final int RECLAIM_BATCH = 64;
+    
+    // Rows are immutable versions stamped with a commit sequence. Writers take commitLock, publish the new
+    // version into the map and indexes and only then advance commit, so a reader that takes commit once sees
+    // exactly the commits up to it without locking. Indexes keep replaced versions until no pinned snapshot
+    // can see them; readers check each entry against their snapshot.
+    private final Map<Long, RowVersion> transactions = new ConcurrentHashMap<>();
+    // Codes are kept across deleteAll so rows and indexes never disagree about an account's code.
+    private final AccountDictionary accounts = new AccountDictionary();
+    private final AccountIndex accountIndex = new AccountIndex();
+    private final TimeIndex timeIndex = new TimeIndex();
+    private final AmountIndex amountIndex = new AmountIndex();
+    private final TypePartitions typePartitions = new TypePartitions();
+    private final BitmapIndex bitmaps = new BitmapIndex();
+    private final AggregateRegistry aggregates = new AggregateRegistry(accounts);
+    private final TimeRollups rollups = new TimeRollups();
+    private final IdAllocator idAllocator;
+    private final ReentrantLock commitLock = new ReentrantLock();
+    private final SnapshotRegistry snapshots = new SnapshotRegistry();
+    private final Cardinalities cardinalities = new IndexCardinalities();
+    // The version each commit wrote and the one it replaced or deleted, oldest first; guarded by commitLock.
+    private final ArrayDeque<Retired> retired = new ArrayDeque<>();
+    private volatile Commit commit = new Commit(0, 0);
+    
+    public TransactionRepository() {
+        this(1, 1);
+    }
+    
+    // Hands out firstId, firstId + idStride, ... so several repositories can share one id space without overlap.
+    public TransactionRepository(long firstId, int idStride) {
+        this(IdAllocator.sequential(firstId, idStride, DEFAULT_ID_BLOCK_SIZE));
+    }
+    
+    @Autowired
+    public TransactionRepository(IdAllocator idAllocator) {
+        this.idAllocator = idAllocator;
+    }
+    
+    @Override
     public Transaction save(Transaction transaction) {
+        long amountCents = Cents.of(transaction.getAmount());
+        int accountCode = accounts.encode(transaction.getAccountNumber());
+        // Rows share the dictionary's instance rather than each holding its own copy of the account string.
+        transaction.setAccountNumber(accounts.decode(accountCode));
         if (transaction.getId() == null) {
-            transaction.setId(idGenerator.getAndIncrement());
+            transaction.setId(idAllocator.next());
+        } else {
+            idAllocator.observe(transaction.getId());
+        }
+        // The stored row is a private copy, so later changes to the caller's instance are only seen once saved.
+        Transaction row = new Transaction(transaction);
+        commitLock.lock();
+        try {
+            long seq = commit.seq() + 1;
+            RowVersion previous = transactions.get(row.getId());
+            int slot = previous != null ? previous.slot() : bitmaps.allocate();
+            RowVersion current = new RowVersion(row, accountCode, amountCents, slot, seq, previous);
+            long count = commit.count();
+            if (previous == null || !previous.isLive()) {
+                index(current);
+                count++;
+                retired.add(new Retired(seq, previous, current));
+            } else {
+                previous.end(seq);
+                reindex(previous, current);
+                retired.add(new Retired(seq, previous, current));
+            }
+            transactions.put(row.getId(), current);
+            publish(seq, count);
+        } finally {
+            commitLock.unlock();
         }
-        transactions.put(transaction.getId(), transaction);
         return transaction;
     }
     
+    @Override
     public Optional<Transaction> findById(Long id) {
-        return Optional.ofNullable(transactions.get(id));
+        return read(snapshot -> Optional.ofNullable(visible(id, snapshot.seq())).map(RowVersion::materialize));
     }
     
+    @Override
     public List<Transaction> findAll() {
-        return new ArrayList<>(transactions.values());
+        return read(snapshot -> {
+            List<Transaction> rows = new ArrayList<>();
+            for (RowVersion head : transactions.values()) {
+                RowVersion version = head.at(snapshot.seq());
+                if (version != null) {
+                    rows.add(version.materialize());
+                }
+            }
+            return rows;
+        });
     }
     
+    @Override
     public List<Transaction> findAll(int page, int size) {
-        List<Transaction> allTransactions = findAll();
-        allTransactions.sort(Comparator.comparing(Transaction::getTransactionDate).reversed());
-        
-        int start = page * size;
-        int end = Math.min(start + size, allTransactions.size());
-        
-        if (start >= allTransactions.size()) {
-            return Collections.emptyList();
-        }
-        
-        return allTransactions.subList(start, end);
+        return read(snapshot -> timeIndex.page((long) page * size, size, snapshot.seq()));
+    }
+    
+    @Override
+    public TransactionPage findPage(int page, int size) {
+        return read(snapshot -> new TransactionPage(timeIndex.page((long) page * size, size, snapshot.seq()), snapshot.count()));
     }
     
+    @Override
+    public List<Transaction> findAfter(TransactionFilter filter, PageCursor after, int limit) {
+        return execute(new TransactionQuery(filter, SortOrder.NEWEST_FIRST, limit), after).content();
+    }
+    
+    @Override
+    public SearchResult search(TransactionQuery query) {
+        return execute(query, null);
+    }
+    
+    @Override
     public List<Transaction> findByAccountNumber(String accountNumber) {
-        return transactions.values().stream()
-                .filter(t -> t.getAccountNumber().equals(accountNumber))
-                .sorted(Comparator.comparing(Transaction::getTransactionDate).reversed())
-                .collect(Collectors.toList());
+        return findByAccount(accountNumber, null);
     }
     
+    @Override
     public List<Transaction> findByType(TransactionType type) {
-        return transactions.values().stream()
-                .filter(t -> t.getType() == type)
-                .sorted(Comparator.comparing(Transaction::getTransactionDate).reversed())
-                .collect(Collectors.toList());
+        return read(snapshot -> typePartitions.get(type).newestFirst(snapshot.seq()));
     }
     
+    @Override
     public List<Transaction> findByAmountBetween(BigDecimal minAmount, BigDecimal maxAmount) {
-        return transactions.values().stream()
-                .filter(t -> t.getAmount().compareTo(minAmount) >= 0 && t.getAmount().compareTo(maxAmount) <= 0)
-                .sorted(Comparator.comparing(Transaction::getTransactionDate).reversed())
-                .collect(Collectors.toList());
+        List<Transaction> rows = read(snapshot -> amountIndex.band(minAmount, maxAmount, snapshot.seq()));
+        rows.sort(NEWEST_FIRST);
+        return rows;
+    }
+    
+    @Override
+    public long estimateCountByAmountBetween(BigDecimal minAmount, BigDecimal maxAmount) {
+        return amountIndex.estimateCount(minAmount, maxAmount);
     }
     
+    @Override
     public List<Transaction> findByDateBetween(LocalDateTime startDate, LocalDateTime endDate) {
-        return transactions.values().stream()
-                .filter(t -> t.getTransactionDate().isAfter(startDate) && t.getTransactionDate().isBefore(endDate))
-                .sorted(Comparator.comparing(Transaction::getTransactionDate).reversed())
-                .collect(Collectors.toList());
+        return read(snapshot -> timeIndex.between(startDate, endDate, snapshot.seq()));
     }
     
+    @Override
     public List<Transaction> findByAccountNumberAndType(String accountNumber, TransactionType type) {
-        return transactions.values().stream()
-                .filter(t -> t.getAccountNumber().equals(accountNumber) && t.getType() == type)
-                .sorted(Comparator.comparing(Transaction::getTransactionDate).reversed())
-                .collect(Collectors.toList());
+        return findByAccount(accountNumber, type);
     }
     
+    @Override
     public boolean existsById(Long id) {
-        return transactions.containsKey(id);
+        return read(snapshot -> visible(id, snapshot.seq()) != null);
     }
     
+    @Override
     public void deleteById(Long id) {
-        transactions.remove(id);
+        commitLock.lock();
+        try {
+            RowVersion previous = transactions.get(id);
+            if (previous == null || !previous.isLive()) {
+                return;
+            }
+            long seq = commit.seq() + 1;
+            previous.end(seq);
+            unaccount(previous);
+            bitmaps.delete(previous);
+            retired.add(new Retired(seq, previous, null));
+            publish(seq, commit.count() - 1);
+        } finally {
+            commitLock.unlock();
+        }
     }
     
+    @Override
     public void deleteAll() {
-        transactions.clear();
-        idGenerator.set(1);
+        commitLock.lock();
+        try {
+            transactions.clear();
+            accountIndex.clear();
+            timeIndex.clear();
+            amountIndex.clear();
+            typePartitions.clear();
+            bitmaps.clear();
+            aggregates.clear();
+            rollups.clear();
+            retired.clear();
+            idAllocator.reset();
+            commit = new Commit(commit.seq() + 1, 0);
+        } finally {
+            commitLock.unlock();
+        }
     }
     
+    @Override
     public long count() {
-        return transactions.size();
+        return commit.count();
     }
     
+    // Account and type filters are counted on the bitmaps, from their cardinality alone when nothing else is
+    // filtered; other filters read the rows from the path the planner picks.
+    @Override
+    public long count(TransactionFilter filter) {
+        if (filter.accountNumber() == null && filter.types() == null) {
+            return filter.predicates().isEmpty() ? count()
+                    : execute(new TransactionQuery(filter, SortOrder.NEWEST_FIRST, Integer.MAX_VALUE), null).content().size();
+        }
+        int accountCode = filter.accountNumber() == null ? AccountDictionary.MISSING : accounts.lookup(filter.accountNumber());
+        if (filter.accountNumber() != null && accountCode == AccountDictionary.MISSING) {
+            return 0;
+        }
+        boolean keysOnly = filter.minAmount() == null && filter.maxAmount() == null
+                && filter.startDate() == null && filter.endDate() == null;
+        Predicate<RowVersion> matches = matcher(filter, accountCode, null);
+        return read(snapshot -> bitmaps.count(accountCode, filter.types(), snapshot.seq(), matches, keysOnly));
+    }
+    
+    // The matching rows come from the path the planner picks, as for a search, and only their cents are reduced.
+    @Override
+    public AmountSummary summarize(TransactionFilter filter) {
+        TransactionQuery query = new TransactionQuery(filter, SortOrder.NEWEST_FIRST, Integer.MAX_VALUE);
+        QueryPlan plan = QueryPlanner.plan(query, cardinalities);
+        CentsAggregate aggregate = new CentsAggregate();
+        read(snapshot -> {
+            for (RowVersion version : select(query, plan, null, snapshot.seq(), new long[1])) {
+                aggregate.add(version.amountCents());
+            }
+            return null;
+        });
+        return AmountSummary.of(aggregate);
+    }
+    
+    // Rollups cover all rows, one type or one account; an account and type together are bucketed from the
+    // account's rows in the query's time range.
+    @Override
+    public List<TimeBucket> timeSeries(TimeSeriesQuery query) {
+        int accountCode = query.accountNumber() == null ? AccountDictionary.MISSING : accounts.lookup(query.accountNumber());
+        if (query.accountNumber() != null && accountCode == AccountDictionary.MISSING) {
+            return new TimeSeriesBuilder(query).build();
+        }
+        if (query.accountNumber() == null || query.type() == null) {
+            int dimension = query.accountNumber() != null ? TimeRollups.account(accountCode)
+                    : query.type() != null ? TimeRollups.type(query.type()) : TimeRollups.all();
+            return rollups.series(query, dimension);
+        }
+        TransactionFilter filter = new TransactionFilter(query.accountNumber(), Set.of(query.type()), null, null,
+                query.granularity().startOf(query.firstBucket()).minusNanos(1), query.granularity().startOf(query.lastBucket() + 1));
+        TransactionQuery rows = new TransactionQuery(filter, SortOrder.NEWEST_FIRST, Integer.MAX_VALUE);
+        QueryPlan plan = QueryPlanner.plan(rows, cardinalities);
+        TimeSeriesBuilder builder = new TimeSeriesBuilder(query);
+        read(snapshot -> {
+            for (RowVersion version : select(rows, plan, null, snapshot.seq(), new long[1])) {
+                builder.add(EpochMicros.floor(version.transactionDate()), version.amountCents());
+            }
+            return null;
+        });
+        return builder.build();
+    }
+    
+    @Override
     public Map<TransactionType, Long> countByType() {
-        return transactions.values().stream()
-                .collect(Collectors.groupingBy(
-                    Transaction::getType,
-                    Collectors.counting()
-                ));
+        return typePartitions.counts();
     }
     
+    @Override
     public Map<String, Long> countByAccountNumber() {
-        return transactions.values().stream()
-                .collect(Collectors.groupingBy(
-                    Transaction::getAccountNumber,
-                    Collectors.counting()
-                ));
+        return aggregates.countsByAccount();
     }
     
+    @Override
     public BigDecimal getTotalAmount() {
-        return transactions.values().stream()
-                .map(Transaction::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return aggregates.totalAmount();
     }
     
+    @Override
     public BigDecimal getTotalAmountByType(TransactionType type) {
-        return transactions.values().stream()
-                .filter(t -> t.getType() == type)
-                .map(Transaction::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return typePartitions.get(type).aggregate().sum();
     }
     
+    @Override
     public BigDecimal getTotalAmountByAccountNumber(String accountNumber) {
-        return transactions.values().stream()
-                .filter(t -> t.getAccountNumber().equals(accountNumber))
-                .map(Transaction::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        int accountCode = accounts.lookup(accountNumber);
+        return accountCode == AccountDictionary.MISSING ? BigDecimal.ZERO : aggregates.totalAmount(accountCode);
+    }
+    
+    @Override
+    public long nextId() {
+        return idAllocator.nextId();
+    }
+    
+    @Override
+    public void advanceNextId(long nextId) {
+        idAllocator.advance(nextId);
+    }
+    
+    // Pins the current commit for the duration of the query so that no version it can see is reclaimed.
+    private <T> T read(Function<Commit, T> query) {
+        SnapshotRegistry.Slot slot = snapshots.pin(commit.seq());
+        try {
+            return query.apply(commit);
+        } finally {
+            snapshots.unpin(slot);
+        }
+    }
+    
+    private RowVersion visible(Long id, long snapshot) {
+        RowVersion head = transactions.get(id);
+        return head != null ? head.at(snapshot) : null;
+    }
+    
+    private SearchResult execute(TransactionQuery query, PageCursor after) {
+        QueryPlan plan = QueryPlanner.plan(query, cardinalities);
+        long[] examined = new long[1];
+        List<RowVersion> versions = read(snapshot -> select(query, plan, after, snapshot.seq(), examined));
+        if (!plan.sortedByIndex()) {
+            versions.sort(versionOrder(query.sort()));
+            versions = versions.subList(0, Math.min(query.limit(), versions.size()));
+        }
+        return new SearchResult(RowVersion.materialize(versions), plan, examined[0]);
+    }
+    
+    // Reads the rows from the path the planner chose and checks every predicate on each of them; the one the path
+    // answers by itself always holds. Time bounds and the cursor also narrow walks over time-ordered paths.
+    // The versions come in path order, cut at the limit only when the path yields the query's order.
+    private List<RowVersion> select(TransactionQuery query, QueryPlan plan, PageCursor after, long snapshot, long[] examined) {
+        TransactionFilter filter = query.filter();
+        int accountCode = filter.accountNumber() == null ? AccountDictionary.MISSING : accounts.lookup(filter.accountNumber());
+        if (filter.accountNumber() != null && accountCode == AccountDictionary.MISSING) {
+            return new ArrayList<>();
+        }
+        long lowCents = filter.minAmount() == null ? Long.MIN_VALUE : Cents.ceil(filter.minAmount());
+        long highCents = filter.maxAmount() == null ? Long.MAX_VALUE : Cents.floor(filter.maxAmount());
+        TimeKey newest = after == null ? null : new TimeKey(after.transactionDate(), after.id());
+        if (filter.endDate() != null) {
+            TimeKey end = TimeKey.lowerBound(filter.endDate());
+            newest = newest == null || end.compareTo(newest) < 0 ? end : newest;
+        }
+        TimeKey oldest = filter.startDate() == null ? null : TimeKey.upperBound(filter.startDate());
+        boolean newestFirst = query.sort() != SortOrder.OLDEST_FIRST;
+        TimeKey start = newestFirst ? newest : oldest;
+        TimeKey stop = newestFirst ? oldest : newest;
+        
+        Predicate<RowVersion> filtered = matcher(filter, accountCode, after);
+        Predicate<RowVersion> matches = version -> {
+            examined[0]++;
+            return filtered.test(version);
+        };
+        int fetch = plan.sortedByIndex() ? query.limit() : Integer.MAX_VALUE;
+        return switch (plan.accessPath()) {
+            case ACCOUNT_INDEX -> accountIndex.range(accountCode, newestFirst, start, stop, fetch, snapshot, matches);
+            case TYPE_INDEX -> typePartitions.get(filter.types().iterator().next())
+                    .range(newestFirst, start, stop, fetch, snapshot, matches);
+            case BITMAP_INDEX -> bitmaps.select(accountCode, filter.types(), snapshot, matches);
+            case AMOUNT_INDEX -> amountIndex.range(query.sort() == SortOrder.LARGEST_FIRST, lowCents, highCents, fetch,
+                    snapshot, matches);
+            default -> timeIndex.range(newestFirst, start, stop, fetch, snapshot, matches);
+        };
+    }
+    
+    private static Predicate<RowVersion> matcher(TransactionFilter filter, int accountCode, PageCursor after) {
+        long lowCents = filter.minAmount() == null ? Long.MIN_VALUE : Cents.ceil(filter.minAmount());
+        long highCents = filter.maxAmount() == null ? Long.MAX_VALUE : Cents.floor(filter.maxAmount());
+        return version -> (accountCode == AccountDictionary.MISSING || version.accountCode() == accountCode)
+                && (filter.types() == null || filter.types().contains(version.type()))
+                && version.amountCents() >= lowCents && version.amountCents() <= highCents
+                && (filter.startDate() == null || version.transactionDate().isAfter(filter.startDate()))
+                && (filter.endDate() == null || version.transactionDate().isBefore(filter.endDate()))
+                && (after == null || after.precedes(version.transactionDate(), version.id()));
+    }
+    
+    private static Comparator<RowVersion> versionOrder(SortOrder sort) {
+        return switch (sort) {
+            case NEWEST_FIRST -> Comparator.comparing(RowVersion::transactionDate).thenComparingLong(RowVersion::id).reversed();
+            case OLDEST_FIRST -> Comparator.comparing(RowVersion::transactionDate).thenComparingLong(RowVersion::id);
+            case LARGEST_FIRST -> Comparator.comparingLong(RowVersion::amountCents).thenComparingLong(RowVersion::id).reversed();
+            case SMALLEST_FIRST -> Comparator.comparingLong(RowVersion::amountCents).thenComparingLong(RowVersion::id);
+        };
+    }
+    
+    private List<Transaction> findByAccount(String accountNumber, TransactionType type) {
+        int accountCode = accounts.lookup(accountNumber);
+        if (accountCode == AccountDictionary.MISSING) {
+            return new ArrayList<>();
+        }
+        return read(snapshot -> RowVersion.materialize(accountIndex.range(accountCode, true, null, null,
+                Integer.MAX_VALUE, snapshot.seq(), version -> type == null || version.type() == type)));
+    }
+    
+    private void publish(long seq, long count) {
+        commit = new Commit(seq, count);
+        if (retired.size() >= RECLAIM_BATCH) {
+            reclaim(snapshots.oldest(seq));
+        }
+    }
+    
+    // Drops every version that ended at or before the oldest pinned snapshot from the map and indexes, and
+    // settles the bitmap slots of rows whose newest version every snapshot now sees.
+    private void reclaim(long horizon) {
+        while (!retired.isEmpty() && retired.peekFirst().seq() <= horizon) {
+            Retired entry = retired.pollFirst();
+            RowVersion previous = entry.previous();
+            RowVersion current = entry.current();
+            if (current != null) {
+                current.forgetPrevious();
+            } else {
+                transactions.remove(previous.id(), previous);
+            }
+            if (previous != null) {
+                timeIndex.unlink(previous);
+                amountIndex.unlink(previous);
+                typePartitions.get(previous.type()).unlink(previous);
+                accountIndex.unlink(previous);
+                bitmaps.unlink(previous, transactions.get(previous.id()));
+            }
+            if (current != null && transactions.get(current.id()) == current) {
+                bitmaps.settle(current);
+            }
+        }
+    }
+    
+    private void index(RowVersion current) {
+        bitmaps.put(current, null);
+        accountIndex.put(current);
+        timeIndex.put(current);
+        amountIndex.put(current);
+        amountIndex.countRow(current.amountCents());
+        TypePartition partition = typePartitions.get(current.type());
+        partition.put(current);
+        partition.aggregate().add(current.amountCents());
+        aggregates.add(current.accountCode(), current.amountCents());
+        rollups.add(EpochMicros.floor(current.transactionDate()), current.type(), current.accountCode(), current.amountCents());
+    }
+    
+    // Entries under keys the row has left stay in place for older snapshots until reclaim() unlinks them.
+    private void reindex(RowVersion previous, RowVersion current) {
+        bitmaps.put(current, previous);
+        accountIndex.put(current);
+        timeIndex.put(current);
+        amountIndex.put(current);
+        if (previous.amountCents() != current.amountCents()) {
+            amountIndex.uncountRow(previous.amountCents());
+            amountIndex.countRow(current.amountCents());
+        }
+        TypePartition partition = typePartitions.get(current.type());
+        partition.put(current);
+        if (previous.type() != current.type()) {
+            typePartitions.get(previous.type()).aggregate().remove(previous.amountCents());
+            partition.aggregate().add(current.amountCents());
+        } else {
+            partition.aggregate().adjust(previous.amountCents(), current.amountCents());
+        }
+        aggregates.update(previous.accountCode(), previous.amountCents(),
+                current.accountCode(), current.amountCents());
+        if (!previous.transactionDate().equals(current.transactionDate()) || previous.type() != current.type()
+                || previous.accountCode() != current.accountCode() || previous.amountCents() != current.amountCents()) {
+            rollups.remove(EpochMicros.floor(previous.transactionDate()), previous.type(), previous.accountCode(), previous.amountCents());
+            rollups.add(EpochMicros.floor(current.transactionDate()), current.type(), current.accountCode(), current.amountCents());
+        }
+    }
+    
+    private void unaccount(RowVersion previous) {
+        amountIndex.uncountRow(previous.amountCents());
+        typePartitions.get(previous.type()).aggregate().remove(previous.amountCents());
+        aggregates.remove(previous.accountCode(), previous.amountCents());
+        rollups.remove(EpochMicros.floor(previous.transactionDate()), previous.type(), previous.accountCode(), previous.amountCents());
+    }
+    
+    // Counts for the planner: exact for accounts and types, from the bitmaps for the two together, from the
+    // histogram for amounts and interpolated between the oldest and newest row for dates.
+    private final class IndexCardinalities implements Cardinalities {
+    
+        @Override
+        public long rows() {
+            return commit.count();
+        }
+    
+        @Override
+        public long account(String accountNumber) {
+            int accountCode = accounts.lookup(accountNumber);
+            return accountCode == AccountDictionary.MISSING ? 0 : aggregates.count(accountCode);
+        }
+    
+        @Override
+        public long type(TransactionType type) {
+            return typePartitions.get(type).aggregate().count();
+        }
+    
+        @Override
+        public long accountAndTypes(String accountNumber, Set<TransactionType> types) {
+            int accountCode = accountNumber == null ? AccountDictionary.MISSING : accounts.lookup(accountNumber);
+            if (accountNumber != null && accountCode == AccountDictionary.MISSING) {
+                return 0;
+            }
+            return types == null ? aggregates.count(accountCode) : bitmaps.estimate(accountCode, types);
+        }
+    
+        @Override
+        public long amountBetween(long lowCents, long highCents) {
+            return amountIndex.estimateCount(lowCents, highCents);
+        }
+    
+        @Override
+        public long dateBetween(LocalDateTime startDate, LocalDateTime endDate) {
+            return timeIndex.estimateCount(startDate, endDate, commit.count());
+        }
+    }
+    
+    private record Commit(long seq, long count) {
+    }
+    
+    private record Retired(long seq, RowVersion previous, RowVersion current) {
     }
-} 
\ No newline at end of file
+}
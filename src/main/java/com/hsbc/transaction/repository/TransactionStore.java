@@ -0,0 +1,124 @@
+package com.hsbc.transaction.repository;
+
+import com.hsbc.transaction.model.Transaction;
+import com.hsbc.transaction.model.TransactionType;
+import com.hsbc.transaction.repository.query.QueryPlan;
+import com.hsbc.transaction.repository.query.SearchResult;
+import com.hsbc.transaction.repository.query.TransactionQuery;
+import com.hsbc.transaction.repository.rollup.TimeBucket;
+import com.hsbc.transaction.repository.rollup.TimeSeriesBuilder;
+import com.hsbc.transaction.repository.rollup.TimeSeriesQuery;
+import com.hsbc.transaction.repository.support.Cents;
+import com.hsbc.transaction.repository.support.CentsAggregate;
+import com.hsbc.transaction.repository.support.EpochMicros;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+public interface TransactionStore {
+    
+    Transaction save(Transaction transaction);
+    
+    Optional<Transaction> findById(Long id);
+    
+    List<Transaction> findAll();
+    
+    List<Transaction> findAll(int page, int size);
+    
+    // A page and the total row count taken at one point in time; engines that cannot guarantee that read them
+    // one after the other.
+    default TransactionPage findPage(int page, int size) {
+        return new TransactionPage(findAll(page, size), count());
+    }
+    
+    // Up to limit rows matching the filter, newest first, starting after the cursor (null for the first page).
+    // Engines override this to seek to the cursor instead of filtering and sorting a full listing.
+    default List<Transaction> findAfter(TransactionFilter filter, PageCursor after, int limit) {
+        return findAll().stream()
+                .filter(filter::matches)
+                .filter(transaction -> after == null || after.precedes(transaction))
+                .sorted(PageCursor.NEWEST_FIRST)
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+    
+    // Rows matching the query's filter in its order, with the plan used to find them. Engines with indexes plan
+    // the query; the default scans every row.
+    default SearchResult search(TransactionQuery query) {
+        List<Transaction> all = findAll();
+        List<Transaction> content = all.stream()
+                .filter(query.filter()::matches)
+                .sorted(query.sort().comparator())
+                .limit(query.limit())
+                .collect(Collectors.toList());
+        return new SearchResult(content, QueryPlan.fullScan(query, all.size()), all.size());
+    }
+    
+    List<Transaction> findByAccountNumber(String accountNumber);
+    
+    List<Transaction> findByType(TransactionType type);
+    
+    List<Transaction> findByAmountBetween(BigDecimal minAmount, BigDecimal maxAmount);
+    
+    long estimateCountByAmountBetween(BigDecimal minAmount, BigDecimal maxAmount);
+    
+    List<Transaction> findByDateBetween(LocalDateTime startDate, LocalDateTime endDate);
+    
+    List<Transaction> findByAccountNumberAndType(String accountNumber, TransactionType type);
+    
+    boolean existsById(Long id);
+    
+    void deleteById(Long id);
+    
+    void deleteAll();
+    
+    long count();
+    
+    // Rows matching the filter. Engines with bitmap or scan-friendly layouts count without materialising rows.
+    default long count(TransactionFilter filter) {
+        return findAll().stream().filter(filter::matches).count();
+    }
+    
+    // Count, sum and range of the amounts of the rows matching the filter. The default streams every row;
+    // engines reduce their primitive cents instead.
+    default AmountSummary summarize(TransactionFilter filter) {
+        CentsAggregate aggregate = new CentsAggregate();
+        findAll().stream()
+                .filter(filter::matches)
+                .mapToLong(transaction -> Cents.of(transaction.getAmount()))
+                .forEach(aggregate::add);
+        return AmountSummary.of(aggregate);
+    }
+    
+    // Row count and amount in every bucket of the query. The default scans every row; engines read rollups
+    // kept up to date by each write.
+    default List<TimeBucket> timeSeries(TimeSeriesQuery query) {
+        TimeSeriesBuilder builder = new TimeSeriesBuilder(query);
+        for (Transaction transaction : findAll()) {
+            if ((query.accountNumber() == null || query.accountNumber().equals(transaction.getAccountNumber()))
+                    && (query.type() == null || query.type() == transaction.getType())) {
+                builder.add(EpochMicros.floor(transaction.getTransactionDate()), Cents.of(transaction.getAmount()));
+            }
+        }
+        return builder.build();
+    }
+    
+    Map<TransactionType, Long> countByType();
+    
+    Map<String, Long> countByAccountNumber();
+    
+    BigDecimal getTotalAmount();
+    
+    BigDecimal getTotalAmountByType(TransactionType type);
+    
+    BigDecimal getTotalAmountByAccountNumber(String accountNumber);
+    
+    // Id the next save without an id would be given; persisted by snapshots so ids are never reused.
+    long nextId();
+    
+    void advanceNextId(long nextId);
+}
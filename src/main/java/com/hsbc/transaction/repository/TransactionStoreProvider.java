@@ -0,0 +1,26 @@
+package com.hsbc.transaction.repository;
+
+import java.util.function.Supplier;
+
+// Storage engine SPI. Every engine is registered as a provider bean and transaction.storage.mode
+// selects one by name, so a new engine plugs in without touching the service layer.
+public interface TransactionStoreProvider {
+    
+    String name();
+    
+    TransactionStore create();
+    
+    static TransactionStoreProvider of(String name, Supplier<TransactionStore> factory) {
+        return new TransactionStoreProvider() {
+            @Override
+            public String name() {
+                return name;
+            }
+            
+            @Override
+            public TransactionStore create() {
+                return factory.get();
+            }
+        };
+    }
+}
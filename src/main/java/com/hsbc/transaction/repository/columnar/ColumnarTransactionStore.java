@@ -0,0 +1,668 @@
+package com.hsbc.transaction.repository.columnar;
+
+import com.hsbc.transaction.model.Transaction;
+import com.hsbc.transaction.model.TransactionType;
+import com.hsbc.transaction.repository.AmountSummary;
+import com.hsbc.transaction.repository.PageCursor;
+import com.hsbc.transaction.repository.TransactionFilter;
+import com.hsbc.transaction.repository.TransactionPage;
+import com.hsbc.transaction.repository.TransactionStore;
+import com.hsbc.transaction.repository.id.IdAllocator;
+import com.hsbc.transaction.repository.index.TimeRollups;
+import com.hsbc.transaction.repository.query.QueryPlan;
+import com.hsbc.transaction.repository.query.SearchResult;
+import com.hsbc.transaction.repository.query.SortOrder;
+import com.hsbc.transaction.repository.query.TransactionQuery;
+import com.hsbc.transaction.repository.rollup.TimeBucket;
+import com.hsbc.transaction.repository.rollup.TimeSeriesBuilder;
+import com.hsbc.transaction.repository.rollup.TimeSeriesQuery;
+import com.hsbc.transaction.repository.support.AccountDictionary;
+import com.hsbc.transaction.repository.support.Cents;
+import com.hsbc.transaction.repository.support.CentsAggregate;
+import com.hsbc.transaction.repository.support.ColumnAggregator;
+import com.hsbc.transaction.repository.support.EpochMicros;
+import com.hsbc.transaction.repository.support.LongIntHashMap;
+import com.hsbc.transaction.repository.support.NewestFirstSelector;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+
+// Struct-of-arrays store: one primitive array per column, rows addressed by index, deleted rows recycled.
+public class ColumnarTransactionStore implements TransactionStore {
+    
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final byte FREE = -1;
+    private static final TransactionType[] TYPES = TransactionType.values();
+    private static final ColumnAggregator AGGREGATOR = ColumnAggregator.fastest();
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Codes are never reassigned, so the dictionary outlives deleteAll and can be read without the lock.
+    private final AccountDictionary accounts = new AccountDictionary();
+    private final TimeRollups rollups = new TimeRollups();
+    
+    private LongIntHashMap rowsById;
+    private StringHeap strings;
+    
+    private long[] ids;
+    private long[] amountCents;
+    private long[] epochMicros;
+    private int[] accountCodes;
+    private byte[] types;
+    private int[] descriptionOffsets;
+    private int[] descriptionLengths;
+    private int[] referenceOffsets;
+    private int[] referenceLengths;
+    
+    private int[] freeRows;
+    private int freeCount;
+    private int rowCount;
+    private int liveRows;
+    private final IdAllocator idAllocator;
+    
+    // Writes are serialized by the lock, so the default allocator hands out ids one at a time and keeps them dense.
+    public ColumnarTransactionStore() {
+        this(IdAllocator.sequential(1, 1, 1));
+    }
+    
+    public ColumnarTransactionStore(IdAllocator idAllocator) {
+        this.idAllocator = idAllocator;
+        reset();
+    }
+    
+    @Override
+    public Transaction save(Transaction transaction) {
+        long cents = Cents.of(transaction.getAmount());
+        long micros = EpochMicros.floor(transaction.getTransactionDate());
+        byte type = (byte) transaction.getType().ordinal();
+        byte[] description = StringHeap.encode(transaction.getDescription());
+        byte[] reference = StringHeap.encode(transaction.getReference());
+        lock.writeLock().lock();
+        try {
+            if (transaction.getId() == null) {
+                transaction.setId(idAllocator.next());
+            } else {
+                idAllocator.observe(transaction.getId());
+            }
+            long id = transaction.getId();
+            int row = rowsById.get(id);
+            if (row == LongIntHashMap.MISSING) {
+                row = allocateRow();
+                rowsById.put(id, row);
+                liveRows++;
+            } else {
+                strings.release(descriptionLengths[row]);
+                strings.release(referenceLengths[row]);
+                rollups.remove(epochMicros[row], TYPES[types[row]], accountCodes[row], amountCents[row]);
+            }
+            ids[row] = id;
+            amountCents[row] = cents;
+            epochMicros[row] = micros;
+            accountCodes[row] = accounts.encode(transaction.getAccountNumber());
+            types[row] = type;
+            rollups.add(micros, transaction.getType(), accountCodes[row], cents);
+            writeStrings(row, description, reference);
+            if (strings.needsCompaction()) {
+                compactStrings();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return transaction;
+    }
+    
+    @Override
+    public Optional<Transaction> findById(Long id) {
+        lock.readLock().lock();
+        try {
+            int row = rowsById.get(id);
+            return row == LongIntHashMap.MISSING ? Optional.empty() : Optional.of(materialize(row));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public List<Transaction> findAll() {
+        lock.readLock().lock();
+        try {
+            List<Transaction> all = new ArrayList<>(liveRows);
+            for (int row = 0; row < rowCount; row++) {
+                if (types[row] != FREE) {
+                    all.add(materialize(row));
+                }
+            }
+            return all;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public List<Transaction> findAll(int page, int size) {
+        return newestFirst(row -> true, (long) page * size, size);
+    }
+    
+    @Override
+    public TransactionPage findPage(int page, int size) {
+        // The read lock is reentrant, so the page and the count come from the same state.
+        lock.readLock().lock();
+        try {
+            return new TransactionPage(findAll(page, size), liveRows);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public List<Transaction> findAfter(TransactionFilter filter, PageCursor after, int limit) {
+        IntPredicate matches = where(filter);
+        if (matches == null) {
+            return new ArrayList<>();
+        }
+        if (after != null) {
+            // Stored dates are whole microseconds, so rows sharing the cursor's microsecond only tie with it when
+            // the cursor has no finer part.
+            long cursor = EpochMicros.ceil(after.transactionDate());
+            boolean exact = EpochMicros.floor(after.transactionDate()) == cursor;
+            long id = after.id();
+            matches = matches.and(row -> epochMicros[row] < cursor || exact && epochMicros[row] == cursor && ids[row] < id);
+        }
+        return newestFirst(matches, 0, limit);
+    }
+    
+    // Every query is a scan here, so the plan is always a full scan over the live rows.
+    @Override
+    public SearchResult search(TransactionQuery query) {
+        IntPredicate matches = where(query.filter());
+        lock.readLock().lock();
+        try {
+            QueryPlan plan = QueryPlan.fullScan(query, liveRows);
+            List<Transaction> content = matches == null
+                    ? new ArrayList<>()
+                    : select(matches, 0, query.limit(), order(query.sort()));
+            return new SearchResult(content, plan, liveRows);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public List<Transaction> findByAccountNumber(String accountNumber) {
+        int code = accounts.lookup(accountNumber);
+        if (code == AccountDictionary.MISSING) {
+            return new ArrayList<>();
+        }
+        return newestFirst(row -> accountCodes[row] == code, 0, Integer.MAX_VALUE);
+    }
+    
+    @Override
+    public List<Transaction> findByType(TransactionType type) {
+        byte ordinal = (byte) type.ordinal();
+        return newestFirst(row -> types[row] == ordinal, 0, Integer.MAX_VALUE);
+    }
+    
+    @Override
+    public List<Transaction> findByAmountBetween(BigDecimal minAmount, BigDecimal maxAmount) {
+        long low = Cents.ceil(minAmount);
+        long high = Cents.floor(maxAmount);
+        if (low > high) {
+            return new ArrayList<>();
+        }
+        return newestFirst(row -> amountCents[row] >= low && amountCents[row] <= high, 0, Integer.MAX_VALUE);
+    }
+    
+    @Override
+    public long estimateCountByAmountBetween(BigDecimal minAmount, BigDecimal maxAmount) {
+        long low = Cents.ceil(minAmount);
+        long high = Cents.floor(maxAmount);
+        lock.readLock().lock();
+        try {
+            long count = 0;
+            for (int row = 0; row < rowCount; row++) {
+                if (types[row] != FREE && amountCents[row] >= low && amountCents[row] <= high) {
+                    count++;
+                }
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public List<Transaction> findByDateBetween(LocalDateTime startDate, LocalDateTime endDate) {
+        if (!startDate.isBefore(endDate)) {
+            return new ArrayList<>();
+        }
+        long after = EpochMicros.floor(startDate);
+        long before = EpochMicros.ceil(endDate);
+        return newestFirst(row -> epochMicros[row] > after && epochMicros[row] < before, 0, Integer.MAX_VALUE);
+    }
+    
+    @Override
+    public List<Transaction> findByAccountNumberAndType(String accountNumber, TransactionType type) {
+        int code = accounts.lookup(accountNumber);
+        if (code == AccountDictionary.MISSING) {
+            return new ArrayList<>();
+        }
+        byte ordinal = (byte) type.ordinal();
+        return newestFirst(row -> accountCodes[row] == code && types[row] == ordinal, 0, Integer.MAX_VALUE);
+    }
+    
+    @Override
+    public boolean existsById(Long id) {
+        lock.readLock().lock();
+        try {
+            return rowsById.get(id) != LongIntHashMap.MISSING;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public void deleteById(Long id) {
+        lock.writeLock().lock();
+        try {
+            int row = rowsById.remove(id);
+            if (row == LongIntHashMap.MISSING) {
+                return;
+            }
+            strings.release(descriptionLengths[row]);
+            strings.release(referenceLengths[row]);
+            rollups.remove(epochMicros[row], TYPES[types[row]], accountCodes[row], amountCents[row]);
+            types[row] = FREE;
+            amountCents[row] = 0;
+            epochMicros[row] = Long.MIN_VALUE;
+            freeRows[freeCount++] = row;
+            liveRows--;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @Override
+    public void deleteAll() {
+        lock.writeLock().lock();
+        try {
+            reset();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @Override
+    public long count() {
+        lock.readLock().lock();
+        try {
+            return liveRows;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public long count(TransactionFilter filter) {
+        IntPredicate matches = where(filter);
+        if (matches == null) {
+            return 0;
+        }
+        long count = 0;
+        lock.readLock().lock();
+        try {
+            for (int row = 0; row < rowCount; row++) {
+                if (types[row] != FREE && matches.test(row)) {
+                    count++;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return count;
+    }
+    
+    // Date and amount bounds alone run through the column kernel, SIMD when the vector module is present; free
+    // rows hold Long.MIN_VALUE micros, which no time window admits. Account and type filters take a row loop.
+    @Override
+    public AmountSummary summarize(TransactionFilter filter) {
+        CentsAggregate aggregate = new CentsAggregate();
+        if (filter.accountNumber() == null && filter.types() == null) {
+            long after = filter.startDate() == null ? Long.MIN_VALUE : EpochMicros.floor(filter.startDate());
+            long before = filter.endDate() == null ? Long.MAX_VALUE : EpochMicros.ceil(filter.endDate());
+            long minCents = filter.minAmount() == null ? Long.MIN_VALUE : Cents.ceil(filter.minAmount());
+            long maxCents = filter.maxAmount() == null ? Long.MAX_VALUE : Cents.floor(filter.maxAmount());
+            lock.readLock().lock();
+            try {
+                AGGREGATOR.aggregate(amountCents, epochMicros, 0, rowCount, after, before, minCents, maxCents, aggregate);
+            } finally {
+                lock.readLock().unlock();
+            }
+            return AmountSummary.of(aggregate);
+        }
+        IntPredicate matches = where(filter);
+        if (matches == null) {
+            return AmountSummary.EMPTY;
+        }
+        lock.readLock().lock();
+        try {
+            for (int row = 0; row < rowCount; row++) {
+                if (types[row] != FREE && matches.test(row)) {
+                    aggregate.add(amountCents[row]);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return AmountSummary.of(aggregate);
+    }
+    
+    @Override
+    public List<TimeBucket> timeSeries(TimeSeriesQuery query) {
+        int code = query.accountNumber() == null ? AccountDictionary.MISSING : accounts.lookup(query.accountNumber());
+        if (query.accountNumber() != null && code == AccountDictionary.MISSING) {
+            return new TimeSeriesBuilder(query).build();
+        }
+        if (query.accountNumber() == null || query.type() == null) {
+            int dimension = query.accountNumber() != null ? TimeRollups.account(code)
+                    : query.type() != null ? TimeRollups.type(query.type()) : TimeRollups.all();
+            return rollups.series(query, dimension);
+        }
+        byte ordinal = (byte) query.type().ordinal();
+        TimeSeriesBuilder builder = new TimeSeriesBuilder(query);
+        lock.readLock().lock();
+        try {
+            for (int row = 0; row < rowCount; row++) {
+                if (accountCodes[row] == code && types[row] == ordinal) {
+                    builder.add(epochMicros[row], amountCents[row]);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return builder.build();
+    }
+    
+    @Override
+    public Map<TransactionType, Long> countByType() {
+        long[] counts = new long[TYPES.length];
+        lock.readLock().lock();
+        try {
+            for (int row = 0; row < rowCount; row++) {
+                if (types[row] != FREE) {
+                    counts[types[row]]++;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        Map<TransactionType, Long> result = new EnumMap<>(TransactionType.class);
+        for (int ordinal = 0; ordinal < counts.length; ordinal++) {
+            if (counts[ordinal] > 0) {
+                result.put(TYPES[ordinal], counts[ordinal]);
+            }
+        }
+        return result;
+    }
+    
+    @Override
+    public Map<String, Long> countByAccountNumber() {
+        lock.readLock().lock();
+        try {
+            long[] counts = new long[accounts.size()];
+            for (int row = 0; row < rowCount; row++) {
+                if (types[row] != FREE) {
+                    counts[accountCodes[row]]++;
+                }
+            }
+            Map<String, Long> result = new HashMap<>();
+            for (int code = 0; code < counts.length; code++) {
+                if (counts[code] > 0) {
+                    result.put(accounts.decode(code), counts[code]);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public BigDecimal getTotalAmount() {
+        lock.readLock().lock();
+        try {
+            // Free rows hold a zero amount, so the column can be summed without a liveness check.
+            long high = 0;
+            long low = 0;
+            for (int row = 0; row < rowCount; row++) {
+                high += Cents.high(amountCents[row]);
+                low += Cents.low(amountCents[row]);
+            }
+            return Cents.toAmount(high, low);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public BigDecimal getTotalAmountByType(TransactionType type) {
+        byte ordinal = (byte) type.ordinal();
+        lock.readLock().lock();
+        try {
+            long high = 0;
+            long low = 0;
+            for (int row = 0; row < rowCount; row++) {
+                if (types[row] == ordinal) {
+                    high += Cents.high(amountCents[row]);
+                    low += Cents.low(amountCents[row]);
+                }
+            }
+            return Cents.toAmount(high, low);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public BigDecimal getTotalAmountByAccountNumber(String accountNumber) {
+        int code = accounts.lookup(accountNumber);
+        if (code == AccountDictionary.MISSING) {
+            return Cents.toAmount(0);
+        }
+        lock.readLock().lock();
+        try {
+            long high = 0;
+            long low = 0;
+            for (int row = 0; row < rowCount; row++) {
+                if (accountCodes[row] == code && types[row] != FREE) {
+                    high += Cents.high(amountCents[row]);
+                    low += Cents.low(amountCents[row]);
+                }
+            }
+            return Cents.toAmount(high, low);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public long nextId() {
+        return idAllocator.nextId();
+    }
+    
+    @Override
+    public void advanceNextId(long nextId) {
+        idAllocator.advance(nextId);
+    }
+    
+    public long columnBytes() {
+        lock.readLock().lock();
+        try {
+            long perRow = 3L * Long.BYTES + 5L * Integer.BYTES + 1 + Integer.BYTES;
+            return ids.length * perRow + strings.capacityBytes() + rowsById.memoryBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private List<Transaction> newestFirst(IntPredicate matches, long offset, int size) {
+        return select(matches, offset, size, this::newer);
+    }
+    
+    private List<Transaction> select(IntPredicate matches, long offset, int size, NewestFirstSelector.RowOrder order) {
+        lock.readLock().lock();
+        try {
+            int wanted = (int) Math.min(offset + size, liveRows);
+            if (offset >= wanted) {
+                return new ArrayList<>();
+            }
+            int[] rows = NewestFirstSelector.select(rowCount, row -> types[row] != FREE && matches.test(row),
+                    wanted, order);
+            List<Transaction> result = new ArrayList<>(Math.max(0, rows.length - (int) offset));
+            for (int i = (int) offset; i < rows.length; i++) {
+                result.add(materialize(rows[i]));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private NewestFirstSelector.RowOrder order(SortOrder sort) {
+        return switch (sort) {
+            case NEWEST_FIRST -> this::newer;
+            case OLDEST_FIRST -> (row, other) -> newer(other, row);
+            case LARGEST_FIRST -> this::larger;
+            case SMALLEST_FIRST -> (row, other) -> larger(other, row);
+        };
+    }
+    
+    // Null when the filter names an account the store has never seen, so nothing can match.
+    private IntPredicate where(TransactionFilter filter) {
+        IntPredicate matches = row -> true;
+        if (filter.accountNumber() != null) {
+            int code = accounts.lookup(filter.accountNumber());
+            if (code == AccountDictionary.MISSING) {
+                return null;
+            }
+            matches = matches.and(row -> accountCodes[row] == code);
+        }
+        if (filter.types() != null) {
+            int ordinals = 0;
+            for (TransactionType type : filter.types()) {
+                ordinals |= 1 << type.ordinal();
+            }
+            int mask = ordinals;
+            matches = matches.and(row -> (mask & 1 << types[row]) != 0);
+        }
+        if (filter.minAmount() != null) {
+            long low = Cents.ceil(filter.minAmount());
+            matches = matches.and(row -> amountCents[row] >= low);
+        }
+        if (filter.maxAmount() != null) {
+            long high = Cents.floor(filter.maxAmount());
+            matches = matches.and(row -> amountCents[row] <= high);
+        }
+        if (filter.startDate() != null) {
+            long start = EpochMicros.floor(filter.startDate());
+            matches = matches.and(row -> epochMicros[row] > start);
+        }
+        if (filter.endDate() != null) {
+            long end = EpochMicros.ceil(filter.endDate());
+            matches = matches.and(row -> epochMicros[row] < end);
+        }
+        return matches;
+    }
+    
+    private boolean newer(int row, int other) {
+        return epochMicros[row] != epochMicros[other]
+                ? epochMicros[row] > epochMicros[other]
+                : ids[row] > ids[other];
+    }
+    
+    private boolean larger(int row, int other) {
+        return amountCents[row] != amountCents[other]
+                ? amountCents[row] > amountCents[other]
+                : ids[row] > ids[other];
+    }
+    
+    private Transaction materialize(int row) {
+        Transaction transaction = new Transaction(
+                ids[row],
+                accounts.decode(accountCodes[row]),
+                Cents.toAmount(amountCents[row]),
+                TYPES[types[row]],
+                strings.read(descriptionOffsets[row], descriptionLengths[row]),
+                strings.read(referenceOffsets[row], referenceLengths[row]));
+        transaction.setTransactionDate(EpochMicros.toDateTime(epochMicros[row]));
+        return transaction;
+    }
+    
+    private void writeStrings(int row, byte[] description, byte[] reference) {
+        descriptionOffsets[row] = description == null ? 0 : strings.append(description);
+        descriptionLengths[row] = description == null ? StringHeap.NULL_LENGTH : description.length;
+        referenceOffsets[row] = reference == null ? 0 : strings.append(reference);
+        referenceLengths[row] = reference == null ? StringHeap.NULL_LENGTH : reference.length;
+    }
+    
+    private void compactStrings() {
+        StringHeap compacted = new StringHeap(INITIAL_CAPACITY * 64);
+        for (int row = 0; row < rowCount; row++) {
+            if (types[row] == FREE) {
+                continue;
+            }
+            if (descriptionLengths[row] != StringHeap.NULL_LENGTH) {
+                descriptionOffsets[row] = compacted.copyFrom(strings, descriptionOffsets[row], descriptionLengths[row]);
+            }
+            if (referenceLengths[row] != StringHeap.NULL_LENGTH) {
+                referenceOffsets[row] = compacted.copyFrom(strings, referenceOffsets[row], referenceLengths[row]);
+            }
+        }
+        strings = compacted;
+    }
+    
+    private int allocateRow() {
+        if (freeCount > 0) {
+            return freeRows[--freeCount];
+        }
+        if (rowCount == ids.length) {
+            grow(ids.length + (ids.length >> 1));
+        }
+        return rowCount++;
+    }
+    
+    private void grow(int capacity) {
+        ids = Arrays.copyOf(ids, capacity);
+        amountCents = Arrays.copyOf(amountCents, capacity);
+        epochMicros = Arrays.copyOf(epochMicros, capacity);
+        accountCodes = Arrays.copyOf(accountCodes, capacity);
+        types = Arrays.copyOf(types, capacity);
+        descriptionOffsets = Arrays.copyOf(descriptionOffsets, capacity);
+        descriptionLengths = Arrays.copyOf(descriptionLengths, capacity);
+        referenceOffsets = Arrays.copyOf(referenceOffsets, capacity);
+        referenceLengths = Arrays.copyOf(referenceLengths, capacity);
+        freeRows = Arrays.copyOf(freeRows, capacity);
+    }
+    
+    private void reset() {
+        rowsById = new LongIntHashMap(INITIAL_CAPACITY);
+        strings = new StringHeap(INITIAL_CAPACITY * 64);
+        ids = new long[INITIAL_CAPACITY];
+        amountCents = new long[INITIAL_CAPACITY];
+        epochMicros = new long[INITIAL_CAPACITY];
+        accountCodes = new int[INITIAL_CAPACITY];
+        types = new byte[INITIAL_CAPACITY];
+        descriptionOffsets = new int[INITIAL_CAPACITY];
+        descriptionLengths = new int[INITIAL_CAPACITY];
+        referenceOffsets = new int[INITIAL_CAPACITY];
+        referenceLengths = new int[INITIAL_CAPACITY];
+        freeRows = new int[INITIAL_CAPACITY];
+        freeCount = 0;
+        rowCount = 0;
+        liveRows = 0;
+        idAllocator.reset();
+        rollups.clear();
+    }
+}
@@ -0,0 +1,66 @@
+package com.hsbc.transaction.repository.columnar;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Append-only UTF-8 byte heap addressed by (offset, length); a length of -1 encodes null.
+class StringHeap {
+    
+    static final int NULL_LENGTH = -1;
+    
+    private byte[] bytes;
+    private int size;
+    private long garbage;
+    
+    StringHeap(int initialCapacity) {
+        this.bytes = new byte[initialCapacity];
+    }
+    
+    int append(byte[] value) {
+        ensureCapacity(value.length);
+        int offset = size;
+        System.arraycopy(value, 0, bytes, offset, value.length);
+        size += value.length;
+        return offset;
+    }
+    
+    int copyFrom(StringHeap source, int offset, int length) {
+        ensureCapacity(length);
+        int target = size;
+        System.arraycopy(source.bytes, offset, bytes, target, length);
+        size += length;
+        return target;
+    }
+    
+    String read(int offset, int length) {
+        return length == NULL_LENGTH ? null : new String(bytes, offset, length, StandardCharsets.UTF_8);
+    }
+    
+    void release(int length) {
+        if (length > 0) {
+            garbage += length;
+        }
+    }
+    
+    boolean needsCompaction() {
+        return size > (1 << 20) && garbage * 2 > size;
+    }
+    
+    long capacityBytes() {
+        return bytes.length;
+    }
+    
+    static byte[] encode(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+    
+    private void ensureCapacity(int additional) {
+        long required = (long) size + additional;
+        if (required > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("String heap exceeds " + (Integer.MAX_VALUE - 8) + " bytes");
+        }
+        if (required > bytes.length) {
+            bytes = Arrays.copyOf(bytes, (int) Math.min(Integer.MAX_VALUE - 8, Math.max(required, bytes.length * 3L / 2)));
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.hsbc.transaction.repository.id;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Each thread reserves blockSize counters at a time from a shared frontier and hands them out from a
+// thread-local block, so the shared counter is touched once per block instead of once per insert. Ids are
+// unique and increase within a thread; across threads they are ordered to within a block per thread.
+// reset() and advance() bump an epoch that makes every thread drop its block on the next call.
+public final class BlockIdAllocator implements IdAllocator {
+    
+    private final IdLayout layout;
+    private final int blockSize;
+    private final AtomicLong frontier = new AtomicLong();
+    private final AtomicInteger epoch = new AtomicInteger();
+    private final ThreadLocal<Block> blocks = ThreadLocal.withInitial(Block::new);
+    
+    BlockIdAllocator(IdLayout layout, int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Id block size must be positive, was " + blockSize);
+        }
+        this.layout = layout;
+        this.blockSize = blockSize;
+    }
+    
+    @Override
+    public long next() {
+        Block block = blocks.get();
+        int current = epoch.get();
+        if (block.epoch != current || block.next == block.end) {
+            long floor = layout.floor();
+            long end = frontier.updateAndGet(reserved -> Math.max(reserved, floor) + blockSize);
+            block.next = end - blockSize;
+            block.end = end;
+            block.epoch = current;
+        }
+        return layout.toId(block.next++);
+    }
+    
+    @Override
+    public void observe(long id) {
+        // Ids below the frontier were handed out already, so only ids past it need to move the frontier and
+        // the common update path stays a single volatile read.
+        long counter = layout.counterAtOrAfter(id) + 1;
+        if (counter > frontier.get()) {
+            advanceTo(counter);
+        }
+    }
+    
+    @Override
+    public long nextId() {
+        return layout.toId(frontier.get());
+    }
+    
+    @Override
+    public void advance(long nextId) {
+        // Reserved blocks may still hold ids below nextId, so they are dropped even when the frontier is past it.
+        advanceTo(layout.counterAtOrAfter(nextId));
+    }
+    
+    @Override
+    public void reset() {
+        frontier.set(0);
+        epoch.incrementAndGet();
+    }
+    
+    public int blockSize() {
+        return blockSize;
+    }
+    
+    private void advanceTo(long counter) {
+        frontier.accumulateAndGet(counter, Math::max);
+        epoch.incrementAndGet();
+    }
+    
+    private static final class Block {
+        long next;
+        long end;
+        int epoch = -1;
+    }
+}
@@ -0,0 +1,27 @@
+package com.hsbc.transaction.repository.id;
+
+// Source of ids for new transactions. Implementations must stay unique under concurrent callers and across
+// reset(), and must never hand out an id below one passed to advance().
+public interface IdAllocator {
+    
+    long next();
+    
+    // Records an id assigned by the caller so that it is not handed out again. Explicit ids are expected to be
+    // ones this allocator handed out or ones past nextId(), such as rows replayed from a log.
+    void observe(long id);
+    
+    // Lowest id that may still be handed out; persisted in snapshots.
+    long nextId();
+    
+    void advance(long nextId);
+    
+    void reset();
+    
+    static IdAllocator sequential(long firstId, int stride, int blockSize) {
+        return new BlockIdAllocator(new IdLayout.Sequential(firstId, stride), blockSize);
+    }
+    
+    static IdAllocator timeOrdered(int node, int blockSize) {
+        return new BlockIdAllocator(new IdLayout.TimeOrdered(node), blockSize);
+    }
+}
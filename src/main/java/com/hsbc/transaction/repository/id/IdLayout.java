@@ -0,0 +1,74 @@
+package com.hsbc.transaction.repository.id;
+
+// Maps the allocator's dense counter space onto ids. Counters are non-negative and ids grow with them.
+interface IdLayout {
+    
+    long toId(long counter);
+    
+    // Smallest counter whose id is at least the given id.
+    long counterAtOrAfter(long id);
+    
+    // Counter below which blocks must not start; lets time-based layouts follow the clock.
+    long floor();
+    
+    record Sequential(long firstId, int stride) implements IdLayout {
+    
+        public Sequential {
+            if (stride < 1) {
+                throw new IllegalArgumentException("Id stride must be positive, was " + stride);
+            }
+        }
+    
+        @Override
+        public long toId(long counter) {
+            return firstId + counter * stride;
+        }
+    
+        @Override
+        public long counterAtOrAfter(long id) {
+            return Math.max(0, Math.floorDiv(id - firstId + stride - 1, stride));
+        }
+    
+        @Override
+        public long floor() {
+            return 0;
+        }
+    }
+    
+    // 41 bits of milliseconds since 2024-01-01T00:00Z, 10 bits of node, 12 bits of sequence. Counters are
+    // millis << 12 | sequence, so a block that overruns its millisecond borrows from the next one.
+    record TimeOrdered(int node) implements IdLayout {
+    
+        static final long EPOCH_MILLIS = 1_704_067_200_000L;
+        static final int NODE_BITS = 10;
+        static final int SEQUENCE_BITS = 12;
+        static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    
+        public TimeOrdered {
+            if (node < 0 || node >= 1 << NODE_BITS) {
+                throw new IllegalArgumentException("Id node must be between 0 and " + ((1 << NODE_BITS) - 1) + ", was " + node);
+            }
+        }
+    
+        @Override
+        public long toId(long counter) {
+            return (counter >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS)
+                    | (long) node << SEQUENCE_BITS
+                    | (counter & SEQUENCE_MASK);
+        }
+    
+        @Override
+        public long counterAtOrAfter(long id) {
+            long millis = id >>> (NODE_BITS + SEQUENCE_BITS);
+            long counter = millis << SEQUENCE_BITS | (id & SEQUENCE_MASK);
+            // Ids from a higher node in the same millisecond sort after this node's id with the same sequence.
+            int idNode = (int) ((id >>> SEQUENCE_BITS) & ((1 << NODE_BITS) - 1));
+            return idNode > node ? counter + 1 : counter;
+        }
+    
+        @Override
+        public long floor() {
+            return Math.max(0, System.currentTimeMillis() - EPOCH_MILLIS) << SEQUENCE_BITS;
+        }
+    }
+}
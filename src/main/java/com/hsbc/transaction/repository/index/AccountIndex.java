@@ -0,0 +1,43 @@
+package com.hsbc.transaction.repository.index;
+
+import com.hsbc.transaction.repository.mvcc.RowVersion;
+import com.hsbc.transaction.repository.support.DenseTable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
+
+// Row versions by AccountDictionary code, each account ordered by time and versioned like TimeIndex, so an
+// account's rows come out newest first from any starting point. Buckets are kept once created, like account
+// aggregates, so puts never race with the removal of an emptied bucket.
+public class AccountIndex {
+    
+    private final DenseTable<ConcurrentSkipListMap<TimeKey, RowVersion>> byAccount = new DenseTable<>();
+    
+    public void put(RowVersion version) {
+        byAccount.getOrCreate(version.accountCode(), code -> new ConcurrentSkipListMap<>())
+                .put(TimeIndex.key(version), version);
+    }
+    
+    public void unlink(RowVersion version) {
+        ConcurrentSkipListMap<TimeKey, RowVersion> rows = byAccount.get(version.accountCode());
+        if (rows != null) {
+            rows.remove(TimeIndex.key(version), version);
+        }
+    }
+    
+    public List<RowVersion> range(int accountCode, boolean newestFirst, TimeKey start, TimeKey stop, int limit,
+                                  long snapshot, Predicate<RowVersion> matches) {
+        ConcurrentSkipListMap<TimeKey, RowVersion> rows = byAccount.get(accountCode);
+        if (rows == null) {
+            return new ArrayList<>();
+        }
+        return TimeIndex.walk(newestFirst ? rows.descendingMap() : rows, start, stop, limit, snapshot,
+                version -> version.accountCode() == accountCode && matches.test(version));
+    }
+    
+    public void clear() {
+        byAccount.clear();
+    }
+}
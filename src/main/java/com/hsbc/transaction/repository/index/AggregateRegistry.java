@@ -0,0 +1,78 @@
+package com.hsbc.transaction.repository.index;
+
+import com.hsbc.transaction.repository.support.AccountDictionary;
+import com.hsbc.transaction.repository.support.DenseTable;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+// Store-wide and per-account running aggregates; per-type aggregates live with their TypePartition.
+// Accounts are AccountDictionary codes and are decoded only when counts are read.
+public class AggregateRegistry {
+    
+    private final RunningAggregate total = new RunningAggregate();
+    private final DenseTable<RunningAggregate> byAccount = new DenseTable<>();
+    private final AccountDictionary accounts;
+    
+    public AggregateRegistry(AccountDictionary accounts) {
+        this.accounts = accounts;
+    }
+    
+    public void add(int accountCode, long amountCents) {
+        total.add(amountCents);
+        account(accountCode).add(amountCents);
+    }
+    
+    public void remove(int accountCode, long amountCents) {
+        total.remove(amountCents);
+        account(accountCode).remove(amountCents);
+    }
+    
+    public void update(int previousAccountCode, long previousAmountCents,
+                       int accountCode, long amountCents) {
+        total.adjust(previousAmountCents, amountCents);
+        if (previousAccountCode == accountCode) {
+            account(accountCode).adjust(previousAmountCents, amountCents);
+        } else {
+            account(previousAccountCode).remove(previousAmountCents);
+            account(accountCode).add(amountCents);
+        }
+    }
+    
+    public BigDecimal totalAmount() {
+        return total.sum();
+    }
+    
+    public BigDecimal totalAmount(int accountCode) {
+        RunningAggregate aggregate = byAccount.get(accountCode);
+        return aggregate != null ? aggregate.sum() : BigDecimal.ZERO;
+    }
+    
+    public long count(int accountCode) {
+        RunningAggregate aggregate = byAccount.get(accountCode);
+        return aggregate != null ? aggregate.count() : 0;
+    }
+    
+    public Map<String, Long> countsByAccount() {
+        Map<String, Long> counts = new HashMap<>();
+        byAccount.forEach((accountCode, aggregate) -> {
+            long count = aggregate.count();
+            if (count > 0) {
+                counts.put(accounts.decode(accountCode), count);
+            }
+        });
+        return counts;
+    }
+    
+    public void clear() {
+        total.reset();
+        byAccount.clear();
+    }
+    
+    // Account aggregates are never removed once created, so concurrent updates cannot race
+    // with the removal of an emptied entry; empty accounts are filtered out on read.
+    private RunningAggregate account(int accountCode) {
+        return byAccount.getOrCreate(accountCode, code -> new RunningAggregate());
+    }
+}
@@ -0,0 +1,130 @@
+package com.hsbc.transaction.repository.index;
+
+import com.hsbc.transaction.model.Transaction;
+import com.hsbc.transaction.repository.mvcc.RowVersion;
+import com.hsbc.transaction.repository.support.Cents;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Predicate;
+
+public class AmountIndex {
+    
+    private static final int BUCKETS = Long.SIZE;
+    
+    // Like TimeIndex, each key holds the newest version filed under it and outlives the row's move until no
+    // snapshot can see it. The histogram counts live rows only and follows every change immediately.
+    private final ConcurrentSkipListMap<AmountKey, RowVersion> byAmount = new ConcurrentSkipListMap<>();
+    // Row counts per power-of-two band of cents, used to estimate range sizes without walking the map.
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+    
+    public void put(RowVersion version) {
+        byAmount.put(key(version), version);
+    }
+    
+    public void unlink(RowVersion version) {
+        byAmount.remove(key(version), version);
+    }
+    
+    public void countRow(long amountCents) {
+        histogram.incrementAndGet(bucket(amountCents));
+    }
+    
+    public void uncountRow(long amountCents) {
+        histogram.decrementAndGet(bucket(amountCents));
+    }
+    
+    // Stored amounts are whole cents, so rounding the bounds inwards keeps the band exact.
+    public List<Transaction> band(BigDecimal minAmount, BigDecimal maxAmount, long snapshot) {
+        long low = Cents.ceil(minAmount);
+        long high = Cents.floor(maxAmount);
+        if (low > high) {
+            return Collections.emptyList();
+        }
+        List<Transaction> rows = new ArrayList<>();
+        for (Map.Entry<AmountKey, RowVersion> entry : byAmount
+                .subMap(AmountKey.lowerBound(low), true, AmountKey.upperBound(high), true).entrySet()) {
+            RowVersion version = entry.getValue().at(snapshot);
+            if (version != null && version.amountCents() == entry.getKey().amountCents()) {
+                rows.add(version.materialize());
+            }
+        }
+        return rows;
+    }
+    
+    // Up to limit visible versions between the cent bounds accepted by matches, in amount order.
+    public List<RowVersion> range(boolean largestFirst, long lowCents, long highCents, int limit, long snapshot,
+                                  Predicate<RowVersion> matches) {
+        List<RowVersion> versions = new ArrayList<>();
+        if (lowCents > highCents) {
+            return versions;
+        }
+        NavigableMap<AmountKey, RowVersion> band = byAmount
+                .subMap(AmountKey.lowerBound(lowCents), true, AmountKey.upperBound(highCents), true);
+        for (Map.Entry<AmountKey, RowVersion> entry : (largestFirst ? band.descendingMap() : band).entrySet()) {
+            if (versions.size() >= limit) {
+                break;
+            }
+            RowVersion version = entry.getValue().at(snapshot);
+            if (version != null && version.amountCents() == entry.getKey().amountCents() && matches.test(version)) {
+                versions.add(version);
+            }
+        }
+        return versions;
+    }
+    
+    public long estimateCount(BigDecimal minAmount, BigDecimal maxAmount) {
+        return estimateCount(Cents.ceil(minAmount), Cents.floor(maxAmount));
+    }
+    
+    public long estimateCount(long low, long high) {
+        if (low > high) {
+            return 0;
+        }
+        double estimate = 0;
+        for (int bucket = bucket(low); bucket <= bucket(high); bucket++) {
+            long rows = histogram.get(bucket);
+            if (rows <= 0) {
+                continue;
+            }
+            long bucketLow = bucketLow(bucket);
+            long bucketHigh = bucketHigh(bucket);
+            double width = (double) bucketHigh - bucketLow + 1;
+            double covered = (double) Math.min(high, bucketHigh) - Math.max(low, bucketLow) + 1;
+            estimate += rows * (covered / width);
+        }
+        return Math.round(estimate);
+    }
+    
+    public void clear() {
+        byAmount.clear();
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            histogram.set(bucket, 0);
+        }
+    }
+    
+    private static AmountKey key(RowVersion version) {
+        return new AmountKey(version.amountCents(), version.id());
+    }
+    
+    private static int bucket(long cents) {
+        return cents <= 0 ? 0 : Long.SIZE - Long.numberOfLeadingZeros(cents);
+    }
+    
+    private static long bucketLow(int bucket) {
+        return bucket == 0 ? Long.MIN_VALUE : 1L << (bucket - 1);
+    }
+    
+    private static long bucketHigh(int bucket) {
+        if (bucket == 0) {
+            return 0;
+        }
+        return bucket == Long.SIZE - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+    }
+}
@@ -0,0 +1,23 @@
+package com.hsbc.transaction.repository.index;
+
+import java.util.Comparator;
+
+public record AmountKey(long amountCents, long id) implements Comparable<AmountKey> {
+    
+    private static final Comparator<AmountKey> ORDER = Comparator
+            .comparingLong(AmountKey::amountCents)
+            .thenComparingLong(AmountKey::id);
+    
+    public static AmountKey lowerBound(long amountCents) {
+        return new AmountKey(amountCents, Long.MIN_VALUE);
+    }
+    
+    public static AmountKey upperBound(long amountCents) {
+        return new AmountKey(amountCents, Long.MAX_VALUE);
+    }
+    
+    @Override
+    public int compareTo(AmountKey other) {
+        return ORDER.compare(this, other);
+    }
+}
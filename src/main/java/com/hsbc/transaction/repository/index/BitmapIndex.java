@@ -0,0 +1,239 @@
+package com.hsbc.transaction.repository.index;
+
+import com.hsbc.transaction.model.TransactionType;
+import com.hsbc.transaction.repository.mvcc.RowVersion;
+import com.hsbc.transaction.repository.support.AccountDictionary;
+import com.hsbc.transaction.repository.support.DenseTable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Predicate;
+
+// Row slots by type and by account code as RowBitmaps, so account AND type and type IN (...) filters become
+// word-wide ANDs and ORs. Each stored row holds one slot, a small int handed back for reuse once the row is
+// reclaimed. Like the other indexes, bitmaps keep the bits of replaced versions until no snapshot can see them.
+// Slots written since their last reclaim are also kept in unsettled; the bits of every other slot are exactly
+// those of the row every snapshot sees, so counts take them from the bitmaps and check only unsettled slots.
+// Writes happen under the repository's commit lock. A write sets the unsettled bit before any other, and reclaim
+// clears it after every other, so a reader that reads unsettled both before and after the bitmaps it combines
+// catches every slot whose bits it may have seen mid-change.
+public class BitmapIndex {
+    
+    private final RowBitmap[] byType = new RowBitmap[TransactionType.values().length];
+    private final DenseTable<RowBitmap> byAccount = new DenseTable<>();
+    private final RowBitmap unsettled = new RowBitmap();
+    private volatile AtomicReferenceArray<RowVersion> heads = new AtomicReferenceArray<>(1024);
+    private volatile int slotLimit;
+    private int[] freeSlots = new int[64];
+    private int freeCount;
+    
+    public BitmapIndex() {
+        for (int i = 0; i < byType.length; i++) {
+            byType[i] = new RowBitmap();
+        }
+    }
+    
+    public int allocate() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        int slot = slotLimit;
+        if (slot == heads.length()) {
+            AtomicReferenceArray<RowVersion> grown = new AtomicReferenceArray<>(slot * 2);
+            for (int i = 0; i < slot; i++) {
+                grown.set(i, heads.get(i));
+            }
+            heads = grown;
+        }
+        slotLimit = slot + 1;
+        return slot;
+    }
+    
+    // Installs the newest version of a row; previous is the live version it replaces, or null if there is none.
+    public void put(RowVersion current, RowVersion previous) {
+        int slot = current.slot();
+        boolean sameKeys = previous != null
+                && previous.type() == current.type() && previous.accountCode() == current.accountCode();
+        if (!sameKeys) {
+            unsettled.add(slot);
+        }
+        heads.set(slot, current);
+        byType[current.type().ordinal()].add(slot);
+        byAccount.getOrCreate(current.accountCode(), code -> new RowBitmap()).add(slot);
+    }
+    
+    // The row's bits stay until reclaim, for snapshots that still see it.
+    public void delete(RowVersion version) {
+        unsettled.add(version.slot());
+    }
+    
+    // Clears the bits of a reclaimed version that no remaining version of its row needs. head is the row's
+    // newest version, or null once the row is gone, which also frees its slot.
+    public void unlink(RowVersion version, RowVersion head) {
+        int slot = version.slot();
+        if (head == null || !holds(head, version.type())) {
+            byType[version.type().ordinal()].remove(slot);
+        }
+        if (head == null || !holds(head, version.accountCode())) {
+            RowBitmap account = byAccount.get(version.accountCode());
+            if (account != null) {
+                account.remove(slot);
+            }
+        }
+        if (head == null) {
+            unsettled.remove(slot);
+            heads.set(slot, null);
+            if (freeCount == freeSlots.length) {
+                freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+            }
+            freeSlots[freeCount++] = slot;
+        }
+    }
+    
+    // Called once the only version of a row is one every snapshot sees.
+    public void settle(RowVersion head) {
+        unsettled.remove(head.slot());
+    }
+    
+    // Versions visible to the snapshot that pass matches among the slots with the account (MISSING for any) and
+    // any of the types (null for any), in slot order. At least one of the two must be given.
+    public List<RowVersion> select(int accountCode, Set<TransactionType> types, long snapshot, Predicate<RowVersion> matches) {
+        List<RowVersion> versions = new ArrayList<>();
+        combine(accountCode, types, (key, candidates, changing) -> {
+            for (int word = 0; word < RowBitmap.CHUNK_WORDS; word++) {
+                for (long bits = candidates[word]; bits != 0; bits &= bits - 1) {
+                    RowVersion version = visible(key << 16 | word << 6 | Long.numberOfTrailingZeros(bits), snapshot);
+                    if (version != null && matches.test(version)) {
+                        versions.add(version);
+                    }
+                }
+            }
+        });
+        return versions;
+    }
+    
+    // Rows visible to the snapshot that select() would return. matches must test the account and types too, as
+    // bits may belong to older versions. When it tests nothing else, keysOnly counts settled slots straight from
+    // the bitmaps and checks only unsettled ones.
+    public long count(int accountCode, Set<TransactionType> types, long snapshot, Predicate<RowVersion> matches, boolean keysOnly) {
+        long[] count = new long[1];
+        combine(accountCode, types, (key, candidates, changing) -> {
+            for (int word = 0; word < RowBitmap.CHUNK_WORDS; word++) {
+                long checked = keysOnly ? candidates[word] & changing[word] : candidates[word];
+                count[0] += Long.bitCount(candidates[word] & ~checked);
+                for (long bits = checked; bits != 0; bits &= bits - 1) {
+                    RowVersion version = visible(key << 16 | word << 6 | Long.numberOfTrailingZeros(bits), snapshot);
+                    if (version != null && matches.test(version)) {
+                        count[0]++;
+                    }
+                }
+            }
+        });
+        return count[0];
+    }
+    
+    // Rows with the account and any of the types by their bits alone, counting versions awaiting reclaim too.
+    public long estimate(int accountCode, Set<TransactionType> types) {
+        if (accountCode == AccountDictionary.MISSING) {
+            long count = 0;
+            for (TransactionType type : types) {
+                count += byType[type.ordinal()].cardinality();
+            }
+            return count;
+        }
+        long[] count = new long[1];
+        combine(accountCode, types, (key, candidates, changing) -> {
+            for (long bits : candidates) {
+                count[0] += Long.bitCount(bits);
+            }
+        });
+        return count[0];
+    }
+    
+    public void clear() {
+        for (RowBitmap bitmap : byType) {
+            bitmap.clear();
+        }
+        byAccount.clear();
+        unsettled.clear();
+        heads = new AtomicReferenceArray<>(1024);
+        slotLimit = 0;
+        freeCount = 0;
+    }
+    
+    // Visits every chunk with candidates, ANDing the account's bitmap with the OR of the type bitmaps. Only the
+    // account's chunks are visited when there is one. changing holds the unsettled slots read before and after.
+    private void combine(int accountCode, Set<TransactionType> types, ChunkVisitor visitor) {
+        RowBitmap account = accountCode == AccountDictionary.MISSING ? null : byAccount.get(accountCode);
+        if (accountCode != AccountDictionary.MISSING && account == null) {
+            return;
+        }
+        char[] keys = account != null ? account.keys() : allKeys();
+        long[] candidates = new long[RowBitmap.CHUNK_WORDS];
+        long[] typed = new long[RowBitmap.CHUNK_WORDS];
+        long[] changing = new long[RowBitmap.CHUNK_WORDS];
+        for (char key : keys) {
+            Arrays.fill(changing, 0);
+            unsettled.orInto(key, changing);
+            Arrays.fill(candidates, 0);
+            boolean any = account == null || account.orInto(key, candidates);
+            if (any && types != null) {
+                Arrays.fill(typed, 0);
+                boolean typedAny = false;
+                for (TransactionType type : types) {
+                    typedAny |= byType[type.ordinal()].orInto(key, account == null ? candidates : typed);
+                }
+                if (account != null) {
+                    for (int word = 0; word < RowBitmap.CHUNK_WORDS; word++) {
+                        candidates[word] &= typed[word];
+                    }
+                }
+                any = typedAny;
+            }
+            if (any) {
+                unsettled.orInto(key, changing);
+                visitor.visit(key, candidates, changing);
+            }
+        }
+    }
+    
+    private char[] allKeys() {
+        int chunks = (slotLimit + 0xFFFF) >>> 16;
+        char[] keys = new char[chunks];
+        for (int key = 0; key < chunks; key++) {
+            keys[key] = (char) key;
+        }
+        return keys;
+    }
+    
+    private RowVersion visible(int slot, long snapshot) {
+        AtomicReferenceArray<RowVersion> current = heads;
+        RowVersion head = slot < current.length() ? current.get(slot) : null;
+        return head != null ? head.at(snapshot) : null;
+    }
+    
+    private static boolean holds(RowVersion head, TransactionType type) {
+        for (RowVersion version = head; version != null; version = version.previous()) {
+            if (version.type() == type) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static boolean holds(RowVersion head, int accountCode) {
+        for (RowVersion version = head; version != null; version = version.previous()) {
+            if (version.accountCode() == accountCode) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private interface ChunkVisitor {
+        void visit(int key, long[] candidates, long[] changing);
+    }
+}
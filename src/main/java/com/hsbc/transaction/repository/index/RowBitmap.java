@@ -0,0 +1,217 @@
+package com.hsbc.transaction.repository.index;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Compressed set of row slots in the style of Roaring. The high 16 bits of a slot pick a chunk and the low 16 bits
+// are stored in it: as a sorted char array while the chunk holds at most ARRAY_LIMIT slots, and as a 65536-bit
+// bitset beyond that. A sparse set such as one account's rows costs two bytes a row, a dense one such as a type's
+// rows one bit, and chunks with no slots are not stored at all.
+// One writer at a time; readers take no lock. Array chunks and the chunk directory are copied on write and
+// published whole, and bitset words are written and read as volatiles, so a reader sees every slot added before
+// it started and never a torn chunk.
+public final class RowBitmap {
+    
+    public static final int CHUNK_WORDS = 1024;
+    // Past this many slots the char array would be larger than the 8 KiB bitset.
+    static final int ARRAY_LIMIT = 4096;
+    
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+    
+    private volatile Directory directory = Directory.EMPTY;
+    private volatile long cardinality;
+    
+    public boolean add(int slot) {
+        char key = (char) (slot >>> 16);
+        char low = (char) slot;
+        Directory current = directory;
+        int index = Arrays.binarySearch(current.keys, key);
+        if (index < 0) {
+            directory = current.insert(-index - 1, key, new char[] {low});
+            cardinality = cardinality + 1;
+            return true;
+        }
+        Object chunk = current.chunks.get(index);
+        if (chunk instanceof long[] words) {
+            int word = low >>> 6;
+            long bits = (long) WORDS.getVolatile(words, word);
+            if ((bits & 1L << low) != 0) {
+                return false;
+            }
+            WORDS.setVolatile(words, word, bits | 1L << low);
+        } else {
+            char[] values = (char[]) chunk;
+            int position = Arrays.binarySearch(values, low);
+            if (position >= 0) {
+                return false;
+            }
+            current.chunks.set(index, values.length < ARRAY_LIMIT ? insert(values, -position - 1, low) : toBitset(values, low));
+        }
+        cardinality = cardinality + 1;
+        return true;
+    }
+    
+    public boolean remove(int slot) {
+        char key = (char) (slot >>> 16);
+        char low = (char) slot;
+        Directory current = directory;
+        int index = Arrays.binarySearch(current.keys, key);
+        if (index < 0) {
+            return false;
+        }
+        Object chunk = current.chunks.get(index);
+        if (chunk instanceof long[] words) {
+            int word = low >>> 6;
+            long bits = (long) WORDS.getVolatile(words, word);
+            if ((bits & 1L << low) == 0) {
+                return false;
+            }
+            WORDS.setVolatile(words, word, bits & ~(1L << low));
+            if (count(words) == ARRAY_LIMIT) {
+                current.chunks.set(index, toArray(words));
+            }
+        } else {
+            char[] values = (char[]) chunk;
+            int position = Arrays.binarySearch(values, low);
+            if (position < 0) {
+                return false;
+            }
+            if (values.length == 1) {
+                directory = current.remove(index);
+            } else {
+                current.chunks.set(index, remove(values, position));
+            }
+        }
+        cardinality = cardinality - 1;
+        return true;
+    }
+    
+    public boolean contains(int slot) {
+        Directory current = directory;
+        int index = Arrays.binarySearch(current.keys, (char) (slot >>> 16));
+        if (index < 0) {
+            return false;
+        }
+        char low = (char) slot;
+        Object chunk = current.chunks.get(index);
+        if (chunk instanceof long[] words) {
+            return ((long) WORDS.getVolatile(words, low >>> 6) & 1L << low) != 0;
+        }
+        return Arrays.binarySearch((char[]) chunk, low) >= 0;
+    }
+    
+    public long cardinality() {
+        return cardinality;
+    }
+    
+    // Keys of the chunks holding at least one slot, ascending.
+    public char[] keys() {
+        return directory.keys.clone();
+    }
+    
+    // ORs the chunk under key into words, one bit per low 16 bits of a slot; returns false if there is none.
+    public boolean orInto(int key, long[] words) {
+        Directory current = directory;
+        int index = Arrays.binarySearch(current.keys, (char) key);
+        if (index < 0) {
+            return false;
+        }
+        Object chunk = current.chunks.get(index);
+        if (chunk instanceof long[] bits) {
+            for (int word = 0; word < CHUNK_WORDS; word++) {
+                words[word] |= (long) WORDS.getVolatile(bits, word);
+            }
+        } else {
+            for (char low : (char[]) chunk) {
+                words[low >>> 6] |= 1L << low;
+            }
+        }
+        return true;
+    }
+    
+    public void clear() {
+        directory = Directory.EMPTY;
+        cardinality = 0;
+    }
+    
+    private static char[] insert(char[] values, int position, char value) {
+        char[] grown = new char[values.length + 1];
+        System.arraycopy(values, 0, grown, 0, position);
+        grown[position] = value;
+        System.arraycopy(values, position, grown, position + 1, values.length - position);
+        return grown;
+    }
+    
+    private static char[] remove(char[] values, int position) {
+        char[] shrunk = new char[values.length - 1];
+        System.arraycopy(values, 0, shrunk, 0, position);
+        System.arraycopy(values, position + 1, shrunk, position, shrunk.length - position);
+        return shrunk;
+    }
+    
+    private static long[] toBitset(char[] values, char added) {
+        long[] words = new long[CHUNK_WORDS];
+        for (char low : values) {
+            words[low >>> 6] |= 1L << low;
+        }
+        words[added >>> 6] |= 1L << added;
+        return words;
+    }
+    
+    private static char[] toArray(long[] words) {
+        char[] values = new char[count(words)];
+        int size = 0;
+        for (int word = 0; word < CHUNK_WORDS; word++) {
+            long bits = words[word];
+            while (bits != 0) {
+                values[size++] = (char) (word << 6 | Long.numberOfTrailingZeros(bits));
+                bits &= bits - 1;
+            }
+        }
+        return values;
+    }
+    
+    private static int count(long[] words) {
+        int count = 0;
+        for (long bits : words) {
+            count += Long.bitCount(bits);
+        }
+        return count;
+    }
+    
+    // Chunk keys and their chunks, a char[] or a long[] each. Keys never change once published; adding or
+    // dropping a chunk publishes a new directory, replacing one swaps the reference in place.
+    private static final class Directory {
+    
+        static final Directory EMPTY = new Directory(new char[0], new AtomicReferenceArray<>(0));
+    
+        final char[] keys;
+        final AtomicReferenceArray<Object> chunks;
+    
+        Directory(char[] keys, AtomicReferenceArray<Object> chunks) {
+            this.keys = keys;
+            this.chunks = chunks;
+        }
+    
+        Directory insert(int position, char key, Object chunk) {
+            AtomicReferenceArray<Object> grown = new AtomicReferenceArray<>(keys.length + 1);
+            for (int i = 0; i < keys.length; i++) {
+                grown.set(i < position ? i : i + 1, chunks.get(i));
+            }
+            grown.set(position, chunk);
+            return new Directory(RowBitmap.insert(keys, position, key), grown);
+        }
+    
+        Directory remove(int position) {
+            AtomicReferenceArray<Object> shrunk = new AtomicReferenceArray<>(keys.length - 1);
+            for (int i = 0; i < keys.length; i++) {
+                if (i != position) {
+                    shrunk.set(i < position ? i : i - 1, chunks.get(i));
+                }
+            }
+            return new Directory(RowBitmap.remove(keys, position), shrunk);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.hsbc.transaction.repository.index;
+
+import com.hsbc.transaction.repository.support.Cents;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.LongAdder;
+
+public class RunningAggregate {
+    
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumHigh = new LongAdder();
+    private final LongAdder sumLow = new LongAdder();
+    
+    public void add(long amountCents) {
+        count.increment();
+        sumHigh.add(Cents.high(amountCents));
+        sumLow.add(Cents.low(amountCents));
+    }
+    
+    public void remove(long amountCents) {
+        count.decrement();
+        sumHigh.add(-Cents.high(amountCents));
+        sumLow.add(-Cents.low(amountCents));
+    }
+    
+    public void adjust(long previousAmountCents, long amountCents) {
+        sumHigh.add(Cents.high(amountCents) - Cents.high(previousAmountCents));
+        sumLow.add(Cents.low(amountCents) - Cents.low(previousAmountCents));
+    }
+    
+    public long count() {
+        return count.sum();
+    }
+    
+    public BigDecimal sum() {
+        return Cents.toAmount(sumHigh.sum(), sumLow.sum());
+    }
+    
+    public void reset() {
+        count.reset();
+        sumHigh.reset();
+        sumLow.reset();
+    }
+}
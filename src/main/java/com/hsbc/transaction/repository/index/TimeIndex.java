@@ -0,0 +1,126 @@
+package com.hsbc.transaction.repository.index;
+
+import com.hsbc.transaction.model.Transaction;
+import com.hsbc.transaction.repository.mvcc.RowVersion;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
+
+// Each key holds the newest version that was filed under it. A row that moves to another date keeps its old
+// entry until no snapshot can see it, so a reader iterating at one snapshot sees every row exactly once.
+public class TimeIndex {
+    
+    private final ConcurrentSkipListMap<TimeKey, RowVersion> byTime = new ConcurrentSkipListMap<>();
+    private final NavigableMap<TimeKey, RowVersion> newestFirst = byTime.descendingMap();
+    
+    public void put(RowVersion version) {
+        byTime.put(key(version), version);
+    }
+    
+    public void unlink(RowVersion version) {
+        byTime.remove(key(version), version);
+    }
+    
+    public List<Transaction> page(long offset, int size, long snapshot) {
+        List<Transaction> page = new ArrayList<>();
+        long skipped = 0;
+        for (Map.Entry<TimeKey, RowVersion> entry : newestFirst.entrySet()) {
+            RowVersion version = visible(entry, snapshot);
+            if (version == null) {
+                continue;
+            }
+            if (skipped < offset) {
+                skipped++;
+                continue;
+            }
+            page.add(version.materialize());
+            if (page.size() == size) {
+                break;
+            }
+        }
+        return page;
+    }
+    
+    public List<Transaction> between(LocalDateTime startExclusive, LocalDateTime endExclusive, long snapshot) {
+        return RowVersion.materialize(walk(newestFirst, TimeKey.lowerBound(endExclusive), TimeKey.upperBound(startExclusive),
+                Integer.MAX_VALUE, snapshot, version -> true));
+    }
+    
+    public List<RowVersion> range(boolean newestFirst, TimeKey start, TimeKey stop, int limit, long snapshot,
+                                  Predicate<RowVersion> matches) {
+        return walk(newestFirst ? this.newestFirst : byTime, start, stop, limit, snapshot, matches);
+    }
+    
+    // Assumes rows are spread evenly between the oldest and the newest key; null bounds are open.
+    public long estimateCount(LocalDateTime startExclusive, LocalDateTime endExclusive, long rows) {
+        Map.Entry<TimeKey, RowVersion> oldest = byTime.firstEntry();
+        Map.Entry<TimeKey, RowVersion> newest = byTime.lastEntry();
+        if (oldest == null || newest == null || rows == 0) {
+            return 0;
+        }
+        double first = seconds(oldest.getKey().transactionDate());
+        double last = seconds(newest.getKey().transactionDate());
+        double from = startExclusive == null ? first : Math.max(first, seconds(startExclusive));
+        double to = endExclusive == null ? last : Math.min(last, seconds(endExclusive));
+        if (from > to) {
+            return 0;
+        }
+        return last == first ? rows : Math.round(rows * (to - from) / (last - first));
+    }
+    
+    public void clear() {
+        byTime.clear();
+    }
+    
+    // Up to limit visible versions accepted by matches, in the map's order and strictly between start and stop;
+    // a null bound is open. Seeking to start costs O(log n), so a page costs the same wherever it starts.
+    static List<RowVersion> walk(NavigableMap<TimeKey, RowVersion> ordered, TimeKey start, TimeKey stop,
+                                 int limit, long snapshot, Predicate<RowVersion> matches) {
+        List<RowVersion> versions = new ArrayList<>();
+        if (start != null && stop != null && order(ordered, start, stop) >= 0) {
+            return versions;
+        }
+        NavigableMap<TimeKey, RowVersion> range = ordered;
+        if (start != null) {
+            range = range.tailMap(start, false);
+        }
+        if (stop != null) {
+            range = range.headMap(stop, false);
+        }
+        for (Map.Entry<TimeKey, RowVersion> entry : range.entrySet()) {
+            if (versions.size() >= limit) {
+                break;
+            }
+            RowVersion version = visible(entry, snapshot);
+            if (version != null && matches.test(version)) {
+                versions.add(version);
+            }
+        }
+        return versions;
+    }
+    
+    private static int order(NavigableMap<TimeKey, RowVersion> ordered, TimeKey key, TimeKey other) {
+        Comparator<? super TimeKey> comparator = ordered.comparator();
+        return comparator == null ? key.compareTo(other) : comparator.compare(key, other);
+    }
+    
+    private static double seconds(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) + dateTime.getNano() / 1e9;
+    }
+    
+    static RowVersion visible(Map.Entry<TimeKey, RowVersion> entry, long snapshot) {
+        RowVersion version = entry.getValue().at(snapshot);
+        return version != null && version.transactionDate().equals(entry.getKey().transactionDate()) ? version : null;
+    }
+    
+    static TimeKey key(RowVersion version) {
+        return new TimeKey(version.transactionDate(), version.id());
+    }
+}
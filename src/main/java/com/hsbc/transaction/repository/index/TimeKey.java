@@ -0,0 +1,24 @@
+package com.hsbc.transaction.repository.index;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+public record TimeKey(LocalDateTime transactionDate, long id) implements Comparable<TimeKey> {
+    
+    private static final Comparator<TimeKey> ORDER = Comparator
+            .comparing(TimeKey::transactionDate)
+            .thenComparingLong(TimeKey::id);
+    
+    public static TimeKey lowerBound(LocalDateTime transactionDate) {
+        return new TimeKey(transactionDate, Long.MIN_VALUE);
+    }
+    
+    public static TimeKey upperBound(LocalDateTime transactionDate) {
+        return new TimeKey(transactionDate, Long.MAX_VALUE);
+    }
+    
+    @Override
+    public int compareTo(TimeKey other) {
+        return ORDER.compare(this, other);
+    }
+}
@@ -0,0 +1,122 @@
+package com.hsbc.transaction.repository.index;
+
+import com.hsbc.transaction.model.TransactionType;
+import com.hsbc.transaction.repository.rollup.Granularity;
+import com.hsbc.transaction.repository.rollup.TimeBucket;
+import com.hsbc.transaction.repository.rollup.TimeSeriesQuery;
+import com.hsbc.transaction.repository.support.Cents;
+import com.hsbc.transaction.repository.support.LongIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Row count and amount per minute, hour and day, for all rows, per type and per account, kept up to date by
+// every write so that a series costs one lookup per bucket however many rows it covers. A row touches one cell
+// per granularity and dimension. Cells live in parallel primitive arrays addressed through a map from
+// (granularity, dimension, bucket); emptied cells stay until clear(), so the map never shrinks under readers.
+public class TimeRollups {
+    
+    private static final int ALL = 0;
+    private static final int FIRST_ACCOUNT = 1 + TransactionType.values().length;
+    private static final Granularity[] GRANULARITIES = Granularity.values();
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final LongIntHashMap cells = new LongIntHashMap(1024);
+    private long[] counts = new long[1024];
+    private long[] highSums = new long[1024];
+    private long[] lowSums = new long[1024];
+    private int cellCount;
+    
+    public static int all() {
+        return ALL;
+    }
+    
+    public static int type(TransactionType type) {
+        return 1 + type.ordinal();
+    }
+    
+    public static int account(int accountCode) {
+        return FIRST_ACCOUNT + accountCode;
+    }
+    
+    public void add(long epochMicros, TransactionType type, int accountCode, long amountCents) {
+        apply(epochMicros, type, accountCode, amountCents, 1);
+    }
+    
+    public void remove(long epochMicros, TransactionType type, int accountCode, long amountCents) {
+        apply(epochMicros, type, accountCode, amountCents, -1);
+    }
+    
+    // Every bucket of the query for one dimension, zero where no row falls.
+    public List<TimeBucket> series(TimeSeriesQuery query, int dimension) {
+        List<TimeBucket> series = new ArrayList<>(query.bucketCount());
+        lock.readLock().lock();
+        try {
+            for (long bucket = query.firstBucket(); bucket <= query.lastBucket(); bucket++) {
+                int cell = cells.get(key(query.granularity(), dimension, bucket));
+                series.add(cell == LongIntHashMap.MISSING
+                        ? new TimeBucket(query.granularity().startOf(bucket), 0, Cents.toAmount(0))
+                        : new TimeBucket(query.granularity().startOf(bucket), counts[cell], Cents.toAmount(highSums[cell], lowSums[cell])));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return series;
+    }
+    
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            cells.clear();
+            Arrays.fill(counts, 0, cellCount, 0);
+            Arrays.fill(highSums, 0, cellCount, 0);
+            Arrays.fill(lowSums, 0, cellCount, 0);
+            cellCount = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    private void apply(long epochMicros, TransactionType type, int accountCode, long amountCents, int sign) {
+        long high = sign * Cents.high(amountCents);
+        long low = sign * Cents.low(amountCents);
+        int[] dimensions = {ALL, type(type), account(accountCode)};
+        lock.writeLock().lock();
+        try {
+            for (Granularity granularity : GRANULARITIES) {
+                long bucket = granularity.bucketOf(epochMicros);
+                for (int dimension : dimensions) {
+                    int cell = cell(key(granularity, dimension, bucket));
+                    counts[cell] += sign;
+                    highSums[cell] += high;
+                    lowSums[cell] += low;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    private int cell(long key) {
+        int cell = cells.get(key);
+        if (cell != LongIntHashMap.MISSING) {
+            return cell;
+        }
+        if (cellCount == counts.length) {
+            counts = Arrays.copyOf(counts, cellCount * 2);
+            highSums = Arrays.copyOf(highSums, cellCount * 2);
+            lowSums = Arrays.copyOf(lowSums, cellCount * 2);
+        }
+        cells.put(key, cellCount);
+        return cellCount++;
+    }
+    
+    // Granularity in bits 60-61, dimension in bits 32-59 and the bucket's low 32 bits below; bit 63 stays clear,
+    // so a key never collides with the map's reserved Long.MIN_VALUE.
+    private static long key(Granularity granularity, int dimension, long bucket) {
+        return (long) granularity.ordinal() << 60 | (long) dimension << 32 | bucket & 0xFFFFFFFFL;
+    }
+}
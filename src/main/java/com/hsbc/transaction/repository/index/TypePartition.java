@@ -0,0 +1,47 @@
+package com.hsbc.transaction.repository.index;
+
+import com.hsbc.transaction.model.Transaction;
+import com.hsbc.transaction.model.TransactionType;
+import com.hsbc.transaction.repository.mvcc.RowVersion;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
+
+public class TypePartition {
+    
+    private final TransactionType type;
+    private final ConcurrentSkipListMap<TimeKey, RowVersion> byTime = new ConcurrentSkipListMap<>();
+    private final RunningAggregate aggregate = new RunningAggregate();
+    
+    public TypePartition(TransactionType type) {
+        this.type = type;
+    }
+    
+    public void put(RowVersion version) {
+        byTime.put(TimeIndex.key(version), version);
+    }
+    
+    public void unlink(RowVersion version) {
+        byTime.remove(TimeIndex.key(version), version);
+    }
+    
+    public List<Transaction> newestFirst(long snapshot) {
+        return RowVersion.materialize(range(true, null, null, Integer.MAX_VALUE, snapshot, version -> true));
+    }
+    
+    public List<RowVersion> range(boolean newestFirst, TimeKey start, TimeKey stop, int limit, long snapshot,
+                                  Predicate<RowVersion> matches) {
+        return TimeIndex.walk(newestFirst ? byTime.descendingMap() : byTime, start, stop, limit, snapshot,
+                version -> version.type() == type && matches.test(version));
+    }
+    
+    public RunningAggregate aggregate() {
+        return aggregate;
+    }
+    
+    public void clear() {
+        byTime.clear();
+        aggregate.reset();
+    }
+}
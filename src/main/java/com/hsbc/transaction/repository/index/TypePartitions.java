@@ -0,0 +1,36 @@
+package com.hsbc.transaction.repository.index;
+
+import com.hsbc.transaction.model.TransactionType;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+public class TypePartitions {
+    
+    private final Map<TransactionType, TypePartition> partitions = new EnumMap<>(TransactionType.class);
+    
+    public TypePartitions() {
+        for (TransactionType type : TransactionType.values()) {
+            partitions.put(type, new TypePartition(type));
+        }
+    }
+    
+    public TypePartition get(TransactionType type) {
+        return partitions.get(type);
+    }
+    
+    public Map<TransactionType, Long> counts() {
+        Map<TransactionType, Long> counts = new EnumMap<>(TransactionType.class);
+        partitions.forEach((type, partition) -> {
+            long count = partition.aggregate().count();
+            if (count > 0) {
+                counts.put(type, count);
+            }
+        });
+        return counts;
+    }
+    
+    public void clear() {
+        partitions.values().forEach(TypePartition::clear);
+    }
+}
@@ -0,0 +1,100 @@
+package com.hsbc.transaction.repository.mvcc;
+
+import com.hsbc.transaction.model.Transaction;
+import com.hsbc.transaction.model.TransactionType;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// One committed state of a row. The row is a private copy that is never handed out or modified; readers get
+// their own copy from materialize(). A version is visible to snapshots taken at or after commitSeq and before
+// endSeq, the commit that replaced or deleted it. previous links to the version this one replaced and is cut
+// once no snapshot can reach past this version.
+public final class RowVersion {
+    
+    public static final long OPEN = Long.MAX_VALUE;
+    
+    private final Transaction row;
+    private final int accountCode;
+    private final long amountCents;
+    private final int slot;
+    private final long commitSeq;
+    private volatile long endSeq = OPEN;
+    private volatile RowVersion previous;
+    
+    public RowVersion(Transaction row, int accountCode, long amountCents, int slot, long commitSeq, RowVersion previous) {
+        this.row = row;
+        this.accountCode = accountCode;
+        this.amountCents = amountCents;
+        this.slot = slot;
+        this.commitSeq = commitSeq;
+        this.previous = previous;
+    }
+    
+    // The version of this row seen by a snapshot, or null if the row did not exist at that point.
+    public RowVersion at(long snapshot) {
+        RowVersion version = this;
+        while (version != null && version.commitSeq > snapshot) {
+            version = version.previous;
+        }
+        return version != null && snapshot < version.endSeq ? version : null;
+    }
+    
+    public Transaction materialize() {
+        return new Transaction(row);
+    }
+    
+    public static List<Transaction> materialize(List<RowVersion> versions) {
+        List<Transaction> rows = new ArrayList<>(versions.size());
+        for (RowVersion version : versions) {
+            rows.add(version.materialize());
+        }
+        return rows;
+    }
+    
+    public long id() {
+        return row.getId();
+    }
+    
+    public int accountCode() {
+        return accountCode;
+    }
+    
+    public long amountCents() {
+        return amountCents;
+    }
+    
+    public LocalDateTime transactionDate() {
+        return row.getTransactionDate();
+    }
+    
+    public TransactionType type() {
+        return row.getType();
+    }
+    
+    // The row's BitmapIndex slot, shared by all of its versions.
+    public int slot() {
+        return slot;
+    }
+    
+    public long commitSeq() {
+        return commitSeq;
+    }
+    
+    public boolean isLive() {
+        return endSeq == OPEN;
+    }
+    
+    public void end(long commitSeq) {
+        endSeq = commitSeq;
+    }
+    
+    public RowVersion previous() {
+        return previous;
+    }
+    
+    public void forgetPrevious() {
+        previous = null;
+    }
+}
@@ -0,0 +1,68 @@
+package com.hsbc.transaction.repository.mvcc;
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Records the oldest snapshot each thread is reading so that writers only reclaim versions no reader can see.
+// A reader pins a lower bound before it reads the snapshot it will use, which keeps oldest() safe against a
+// writer that computes it concurrently. Pins are per thread and nest. Slots hold their thread weakly and are
+// dropped by oldest() once it has ended, so pool threads that come and go do not accumulate.
+public final class SnapshotRegistry {
+    
+    private static final long IDLE = Long.MAX_VALUE;
+    
+    private final Queue<Slot> slots = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Slot> local = ThreadLocal.withInitial(this::register);
+    
+    public Slot pin(long lowerBound) {
+        Slot slot = local.get();
+        if (slot.depth++ == 0) {
+            slot.snapshot = lowerBound;
+        }
+        return slot;
+    }
+    
+    public void unpin(Slot slot) {
+        if (--slot.depth == 0) {
+            slot.snapshot = IDLE;
+        }
+    }
+    
+    // Oldest pinned snapshot, or upperBound when no reader holds an older one. A thread that has ended reads
+    // nothing, so its slot is removed rather than counted.
+    public long oldest(long upperBound) {
+        long oldest = upperBound;
+        for (Iterator<Slot> it = slots.iterator(); it.hasNext(); ) {
+            Slot slot = it.next();
+            Thread owner = slot.owner.get();
+            if (owner == null || !owner.isAlive()) {
+                it.remove();
+            } else {
+                oldest = Math.min(oldest, slot.snapshot);
+            }
+        }
+        return oldest;
+    }
+    
+    int slotCount() {
+        return slots.size();
+    }
+    
+    private Slot register() {
+        Slot slot = new Slot(Thread.currentThread());
+        slots.add(slot);
+        return slot;
+    }
+    
+    public static final class Slot {
+        private final WeakReference<Thread> owner;
+        private volatile long snapshot = IDLE;
+        private int depth;
+    
+        private Slot(Thread owner) {
+            this.owner = new WeakReference<>(owner);
+        }
+    }
+}
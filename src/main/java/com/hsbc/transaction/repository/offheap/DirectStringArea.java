@@ -0,0 +1,82 @@
+package com.hsbc.transaction.repository.offheap;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Append-only UTF-8 string area in chunked direct buffers; an address packs (chunk, position) into a long.
+class DirectStringArea {
+    
+    static final int NULL_LENGTH = -1;
+    
+    private final int chunkBytes;
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private ByteBuffer current;
+    private long garbage;
+    private long used;
+    
+    DirectStringArea(int chunkBytes) {
+        this.chunkBytes = chunkBytes;
+        newChunk();
+    }
+    
+    long append(byte[] value) {
+        if (value.length > chunkBytes) {
+            throw new IllegalArgumentException("String of " + value.length + " bytes exceeds chunk size " + chunkBytes);
+        }
+        if (current.remaining() < value.length) {
+            newChunk();
+        }
+        int position = current.position();
+        current.put(value);
+        used += value.length;
+        return address(chunks.size() - 1, position);
+    }
+    
+    long copyFrom(DirectStringArea source, long address, int length) {
+        byte[] value = new byte[length];
+        source.chunk(address).get(position(address), value);
+        return append(value);
+    }
+    
+    String read(long address, int length) {
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        chunk(address).get(position(address), value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+    
+    void release(int length) {
+        if (length > 0) {
+            garbage += length;
+        }
+    }
+    
+    boolean needsCompaction() {
+        return used > chunkBytes && garbage * 2 > used;
+    }
+    
+    long capacityBytes() {
+        return (long) chunks.size() * chunkBytes;
+    }
+    
+    private ByteBuffer chunk(long address) {
+        return chunks.get((int) (address >>> 32));
+    }
+    
+    private static int position(long address) {
+        return (int) address;
+    }
+    
+    private static long address(int chunk, int position) {
+        return ((long) chunk << 32) | position;
+    }
+    
+    private void newChunk() {
+        current = ByteBuffer.allocateDirect(chunkBytes);
+        chunks.add(current);
+    }
+}
@@ -0,0 +1,661 @@
+package com.hsbc.transaction.repository.offheap;
+
+import com.hsbc.transaction.model.Transaction;
+import com.hsbc.transaction.model.TransactionType;
+import com.hsbc.transaction.repository.AmountSummary;
+import com.hsbc.transaction.repository.PageCursor;
+import com.hsbc.transaction.repository.TransactionFilter;
+import com.hsbc.transaction.repository.TransactionPage;
+import com.hsbc.transaction.repository.TransactionStore;
+import com.hsbc.transaction.repository.id.IdAllocator;
+import com.hsbc.transaction.repository.index.TimeRollups;
+import com.hsbc.transaction.repository.query.QueryPlan;
+import com.hsbc.transaction.repository.query.SearchResult;
+import com.hsbc.transaction.repository.query.SortOrder;
+import com.hsbc.transaction.repository.query.TransactionQuery;
+import com.hsbc.transaction.repository.rollup.TimeBucket;
+import com.hsbc.transaction.repository.rollup.TimeSeriesBuilder;
+import com.hsbc.transaction.repository.rollup.TimeSeriesQuery;
+import com.hsbc.transaction.repository.support.AccountDictionary;
+import com.hsbc.transaction.repository.support.Cents;
+import com.hsbc.transaction.repository.support.CentsAggregate;
+import com.hsbc.transaction.repository.support.EpochMicros;
+import com.hsbc.transaction.repository.support.LongIntHashMap;
+import com.hsbc.transaction.repository.support.NewestFirstSelector;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+
+// Rows live in fixed-width slots inside chunked direct buffers; only the id -> slot map,
+// the account dictionary and the free-slot stack stay on the Java heap.
+public class OffHeapTransactionStore implements TransactionStore {
+    
+    private static final int ID = 0;
+    private static final int AMOUNT_CENTS = 8;
+    private static final int EPOCH_MICROS = 16;
+    private static final int ACCOUNT_CODE = 24;
+    private static final int TYPE = 28;
+    private static final int DESCRIPTION_LENGTH = 32;
+    private static final int REFERENCE_LENGTH = 36;
+    private static final int DESCRIPTION_ADDRESS = 40;
+    private static final int REFERENCE_ADDRESS = 48;
+    private static final int ROW_BYTES = 56;
+    
+    private static final int SLOTS_PER_CHUNK = 1 << 16;
+    private static final int STRING_CHUNK_BYTES = 4 << 20;
+    private static final byte FREE = -1;
+    private static final TransactionType[] TYPES = TransactionType.values();
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AccountDictionary accounts = new AccountDictionary();
+    private final TimeRollups rollups = new TimeRollups();
+    
+    private List<ByteBuffer> chunks;
+    private DirectStringArea strings;
+    private LongIntHashMap slotsById;
+    private int[] freeSlots;
+    private int freeCount;
+    private int slotCount;
+    private int liveRows;
+    private final IdAllocator idAllocator;
+    
+    // Writes are serialized by the lock, so the default allocator hands out ids one at a time and keeps them dense.
+    public OffHeapTransactionStore() {
+        this(IdAllocator.sequential(1, 1, 1));
+    }
+    
+    public OffHeapTransactionStore(IdAllocator idAllocator) {
+        this.idAllocator = idAllocator;
+        reset();
+    }
+    
+    @Override
+    public Transaction save(Transaction transaction) {
+        long cents = Cents.of(transaction.getAmount());
+        long micros = EpochMicros.floor(transaction.getTransactionDate());
+        byte type = (byte) transaction.getType().ordinal();
+        byte[] description = encode(transaction.getDescription());
+        byte[] reference = encode(transaction.getReference());
+        int accountCode = accounts.encode(transaction.getAccountNumber());
+        lock.writeLock().lock();
+        try {
+            if (transaction.getId() == null) {
+                transaction.setId(idAllocator.next());
+            } else {
+                idAllocator.observe(transaction.getId());
+            }
+            long id = transaction.getId();
+            int slot = slotsById.get(id);
+            if (slot == LongIntHashMap.MISSING) {
+                slot = allocateSlot();
+                slotsById.put(id, slot);
+                liveRows++;
+            } else {
+                releaseStrings(slot);
+                rollups.remove(epochMicros(slot), TYPES[type(slot)], accountCode(slot), amountCents(slot));
+            }
+            rollups.add(micros, transaction.getType(), accountCode, cents);
+            ByteBuffer chunk = chunk(slot);
+            int base = base(slot);
+            chunk.putLong(base + ID, id);
+            chunk.putLong(base + AMOUNT_CENTS, cents);
+            chunk.putLong(base + EPOCH_MICROS, micros);
+            chunk.putInt(base + ACCOUNT_CODE, accountCode);
+            chunk.put(base + TYPE, type);
+            chunk.putInt(base + DESCRIPTION_LENGTH, description == null ? DirectStringArea.NULL_LENGTH : description.length);
+            chunk.putLong(base + DESCRIPTION_ADDRESS, description == null ? 0 : strings.append(description));
+            chunk.putInt(base + REFERENCE_LENGTH, reference == null ? DirectStringArea.NULL_LENGTH : reference.length);
+            chunk.putLong(base + REFERENCE_ADDRESS, reference == null ? 0 : strings.append(reference));
+            if (strings.needsCompaction()) {
+                compactStrings();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return transaction;
+    }
+    
+    @Override
+    public Optional<Transaction> findById(Long id) {
+        lock.readLock().lock();
+        try {
+            int slot = slotsById.get(id);
+            return slot == LongIntHashMap.MISSING ? Optional.empty() : Optional.of(materialize(slot));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public List<Transaction> findAll() {
+        lock.readLock().lock();
+        try {
+            List<Transaction> all = new ArrayList<>(liveRows);
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (type(slot) != FREE) {
+                    all.add(materialize(slot));
+                }
+            }
+            return all;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public List<Transaction> findAll(int page, int size) {
+        return newestFirst(slot -> true, (long) page * size, size);
+    }
+    
+    @Override
+    public TransactionPage findPage(int page, int size) {
+        // The read lock is reentrant, so the page and the count come from the same state.
+        lock.readLock().lock();
+        try {
+            return new TransactionPage(findAll(page, size), liveRows);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public List<Transaction> findAfter(TransactionFilter filter, PageCursor after, int limit) {
+        IntPredicate matches = where(filter);
+        if (matches == null) {
+            return new ArrayList<>();
+        }
+        if (after != null) {
+            // Stored dates are whole microseconds, so rows sharing the cursor's microsecond only tie with it when
+            // the cursor has no finer part.
+            long cursor = EpochMicros.ceil(after.transactionDate());
+            boolean exact = EpochMicros.floor(after.transactionDate()) == cursor;
+            long id = after.id();
+            matches = matches.and(slot -> epochMicros(slot) < cursor || exact && epochMicros(slot) == cursor && id(slot) < id);
+        }
+        return newestFirst(matches, 0, limit);
+    }
+    
+    // Every query is a scan here, so the plan is always a full scan over the live rows.
+    @Override
+    public SearchResult search(TransactionQuery query) {
+        IntPredicate matches = where(query.filter());
+        lock.readLock().lock();
+        try {
+            QueryPlan plan = QueryPlan.fullScan(query, liveRows);
+            List<Transaction> content = matches == null
+                    ? new ArrayList<>()
+                    : select(matches, 0, query.limit(), order(query.sort()));
+            return new SearchResult(content, plan, liveRows);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public List<Transaction> findByAccountNumber(String accountNumber) {
+        int code = accounts.lookup(accountNumber);
+        if (code == AccountDictionary.MISSING) {
+            return new ArrayList<>();
+        }
+        return newestFirst(slot -> accountCode(slot) == code, 0, Integer.MAX_VALUE);
+    }
+    
+    @Override
+    public List<Transaction> findByType(TransactionType type) {
+        byte ordinal = (byte) type.ordinal();
+        return newestFirst(slot -> type(slot) == ordinal, 0, Integer.MAX_VALUE);
+    }
+    
+    @Override
+    public List<Transaction> findByAmountBetween(BigDecimal minAmount, BigDecimal maxAmount) {
+        long low = Cents.ceil(minAmount);
+        long high = Cents.floor(maxAmount);
+        if (low > high) {
+            return new ArrayList<>();
+        }
+        return newestFirst(slot -> amountCents(slot) >= low && amountCents(slot) <= high, 0, Integer.MAX_VALUE);
+    }
+    
+    @Override
+    public long estimateCountByAmountBetween(BigDecimal minAmount, BigDecimal maxAmount) {
+        long low = Cents.ceil(minAmount);
+        long high = Cents.floor(maxAmount);
+        return countWhere(slot -> amountCents(slot) >= low && amountCents(slot) <= high);
+    }
+    
+    @Override
+    public List<Transaction> findByDateBetween(LocalDateTime startDate, LocalDateTime endDate) {
+        if (!startDate.isBefore(endDate)) {
+            return new ArrayList<>();
+        }
+        long after = EpochMicros.floor(startDate);
+        long before = EpochMicros.ceil(endDate);
+        return newestFirst(slot -> epochMicros(slot) > after && epochMicros(slot) < before, 0, Integer.MAX_VALUE);
+    }
+    
+    @Override
+    public List<Transaction> findByAccountNumberAndType(String accountNumber, TransactionType type) {
+        int code = accounts.lookup(accountNumber);
+        if (code == AccountDictionary.MISSING) {
+            return new ArrayList<>();
+        }
+        byte ordinal = (byte) type.ordinal();
+        return newestFirst(slot -> accountCode(slot) == code && type(slot) == ordinal, 0, Integer.MAX_VALUE);
+    }
+    
+    @Override
+    public boolean existsById(Long id) {
+        lock.readLock().lock();
+        try {
+            return slotsById.get(id) != LongIntHashMap.MISSING;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public void deleteById(Long id) {
+        lock.writeLock().lock();
+        try {
+            int slot = slotsById.remove(id);
+            if (slot == LongIntHashMap.MISSING) {
+                return;
+            }
+            releaseStrings(slot);
+            rollups.remove(epochMicros(slot), TYPES[type(slot)], accountCode(slot), amountCents(slot));
+            chunk(slot).put(base(slot) + TYPE, FREE);
+            freeSlots[freeCount++] = slot;
+            liveRows--;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @Override
+    public void deleteAll() {
+        lock.writeLock().lock();
+        try {
+            reset();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @Override
+    public long count() {
+        lock.readLock().lock();
+        try {
+            return liveRows;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public long count(TransactionFilter filter) {
+        IntPredicate matches = where(filter);
+        if (matches == null) {
+            return 0;
+        }
+        long count = 0;
+        lock.readLock().lock();
+        try {
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (type(slot) != FREE && matches.test(slot)) {
+                    count++;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return count;
+    }
+    
+    // Scalar: rows are interleaved in the buffers, so there is no amount column to load a vector at a time.
+    @Override
+    public AmountSummary summarize(TransactionFilter filter) {
+        IntPredicate matches = where(filter);
+        if (matches == null) {
+            return AmountSummary.EMPTY;
+        }
+        CentsAggregate aggregate = new CentsAggregate();
+        lock.readLock().lock();
+        try {
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (type(slot) != FREE && matches.test(slot)) {
+                    aggregate.add(amountCents(slot));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return AmountSummary.of(aggregate);
+    }
+    
+    @Override
+    public List<TimeBucket> timeSeries(TimeSeriesQuery query) {
+        int code = query.accountNumber() == null ? AccountDictionary.MISSING : accounts.lookup(query.accountNumber());
+        if (query.accountNumber() != null && code == AccountDictionary.MISSING) {
+            return new TimeSeriesBuilder(query).build();
+        }
+        if (query.accountNumber() == null || query.type() == null) {
+            int dimension = query.accountNumber() != null ? TimeRollups.account(code)
+                    : query.type() != null ? TimeRollups.type(query.type()) : TimeRollups.all();
+            return rollups.series(query, dimension);
+        }
+        byte ordinal = (byte) query.type().ordinal();
+        TimeSeriesBuilder builder = new TimeSeriesBuilder(query);
+        lock.readLock().lock();
+        try {
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (accountCode(slot) == code && type(slot) == ordinal) {
+                    builder.add(epochMicros(slot), amountCents(slot));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return builder.build();
+    }
+    
+    @Override
+    public Map<TransactionType, Long> countByType() {
+        long[] counts = new long[TYPES.length];
+        lock.readLock().lock();
+        try {
+            for (int slot = 0; slot < slotCount; slot++) {
+                byte type = type(slot);
+                if (type != FREE) {
+                    counts[type]++;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        Map<TransactionType, Long> result = new EnumMap<>(TransactionType.class);
+        for (int ordinal = 0; ordinal < counts.length; ordinal++) {
+            if (counts[ordinal] > 0) {
+                result.put(TYPES[ordinal], counts[ordinal]);
+            }
+        }
+        return result;
+    }
+    
+    @Override
+    public Map<String, Long> countByAccountNumber() {
+        lock.readLock().lock();
+        try {
+            long[] counts = new long[accounts.size()];
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (type(slot) != FREE) {
+                    counts[accountCode(slot)]++;
+                }
+            }
+            Map<String, Long> result = new HashMap<>();
+            for (int code = 0; code < counts.length; code++) {
+                if (counts[code] > 0) {
+                    result.put(accounts.decode(code), counts[code]);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public BigDecimal getTotalAmount() {
+        return sumWhere(slot -> true);
+    }
+    
+    @Override
+    public BigDecimal getTotalAmountByType(TransactionType type) {
+        byte ordinal = (byte) type.ordinal();
+        return sumWhere(slot -> type(slot) == ordinal);
+    }
+    
+    @Override
+    public BigDecimal getTotalAmountByAccountNumber(String accountNumber) {
+        int code = accounts.lookup(accountNumber);
+        if (code == AccountDictionary.MISSING) {
+            return Cents.toAmount(0);
+        }
+        return sumWhere(slot -> accountCode(slot) == code);
+    }
+    
+    @Override
+    public long nextId() {
+        return idAllocator.nextId();
+    }
+    
+    @Override
+    public void advanceNextId(long nextId) {
+        idAllocator.advance(nextId);
+    }
+    
+    public long offHeapBytes() {
+        lock.readLock().lock();
+        try {
+            return (long) chunks.size() * SLOTS_PER_CHUNK * ROW_BYTES + strings.capacityBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private List<Transaction> newestFirst(IntPredicate matches, long offset, int size) {
+        return select(matches, offset, size, this::newer);
+    }
+    
+    private List<Transaction> select(IntPredicate matches, long offset, int size, NewestFirstSelector.RowOrder order) {
+        lock.readLock().lock();
+        try {
+            int wanted = (int) Math.min(offset + size, liveRows);
+            if (offset >= wanted) {
+                return new ArrayList<>();
+            }
+            int[] slots = NewestFirstSelector.select(slotCount, slot -> type(slot) != FREE && matches.test(slot),
+                    wanted, order);
+            List<Transaction> result = new ArrayList<>(Math.max(0, slots.length - (int) offset));
+            for (int i = (int) offset; i < slots.length; i++) {
+                result.add(materialize(slots[i]));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private NewestFirstSelector.RowOrder order(SortOrder sort) {
+        return switch (sort) {
+            case NEWEST_FIRST -> this::newer;
+            case OLDEST_FIRST -> (slot, other) -> newer(other, slot);
+            case LARGEST_FIRST -> this::larger;
+            case SMALLEST_FIRST -> (slot, other) -> larger(other, slot);
+        };
+    }
+    
+    // Null when the filter names an account the store has never seen, so nothing can match.
+    private IntPredicate where(TransactionFilter filter) {
+        IntPredicate matches = slot -> true;
+        if (filter.accountNumber() != null) {
+            int code = accounts.lookup(filter.accountNumber());
+            if (code == AccountDictionary.MISSING) {
+                return null;
+            }
+            matches = matches.and(slot -> accountCode(slot) == code);
+        }
+        if (filter.types() != null) {
+            int ordinals = 0;
+            for (TransactionType type : filter.types()) {
+                ordinals |= 1 << type.ordinal();
+            }
+            int mask = ordinals;
+            matches = matches.and(slot -> (mask & 1 << type(slot)) != 0);
+        }
+        if (filter.minAmount() != null) {
+            long low = Cents.ceil(filter.minAmount());
+            matches = matches.and(slot -> amountCents(slot) >= low);
+        }
+        if (filter.maxAmount() != null) {
+            long high = Cents.floor(filter.maxAmount());
+            matches = matches.and(slot -> amountCents(slot) <= high);
+        }
+        if (filter.startDate() != null) {
+            long start = EpochMicros.floor(filter.startDate());
+            matches = matches.and(slot -> epochMicros(slot) > start);
+        }
+        if (filter.endDate() != null) {
+            long end = EpochMicros.ceil(filter.endDate());
+            matches = matches.and(slot -> epochMicros(slot) < end);
+        }
+        return matches;
+    }
+    
+    private long countWhere(IntPredicate matches) {
+        lock.readLock().lock();
+        try {
+            long count = 0;
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (type(slot) != FREE && matches.test(slot)) {
+                    count++;
+                }
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private BigDecimal sumWhere(IntPredicate matches) {
+        lock.readLock().lock();
+        try {
+            long high = 0;
+            long low = 0;
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (type(slot) != FREE && matches.test(slot)) {
+                    long cents = amountCents(slot);
+                    high += Cents.high(cents);
+                    low += Cents.low(cents);
+                }
+            }
+            return Cents.toAmount(high, low);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private boolean newer(int slot, int other) {
+        long micros = epochMicros(slot);
+        long otherMicros = epochMicros(other);
+        return micros != otherMicros ? micros > otherMicros : id(slot) > id(other);
+    }
+    
+    private boolean larger(int slot, int other) {
+        long cents = amountCents(slot);
+        long otherCents = amountCents(other);
+        return cents != otherCents ? cents > otherCents : id(slot) > id(other);
+    }
+    
+    private Transaction materialize(int slot) {
+        ByteBuffer chunk = chunk(slot);
+        int base = base(slot);
+        Transaction transaction = new Transaction(
+                chunk.getLong(base + ID),
+                accounts.decode(chunk.getInt(base + ACCOUNT_CODE)),
+                Cents.toAmount(chunk.getLong(base + AMOUNT_CENTS)),
+                TYPES[chunk.get(base + TYPE)],
+                strings.read(chunk.getLong(base + DESCRIPTION_ADDRESS), chunk.getInt(base + DESCRIPTION_LENGTH)),
+                strings.read(chunk.getLong(base + REFERENCE_ADDRESS), chunk.getInt(base + REFERENCE_LENGTH)));
+        transaction.setTransactionDate(EpochMicros.toDateTime(chunk.getLong(base + EPOCH_MICROS)));
+        return transaction;
+    }
+    
+    private long id(int slot) {
+        return chunk(slot).getLong(base(slot) + ID);
+    }
+    
+    private long amountCents(int slot) {
+        return chunk(slot).getLong(base(slot) + AMOUNT_CENTS);
+    }
+    
+    private long epochMicros(int slot) {
+        return chunk(slot).getLong(base(slot) + EPOCH_MICROS);
+    }
+    
+    private int accountCode(int slot) {
+        return chunk(slot).getInt(base(slot) + ACCOUNT_CODE);
+    }
+    
+    private byte type(int slot) {
+        return chunk(slot).get(base(slot) + TYPE);
+    }
+    
+    private ByteBuffer chunk(int slot) {
+        return chunks.get(slot / SLOTS_PER_CHUNK);
+    }
+    
+    private static int base(int slot) {
+        return (slot % SLOTS_PER_CHUNK) * ROW_BYTES;
+    }
+    
+    private void releaseStrings(int slot) {
+        ByteBuffer chunk = chunk(slot);
+        int base = base(slot);
+        strings.release(chunk.getInt(base + DESCRIPTION_LENGTH));
+        strings.release(chunk.getInt(base + REFERENCE_LENGTH));
+    }
+    
+    private void compactStrings() {
+        DirectStringArea compacted = new DirectStringArea(STRING_CHUNK_BYTES);
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (type(slot) == FREE) {
+                continue;
+            }
+            ByteBuffer chunk = chunk(slot);
+            int base = base(slot);
+            relocate(compacted, chunk, base + DESCRIPTION_ADDRESS, chunk.getInt(base + DESCRIPTION_LENGTH));
+            relocate(compacted, chunk, base + REFERENCE_ADDRESS, chunk.getInt(base + REFERENCE_LENGTH));
+        }
+        strings = compacted;
+    }
+    
+    private void relocate(DirectStringArea target, ByteBuffer chunk, int addressField, int length) {
+        if (length != DirectStringArea.NULL_LENGTH) {
+            chunk.putLong(addressField, target.copyFrom(strings, chunk.getLong(addressField), length));
+        }
+    }
+    
+    private int allocateSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (slotCount == chunks.size() * SLOTS_PER_CHUNK) {
+            chunks.add(ByteBuffer.allocateDirect(SLOTS_PER_CHUNK * ROW_BYTES));
+            freeSlots = Arrays.copyOf(freeSlots, chunks.size() * SLOTS_PER_CHUNK);
+        }
+        return slotCount++;
+    }
+    
+    private static byte[] encode(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+    
+    private void reset() {
+        chunks = new ArrayList<>();
+        chunks.add(ByteBuffer.allocateDirect(SLOTS_PER_CHUNK * ROW_BYTES));
+        strings = new DirectStringArea(STRING_CHUNK_BYTES);
+        slotsById = new LongIntHashMap(SLOTS_PER_CHUNK);
+        freeSlots = new int[SLOTS_PER_CHUNK];
+        freeCount = 0;
+        slotCount = 0;
+        liveRows = 0;
+        idAllocator.reset();
+        rollups.clear();
+    }
+}
@@ -0,0 +1,10 @@
+package com.hsbc.transaction.repository.persistence;
+
+public enum DurabilityMode {
+    // Writers wait until the group commit containing their record has been fsynced.
+    BATCH,
+    // Writers wait until their record reaches the OS; the log is fsynced on a fixed interval.
+    PERIODIC,
+    // Writers wait until their record reaches the OS; fsync is left to the OS.
+    OS
+}
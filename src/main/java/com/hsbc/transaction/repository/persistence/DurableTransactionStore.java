@@ -0,0 +1,361 @@
+package com.hsbc.transaction.repository.persistence;
+
+import com.hsbc.transaction.model.Transaction;
+import com.hsbc.transaction.model.TransactionType;
+import com.hsbc.transaction.repository.AmountSummary;
+import com.hsbc.transaction.repository.PageCursor;
+import com.hsbc.transaction.repository.TransactionFilter;
+import com.hsbc.transaction.repository.TransactionPage;
+import com.hsbc.transaction.repository.TransactionStore;
+import com.hsbc.transaction.repository.query.SearchResult;
+import com.hsbc.transaction.repository.query.TransactionQuery;
+import com.hsbc.transaction.repository.rollup.TimeBucket;
+import com.hsbc.transaction.repository.rollup.TimeSeriesQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Logs every mutation of the wrapped store to a write-ahead log and rebuilds the store from the log on open.
+// Mutations of one id are applied and logged under the same stripe lock so the log order matches the store;
+// writers wait for durability only after releasing their locks, which lets them share a group commit.
+// Recovery loads the newest readable snapshot and replays only the log records written after it.
+public class DurableTransactionStore implements TransactionStore, Closeable {
+    
+    private static final Logger logger = LoggerFactory.getLogger(DurableTransactionStore.class);
+    
+    private static final int STRIPES = 256;
+    private static final int RETAINED_SNAPSHOTS = 2;
+    
+    private final TransactionStore delegate;
+    private final Path directory;
+    private final WriteAheadLog wal;
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    private final ReadWriteLock clearLock = new ReentrantReadWriteLock();
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+    private final ScheduledExecutorService snapshotter;
+    private volatile long lastSnapshotLsn;
+    
+    private DurableTransactionStore(TransactionStore delegate, WalOptions options, Duration snapshotInterval) throws IOException {
+        this.delegate = delegate;
+        this.directory = options.directory();
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        Files.createDirectories(directory);
+        this.lastSnapshotLsn = loadSnapshot();
+        this.wal = WriteAheadLog.open(options, lastSnapshotLsn, this::apply);
+        if (snapshotInterval.isZero()) {
+            this.snapshotter = null;
+        } else {
+            this.snapshotter = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "snapshot-writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long millis = snapshotInterval.toMillis();
+            this.snapshotter.scheduleWithFixedDelay(this::scheduledSnapshot, millis, millis, TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    public static DurableTransactionStore open(TransactionStore delegate, WalOptions options) throws IOException {
+        return open(delegate, options, Duration.ZERO);
+    }
+    
+    // A zero interval disables periodic snapshots; snapshot() can still be called directly.
+    public static DurableTransactionStore open(TransactionStore delegate, WalOptions options,
+                                               Duration snapshotInterval) throws IOException {
+        return new DurableTransactionStore(delegate, options, snapshotInterval);
+    }
+    
+    // Copies the store while writers carry on. Rows changed after lastLsn may already be in the copy;
+    // recovery replays those records again, which is harmless because each one carries the whole row.
+    public SnapshotFiles.Snapshot snapshot() throws IOException {
+        snapshotLock.lock();
+        try {
+            long startNanos = System.nanoTime();
+            long lastLsn = wal.lastAppendedLsn();
+            long nextId = delegate.nextId();
+            SnapshotFiles.Snapshot snapshot = SnapshotFiles.write(directory, lastLsn, nextId, delegate.findAll());
+            long elapsedNanos = System.nanoTime() - startNanos;
+            logger.info("Wrote snapshot of {} rows ({} KB) at LSN {} in {} ms ({} MB/s)",
+                    snapshot.rows(), snapshot.bytes() / 1024, lastLsn, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                    String.format("%.1f", snapshot.bytes() / (1024.0 * 1024.0) / (elapsedNanos / 1e9)));
+            lastSnapshotLsn = lastLsn;
+            prune();
+            return snapshot;
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+    
+    @Override
+    public Transaction save(Transaction transaction) {
+        long lsn;
+        Transaction saved;
+        clearLock.readLock().lock();
+        try {
+            if (transaction.getId() == null) {
+                saved = delegate.save(transaction);
+                ReentrantLock stripe = stripe(saved.getId());
+                stripe.lock();
+                try {
+                    // A concurrent update may already have logged a newer version; log whatever is current.
+                    Optional<Transaction> current = delegate.findById(saved.getId());
+                    if (current.isEmpty()) {
+                        return saved;
+                    }
+                    lsn = wal.appendPut(current.get());
+                } finally {
+                    stripe.unlock();
+                }
+            } else {
+                ReentrantLock stripe = stripe(transaction.getId());
+                stripe.lock();
+                try {
+                    saved = delegate.save(transaction);
+                    lsn = wal.appendPut(saved);
+                } finally {
+                    stripe.unlock();
+                }
+            }
+        } finally {
+            clearLock.readLock().unlock();
+        }
+        wal.await(lsn);
+        return saved;
+    }
+    
+    @Override
+    public Optional<Transaction> findById(Long id) {
+        return delegate.findById(id);
+    }
+    
+    @Override
+    public List<Transaction> findAll() {
+        return delegate.findAll();
+    }
+    
+    @Override
+    public List<Transaction> findAll(int page, int size) {
+        return delegate.findAll(page, size);
+    }
+    
+    @Override
+    public TransactionPage findPage(int page, int size) {
+        return delegate.findPage(page, size);
+    }
+    
+    @Override
+    public List<Transaction> findAfter(TransactionFilter filter, PageCursor after, int limit) {
+        return delegate.findAfter(filter, after, limit);
+    }
+    
+    @Override
+    public SearchResult search(TransactionQuery query) {
+        return delegate.search(query);
+    }
+    
+    @Override
+    public List<Transaction> findByAccountNumber(String accountNumber) {
+        return delegate.findByAccountNumber(accountNumber);
+    }
+    
+    @Override
+    public List<Transaction> findByType(TransactionType type) {
+        return delegate.findByType(type);
+    }
+    
+    @Override
+    public List<Transaction> findByAmountBetween(BigDecimal minAmount, BigDecimal maxAmount) {
+        return delegate.findByAmountBetween(minAmount, maxAmount);
+    }
+    
+    @Override
+    public long estimateCountByAmountBetween(BigDecimal minAmount, BigDecimal maxAmount) {
+        return delegate.estimateCountByAmountBetween(minAmount, maxAmount);
+    }
+    
+    @Override
+    public List<Transaction> findByDateBetween(LocalDateTime startDate, LocalDateTime endDate) {
+        return delegate.findByDateBetween(startDate, endDate);
+    }
+    
+    @Override
+    public List<Transaction> findByAccountNumberAndType(String accountNumber, TransactionType type) {
+        return delegate.findByAccountNumberAndType(accountNumber, type);
+    }
+    
+    @Override
+    public boolean existsById(Long id) {
+        return delegate.existsById(id);
+    }
+    
+    @Override
+    public void deleteById(Long id) {
+        long lsn;
+        clearLock.readLock().lock();
+        try {
+            ReentrantLock stripe = stripe(id);
+            stripe.lock();
+            try {
+                delegate.deleteById(id);
+                lsn = wal.appendDelete(id);
+            } finally {
+                stripe.unlock();
+            }
+        } finally {
+            clearLock.readLock().unlock();
+        }
+        wal.await(lsn);
+    }
+    
+    @Override
+    public void deleteAll() {
+        long lsn;
+        clearLock.writeLock().lock();
+        try {
+            delegate.deleteAll();
+            lsn = wal.appendClear();
+        } finally {
+            clearLock.writeLock().unlock();
+        }
+        wal.await(lsn);
+    }
+    
+    @Override
+    public long count() {
+        return delegate.count();
+    }
+    
+    @Override
+    public long count(TransactionFilter filter) {
+        return delegate.count(filter);
+    }
+    
+    @Override
+    public AmountSummary summarize(TransactionFilter filter) {
+        return delegate.summarize(filter);
+    }
+    
+    @Override
+    public List<TimeBucket> timeSeries(TimeSeriesQuery query) {
+        return delegate.timeSeries(query);
+    }
+    
+    @Override
+    public Map<TransactionType, Long> countByType() {
+        return delegate.countByType();
+    }
+    
+    @Override
+    public Map<String, Long> countByAccountNumber() {
+        return delegate.countByAccountNumber();
+    }
+    
+    @Override
+    public BigDecimal getTotalAmount() {
+        return delegate.getTotalAmount();
+    }
+    
+    @Override
+    public BigDecimal getTotalAmountByType(TransactionType type) {
+        return delegate.getTotalAmountByType(type);
+    }
+    
+    @Override
+    public BigDecimal getTotalAmountByAccountNumber(String accountNumber) {
+        return delegate.getTotalAmountByAccountNumber(accountNumber);
+    }
+    
+    @Override
+    public long nextId() {
+        return delegate.nextId();
+    }
+    
+    @Override
+    public void advanceNextId(long nextId) {
+        delegate.advanceNextId(nextId);
+    }
+    
+    @Override
+    public void close() throws IOException {
+        if (snapshotter != null) {
+            snapshotter.shutdown();
+            try {
+                snapshotter.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        wal.close();
+    }
+    
+    private long loadSnapshot() throws IOException {
+        SnapshotFiles.deleteTemporary(directory);
+        List<Path> snapshots = SnapshotFiles.list(directory);
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            long startNanos = System.nanoTime();
+            try {
+                SnapshotFiles.Snapshot snapshot = SnapshotFiles.load(snapshots.get(i), delegate::save);
+                delegate.advanceNextId(snapshot.nextId());
+                logger.info("Loaded {} rows from snapshot {} in {} ms",
+                        snapshot.rows(), snapshot.path(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+                return snapshot.lastLsn();
+            } catch (IOException e) {
+                logger.warn("Skipping unreadable snapshot {}", snapshots.get(i), e);
+                delegate.deleteAll();
+            }
+        }
+        return 0;
+    }
+    
+    // Keeps the previous snapshot as a fallback, so the log is only trimmed up to that one.
+    private void prune() throws IOException {
+        List<Path> snapshots = SnapshotFiles.list(directory);
+        for (int i = 0; i < snapshots.size() - RETAINED_SNAPSHOTS; i++) {
+            Files.delete(snapshots.get(i));
+        }
+        if (snapshots.size() >= RETAINED_SNAPSHOTS) {
+            wal.deleteSegmentsThrough(SnapshotFiles.lastLsn(snapshots.get(snapshots.size() - RETAINED_SNAPSHOTS)));
+        }
+    }
+    
+    private void scheduledSnapshot() {
+        if (wal.lastAppendedLsn() == lastSnapshotLsn) {
+            return;
+        }
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            logger.error("Snapshot of {} failed", directory, e);
+        }
+    }
+    
+    private void apply(LogRecord record) {
+        switch (record.operation()) {
+            case PUT -> delegate.save(record.transaction());
+            case DELETE -> delegate.deleteById(record.id());
+            case CLEAR -> delegate.deleteAll();
+        }
+    }
+    
+    private ReentrantLock stripe(Long id) {
+        return stripes[Long.hashCode(id) & (STRIPES - 1)];
+    }
+}
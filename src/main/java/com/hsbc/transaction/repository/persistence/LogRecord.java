@@ -0,0 +1,10 @@
+package com.hsbc.transaction.repository.persistence;
+
+import com.hsbc.transaction.model.Transaction;
+
+public record LogRecord(long lsn, Operation operation, long id, Transaction transaction) {
+    
+    public enum Operation {
+        PUT, DELETE, CLEAR
+    }
+}
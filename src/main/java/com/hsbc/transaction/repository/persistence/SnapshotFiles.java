@@ -0,0 +1,194 @@
+package com.hsbc.transaction.repository.persistence;
+
+import com.hsbc.transaction.model.Transaction;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+// Point-in-time copies of a store. A snapshot is written to a temporary file, fsynced and then renamed
+// into place, so a snapshot file is either complete or absent. Loading maps the file instead of reading it.
+//
+// Layout: header = [int magic][int version][long lastLsn][long nextId][long rowCount][int crc32c(header)]
+//         chunk  = [int payloadLength][int rowCount][int crc32c(payload)] payload = encoded rows
+public final class SnapshotFiles {
+    
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".snap";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    private static final int MAGIC = 0x54584E53;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = Integer.BYTES * 2 + Long.BYTES * 3 + Integer.BYTES;
+    private static final int CHUNK_HEADER_BYTES = Integer.BYTES * 3;
+    private static final int CHUNK_BYTES = 1024 * 1024;
+    private static final long MAX_WINDOW_BYTES = 1L << 30;
+    
+    private SnapshotFiles() {
+    }
+    
+    public record Snapshot(Path path, long lastLsn, long nextId, long rows, long bytes) {
+    }
+    
+    public static Snapshot write(Path directory, long lastLsn, long nextId, Iterable<Transaction> rows) throws IOException {
+        Path path = directory.resolve(String.format("%s%020d%s", PREFIX, lastLsn, SUFFIX));
+        Path temporary = path.resolveSibling(path.getFileName() + TEMPORARY_SUFFIX);
+        long rowCount = 0;
+        long bytes;
+        try (FileChannel channel = FileChannel.open(temporary,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            channel.position(HEADER_BYTES);
+            ByteBuffer chunk = ByteBuffer.allocate(CHUNK_BYTES);
+            chunk.position(CHUNK_HEADER_BYTES);
+            int chunkRows = 0;
+            for (Transaction transaction : rows) {
+                byte[] row = TransactionCodec.encode(transaction);
+                if (chunk.remaining() < row.length && chunkRows > 0) {
+                    writeChunk(channel, chunk, chunkRows);
+                    chunkRows = 0;
+                }
+                if (chunk.remaining() < row.length) {
+                    chunk = ByteBuffer.allocate(CHUNK_HEADER_BYTES + row.length);
+                    chunk.position(CHUNK_HEADER_BYTES);
+                }
+                chunk.put(row);
+                chunkRows++;
+                rowCount++;
+            }
+            if (chunkRows > 0) {
+                writeChunk(channel, chunk, chunkRows);
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                    .putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putLong(lastLsn)
+                    .putLong(nextId)
+                    .putLong(rowCount);
+            header.putInt(crc(header.array(), 0, header.position())).flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+            bytes = channel.size();
+        }
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return new Snapshot(path, lastLsn, nextId, rowCount, bytes);
+    }
+    
+    // Maps the snapshot and hands every row to the consumer; any checksum or length mismatch rejects the whole file.
+    public static Snapshot load(Path path, Consumer<Transaction> rows) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                throw corrupt(path, "truncated header");
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            CRC32C headerCrc = new CRC32C();
+            headerCrc.update(header.slice(0, HEADER_BYTES - Integer.BYTES));
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw corrupt(path, "unknown format");
+            }
+            long lastLsn = header.getLong();
+            long nextId = header.getLong();
+            long rowCount = header.getLong();
+            if (header.getInt() != (int) headerCrc.getValue()) {
+                throw corrupt(path, "header checksum mismatch");
+            }
+            long loaded = 0;
+            long position = HEADER_BYTES;
+            while (position < size) {
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(size - position, MAX_WINDOW_BYTES));
+                while (window.remaining() >= CHUNK_HEADER_BYTES) {
+                    int start = window.position();
+                    int payloadLength = window.getInt(start);
+                    if (payloadLength < 0 || window.remaining() - CHUNK_HEADER_BYTES < payloadLength) {
+                        break;
+                    }
+                    int chunkRows = window.getInt(start + Integer.BYTES);
+                    ByteBuffer payload = window.slice(start + CHUNK_HEADER_BYTES, payloadLength);
+                    CRC32C crc = new CRC32C();
+                    crc.update(payload.duplicate());
+                    if ((int) crc.getValue() != window.getInt(start + Integer.BYTES * 2)) {
+                        throw corrupt(path, "chunk checksum mismatch at byte " + (position + start));
+                    }
+                    for (int i = 0; i < chunkRows; i++) {
+                        rows.accept(TransactionCodec.decode(payload));
+                    }
+                    loaded += chunkRows;
+                    window.position(start + CHUNK_HEADER_BYTES + payloadLength);
+                }
+                if (window.position() == 0) {
+                    throw corrupt(path, "truncated chunk at byte " + position);
+                }
+                position += window.position();
+            }
+            if (loaded != rowCount) {
+                throw corrupt(path, "expected " + rowCount + " rows but found " + loaded);
+            }
+            return new Snapshot(path, lastLsn, nextId, rowCount, size);
+        }
+    }
+    
+    // Completed snapshots, oldest first.
+    public static List<Path> list(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                    })
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+    
+    public static long lastLsn(Path snapshot) {
+        String name = snapshot.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+    
+    // Removes snapshots that were still being written when the process stopped.
+    public static void deleteTemporary(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : (Iterable<Path>) files::iterator) {
+                String name = path.getFileName().toString();
+                if (name.startsWith(PREFIX) && name.endsWith(SUFFIX + TEMPORARY_SUFFIX)) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+    
+    private static void writeChunk(FileChannel channel, ByteBuffer chunk, int chunkRows) throws IOException {
+        int payloadLength = chunk.position() - CHUNK_HEADER_BYTES;
+        chunk.putInt(0, payloadLength);
+        chunk.putInt(Integer.BYTES, chunkRows);
+        chunk.putInt(Integer.BYTES * 2, crc(chunk.array(), CHUNK_HEADER_BYTES, payloadLength));
+        chunk.flip();
+        while (chunk.hasRemaining()) {
+            channel.write(chunk);
+        }
+        chunk.clear();
+        chunk.position(CHUNK_HEADER_BYTES);
+    }
+    
+    private static int crc(byte[] bytes, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+    
+    private static IOException corrupt(Path path, String reason) {
+        return new IOException("Snapshot " + path + " is corrupt: " + reason);
+    }
+}
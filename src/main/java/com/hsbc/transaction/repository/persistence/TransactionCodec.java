@@ -0,0 +1,80 @@
+package com.hsbc.transaction.repository.persistence;
+
+import com.hsbc.transaction.model.Transaction;
+import com.hsbc.transaction.model.TransactionType;
+import com.hsbc.transaction.repository.support.Cents;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+// Binary row layout shared by the write-ahead log and snapshots.
+public final class TransactionCodec {
+    
+    private static final TransactionType[] TYPES = TransactionType.values();
+    private static final int NULL_LENGTH = -1;
+    
+    private TransactionCodec() {
+    }
+    
+    public static byte[] encode(Transaction transaction) {
+        byte[] account = bytes(transaction.getAccountNumber());
+        byte[] description = bytes(transaction.getDescription());
+        byte[] reference = bytes(transaction.getReference());
+        int size = Long.BYTES * 3 + Integer.BYTES + 1 + Integer.BYTES * 3
+                + length(account) + length(description) + length(reference);
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        LocalDateTime date = transaction.getTransactionDate();
+        buffer.putLong(transaction.getId());
+        buffer.putLong(Cents.of(transaction.getAmount()));
+        buffer.putLong(date.toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(date.getNano());
+        buffer.put((byte) transaction.getType().ordinal());
+        putBytes(buffer, account);
+        putBytes(buffer, description);
+        putBytes(buffer, reference);
+        return buffer.array();
+    }
+    
+    public static Transaction decode(ByteBuffer buffer) {
+        long id = buffer.getLong();
+        long amountCents = buffer.getLong();
+        long epochSecond = buffer.getLong();
+        int nano = buffer.getInt();
+        TransactionType type = TYPES[buffer.get()];
+        String account = getString(buffer);
+        String description = getString(buffer);
+        String reference = getString(buffer);
+        Transaction transaction = new Transaction(id, account, Cents.toAmount(amountCents), type, description, reference);
+        transaction.setTransactionDate(LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC));
+        return transaction;
+    }
+    
+    private static byte[] bytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+    
+    private static int length(byte[] value) {
+        return value == null ? 0 : value.length;
+    }
+    
+    private static void putBytes(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putInt(NULL_LENGTH);
+        } else {
+            buffer.putInt(value.length);
+            buffer.put(value);
+        }
+    }
+    
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        buffer.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,8 @@
+package com.hsbc.transaction.repository.persistence;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+public record WalOptions(Path directory, DurabilityMode durability, Duration groupCommitWindow,
+                         Duration syncInterval, long segmentBytes) {
+}
@@ -0,0 +1,396 @@
+package com.hsbc.transaction.repository.persistence;
+
+import com.hsbc.transaction.model.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+// Append-only log of PUT/DELETE/CLEAR records. Writers copy their record into a shared buffer and a single
+// flusher thread writes whole batches, so concurrent writers share one write and, in BATCH mode, one fsync.
+//
+// Record layout: [int bodyLength][int crc32c(body)] body = [long lsn][byte operation][payload]
+public class WriteAheadLog implements Closeable {
+    
+    private static final Logger logger = LoggerFactory.getLogger(WriteAheadLog.class);
+    
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int HEADER_BYTES = Integer.BYTES * 2;
+    private static final int BODY_PREFIX_BYTES = Long.BYTES + 1;
+    private static final int FLUSH_THRESHOLD = 256 * 1024;
+    private static final LogRecord.Operation[] OPERATIONS = LogRecord.Operation.values();
+    
+    private final WalOptions options;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition pendingAvailable = lock.newCondition();
+    private final Condition flushed = lock.newCondition();
+    private final Thread flusher;
+    
+    private ByteBuffer pending = ByteBuffer.allocate(FLUSH_THRESHOLD * 2);
+    private ByteBuffer spare = ByteBuffer.allocate(FLUSH_THRESHOLD * 2);
+    private long nextLsn;
+    private long pendingLastLsn;
+    private long writtenLsn;
+    private long durableLsn;
+    private IOException failure;
+    private boolean closed;
+    
+    private FileChannel segment;
+    private long segmentSize;
+    private long lastSyncNanos = System.nanoTime();
+    
+    private WriteAheadLog(WalOptions options, long nextLsn) throws IOException {
+        this.options = options;
+        this.nextLsn = nextLsn;
+        this.pendingLastLsn = nextLsn - 1;
+        this.writtenLsn = nextLsn - 1;
+        this.durableLsn = nextLsn - 1;
+        openSegment(nextLsn);
+        this.flusher = new Thread(this::runFlusher, "wal-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+    
+    // Replays every record after fromLsn, the position a snapshot was taken at, or 0 without one.
+    public static WriteAheadLog open(WalOptions options, long fromLsn, Consumer<LogRecord> replay) throws IOException {
+        Files.createDirectories(options.directory());
+        long lastLsn = replay(options.directory(), fromLsn, replay);
+        return new WriteAheadLog(options, lastLsn + 1);
+    }
+    
+    public long appendPut(Transaction transaction) {
+        return append(LogRecord.Operation.PUT, TransactionCodec.encode(transaction));
+    }
+    
+    public long appendDelete(long id) {
+        return append(LogRecord.Operation.DELETE, ByteBuffer.allocate(Long.BYTES).putLong(id).array());
+    }
+    
+    public long appendClear() {
+        return append(LogRecord.Operation.CLEAR, new byte[0]);
+    }
+    
+    // Blocks until the record is as durable as the configured mode promises.
+    public void await(long lsn) {
+        lock.lock();
+        try {
+            while ((options.durability() == DurabilityMode.BATCH ? durableLsn : writtenLsn) < lsn) {
+                if (failure != null) {
+                    throw new UncheckedIOException("Write-ahead log failed", failure);
+                }
+                flushed.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    public DurabilityMode durability() {
+        return options.durability();
+    }
+    
+    public long lastAppendedLsn() {
+        lock.lock();
+        try {
+            return nextLsn - 1;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    // Deletes the segments whose records all have an LSN of at most lsn. The active segment is never deleted.
+    public void deleteSegmentsThrough(long lsn) throws IOException {
+        List<Path> segments = segments(options.directory());
+        for (int i = 0; i + 1 < segments.size() && firstLsn(segments.get(i + 1)) - 1 <= lsn; i++) {
+            Files.delete(segments.get(i));
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            pendingAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        lock.lock();
+        try {
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private long append(LogRecord.Operation operation, byte[] payload) {
+        lock.lock();
+        try {
+            if (failure != null) {
+                throw new UncheckedIOException("Write-ahead log failed", failure);
+            }
+            if (closed) {
+                throw new IllegalStateException("Write-ahead log is closed");
+            }
+            int bodyLength = BODY_PREFIX_BYTES + payload.length;
+            if (pending.remaining() < HEADER_BYTES + bodyLength) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + HEADER_BYTES + bodyLength));
+                pending.flip();
+                grown.put(pending);
+                pending = grown;
+            }
+            long lsn = nextLsn++;
+            int start = pending.position();
+            pending.putInt(bodyLength);
+            pending.putInt(0);
+            pending.putLong(lsn);
+            pending.put((byte) operation.ordinal());
+            pending.put(payload);
+            CRC32C crc = new CRC32C();
+            crc.update(pending.array(), start + HEADER_BYTES, bodyLength);
+            pending.putInt(start + Integer.BYTES, (int) crc.getValue());
+            pendingLastLsn = lsn;
+            if (start == 0 || pending.position() >= FLUSH_THRESHOLD) {
+                pendingAvailable.signal();
+            }
+            return lsn;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private void runFlusher() {
+        try {
+            while (true) {
+                ByteBuffer batch = null;
+                long batchLastLsn;
+                lock.lock();
+                try {
+                    while (pending.position() == 0 && !closed && !periodicSyncDue()) {
+                        if (options.durability() == DurabilityMode.PERIODIC && durableLsn < writtenLsn) {
+                            pendingAvailable.awaitNanos(nanosUntilPeriodicSync());
+                        } else {
+                            pendingAvailable.await();
+                        }
+                    }
+                    if (pending.position() == 0 && closed) {
+                        break;
+                    }
+                    if (pending.position() > 0) {
+                        // Hold the batch open for the group commit window so more writers can join it.
+                        long window = options.groupCommitWindow().toNanos();
+                        while (window > 0 && pending.position() < FLUSH_THRESHOLD && !closed) {
+                            window = pendingAvailable.awaitNanos(window);
+                        }
+                        batch = pending;
+                        pending = spare;
+                        spare = null;
+                    }
+                    batchLastLsn = pendingLastLsn;
+                } finally {
+                    lock.unlock();
+                }
+                
+                if (batch != null) {
+                    batch.flip();
+                    while (batch.hasRemaining()) {
+                        segmentSize += segment.write(batch);
+                    }
+                }
+                boolean sync = options.durability() == DurabilityMode.BATCH || periodicSyncDueUnlocked();
+                if (sync) {
+                    segment.force(false);
+                    lastSyncNanos = System.nanoTime();
+                }
+                
+                lock.lock();
+                try {
+                    writtenLsn = batchLastLsn;
+                    if (sync) {
+                        durableLsn = batchLastLsn;
+                    }
+                    if (batch != null) {
+                        batch.clear();
+                        spare = batch;
+                    }
+                    flushed.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                
+                if (segmentSize >= options.segmentBytes()) {
+                    openSegment(batchLastLsn + 1);
+                }
+            }
+            segment.force(false);
+            segment.close();
+            lock.lock();
+            try {
+                durableLsn = writtenLsn;
+                flushed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        } catch (IOException e) {
+            fail(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(new IOException("Write-ahead log flusher interrupted", e));
+        }
+    }
+    
+    private boolean periodicSyncDue() {
+        return options.durability() == DurabilityMode.PERIODIC
+                && durableLsn < writtenLsn
+                && nanosUntilPeriodicSync() <= 0;
+    }
+    
+    private boolean periodicSyncDueUnlocked() {
+        return options.durability() == DurabilityMode.PERIODIC && nanosUntilPeriodicSync() <= 0;
+    }
+    
+    private long nanosUntilPeriodicSync() {
+        return options.syncInterval().toNanos() - (System.nanoTime() - lastSyncNanos);
+    }
+    
+    private void fail(IOException e) {
+        logger.error("Write-ahead log in {} failed", options.directory(), e);
+        lock.lock();
+        try {
+            failure = e;
+            flushed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private void openSegment(long firstLsn) throws IOException {
+        if (segment != null) {
+            segment.force(false);
+            segment.close();
+        }
+        segment = FileChannel.open(segmentPath(options.directory(), firstLsn),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        segmentSize = segment.size();
+    }
+    
+    private static Path segmentPath(Path directory, long firstLsn) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstLsn, SEGMENT_SUFFIX));
+    }
+    
+    private static long firstLsn(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+    
+    private static List<Path> segments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+    
+    private static long replay(Path directory, long fromLsn, Consumer<LogRecord> replay) throws IOException {
+        long startNanos = System.nanoTime();
+        long lastLsn = fromLsn;
+        long records = 0;
+        List<Path> segments = segments(directory);
+        if (!segments.isEmpty() && firstLsn(segments.get(0)) > fromLsn + 1) {
+            throw new IOException("Write-ahead log in " + directory + " starts at LSN " + firstLsn(segments.get(0))
+                    + " but recovery needs every record after LSN " + fromLsn);
+        }
+        for (int i = 0; i < segments.size(); i++) {
+            Path path = segments.get(i);
+            if (i + 1 < segments.size() && firstLsn(segments.get(i + 1)) - 1 <= fromLsn) {
+                continue;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+            while (buffer.remaining() >= HEADER_BYTES) {
+                int recordStart = buffer.position();
+                int bodyLength = buffer.getInt();
+                int expectedCrc = buffer.getInt();
+                if (bodyLength < BODY_PREFIX_BYTES || buffer.remaining() < bodyLength) {
+                    buffer.position(recordStart);
+                    break;
+                }
+                CRC32C crc = new CRC32C();
+                crc.update(buffer.array(), buffer.position(), bodyLength);
+                if ((int) crc.getValue() != expectedCrc) {
+                    buffer.position(recordStart);
+                    break;
+                }
+                ByteBuffer body = buffer.slice(buffer.position(), bodyLength);
+                buffer.position(buffer.position() + bodyLength);
+                if (body.getLong(0) > fromLsn) {
+                    LogRecord record = decode(body);
+                    replay.accept(record);
+                    lastLsn = record.lsn();
+                    records++;
+                }
+            }
+            if (buffer.hasRemaining()) {
+                discardTail(path, buffer.position(), segments.subList(i + 1, segments.size()));
+                break;
+            }
+        }
+        logger.info("Replayed {} write-ahead log records after LSN {} from {} in {} ms",
+                records, fromLsn, directory, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        return lastLsn;
+    }
+    
+    // A torn or corrupt record ends the log: it is truncated there and any later segments are set aside.
+    private static void discardTail(Path path, int validBytes, List<Path> laterSegments) throws IOException {
+        logger.warn("Truncating write-ahead log segment {} at byte {} after a torn or corrupt record", path, validBytes);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(validBytes);
+            channel.force(true);
+        }
+        for (Path later : laterSegments) {
+            Files.move(later, later.resolveSibling(later.getFileName() + ".discarded"));
+        }
+    }
+    
+    private static LogRecord decode(ByteBuffer body) {
+        long lsn = body.getLong();
+        LogRecord.Operation operation = OPERATIONS[body.get()];
+        return switch (operation) {
+            case PUT -> {
+                Transaction transaction = TransactionCodec.decode(body);
+                yield new LogRecord(lsn, operation, transaction.getId(), transaction);
+            }
+            case DELETE -> new LogRecord(lsn, operation, body.getLong(), null);
+            case CLEAR -> new LogRecord(lsn, operation, 0, null);
+        };
+    }
+}
@@ -0,0 +1,37 @@
+package com.hsbc.transaction.repository.query;
+
+import java.util.List;
+
+public enum AccessPath {
+    
+    ACCOUNT_INDEX(true, "accountNumber"),
+    TYPE_INDEX(true, "type"),
+    BITMAP_INDEX(false, "accountNumber", "type"),
+    AMOUNT_INDEX(false, "amount"),
+    TIME_INDEX(true, "transactionDate"),
+    FULL_SCAN(false);
+    
+    // Whether the path yields rows in time order, and the predicates it answers by itself.
+    private final boolean timeOrdered;
+    private final List<String> predicates;
+    
+    AccessPath(boolean timeOrdered, String... predicates) {
+        this.timeOrdered = timeOrdered;
+        this.predicates = List.of(predicates);
+    }
+    
+    // Whether a predicate as written by TransactionFilter.predicates() needs no check beyond reading the path.
+    public boolean answers(String predicate) {
+        for (String field : predicates) {
+            if (predicate.startsWith(field + " ")) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    // Whether rows come off the path already in the requested order, so reading can stop after limit matches.
+    public boolean delivers(SortOrder sort) {
+        return sort.byTime() ? timeOrdered : this == AMOUNT_INDEX;
+    }
+}
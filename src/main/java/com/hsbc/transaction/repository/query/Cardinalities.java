@@ -0,0 +1,26 @@
+package com.hsbc.transaction.repository.query;
+
+import com.hsbc.transaction.model.TransactionType;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+// Row counts an engine can give cheaply from its indexes and aggregates. Exact counts are preferred, but
+// estimates are enough: they only decide which index a query reads.
+public interface Cardinalities {
+    
+    long rows();
+    
+    long account(String accountNumber);
+    
+    long type(TransactionType type);
+    
+    // Rows of the account with any of the types; either may be null, not both.
+    long accountAndTypes(String accountNumber, Set<TransactionType> types);
+    
+    // Amounts in cents, both bounds inclusive.
+    long amountBetween(long lowCents, long highCents);
+    
+    // Either bound may be null; both are exclusive.
+    long dateBetween(LocalDateTime startDate, LocalDateTime endDate);
+}
@@ -0,0 +1,14 @@
+package com.hsbc.transaction.repository.query;
+
+import java.util.List;
+
+// How a search is answered: the path rows are read from, how many rows it was expected to read, how many
+// were expected to match, and the predicates checked row by row. When sortedByIndex is false every row the
+// path yields is read and the matches are sorted afterwards.
+public record QueryPlan(AccessPath accessPath, long estimatedRowsRead, long estimatedMatches,
+                        List<String> residualPredicates, boolean sortedByIndex) {
+    
+    public static QueryPlan fullScan(TransactionQuery query, long rows) {
+        return new QueryPlan(AccessPath.FULL_SCAN, rows, rows, query.filter().predicates(), false);
+    }
+}
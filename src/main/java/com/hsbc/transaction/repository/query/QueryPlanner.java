@@ -0,0 +1,78 @@
+package com.hsbc.transaction.repository.query;
+
+import com.hsbc.transaction.repository.TransactionFilter;
+import com.hsbc.transaction.repository.support.Cents;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// Picks the access path expected to read the fewest rows. The account and type predicates are counted together,
+// and the amount and date predicates are assumed independent of them and of each other, so the expected matches
+// are that count scaled by the selectivity of each. A path that yields rows in the requested order stops after
+// limit matches, which it expects to find within limit / matches of its rows; any other path reads every row it
+// yields. The time index covers every row, so it is always a candidate. The bitmap index answers an account and
+// types together, or several types, which no single ordered index can.
+public final class QueryPlanner {
+    
+    private QueryPlanner() {
+    }
+    
+    public static QueryPlan plan(TransactionQuery query, Cardinalities cardinalities) {
+        TransactionFilter filter = query.filter();
+        long rows = cardinalities.rows();
+        Map<AccessPath, Long> candidates = new EnumMap<>(AccessPath.class);
+        double matches = rows;
+        if (filter.accountNumber() != null || filter.types() != null) {
+            long keyed = cardinalities.accountAndTypes(filter.accountNumber(), filter.types());
+            matches = Math.min(keyed, rows);
+            if (filter.accountNumber() != null) {
+                candidates.put(AccessPath.ACCOUNT_INDEX, cardinalities.account(filter.accountNumber()));
+            }
+            if (filter.types() != null && filter.types().size() == 1) {
+                candidates.put(AccessPath.TYPE_INDEX, cardinalities.type(filter.types().iterator().next()));
+            }
+            if (filter.types() != null && (filter.accountNumber() != null || filter.types().size() > 1)) {
+                candidates.put(AccessPath.BITMAP_INDEX, keyed);
+            }
+        }
+        if (filter.minAmount() != null || filter.maxAmount() != null) {
+            long low = filter.minAmount() == null ? Long.MIN_VALUE : Cents.ceil(filter.minAmount());
+            long high = filter.maxAmount() == null ? Long.MAX_VALUE : Cents.floor(filter.maxAmount());
+            long amounts = cardinalities.amountBetween(low, high);
+            candidates.put(AccessPath.AMOUNT_INDEX, amounts);
+            matches *= selectivity(amounts, rows);
+        }
+        if (filter.startDate() != null || filter.endDate() != null) {
+            long dates = cardinalities.dateBetween(filter.startDate(), filter.endDate());
+            candidates.put(AccessPath.TIME_INDEX, dates);
+            matches *= selectivity(dates, rows);
+        } else {
+            candidates.put(AccessPath.TIME_INDEX, rows);
+        }
+        
+        AccessPath best = null;
+        double bestCost = Double.MAX_VALUE;
+        // EnumMap iterates in declaration order, so ties go to the narrower index.
+        for (Map.Entry<AccessPath, Long> candidate : candidates.entrySet()) {
+            double estimate = Math.min(candidate.getValue(), rows);
+            double cost = candidate.getKey().delivers(query.sort())
+                    ? Math.min(estimate, query.limit() * estimate / Math.max(1.0, matches))
+                    : estimate;
+            if (cost < bestCost) {
+                best = candidate.getKey();
+                bestCost = cost;
+            }
+        }
+        AccessPath path = best;
+        List<String> residual = filter.predicates().stream()
+                .filter(predicate -> !path.answers(predicate))
+                .collect(Collectors.toList());
+        return new QueryPlan(path, (long) Math.ceil(bestCost), Math.round(matches), residual, path.delivers(query.sort()));
+    }
+    
+    private static double selectivity(long estimate, long rows) {
+        return rows == 0 ? 0 : Math.min(1.0, (double) estimate / rows);
+    }
+}
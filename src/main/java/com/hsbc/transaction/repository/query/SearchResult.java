@@ -0,0 +1,9 @@
+package com.hsbc.transaction.repository.query;
+
+import com.hsbc.transaction.model.Transaction;
+
+import java.util.List;
+
+// rowsExamined counts the rows the access path produced and the residual predicates were checked against.
+public record SearchResult(List<Transaction> content, QueryPlan plan, long rowsExamined) {
+}
@@ -0,0 +1,32 @@
+package com.hsbc.transaction.repository.query;
+
+import com.hsbc.transaction.model.Transaction;
+
+import java.util.Comparator;
+
+// Every order breaks ties by id in the same direction, so results are deterministic across engines.
+public enum SortOrder {
+    
+    NEWEST_FIRST(Comparator.comparing(Transaction::getTransactionDate).thenComparing(Transaction::getId).reversed()),
+    OLDEST_FIRST(Comparator.comparing(Transaction::getTransactionDate).thenComparing(Transaction::getId)),
+    LARGEST_FIRST(Comparator.comparing(Transaction::getAmount).thenComparing(Transaction::getId).reversed()),
+    SMALLEST_FIRST(Comparator.comparing(Transaction::getAmount).thenComparing(Transaction::getId));
+    
+    private final Comparator<Transaction> comparator;
+    
+    SortOrder(Comparator<Transaction> comparator) {
+        this.comparator = comparator;
+    }
+    
+    public Comparator<Transaction> comparator() {
+        return comparator;
+    }
+    
+    public boolean byTime() {
+        return this == NEWEST_FIRST || this == OLDEST_FIRST;
+    }
+    
+    public boolean descending() {
+        return this == NEWEST_FIRST || this == LARGEST_FIRST;
+    }
+}
@@ -0,0 +1,6 @@
+package com.hsbc.transaction.repository.query;
+
+import com.hsbc.transaction.repository.TransactionFilter;
+
+public record TransactionQuery(TransactionFilter filter, SortOrder sort, int limit) {
+}
@@ -0,0 +1,31 @@
+package com.hsbc.transaction.repository.rollup;
+
+import com.hsbc.transaction.repository.support.EpochMicros;
+
+import java.time.LocalDateTime;
+
+// Width of a rollup bucket. Buckets are numbered from the epoch and aligned to whole minutes, hours and days
+// of the zone-less timestamps, which EpochMicros encodes as if they were UTC.
+public enum Granularity {
+    MINUTE(60_000_000L),
+    HOUR(3_600_000_000L),
+    DAY(86_400_000_000L);
+    
+    private final long micros;
+    
+    Granularity(long micros) {
+        this.micros = micros;
+    }
+    
+    public long bucketOf(long epochMicros) {
+        return Math.floorDiv(epochMicros, micros);
+    }
+    
+    public long bucketOf(LocalDateTime dateTime) {
+        return bucketOf(EpochMicros.floor(dateTime));
+    }
+    
+    public LocalDateTime startOf(long bucket) {
+        return EpochMicros.toDateTime(bucket * micros);
+    }
+}
@@ -0,0 +1,12 @@
+package com.hsbc.transaction.repository.rollup;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Number and total amount of the rows dated within [start, start + granularity).
+public record TimeBucket(LocalDateTime start, long count, BigDecimal sum) {
+    
+    public TimeBucket plus(TimeBucket other) {
+        return new TimeBucket(start, count + other.count, sum.add(other.sum));
+    }
+}
@@ -0,0 +1,42 @@
+package com.hsbc.transaction.repository.rollup;
+
+import com.hsbc.transaction.repository.support.Cents;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Buckets rows one at a time for engines and filters without a rollup to read; rows outside the query's
+// buckets are ignored.
+public class TimeSeriesBuilder {
+    
+    private final TimeSeriesQuery query;
+    private final long firstBucket;
+    private final long[] counts;
+    private final long[] highSums;
+    private final long[] lowSums;
+    
+    public TimeSeriesBuilder(TimeSeriesQuery query) {
+        this.query = query;
+        this.firstBucket = query.firstBucket();
+        this.counts = new long[query.bucketCount()];
+        this.highSums = new long[counts.length];
+        this.lowSums = new long[counts.length];
+    }
+    
+    public void add(long epochMicros, long amountCents) {
+        long index = query.granularity().bucketOf(epochMicros) - firstBucket;
+        if (index >= 0 && index < counts.length) {
+            counts[(int) index]++;
+            highSums[(int) index] += Cents.high(amountCents);
+            lowSums[(int) index] += Cents.low(amountCents);
+        }
+    }
+    
+    public List<TimeBucket> build() {
+        List<TimeBucket> series = new ArrayList<>(counts.length);
+        for (int i = 0; i < counts.length; i++) {
+            series.add(new TimeBucket(query.granularity().startOf(firstBucket + i), counts[i], Cents.toAmount(highSums[i], lowSums[i])));
+        }
+        return series;
+    }
+}
@@ -0,0 +1,42 @@
+package com.hsbc.transaction.repository.rollup;
+
+import com.hsbc.transaction.model.TransactionType;
+
+import java.time.LocalDateTime;
+
+// Every bucket from the one holding start up to the one holding end, which is excluded unless end falls inside
+// it, optionally narrowed to one account and one type.
+public record TimeSeriesQuery(Granularity granularity, LocalDateTime start, LocalDateTime end,
+                              String accountNumber, TransactionType type) {
+    
+    public static final int MAX_BUCKETS = 10_000;
+    
+    public TimeSeriesQuery {
+        if (granularity == null || start == null || end == null) {
+            throw new IllegalArgumentException("Granularity, start date and end date are required");
+        }
+        if (!start.isBefore(end)) {
+            throw new IllegalArgumentException("Start date must be before end date");
+        }
+        if (lastBucket(granularity, end) - granularity.bucketOf(start) >= MAX_BUCKETS) {
+            throw new IllegalArgumentException("Time series cannot exceed " + MAX_BUCKETS + " buckets");
+        }
+    }
+    
+    public long firstBucket() {
+        return granularity.bucketOf(start);
+    }
+    
+    public long lastBucket() {
+        return lastBucket(granularity, end);
+    }
+    
+    public int bucketCount() {
+        return (int) (lastBucket() - firstBucket() + 1);
+    }
+    
+    private static long lastBucket(Granularity granularity, LocalDateTime end) {
+        long last = granularity.bucketOf(end);
+        return granularity.startOf(last).equals(end) ? last - 1 : last;
+    }
+}
@@ -0,0 +1,362 @@
+package com.hsbc.transaction.repository.sharded;
+
+import com.hsbc.transaction.model.Transaction;
+import com.hsbc.transaction.model.TransactionType;
+import com.hsbc.transaction.repository.AmountSummary;
+import com.hsbc.transaction.repository.PageCursor;
+import com.hsbc.transaction.repository.TransactionFilter;
+import com.hsbc.transaction.repository.TransactionRepository;
+import com.hsbc.transaction.repository.TransactionStore;
+import com.hsbc.transaction.repository.id.IdAllocator;
+import com.hsbc.transaction.repository.query.QueryPlan;
+import com.hsbc.transaction.repository.query.SearchResult;
+import com.hsbc.transaction.repository.query.TransactionQuery;
+import com.hsbc.transaction.repository.rollup.TimeBucket;
+import com.hsbc.transaction.repository.rollup.TimeSeriesQuery;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+// Partitions rows by a hash of the account number into independent TransactionRepository shards, each with its
+// own map, indexes and id sequence, so concurrent writers to different accounts share no mutable state.
+// Shard i hands out ids i + 1, i + 1 + N, i + 1 + 2N, ..., which lets an id alone name its shard.
+// Queries that span shards run on every shard in parallel and merge the newest-first partial results.
+public class ShardedTransactionStore implements TransactionStore {
+    
+    private static final Comparator<Transaction> NEWEST_FIRST = Comparator
+            .comparing(Transaction::getTransactionDate)
+            .thenComparing(Transaction::getId)
+            .reversed();
+    
+    private final TransactionRepository[] shards;
+    // Ids of rows whose account was changed to one hashing to another shard; the row stays with its id's shard.
+    private final Set<Long> relocatedIds = ConcurrentHashMap.newKeySet();
+    
+    public ShardedTransactionStore(int shardCount) {
+        this(shardCount, TransactionRepository.DEFAULT_ID_BLOCK_SIZE);
+    }
+    
+    public ShardedTransactionStore(int shardCount, int idBlockSize) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Shard count must be positive, was " + shardCount);
+        }
+        this.shards = new TransactionRepository[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new TransactionRepository(IdAllocator.sequential(i + 1, shardCount, idBlockSize));
+        }
+    }
+    
+    @Override
+    public Transaction save(Transaction transaction) {
+        if (transaction.getId() == null) {
+            return shards[shardOf(transaction.getAccountNumber())].save(transaction);
+        }
+        Long id = transaction.getId();
+        int owner = shardOf(id);
+        // An explicit id past the owner's sequence (an import or log replay) moves every shard past it, so ids
+        // handed out afterwards are never lower than ids already stored.
+        boolean beyondSequence = id >= shards[owner].nextId();
+        Transaction saved = shards[owner].save(transaction);
+        if (beyondSequence) {
+            advanceNextId(id + 1);
+        }
+        if (owner != shardOf(saved.getAccountNumber())) {
+            relocatedIds.add(id);
+        } else if (!relocatedIds.isEmpty()) {
+            relocatedIds.remove(id);
+        }
+        return saved;
+    }
+    
+    @Override
+    public Optional<Transaction> findById(Long id) {
+        return shards[shardOf(id)].findById(id);
+    }
+    
+    @Override
+    public List<Transaction> findAll() {
+        List<Transaction> all = new ArrayList<>();
+        scatter(TransactionRepository::findAll).forEach(all::addAll);
+        return all;
+    }
+    
+    @Override
+    public List<Transaction> findAll(int page, int size) {
+        long offset = (long) page * size;
+        int wanted = (int) Math.min(offset + size, Integer.MAX_VALUE);
+        List<Transaction> merged = merge(scatter(shard -> shard.findAll(0, wanted)), wanted);
+        return offset >= merged.size() ? new ArrayList<>() : new ArrayList<>(merged.subList((int) offset, merged.size()));
+    }
+    
+    // Each shard seeks to the cursor on its own, so a page costs O(shards * (log n + limit)) at any depth.
+    @Override
+    public List<Transaction> findAfter(TransactionFilter filter, PageCursor after, int limit) {
+        if (filter.accountNumber() != null && relocatedIds.isEmpty()) {
+            return shards[shardOf(filter.accountNumber())].findAfter(filter, after, limit);
+        }
+        return merge(scatter(shard -> shard.findAfter(filter, after, limit)), limit);
+    }
+    
+    // Every shard plans the query against its own indexes. The reported plan is the first shard's path with the
+    // estimates and the rows examined summed over all shards.
+    @Override
+    public SearchResult search(TransactionQuery query) {
+        if (query.filter().accountNumber() != null && relocatedIds.isEmpty()) {
+            return shards[shardOf(query.filter().accountNumber())].search(query);
+        }
+        List<SearchResult> results = scatter(shard -> shard.search(query));
+        long rowsRead = 0;
+        long matches = 0;
+        long examined = 0;
+        List<List<Transaction>> parts = new ArrayList<>();
+        for (SearchResult result : results) {
+            rowsRead += result.plan().estimatedRowsRead();
+            matches += result.plan().estimatedMatches();
+            examined += result.rowsExamined();
+            parts.add(result.content());
+        }
+        QueryPlan first = results.get(0).plan();
+        QueryPlan plan = new QueryPlan(first.accessPath(), rowsRead, matches, first.residualPredicates(), first.sortedByIndex());
+        return new SearchResult(merge(parts, query.limit(), query.sort().comparator()), plan, examined);
+    }
+    
+    @Override
+    public List<Transaction> findByAccountNumber(String accountNumber) {
+        if (relocatedIds.isEmpty()) {
+            return shards[shardOf(accountNumber)].findByAccountNumber(accountNumber);
+        }
+        return merge(scatter(shard -> shard.findByAccountNumber(accountNumber)), Integer.MAX_VALUE);
+    }
+    
+    @Override
+    public List<Transaction> findByType(TransactionType type) {
+        return merge(scatter(shard -> shard.findByType(type)), Integer.MAX_VALUE);
+    }
+    
+    @Override
+    public List<Transaction> findByAmountBetween(BigDecimal minAmount, BigDecimal maxAmount) {
+        return merge(scatter(shard -> shard.findByAmountBetween(minAmount, maxAmount)), Integer.MAX_VALUE);
+    }
+    
+    @Override
+    public long estimateCountByAmountBetween(BigDecimal minAmount, BigDecimal maxAmount) {
+        long count = 0;
+        for (TransactionRepository shard : shards) {
+            count += shard.estimateCountByAmountBetween(minAmount, maxAmount);
+        }
+        return count;
+    }
+    
+    @Override
+    public List<Transaction> findByDateBetween(LocalDateTime startDate, LocalDateTime endDate) {
+        return merge(scatter(shard -> shard.findByDateBetween(startDate, endDate)), Integer.MAX_VALUE);
+    }
+    
+    @Override
+    public List<Transaction> findByAccountNumberAndType(String accountNumber, TransactionType type) {
+        if (relocatedIds.isEmpty()) {
+            return shards[shardOf(accountNumber)].findByAccountNumberAndType(accountNumber, type);
+        }
+        return merge(scatter(shard -> shard.findByAccountNumberAndType(accountNumber, type)), Integer.MAX_VALUE);
+    }
+    
+    @Override
+    public boolean existsById(Long id) {
+        return shards[shardOf(id)].existsById(id);
+    }
+    
+    @Override
+    public void deleteById(Long id) {
+        shards[shardOf(id)].deleteById(id);
+        relocatedIds.remove(id);
+    }
+    
+    @Override
+    public void deleteAll() {
+        Arrays.stream(shards).parallel().forEach(TransactionRepository::deleteAll);
+        relocatedIds.clear();
+    }
+    
+    @Override
+    public long count() {
+        long count = 0;
+        for (TransactionRepository shard : shards) {
+            count += shard.count();
+        }
+        return count;
+    }
+    
+    @Override
+    public long count(TransactionFilter filter) {
+        if (filter.accountNumber() != null && relocatedIds.isEmpty()) {
+            return shards[shardOf(filter.accountNumber())].count(filter);
+        }
+        long count = 0;
+        for (long shardCount : scatter(shard -> shard.count(filter))) {
+            count += shardCount;
+        }
+        return count;
+    }
+    
+    @Override
+    public AmountSummary summarize(TransactionFilter filter) {
+        if (filter.accountNumber() != null && relocatedIds.isEmpty()) {
+            return shards[shardOf(filter.accountNumber())].summarize(filter);
+        }
+        AmountSummary summary = AmountSummary.EMPTY;
+        for (AmountSummary shardSummary : scatter(shard -> shard.summarize(filter))) {
+            summary = summary.plus(shardSummary);
+        }
+        return summary;
+    }
+    
+    // Every shard returns the same buckets, so the series are summed position by position.
+    @Override
+    public List<TimeBucket> timeSeries(TimeSeriesQuery query) {
+        if (query.accountNumber() != null && relocatedIds.isEmpty()) {
+            return shards[shardOf(query.accountNumber())].timeSeries(query);
+        }
+        List<List<TimeBucket>> parts = scatter(shard -> shard.timeSeries(query));
+        List<TimeBucket> series = new ArrayList<>(parts.get(0));
+        for (List<TimeBucket> part : parts.subList(1, parts.size())) {
+            for (int i = 0; i < series.size(); i++) {
+                series.set(i, series.get(i).plus(part.get(i)));
+            }
+        }
+        return series;
+    }
+    
+    @Override
+    public Map<TransactionType, Long> countByType() {
+        Map<TransactionType, Long> counts = new EnumMap<>(TransactionType.class);
+        for (TransactionRepository shard : shards) {
+            shard.countByType().forEach((type, count) -> counts.merge(type, count, Long::sum));
+        }
+        return counts;
+    }
+    
+    @Override
+    public Map<String, Long> countByAccountNumber() {
+        Map<String, Long> counts = new HashMap<>();
+        scatter(TransactionRepository::countByAccountNumber)
+                .forEach(shardCounts -> shardCounts.forEach((account, count) -> counts.merge(account, count, Long::sum)));
+        return counts;
+    }
+    
+    @Override
+    public BigDecimal getTotalAmount() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (TransactionRepository shard : shards) {
+            total = total.add(shard.getTotalAmount());
+        }
+        return total;
+    }
+    
+    @Override
+    public BigDecimal getTotalAmountByType(TransactionType type) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (TransactionRepository shard : shards) {
+            total = total.add(shard.getTotalAmountByType(type));
+        }
+        return total;
+    }
+    
+    @Override
+    public BigDecimal getTotalAmountByAccountNumber(String accountNumber) {
+        if (relocatedIds.isEmpty()) {
+            return shards[shardOf(accountNumber)].getTotalAmountByAccountNumber(accountNumber);
+        }
+        BigDecimal total = BigDecimal.ZERO;
+        for (TransactionRepository shard : shards) {
+            total = total.add(shard.getTotalAmountByAccountNumber(accountNumber));
+        }
+        return total;
+    }
+    
+    @Override
+    public long nextId() {
+        long nextId = 1;
+        for (TransactionRepository shard : shards) {
+            nextId = Math.max(nextId, shard.nextId());
+        }
+        return nextId;
+    }
+    
+    @Override
+    public void advanceNextId(long nextId) {
+        for (TransactionRepository shard : shards) {
+            shard.advanceNextId(nextId);
+        }
+    }
+    
+    public int shardCount() {
+        return shards.length;
+    }
+    
+    private int shardOf(Long id) {
+        return (int) Math.floorMod(id - 1, (long) shards.length);
+    }
+    
+    private int shardOf(String accountNumber) {
+        int hash = accountNumber.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), shards.length);
+    }
+    
+    private <T> List<T> scatter(Function<TransactionRepository, T> query) {
+        return Arrays.stream(shards).parallel().map(query).toList();
+    }
+    
+    private static List<Transaction> merge(List<List<Transaction>> parts, int limit) {
+        return merge(parts, limit, NEWEST_FIRST);
+    }
+    
+    // K-way merge of shard results sorted by order, stopping after limit rows.
+    private static List<Transaction> merge(List<List<Transaction>> parts, int limit, Comparator<Transaction> order) {
+        PriorityQueue<Cursor> heads = new PriorityQueue<>((a, b) -> order.compare(a.current(), b.current()));
+        int total = 0;
+        for (List<Transaction> part : parts) {
+            if (!part.isEmpty()) {
+                heads.add(new Cursor(part));
+                total += part.size();
+            }
+        }
+        List<Transaction> merged = new ArrayList<>(Math.min(total, limit));
+        while (merged.size() < limit && !heads.isEmpty()) {
+            Cursor head = heads.poll();
+            merged.add(head.current());
+            if (head.advance()) {
+                heads.add(head);
+            }
+        }
+        return merged;
+    }
+    
+    private static final class Cursor {
+        private final List<Transaction> rows;
+        private int position;
+    
+        Cursor(List<Transaction> rows) {
+            this.rows = rows;
+        }
+    
+        Transaction current() {
+            return rows.get(position);
+        }
+    
+        boolean advance() {
+            return ++position < rows.size();
+        }
+    }
+}
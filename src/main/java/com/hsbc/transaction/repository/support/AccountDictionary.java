@@ -0,0 +1,48 @@
+package com.hsbc.transaction.repository.support;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class AccountDictionary {
+    
+    public static final int MISSING = -1;
+    
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    private volatile String[] accounts = new String[1024];
+    private int size;
+    
+    public int encode(String accountNumber) {
+        Integer code = codes.get(accountNumber);
+        if (code != null) {
+            return code;
+        }
+        synchronized (this) {
+            code = codes.get(accountNumber);
+            if (code != null) {
+                return code;
+            }
+            String[] current = accounts;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, size * 2);
+            }
+            current[size] = accountNumber;
+            accounts = current;
+            codes.put(accountNumber, size);
+            return size++;
+        }
+    }
+    
+    public int lookup(String accountNumber) {
+        Integer code = codes.get(accountNumber);
+        return code != null ? code : MISSING;
+    }
+    
+    public String decode(int code) {
+        return accounts[code];
+    }
+    
+    public synchronized int size() {
+        return size;
+    }
+}
@@ -0,0 +1,68 @@
+package com.hsbc.transaction.repository.support;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+// Amounts are held as long cents everywhere below the API; BigDecimal appears only when a value leaves the store.
+// Totals are accumulated as two longs, the high bits and the low 32 bits of each amount, so that summing
+// amounts of up to 2^40 cents stays exact for billions of rows without allocating or branching per row.
+public final class Cents {
+    
+    private static final long LOW_MASK = 0xFFFFFFFFL;
+    private static final BigDecimal MAX_CENTS = BigDecimal.valueOf(Long.MAX_VALUE);
+    private static final BigDecimal MIN_CENTS = BigDecimal.valueOf(Long.MIN_VALUE);
+    
+    private Cents() {
+    }
+    
+    public static long of(BigDecimal amount) {
+        try {
+            return amount.movePointRight(2).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Amount must have at most 2 decimal places: " + amount, e);
+        }
+    }
+    
+    public static BigDecimal toAmount(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+    
+    public static long high(long cents) {
+        return cents >> 32;
+    }
+    
+    public static long low(long cents) {
+        return cents & LOW_MASK;
+    }
+    
+    // Recombines sums of high(cents) and low(cents) into an exact amount.
+    public static BigDecimal toAmount(long highSum, long lowSum) {
+        long shifted = highSum << 32;
+        if (shifted >> 32 == highSum) {
+            long sum = shifted + lowSum;
+            if (((shifted ^ sum) & (lowSum ^ sum)) >= 0) {
+                return BigDecimal.valueOf(sum, 2);
+            }
+        }
+        return new BigDecimal(BigInteger.valueOf(highSum).shiftLeft(32).add(BigInteger.valueOf(lowSum)), 2);
+    }
+    
+    public static long floor(BigDecimal amount) {
+        return clamp(amount.movePointRight(2).setScale(0, RoundingMode.FLOOR));
+    }
+    
+    public static long ceil(BigDecimal amount) {
+        return clamp(amount.movePointRight(2).setScale(0, RoundingMode.CEILING));
+    }
+    
+    private static long clamp(BigDecimal cents) {
+        if (cents.compareTo(MAX_CENTS) > 0) {
+            return Long.MAX_VALUE;
+        }
+        if (cents.compareTo(MIN_CENTS) < 0) {
+            return Long.MIN_VALUE;
+        }
+        return cents.longValue();
+    }
+}
@@ -0,0 +1,51 @@
+package com.hsbc.transaction.repository.support;
+
+import java.math.BigDecimal;
+
+// Count, exact sum and range of amounts in cents, built row by row or from partial aggregates. The sum is kept
+// as Cents high and low parts, so it never overflows however many rows are added.
+public final class CentsAggregate {
+    
+    private long count;
+    private long highSum;
+    private long lowSum;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+    
+    public void add(long cents) {
+        count++;
+        highSum += Cents.high(cents);
+        lowSum += Cents.low(cents);
+        min = Math.min(min, cents);
+        max = Math.max(max, cents);
+    }
+    
+    // Adds a partial aggregate of count rows; min and max are ignored when count is zero.
+    public void add(long count, long highSum, long lowSum, long min, long max) {
+        if (count == 0) {
+            return;
+        }
+        this.count += count;
+        this.highSum += highSum;
+        this.lowSum += lowSum;
+        this.min = Math.min(this.min, min);
+        this.max = Math.max(this.max, max);
+    }
+    
+    public long count() {
+        return count;
+    }
+    
+    public BigDecimal sum() {
+        return Cents.toAmount(highSum, lowSum);
+    }
+    
+    // Null when no row was added.
+    public BigDecimal min() {
+        return count == 0 ? null : Cents.toAmount(min);
+    }
+    
+    public BigDecimal max() {
+        return count == 0 ? null : Cents.toAmount(max);
+    }
+}
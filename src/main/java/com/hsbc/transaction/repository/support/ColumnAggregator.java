@@ -0,0 +1,40 @@
+package com.hsbc.transaction.repository.support;
+
+// Aggregates a column of amounts in cents under a predicate on the amount and a parallel column of epoch
+// micros: rows in [from, to) with after < micros < before and minCents <= amount <= maxCents are added.
+// Implementations keep no state and may be shared by any number of threads.
+public interface ColumnAggregator {
+    
+    void aggregate(long[] amounts, long[] micros, int from, int to, long after, long before,
+                   long minCents, long maxCents, CentsAggregate into);
+    
+    static ColumnAggregator scalar() {
+        return ScalarColumnAggregator.INSTANCE;
+    }
+    
+    // The SIMD kernel when the JVM was started with --add-modules jdk.incubator.vector, the scalar loop otherwise.
+    static ColumnAggregator fastest() {
+        return VectorSupport.FASTEST;
+    }
+    
+    final class VectorSupport {
+    
+        static final ColumnAggregator FASTEST = load();
+    
+        private VectorSupport() {
+        }
+    
+        private static ColumnAggregator load() {
+            if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+                return ScalarColumnAggregator.INSTANCE;
+            }
+            try {
+                return (ColumnAggregator) Class.forName(ColumnAggregator.class.getPackageName() + ".VectorColumnAggregator")
+                        .getDeclaredConstructor()
+                        .newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                return ScalarColumnAggregator.INSTANCE;
+            }
+        }
+    }
+}
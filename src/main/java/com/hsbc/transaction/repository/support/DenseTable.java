@@ -0,0 +1,59 @@
+package com.hsbc.transaction.repository.support;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntFunction;
+
+// Values addressed by small dense int codes such as AccountDictionary codes. Reads are lock-free;
+// slots are only filled and the array only grown under the table's lock, so no write is lost to a resize.
+public class DenseTable<T> {
+    
+    private volatile AtomicReferenceArray<T> slots = new AtomicReferenceArray<>(1024);
+    
+    public T get(int code) {
+        AtomicReferenceArray<T> current = slots;
+        return code < current.length() ? current.get(code) : null;
+    }
+    
+    public T getOrCreate(int code, IntFunction<T> factory) {
+        T value = get(code);
+        if (value != null) {
+            return value;
+        }
+        synchronized (this) {
+            AtomicReferenceArray<T> current = slots;
+            if (code >= current.length()) {
+                AtomicReferenceArray<T> grown = new AtomicReferenceArray<>(Math.max(code + 1, current.length() * 2));
+                for (int i = 0; i < current.length(); i++) {
+                    grown.set(i, current.get(i));
+                }
+                slots = grown;
+                current = grown;
+            }
+            value = current.get(code);
+            if (value == null) {
+                value = factory.apply(code);
+                current.set(code, value);
+            }
+            return value;
+        }
+    }
+    
+    // Visits every filled slot in code order.
+    public void forEach(Visitor<T> visitor) {
+        AtomicReferenceArray<T> current = slots;
+        for (int code = 0; code < current.length(); code++) {
+            T value = current.get(code);
+            if (value != null) {
+                visitor.visit(code, value);
+            }
+        }
+    }
+    
+    public synchronized void clear() {
+        slots = new AtomicReferenceArray<>(1024);
+    }
+    
+    public interface Visitor<T> {
+        void visit(int code, T value);
+    }
+}
@@ -0,0 +1,25 @@
+package com.hsbc.transaction.repository.support;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+// LocalDateTime carries no zone, so timestamps are encoded as if they were UTC.
+public final class EpochMicros {
+    
+    private EpochMicros() {
+    }
+    
+    public static long floor(LocalDateTime dateTime) {
+        return Math.multiplyExact(dateTime.toEpochSecond(ZoneOffset.UTC), 1_000_000L) + dateTime.getNano() / 1_000;
+    }
+    
+    public static long ceil(LocalDateTime dateTime) {
+        return floor(dateTime) + (dateTime.getNano() % 1_000 == 0 ? 0 : 1);
+    }
+    
+    public static LocalDateTime toDateTime(long epochMicros) {
+        long seconds = Math.floorDiv(epochMicros, 1_000_000L);
+        int nanos = (int) Math.floorMod(epochMicros, 1_000_000L) * 1_000;
+        return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,75 @@
+package com.hsbc.transaction.repository.support;
+
+import java.util.function.IntPredicate;
+
+// Picks the newest matching rows of a row-addressed store with a bounded min-heap: O(n log k) for k rows kept.
+// "Newest" is whatever RowOrder says, so the same selection serves any sort order.
+public final class NewestFirstSelector {
+    
+    public interface RowOrder {
+        boolean newer(int row, int other);
+    }
+    
+    private NewestFirstSelector() {
+    }
+    
+    public static int[] select(int rowCount, IntPredicate matches, int limit, RowOrder order) {
+        int[] heap = new int[Math.max(0, limit)];
+        int heapSize = 0;
+        for (int row = 0; row < rowCount && limit > 0; row++) {
+            if (!matches.test(row)) {
+                continue;
+            }
+            if (heapSize < limit) {
+                heap[heapSize] = row;
+                siftUp(heap, heapSize++, order);
+            } else if (order.newer(row, heap[0])) {
+                heap[0] = row;
+                siftDown(heap, heapSize, order);
+            }
+        }
+        int[] ordered = new int[heapSize];
+        for (int last = heapSize - 1; last >= 0; last--) {
+            ordered[last] = heap[0];
+            heap[0] = heap[last];
+            siftDown(heap, last, order);
+        }
+        return ordered;
+    }
+    
+    private static void siftUp(int[] heap, int index, RowOrder order) {
+        int row = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!order.newer(heap[parent], row)) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = row;
+    }
+    
+    private static void siftDown(int[] heap, int size, RowOrder order) {
+        if (size == 0) {
+            return;
+        }
+        int index = 0;
+        int row = heap[0];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && order.newer(heap[child], heap[child + 1])) {
+                child++;
+            }
+            if (!order.newer(row, heap[child])) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = row;
+    }
+}
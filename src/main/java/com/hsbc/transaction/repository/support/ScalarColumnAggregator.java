@@ -0,0 +1,28 @@
+package com.hsbc.transaction.repository.support;
+
+final class ScalarColumnAggregator implements ColumnAggregator {
+    
+    static final ScalarColumnAggregator INSTANCE = new ScalarColumnAggregator();
+    
+    @Override
+    public void aggregate(long[] amounts, long[] micros, int from, int to, long after, long before,
+                          long minCents, long maxCents, CentsAggregate into) {
+        long count = 0;
+        long highSum = 0;
+        long lowSum = 0;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int row = from; row < to; row++) {
+            long cents = amounts[row];
+            long time = micros[row];
+            if (time > after && time < before && cents >= minCents && cents <= maxCents) {
+                count++;
+                highSum += Cents.high(cents);
+                lowSum += Cents.low(cents);
+                min = Math.min(min, cents);
+                max = Math.max(max, cents);
+            }
+        }
+        into.add(count, highSum, lowSum, min, max);
+    }
+}
@@ -0,0 +1,42 @@
+package com.hsbc.transaction.repository.support;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// The scalar loop a full vector of rows at a time: the four bound checks become one lane mask, and the high and
+// low sums, minimum and maximum are kept per lane under it and reduced across lanes once at the end. Lane low
+// sums stay exact for up to 2^31 rows. The rows after the last full vector go through the scalar loop.
+// Loaded only through ColumnAggregator.fastest(), which checks that the incubator module is present.
+final class VectorColumnAggregator implements ColumnAggregator {
+    
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+    
+    @Override
+    public void aggregate(long[] amounts, long[] micros, int from, int to, long after, long before,
+                          long minCents, long maxCents, CentsAggregate into) {
+        LongVector highSums = LongVector.zero(SPECIES);
+        LongVector lowSums = LongVector.zero(SPECIES);
+        LongVector mins = LongVector.broadcast(SPECIES, Long.MAX_VALUE);
+        LongVector maxes = LongVector.broadcast(SPECIES, Long.MIN_VALUE);
+        long count = 0;
+        int row = from;
+        for (int bound = from + SPECIES.loopBound(to - from); row < bound; row += SPECIES.length()) {
+            LongVector cents = LongVector.fromArray(SPECIES, amounts, row);
+            LongVector time = LongVector.fromArray(SPECIES, micros, row);
+            VectorMask<Long> matches = time.compare(VectorOperators.GT, after)
+                    .and(time.compare(VectorOperators.LT, before))
+                    .and(cents.compare(VectorOperators.GE, minCents))
+                    .and(cents.compare(VectorOperators.LE, maxCents));
+            highSums = highSums.add(cents.lanewise(VectorOperators.ASHR, 32), matches);
+            lowSums = lowSums.add(cents.and(0xFFFFFFFFL), matches);
+            mins = mins.lanewise(VectorOperators.MIN, cents, matches);
+            maxes = maxes.lanewise(VectorOperators.MAX, cents, matches);
+            count += matches.trueCount();
+        }
+        into.add(count, highSums.reduceLanes(VectorOperators.ADD), lowSums.reduceLanes(VectorOperators.ADD),
+                mins.reduceLanes(VectorOperators.MIN), maxes.reduceLanes(VectorOperators.MAX));
+        ScalarColumnAggregator.INSTANCE.aggregate(amounts, micros, row, to, after, before, minCents, maxCents, into);
+    }
+}
@@ -1,17 +1,28 @@
 package com.hsbc.transaction.service;
 
+import com.hsbc.transaction.dto.AmountSummaryDTO;
+import com.hsbc.transaction.dto.CursorPageDTO;
 import com.hsbc.transaction.dto.PagedResponseDTO;
+import com.hsbc.transaction.dto.QueryPlanDTO;
+import com.hsbc.transaction.dto.SearchResponseDTO;
+import com.hsbc.transaction.dto.TimeBucketDTO;
 import com.hsbc.transaction.dto.TransactionRequestDTO;
 import com.hsbc.transaction.dto.TransactionResponseDTO;
 import com.hsbc.transaction.exception.DuplicateTransactionException;
 import com.hsbc.transaction.exception.TransactionNotFoundException;
 import com.hsbc.transaction.model.Transaction;
 import com.hsbc.transaction.model.TransactionType;
-import com.hsbc.transaction.repository.TransactionRepository;
+import com.hsbc.transaction.repository.PageCursor;
+import com.hsbc.transaction.repository.TransactionFilter;
+import com.hsbc.transaction.repository.TransactionPage;
+import com.hsbc.transaction.repository.TransactionStore;
+import com.hsbc.transaction.repository.query.SearchResult;
+import com.hsbc.transaction.repository.query.SortOrder;
+import com.hsbc.transaction.repository.query.TransactionQuery;
+import com.hsbc.transaction.repository.rollup.TimeSeriesQuery;
+import com.hsbc.transaction.service.cache.TransactionCacheInvalidator;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
@@ -23,17 +34,19 @@ import java.util.stream.Collectors;
 @Service
 public class TransactionService {
     
-    private final TransactionRepository transactionRepository;
+    // Cursor pages cost the same at any depth, so bulk readers may take larger pages than offset listings allow.
+    public static final int MAX_CURSOR_PAGE_SIZE = 1000;
+    public static final int MAX_SEARCH_LIMIT = 1000;
+    
+    private final TransactionStore transactionStore;
+    private final TransactionCacheInvalidator cacheInvalidator;
     
     @Autowired
-    public TransactionService(TransactionRepository transactionRepository) {
-        this.transactionRepository = transactionRepository;
+    public TransactionService(TransactionStore transactionStore, TransactionCacheInvalidator cacheInvalidator) {
+        this.transactionStore = transactionStore;
+        this.cacheInvalidator = cacheInvalidator;
     }
     
-    @Caching(evict = {
-        @CacheEvict(value = "transactions", allEntries = true),
-        @CacheEvict(value = "transactionStats", allEntries = true)
-    })
     public TransactionResponseDTO createTransaction(TransactionRequestDTO requestDTO) {
         Transaction transaction = new Transaction();
         transaction.setAccountNumber(requestDTO.getAccountNumber());
@@ -43,140 +56,206 @@ public class TransactionService {
         transaction.setReference(requestDTO.getReference());
         transaction.setTransactionDate(LocalDateTime.now());
         
-        Transaction savedTransaction = transactionRepository.save(transaction);
+        Transaction savedTransaction = transactionStore.save(transaction);
+        cacheInvalidator.created(savedTransaction);
         return new TransactionResponseDTO(savedTransaction);
     }
     
-    @Cacheable(value = "transactions", key = "#id")
+    @Cacheable(value = "transactions", key = "#id", sync = true)
     public TransactionResponseDTO getTransactionById(Long id) {
-        Transaction transaction = transactionRepository.findById(id)
+        Transaction transaction = transactionStore.findById(id)
             .orElseThrow(() -> new TransactionNotFoundException(id));
         return new TransactionResponseDTO(transaction);
     }
     
-    @Cacheable(value = "transactions", key = "'all-' + #page + '-' + #size")
+    @Cacheable(value = "transactions", key = "'all-' + #page + '-' + #size", sync = true)
     public PagedResponseDTO<TransactionResponseDTO> getAllTransactions(int page, int size) {
         validatePagination(page, size);
+        cacheInvalidator.trackPage(page, size);
+        
+        TransactionPage transactions = transactionStore.findPage(page, size);
+        
+        List<TransactionResponseDTO> content = transactions.content().stream()
+            .map(TransactionResponseDTO::new)
+            .collect(Collectors.toList());
+        
+        return new PagedResponseDTO<>(content, page, size, transactions.totalElements());
+    }
+    
+    // Not cached: a walk over a large listing would fill the cache with pages that are read once.
+    public CursorPageDTO<TransactionResponseDTO> getTransactionsAfter(TransactionFilter filter, String cursor, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        if (size > MAX_CURSOR_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size cannot exceed " + MAX_CURSOR_PAGE_SIZE);
+        }
+        validateFilter(filter);
+        PageCursor after = cursor == null || cursor.isEmpty() ? null : PageCursor.decode(cursor);
+        
+        // One row beyond the page tells whether another page follows without a count.
+        List<Transaction> transactions = transactionStore.findAfter(filter, after, size + 1);
+        boolean hasNext = transactions.size() > size;
+        List<Transaction> page = hasNext ? transactions.subList(0, size) : transactions;
+        
+        List<TransactionResponseDTO> content = page.stream()
+            .map(TransactionResponseDTO::new)
+            .collect(Collectors.toList());
+        String nextCursor = hasNext ? PageCursor.of(page.get(size - 1)).encode() : null;
+        
+        return new CursorPageDTO<>(content, size, nextCursor);
+    }
+    
+    // Not cached: the plan reports the rows examined by this execution.
+    public SearchResponseDTO searchTransactions(TransactionFilter filter, SortOrder sort, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        if (limit > MAX_SEARCH_LIMIT) {
+            throw new IllegalArgumentException("Limit cannot exceed " + MAX_SEARCH_LIMIT);
+        }
+        validateFilter(filter);
         
-        List<Transaction> transactions = transactionRepository.findAll(page, size);
-        long totalElements = transactionRepository.count();
+        SearchResult result = transactionStore.search(new TransactionQuery(filter, sort, limit));
         
-        List<TransactionResponseDTO> content = transactions.stream()
+        List<TransactionResponseDTO> content = result.content().stream()
             .map(TransactionResponseDTO::new)
             .collect(Collectors.toList());
         
-        return new PagedResponseDTO<>(content, page, size, totalElements);
+        return new SearchResponseDTO(content, new QueryPlanDTO(result.plan(), result.rowsExamined()));
     }
     
-    @Cacheable(value = "transactions", key = "'account-' + #accountNumber")
+    @Cacheable(value = "transactions", key = "'account-' + #accountNumber", sync = true)
     public List<TransactionResponseDTO> getTransactionsByAccountNumber(String accountNumber) {
-        List<Transaction> transactions = transactionRepository.findByAccountNumber(accountNumber);
+        List<Transaction> transactions = transactionStore.findByAccountNumber(accountNumber);
         return transactions.stream()
             .map(TransactionResponseDTO::new)
             .collect(Collectors.toList());
     }
     
-    @Cacheable(value = "transactions", key = "'type-' + #type")
+    @Cacheable(value = "transactions", key = "'type-' + #type", sync = true)
     public List<TransactionResponseDTO> getTransactionsByType(TransactionType type) {
-        List<Transaction> transactions = transactionRepository.findByType(type);
+        List<Transaction> transactions = transactionStore.findByType(type);
         return transactions.stream()
             .map(TransactionResponseDTO::new)
             .collect(Collectors.toList());
     }
     
-    @Cacheable(value = "transactions", key = "'amount-' + #minAmount + '-' + #maxAmount")
+    @Cacheable(value = "transactions", key = "'amount-' + #minAmount + '-' + #maxAmount", sync = true)
     public List<TransactionResponseDTO> getTransactionsByAmountRange(BigDecimal minAmount, BigDecimal maxAmount) {
         if (minAmount.compareTo(maxAmount) > 0) {
             throw new IllegalArgumentException("Minimum amount cannot be greater than maximum amount");
         }
         
-        List<Transaction> transactions = transactionRepository.findByAmountBetween(minAmount, maxAmount);
+        cacheInvalidator.trackAmountRange(minAmount, maxAmount);
+        List<Transaction> transactions = transactionStore.findByAmountBetween(minAmount, maxAmount);
         return transactions.stream()
             .map(TransactionResponseDTO::new)
             .collect(Collectors.toList());
     }
     
-    @Cacheable(value = "transactions", key = "'date-' + #startDate + '-' + #endDate")
+    @Cacheable(value = "transactions", key = "'date-' + #startDate + '-' + #endDate", sync = true)
     public List<TransactionResponseDTO> getTransactionsByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
         if (startDate.isAfter(endDate)) {
             throw new IllegalArgumentException("Start date cannot be after end date");
         }
         
-        List<Transaction> transactions = transactionRepository.findByDateBetween(startDate, endDate);
+        cacheInvalidator.trackDateRange(startDate, endDate);
+        List<Transaction> transactions = transactionStore.findByDateBetween(startDate, endDate);
         return transactions.stream()
             .map(TransactionResponseDTO::new)
             .collect(Collectors.toList());
     }
     
-    @Caching(evict = {
-        @CacheEvict(value = "transactions", allEntries = true),
-        @CacheEvict(value = "transactionStats", allEntries = true)
-    })
     public TransactionResponseDTO updateTransaction(Long id, TransactionRequestDTO requestDTO) {
-        Transaction existingTransaction = transactionRepository.findById(id)
+        Transaction existingTransaction = transactionStore.findById(id)
             .orElseThrow(() -> new TransactionNotFoundException(id));
         
-        existingTransaction.setAccountNumber(requestDTO.getAccountNumber());
-        existingTransaction.setAmount(requestDTO.getAmount());
-        existingTransaction.setType(requestDTO.getType());
-        existingTransaction.setDescription(requestDTO.getDescription());
-        existingTransaction.setReference(requestDTO.getReference());
+        // The update is a new version of the row; the store swaps it in as a whole.
+        Transaction transaction = new Transaction(id, requestDTO.getAccountNumber(), requestDTO.getAmount(),
+            requestDTO.getType(), requestDTO.getDescription(), requestDTO.getReference());
+        transaction.setTransactionDate(existingTransaction.getTransactionDate());
         
-        Transaction updatedTransaction = transactionRepository.save(existingTransaction);
+        Transaction updatedTransaction = transactionStore.save(transaction);
+        cacheInvalidator.updated(existingTransaction, updatedTransaction);
         return new TransactionResponseDTO(updatedTransaction);
     }
     
-    @Caching(evict = {
-        @CacheEvict(value = "transactions", allEntries = true),
-        @CacheEvict(value = "transactionStats", allEntries = true)
-    })
     public void deleteTransaction(Long id) {
-        if (!transactionRepository.existsById(id)) {
-            throw new TransactionNotFoundException(id);
-        }
-        transactionRepository.deleteById(id);
+        Transaction existingTransaction = transactionStore.findById(id)
+            .orElseThrow(() -> new TransactionNotFoundException(id));
+        transactionStore.deleteById(id);
+        cacheInvalidator.deleted(existingTransaction);
     }
     
-    @Cacheable(value = "transactionStats", key = "'count'")
+    @Cacheable(value = "transactionStats", key = "'count'", sync = true)
     public long getTotalTransactionCount() {
-        return transactionRepository.count();
+        return transactionStore.count();
+    }
+    
+    @Cacheable(value = "transactionStats", key = "'count-' + #filter", sync = true)
+    public long getTransactionCount(TransactionFilter filter) {
+        validateFilter(filter);
+        cacheInvalidator.trackFilteredStat("count", filter);
+        return transactionStore.count(filter);
+    }
+    
+    @Cacheable(value = "transactionStats", key = "'summary-' + #filter", sync = true)
+    public AmountSummaryDTO getAmountSummary(TransactionFilter filter) {
+        validateFilter(filter);
+        cacheInvalidator.trackFilteredStat("summary", filter);
+        return new AmountSummaryDTO(transactionStore.summarize(filter));
     }
     
-    @Cacheable(value = "transactionStats", key = "'countByType'")
+    @Cacheable(value = "transactionStats", key = "'series-' + #query", sync = true)
+    public List<TimeBucketDTO> getTimeSeries(TimeSeriesQuery query) {
+        cacheInvalidator.trackTimeSeries(query);
+        return transactionStore.timeSeries(query).stream()
+            .map(TimeBucketDTO::new)
+            .collect(Collectors.toList());
+    }
+    
+    @Cacheable(value = "transactionStats", key = "'countByType'", sync = true)
     public Map<TransactionType, Long> getTransactionCountByType() {
-        return transactionRepository.countByType();
+        return transactionStore.countByType();
     }
     
-    @Cacheable(value = "transactionStats", key = "'countByAccount'")
+    @Cacheable(value = "transactionStats", key = "'countByAccount'", sync = true)
     public Map<String, Long> getTransactionCountByAccount() {
-        return transactionRepository.countByAccountNumber();
+        return transactionStore.countByAccountNumber();
     }
     
-    @Cacheable(value = "transactionStats", key = "'totalAmount'")
+    @Cacheable(value = "transactionStats", key = "'totalAmount'", sync = true)
     public BigDecimal getTotalTransactionAmount() {
-        return transactionRepository.getTotalAmount();
+        return transactionStore.getTotalAmount();
     }
     
-    @Cacheable(value = "transactionStats", key = "'totalAmountByType-' + #type")
+    @Cacheable(value = "transactionStats", key = "'totalAmountByType-' + #type", sync = true)
     public BigDecimal getTotalAmountByType(TransactionType type) {
-        return transactionRepository.getTotalAmountByType(type);
+        return transactionStore.getTotalAmountByType(type);
     }
     
-    @Cacheable(value = "transactionStats", key = "'totalAmountByAccount-' + #accountNumber")
+    @Cacheable(value = "transactionStats", key = "'totalAmountByAccount-' + #accountNumber", sync = true)
     public BigDecimal getTotalAmountByAccount(String accountNumber) {
-        return transactionRepository.getTotalAmountByAccountNumber(accountNumber);
+        return transactionStore.getTotalAmountByAccountNumber(accountNumber);
     }
     
     public boolean transactionExists(Long id) {
-        return transactionRepository.existsById(id);
+        return transactionStore.existsById(id);
     }
     
-    @Caching(evict = {
-        @CacheEvict(value = "transactions", allEntries = true),
-        @CacheEvict(value = "transactionStats", allEntries = true)
-    })
     public void deleteAllTransactions() {
-        transactionRepository.deleteAll();
+        transactionStore.deleteAll();
+        cacheInvalidator.clearedAll();
+    }
+    
+    private void validateFilter(TransactionFilter filter) {
+        if (filter.minAmount() != null && filter.maxAmount() != null && filter.minAmount().compareTo(filter.maxAmount()) > 0) {
+            throw new IllegalArgumentException("Minimum amount cannot be greater than maximum amount");
+        }
+        if (filter.startDate() != null && filter.endDate() != null && filter.startDate().isAfter(filter.endDate())) {
+            throw new IllegalArgumentException("Start date cannot be after end date");
+        }
     }
     
     private void validatePagination(int page, int size) {
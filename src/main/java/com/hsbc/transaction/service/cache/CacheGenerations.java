@@ -0,0 +1,146 @@
+package com.hsbc.transaction.service.cache;
+
+import com.hsbc.transaction.model.TransactionType;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Generations of the partitions of the cached data: everything, each account and each type. A cached value is
+// stamped with the generation of everything and of the partition its key belongs to, and is current while
+// neither has moved on, so dropping a whole partition is one swap instead of a walk over the cache. A generation
+// records when it was advanced past, which tells how long values stamped with it have been outdated.
+// A key belongs to an account if it is "account-" or "totalAmountByAccount-" followed by the account number,
+// to a type likewise with "type-" and "totalAmountByType-", and to no partition otherwise.
+@Component
+public class CacheGenerations {
+    
+    private static final Map<String, TransactionType> TYPES = new ConcurrentHashMap<>();
+    private static final long CURRENT = Long.MAX_VALUE;
+    // Generation of keys outside any partition, and of accounts not yet advanced; never advanced past itself.
+    private static final Generation INITIAL = new Generation();
+    
+    static {
+        for (TransactionType type : TransactionType.values()) {
+            TYPES.put(type.name(), type);
+        }
+    }
+    
+    private final Partition everything = new Partition();
+    private final Partition[] byType = new Partition[TransactionType.values().length];
+    private final Map<String, Partition> byAccount = new ConcurrentHashMap<>();
+    
+    public CacheGenerations() {
+        for (int i = 0; i < byType.length; i++) {
+            byType[i] = new Partition();
+        }
+    }
+    
+    public void advanceAll() {
+        everything.advance();
+    }
+    
+    // An account's partition is created by its first advance; values stamped before then are outdated from it.
+    public void advanceAccount(String accountNumber) {
+        byAccount.computeIfAbsent(accountNumber, account -> new Partition()).advance();
+    }
+    
+    public void advanceType(TransactionType type) {
+        byType[type.ordinal()].advance();
+    }
+    
+    // The generations a value for key computed from now on is stamped with, and when the computation started.
+    public Stamped stamp(Object key, Object value) {
+        Partition partition = partition(key);
+        return new Stamped(value, everything.current(), partition != null ? partition.current() : INITIAL,
+                System.nanoTime(), CURRENT);
+    }
+    
+    public boolean isCurrent(Object key, Stamped stamped) {
+        Partition partition = partition(key);
+        return !stamped.evicted() && stamped.everything() == everything.current()
+                && stamped.partition() == (partition != null ? partition.current() : INITIAL);
+    }
+    
+    // True if everything was advanced after the value was stamped.
+    public boolean predatesReset(Stamped stamped) {
+        return stamped.everything() != everything.current();
+    }
+    
+    // When the value became outdated: the first advance past a generation it was stamped with, or the eviction
+    // of its key, whichever came first; now if it is current or the advance is still being recorded.
+    public long staleSince(Object key, Stamped stamped, long now) {
+        long partitionAdvanced;
+        Partition partition = partition(key);
+        if (stamped.partition() == INITIAL) {
+            partitionAdvanced = partition != null ? partition.createdAt : CURRENT;
+        } else {
+            partitionAdvanced = stamped.partition().advancedAt;
+        }
+        long since = Math.min(stamped.evictedAt(), Math.min(stamped.everything().advancedAt, partitionAdvanced));
+        return since == CURRENT ? now : since;
+    }
+    
+    private Partition partition(Object key) {
+        if (!(key instanceof String name)) {
+            return null;
+        }
+        int dash = name.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        String rest = name.substring(dash + 1);
+        switch (name.substring(0, dash)) {
+            case "account", "totalAmountByAccount" -> {
+                return byAccount.get(rest);
+            }
+            case "type", "totalAmountByType" -> {
+                TransactionType type = TYPES.get(rest);
+                return type != null ? byType[type.ordinal()] : null;
+            }
+            default -> {
+                return null;
+            }
+        }
+    }
+    
+    // evictedAt is when a refresh-ahead cache, which keeps serving the value, had its key evicted.
+    public record Stamped(Object value, Generation everything, Generation partition, long stampedAt, long evictedAt) {
+    
+        public boolean evicted() {
+            return evictedAt != CURRENT;
+        }
+    
+        Stamped withValue(Object newValue) {
+            return new Stamped(newValue, everything, partition, stampedAt, evictedAt);
+        }
+    
+        Stamped markEvicted(long now) {
+            return new Stamped(value, everything, partition, stampedAt, now);
+        }
+    }
+    
+    // Stamps compare generations by identity; advancedAt is set once the partition has moved past this one.
+    public static final class Generation {
+    
+        private volatile long advancedAt = CURRENT;
+    
+        private Generation() {
+        }
+    }
+    
+    private static final class Partition {
+    
+        final long createdAt = System.nanoTime();
+        private final AtomicReference<Generation> current = new AtomicReference<>(new Generation());
+    
+        Generation current() {
+            return current.get();
+        }
+    
+        void advance() {
+            current.getAndSet(new Generation()).advancedAt = System.nanoTime();
+        }
+    }
+}
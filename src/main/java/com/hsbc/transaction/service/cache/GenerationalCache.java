@@ -0,0 +1,255 @@
+package com.hsbc.transaction.service.cache;
+
+import com.hsbc.transaction.service.cache.CacheGenerations.Stamped;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+// Cache stamping each value with the generations it was computed under; a value whose generations have moved on
+// reads as a miss and is overwritten by the next put. Stale values are not removed eagerly, the delegate's size
+// bound and expiry reclaim them. Values read through get(key, loader), which @Cacheable(sync = true) uses, are
+// stamped before loading, so a write during the load leaves them stale. Values stored by put are stamped when
+// put, after they were computed, the same window a write racing a miss has with eviction. The delegate counts
+// stale reads as hits; staleReads() says how many of them there were.
+// With a RefreshAhead, get(key, loader) keeps serving a stale value within its staleness bound, counted from the
+// write that outdated it, and reloads it in the background, and eviction marks a value stale instead of dropping
+// it. Values from before everything was
+// advanced are never served.
+public class GenerationalCache implements Cache {
+    
+    private final Cache delegate;
+    private final CacheGenerations generations;
+    private final Map<Object, Load> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder staleReads = new LongAdder();
+    private final LongAdder coalescedLoads = new LongAdder();
+    private final LongAdder staleServed = new LongAdder();
+    private final RefreshAhead refreshAhead;
+    
+    public GenerationalCache(Cache delegate, CacheGenerations generations) {
+        this(delegate, generations, null);
+    }
+    
+    public GenerationalCache(Cache delegate, CacheGenerations generations, RefreshAhead refreshAhead) {
+        this.delegate = delegate;
+        this.generations = generations;
+        this.refreshAhead = refreshAhead;
+    }
+    
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+    
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+    
+    @Override
+    public ValueWrapper get(Object key) {
+        Stamped stamped = current(key, delegate.get(key));
+        return stamped != null ? new SimpleValueWrapper(stamped.value()) : null;
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        Stamped stamped = current(key, delegate.get(key));
+        Object value = stamped != null ? stamped.value() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+    
+    // Concurrent misses for one key share a single load: the first caller loads and the others wait for its
+    // result, as long as the generations it stamped are still current and the key was not evicted meanwhile.
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = delegate.get(key);
+        if (refreshAhead != null && wrapper != null && wrapper.get() instanceof Stamped stamped
+                && !generations.isCurrent(key, stamped) && !generations.predatesReset(stamped)) {
+            long now = System.nanoTime();
+            if (now - generations.staleSince(key, stamped, now) < refreshAhead.maxStaleness().toNanos()) {
+                if (now - stamped.stampedAt() >= refreshAhead.refreshAfter().toNanos()) {
+                    refreshInBackground(key, valueLoader);
+                }
+                staleServed.increment();
+                return (T) stamped.value();
+            }
+        }
+        Stamped cached = current(key, wrapper);
+        if (cached != null) {
+            return (T) cached.value();
+        }
+        while (true) {
+            Load load = new Load(generations.stamp(key, null));
+            Load leader = inFlight.putIfAbsent(key, load);
+            if (leader == null) {
+                return (T) run(key, load, valueLoader).value();
+            }
+            if (generations.isCurrent(key, leader.stamp)) {
+                coalescedLoads.increment();
+                Stamped loaded = leader.await();
+                if (loaded != null) {
+                    return (T) loaded.value();
+                }
+                coalescedLoads.decrement();
+            }
+            inFlight.remove(key, leader);
+        }
+    }
+    
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, generations.stamp(key, value));
+    }
+    
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        Stamped stamped = generations.stamp(key, value);
+        ValueWrapper existing = delegate.putIfAbsent(key, stamped);
+        Stamped current = current(key, existing);
+        if (current != null) {
+            return new SimpleValueWrapper(current.value());
+        }
+        if (existing != null) {
+            delegate.put(key, stamped);
+        }
+        return null;
+    }
+    
+    public long staleReads() {
+        return staleReads.sum();
+    }
+    
+    // Reads that waited for another caller's load of the same key instead of loading it themselves.
+    public long coalescedLoads() {
+        return coalescedLoads.sum();
+    }
+    
+    // Stale values served within the staleness bound while they were reloaded.
+    public long staleServed() {
+        return staleServed.sum();
+    }
+    
+    boolean isLoading(Object key) {
+        return inFlight.containsKey(key);
+    }
+    
+    @Override
+    public void evict(Object key) {
+        evictIfPresent(key);
+    }
+    
+    // A refresh-ahead cache keeps the value to serve while it is reloaded. A put racing the eviction can be
+    // overwritten with the older value marked evicted, which is then reloaded like any other.
+    @Override
+    public boolean evictIfPresent(Object key) {
+        inFlight.remove(key);
+        if (refreshAhead == null) {
+            return delegate.evictIfPresent(key);
+        }
+        ValueWrapper wrapper = delegate.get(key);
+        if (wrapper == null || !(wrapper.get() instanceof Stamped stamped)) {
+            return false;
+        }
+        if (!stamped.evicted()) {
+            delegate.put(key, stamped.markEvicted(System.nanoTime()));
+        }
+        return true;
+    }
+    
+    @Override
+    public void clear() {
+        inFlight.clear();
+        delegate.clear();
+    }
+    
+    @Override
+    public boolean invalidate() {
+        inFlight.clear();
+        return delegate.invalidate();
+    }
+    
+    private Stamped current(Object key, ValueWrapper wrapper) {
+        if (wrapper == null || !(wrapper.get() instanceof Stamped stamped)) {
+            return null;
+        }
+        if (!generations.isCurrent(key, stamped)) {
+            staleReads.increment();
+            return null;
+        }
+        return stamped;
+    }
+    
+    // At most one load per key is in flight, so a reload already running is not started again. A reload the
+    // executor rejects is abandoned; the stale value is served until a later read starts one.
+    private void refreshInBackground(Object key, Callable<?> valueLoader) {
+        Load load = new Load(generations.stamp(key, null));
+        if (inFlight.putIfAbsent(key, load) != null) {
+            return;
+        }
+        try {
+            refreshAhead.executor().execute(() -> {
+                try {
+                    run(key, load, valueLoader);
+                } catch (ValueRetrievalException ex) {
+                    // The stale value stays; a later read retries.
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            inFlight.remove(key, load);
+            load.result.complete(null);
+        }
+    }
+    
+    // Stores the value only if the load is still the key's, so one evicted while loading is not cached.
+    private Stamped run(Object key, Load load, Callable<?> valueLoader) {
+        try {
+            Stamped loaded = load.stamp.withValue(valueLoader.call());
+            if (inFlight.remove(key, load)) {
+                delegate.put(key, loaded);
+            }
+            load.result.complete(loaded);
+            return loaded;
+        } catch (Exception ex) {
+            ValueRetrievalException failure = new ValueRetrievalException(key, valueLoader, ex);
+            load.result.completeExceptionally(failure);
+            throw failure;
+        } finally {
+            inFlight.remove(key, load);
+            load.result.completeExceptionally(new IllegalStateException("Load of " + key + " did not complete"));
+        }
+    }
+    
+    private static final class Load {
+    
+        final Stamped stamp;
+        final CompletableFuture<Stamped> result = new CompletableFuture<>();
+    
+        Load(Stamped stamp) {
+            this.stamp = stamp;
+        }
+    
+        // null if the load was abandoned before it started.
+        Stamped await() {
+            try {
+                return result.join();
+            } catch (CompletionException ex) {
+                if (ex.getCause() instanceof RuntimeException failure) {
+                    throw failure;
+                }
+                throw ex;
+            }
+        }
+    }
+}
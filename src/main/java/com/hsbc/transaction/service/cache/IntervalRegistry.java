@@ -0,0 +1,63 @@
+package com.hsbc.transaction.service.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
+
+// Keys of cached range queries by their closed interval [low, high], for finding the ones a value falls in.
+// Intervals are grouped by lower bound, so a lookup walks only those starting at or below the value and checks
+// their upper bounds. A null bound leaves that side open. Registrations happen on cache misses only, so changes
+// are serialised and lookups take no lock.
+public class IntervalRegistry<C extends Comparable<? super C>, K> {
+    
+    private final ConcurrentSkipListMap<C, Map<K, Bound<C>>> byLow = new ConcurrentSkipListMap<>();
+    private final Map<K, Bound<C>> openBelow = new ConcurrentHashMap<>();
+    
+    public synchronized void add(C low, C high, K key) {
+        Map<K, Bound<C>> group = low == null ? openBelow : byLow.computeIfAbsent(low, bound -> new ConcurrentHashMap<>());
+        group.put(key, new Bound<>(high));
+    }
+    
+    // Keys of every interval holding value.
+    public List<K> containing(C value) {
+        List<K> keys = new ArrayList<>();
+        collect(openBelow, value, keys);
+        for (Map<K, Bound<C>> group : byLow.headMap(value, true).values()) {
+            collect(group, value, keys);
+        }
+        return keys;
+    }
+    
+    public int size() {
+        int size = openBelow.size();
+        for (Map<K, Bound<C>> group : byLow.values()) {
+            size += group.size();
+        }
+        return size;
+    }
+    
+    public synchronized void removeIf(Predicate<K> stale) {
+        openBelow.keySet().removeIf(stale);
+        byLow.values().forEach(group -> group.keySet().removeIf(stale));
+        byLow.values().removeIf(Map::isEmpty);
+    }
+    
+    public synchronized void clear() {
+        openBelow.clear();
+        byLow.clear();
+    }
+    
+    private static <C extends Comparable<? super C>, K> void collect(Map<K, Bound<C>> group, C value, List<K> keys) {
+        group.forEach((key, bound) -> {
+            if (bound.high() == null || bound.high().compareTo(value) >= 0) {
+                keys.add(key);
+            }
+        });
+    }
+    
+    private record Bound<C>(C high) {
+    }
+}
@@ -0,0 +1,18 @@
+package com.hsbc.transaction.service.cache;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
+// Stale-while-revalidate settings for a GenerationalCache. A value a write has outdated is still served for
+// maxStaleness, counted from the write that outdated it or the eviction of its key; once it is refreshAfter
+// old, counted from the start of the load that produced it, a read also starts a reload on executor. Past
+// maxStaleness the reading caller loads it itself. A reset, advancing every generation, outdates values beyond
+// serving.
+public record RefreshAhead(Duration refreshAfter, Duration maxStaleness, Executor executor) {
+    
+    public RefreshAhead {
+        if (refreshAfter.isNegative() || refreshAfter.compareTo(maxStaleness) > 0) {
+            throw new IllegalArgumentException("Refresh interval must be between zero and the maximum staleness");
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.hsbc.transaction.service.cache;
+
+import com.hsbc.transaction.dto.AmountSummaryDTO;
+import com.hsbc.transaction.dto.CursorPageDTO;
+import com.hsbc.transaction.dto.PagedResponseDTO;
+import com.hsbc.transaction.dto.QueryPlanDTO;
+import com.hsbc.transaction.dto.SearchResponseDTO;
+import com.hsbc.transaction.dto.TimeBucketDTO;
+import com.hsbc.transaction.dto.TransactionResponseDTO;
+import com.hsbc.transaction.service.cache.CacheGenerations.Stamped;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+
+// Estimated bytes a cached value retains on a 64-bit JVM with compressed references, for weighing cache entries
+// against a byte budget. Objects are sized by their fields rather than measured, strings are assumed to hold
+// Latin-1 characters, and enums and booleans, which are shared, count nothing. The estimate walks every element
+// of a collection, so weighing a list costs about as much as copying it once.
+public final class RetainedSize {
+    
+    private static final int HEADER = 12;
+    private static final int REFERENCE = 4;
+    private static final long BOXED = 16;
+    private static final long STRING = 24;
+    private static final long BIG_DECIMAL = 40;
+    private static final long BIG_INTEGER = 40;
+    private static final long LOCAL_DATE_TIME = 72;
+    private static final long LIST = 24;
+    private static final long MAP = 48;
+    private static final long MAP_ENTRY = 32;
+    private static final long UNKNOWN = 64;
+    
+    private RetainedSize() {
+    }
+    
+    public static long of(Object value) {
+        if (value == null || value instanceof Enum<?> || value instanceof Boolean) {
+            return 0;
+        }
+        if (value instanceof Stamped stamped) {
+            return align(HEADER + 3 * REFERENCE + 2 * Long.BYTES) + of(stamped.value());
+        }
+        if (value instanceof TransactionResponseDTO dto) {
+            return align(HEADER + 7 * REFERENCE) + of(dto.getId()) + of(dto.getAccountNumber()) + of(dto.getAmount())
+                    + of(dto.getDescription()) + of(dto.getTransactionDate()) + of(dto.getReference());
+        }
+        if (value instanceof PagedResponseDTO<?> page) {
+            return align(HEADER + REFERENCE + 3 * Integer.BYTES + Long.BYTES + 4) + of(page.getContent());
+        }
+        if (value instanceof CursorPageDTO<?> page) {
+            return align(HEADER + 2 * REFERENCE + Integer.BYTES + 1) + of(page.getContent()) + of(page.getNextCursor());
+        }
+        if (value instanceof SearchResponseDTO search) {
+            return align(HEADER + 2 * REFERENCE) + of(search.getContent()) + of(search.getPlan());
+        }
+        if (value instanceof QueryPlanDTO plan) {
+            return align(HEADER + 2 * REFERENCE + 3 * Long.BYTES + 1) + of(plan.getAccessPath())
+                    + of(plan.getResidualPredicates());
+        }
+        if (value instanceof AmountSummaryDTO summary) {
+            return align(HEADER + 3 * REFERENCE + Long.BYTES) + of(summary.getSum()) + of(summary.getMin())
+                    + of(summary.getMax());
+        }
+        if (value instanceof TimeBucketDTO bucket) {
+            return align(HEADER + 2 * REFERENCE + Long.BYTES) + of(bucket.getBucketStart()) + of(bucket.getTotalAmount());
+        }
+        if (value instanceof Collection<?> collection) {
+            long size = LIST + array(REFERENCE, collection.size());
+            for (Object element : collection) {
+                size += of(element);
+            }
+            return size;
+        }
+        if (value instanceof Map<?, ?> map) {
+            int buckets = Integer.highestOneBit(Math.max(1, map.size() * 4 / 3)) * 2;
+            long size = MAP + array(REFERENCE, buckets) + MAP_ENTRY * map.size();
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                size += of(entry.getKey()) + of(entry.getValue());
+            }
+            return size;
+        }
+        if (value instanceof String string) {
+            return STRING + array(1, string.length());
+        }
+        if (value instanceof BigDecimal decimal) {
+            // Up to 18 digits the unscaled value is kept in a long, beyond that in a BigInteger of 32-bit words.
+            int precision = decimal.precision();
+            return precision <= 18 ? BIG_DECIMAL : BIG_DECIMAL + BIG_INTEGER + array(Integer.BYTES, precision / 9 + 1);
+        }
+        if (value instanceof LocalDateTime) {
+            return LOCAL_DATE_TIME;
+        }
+        if (value instanceof Number || value instanceof Character) {
+            return BOXED;
+        }
+        return UNKNOWN;
+    }
+    
+    private static long array(int elementBytes, int length) {
+        return align(HEADER + Integer.BYTES + (long) elementBytes * length);
+    }
+    
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
@@ -0,0 +1,153 @@
+package com.hsbc.transaction.service.cache;
+
+import com.hsbc.transaction.model.Transaction;
+import com.hsbc.transaction.repository.TransactionFilter;
+import com.hsbc.transaction.repository.rollup.TimeSeriesQuery;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiPredicate;
+
+// Evicts only the cache entries a write can change, instead of both caches on every write. Keys are the ones the
+// service's @Cacheable expressions build. Entries whose key cannot be derived from the row alone (pages, ranges,
+// filters and series) are tracked when their method runs on a miss, and a write evicts the tracked ones covering
+// the row before and after it. Tracked keys outlive evictions, so an entry cached after a write evicted it is
+// still found by the next one; keys no longer cached are dropped once a family grows past MAX_TRACKED_KEYS.
+// Entries of one account or type are dropped by advancing its generation in CacheGenerations.
+@Component
+public class TransactionCacheInvalidator {
+    
+    public static final String TRANSACTIONS = "transactions";
+    public static final String STATS = "transactionStats";
+    static final int MAX_TRACKED_KEYS = 4096;
+    
+    private final CacheManager cacheManager;
+    private final CacheGenerations generations;
+    private final Set<String> pages = ConcurrentHashMap.newKeySet();
+    private final IntervalRegistry<BigDecimal, String> amountRanges = new IntervalRegistry<>();
+    private final IntervalRegistry<LocalDateTime, String> dateRanges = new IntervalRegistry<>();
+    private final Map<String, TransactionFilter> filteredStats = new ConcurrentHashMap<>();
+    private final Map<String, TimeSeriesQuery> series = new ConcurrentHashMap<>();
+    
+    public TransactionCacheInvalidator(CacheManager cacheManager, CacheGenerations generations) {
+        this.cacheManager = cacheManager;
+        this.generations = generations;
+    }
+    
+    public void trackPage(int page, int size) {
+        pages.add("all-" + page + "-" + size);
+        pruneIfFull(pages, TRANSACTIONS);
+    }
+    
+    public void trackAmountRange(BigDecimal minAmount, BigDecimal maxAmount) {
+        amountRanges.add(minAmount, maxAmount, "amount-" + minAmount + "-" + maxAmount);
+        if (amountRanges.size() > MAX_TRACKED_KEYS) {
+            amountRanges.removeIf(key -> !cached(TRANSACTIONS, key));
+        }
+    }
+    
+    public void trackDateRange(LocalDateTime startDate, LocalDateTime endDate) {
+        dateRanges.add(startDate, endDate, "date-" + startDate + "-" + endDate);
+        if (dateRanges.size() > MAX_TRACKED_KEYS) {
+            dateRanges.removeIf(key -> !cached(TRANSACTIONS, key));
+        }
+    }
+    
+    // prefix names the statistic, as in its cache key: prefix + "-" + filter.
+    public void trackFilteredStat(String prefix, TransactionFilter filter) {
+        filteredStats.put(prefix + "-" + filter, filter);
+        pruneIfFull(filteredStats.keySet(), STATS);
+    }
+    
+    public void trackTimeSeries(TimeSeriesQuery query) {
+        series.put("series-" + query, query);
+        pruneIfFull(series.keySet(), STATS);
+    }
+    
+    public void created(Transaction transaction) {
+        changed(null, transaction);
+    }
+    
+    public void updated(Transaction before, Transaction after) {
+        changed(before, after);
+    }
+    
+    public void deleted(Transaction transaction) {
+        changed(transaction, null);
+    }
+    
+    public void clearedAll() {
+        generations.advanceAll();
+    }
+    
+    // before is null for a create, after for a delete.
+    private void changed(Transaction before, Transaction after) {
+        Cache transactions = cache(TRANSACTIONS);
+        transactions.evict((before != null ? before : after).getId());
+        pages.forEach(transactions::evict);
+        for (Transaction row : new Transaction[] {before, after}) {
+            if (row != null) {
+                generations.advanceAccount(row.getAccountNumber());
+                generations.advanceType(row.getType());
+                amountRanges.containing(row.getAmount()).forEach(transactions::evict);
+                dateRanges.containing(row.getTransactionDate()).forEach(transactions::evict);
+            }
+        }
+        if (before != null && after != null && sameStatistics(before, after)) {
+            return;
+        }
+        Cache stats = cache(STATS);
+        stats.evict("count");
+        stats.evict("countByType");
+        stats.evict("countByAccount");
+        stats.evict("totalAmount");
+        evictMatching(stats, filteredStats, before, after, (filter, row) -> filter.matches(row));
+        evictMatching(stats, series, before, after, TransactionCacheInvalidator::covers);
+    }
+    
+    // Statistics read only the account, type, amount and date of a row.
+    private static boolean sameStatistics(Transaction before, Transaction after) {
+        return Objects.equals(before.getAccountNumber(), after.getAccountNumber())
+                && before.getType() == after.getType()
+                && before.getAmount().compareTo(after.getAmount()) == 0
+                && Objects.equals(before.getTransactionDate(), after.getTransactionDate());
+    }
+    
+    private static boolean covers(TimeSeriesQuery query, Transaction row) {
+        LocalDateTime start = query.granularity().startOf(query.firstBucket());
+        LocalDateTime end = query.granularity().startOf(query.lastBucket() + 1);
+        return (query.accountNumber() == null || query.accountNumber().equals(row.getAccountNumber()))
+                && (query.type() == null || query.type() == row.getType())
+                && !row.getTransactionDate().isBefore(start) && row.getTransactionDate().isBefore(end);
+    }
+    
+    private static <Q> void evictMatching(Cache cache, Map<String, Q> tracked, Transaction before, Transaction after,
+                                          BiPredicate<Q, Transaction> matches) {
+        tracked.forEach((key, query) -> {
+            if (before != null && matches.test(query, before) || after != null && matches.test(query, after)) {
+                cache.evict(key);
+            }
+        });
+    }
+    
+    private void pruneIfFull(Set<String> keys, String cacheName) {
+        if (keys.size() > MAX_TRACKED_KEYS) {
+            keys.removeIf(key -> !cached(cacheName, key));
+        }
+    }
+    
+    private boolean cached(String cacheName, String key) {
+        return cache(cacheName).get(key) != null;
+    }
+    
+    private Cache cache(String name) {
+        return cacheManager.getCache(name);
+    }
+}
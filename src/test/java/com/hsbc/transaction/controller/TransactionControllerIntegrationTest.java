@@ -4,22 +4,27 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hsbc.transaction.dto.TransactionRequestDTO;
 import com.hsbc.transaction.model.TransactionType;
 import com.hsbc.transaction.repository.TransactionRepository;
+import com.hsbc.transaction.service.TransactionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Optional;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -37,6 +42,9 @@ class TransactionControllerIntegrationTest {
     @Autowired
     private TransactionRepository transactionRepository;
 
+    @Autowired
+    private TransactionService transactionService;
+
     private MockMvc mockMvc;
     private ObjectMapper objectMapper;
 
@@ -117,4 +125,193 @@ class TransactionControllerIntegrationTest {
                 .andExpect(status().isOk())
                 .andExpect(content().string("0"));
     }
-} 
\ No newline at end of file
+
+    @Test
+    void statistics_ShouldStateTheirStalenessBound() throws Exception {
+        mockMvc.perform(get("/api/v1/transactions/statistics/total-amount"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(TransactionController.MAX_STALENESS_HEADER, "PT30S"));
+    }
+
+    @Test
+    void statistics_ShouldNotStateAStalenessBoundWithoutRefreshAhead() {
+        // Given
+        TransactionController controller = new TransactionController(transactionService, Optional.empty());
+
+        // When
+        ResponseEntity<BigDecimal> response = controller.getTotalTransactionAmount();
+
+        // Then
+        assertFalse(response.getHeaders().containsKey(TransactionController.MAX_STALENESS_HEADER));
+    }
+
+    @Test
+    void getTransactionsByAccountNumber_WithCursor_ShouldWalkPages() throws Exception {
+        // Given
+        for (int i = 0; i < 3; i++) {
+            TransactionRequestDTO requestDTO = new TransactionRequestDTO(
+                "1234567890",
+                new BigDecimal("10.00"),
+                TransactionType.DEBIT,
+                "Payment " + i
+            );
+            mockMvc.perform(post("/api/v1/transactions")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(requestDTO)))
+                    .andExpect(status().isCreated());
+        }
+
+        // When & Then
+        MvcResult firstPage = mockMvc.perform(get("/api/v1/transactions/account/1234567890")
+                .param("cursor", "")
+                .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(2)))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andReturn();
+        String cursor = objectMapper.readTree(firstPage.getResponse().getContentAsString()).get("nextCursor").asText();
+
+        mockMvc.perform(get("/api/v1/transactions/account/1234567890")
+                .param("cursor", cursor)
+                .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.hasNext").value(false));
+    }
+
+    @Test
+    void getAllTransactions_WithInvalidCursor_ShouldReturnBadRequest() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/api/v1/transactions").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid page cursor"));
+    }
+
+    @Test
+    void searchTransactions_ShouldReturnMatchesAndPlan() throws Exception {
+        // Given
+        for (TransactionType type : new TransactionType[] {TransactionType.CREDIT, TransactionType.DEBIT, TransactionType.DEBIT}) {
+            TransactionRequestDTO requestDTO = new TransactionRequestDTO(
+                "1234567890",
+                new BigDecimal("25.00"),
+                type,
+                "Search " + type
+            );
+            mockMvc.perform(post("/api/v1/transactions")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(requestDTO)))
+                    .andExpect(status().isCreated());
+        }
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/transactions/search")
+                .param("accountNumber", "1234567890")
+                .param("type", "DEBIT")
+                .param("minAmount", "10")
+                .param("sort", "LARGEST_FIRST")
+                .param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(2)))
+                .andExpect(jsonPath("$.plan.accessPath").exists())
+                .andExpect(jsonPath("$.plan.residualPredicates").isArray());
+    }
+
+    @Test
+    void getTransactionCount_ShouldCountAccountRowsOfAnyGivenType() throws Exception {
+        // Given
+        String[][] rows = {{"1234567890", "DEBIT"}, {"1234567890", "FEE"}, {"1234567890", "CREDIT"}, {"0987654321", "FEE"}};
+        for (String[] row : rows) {
+            TransactionRequestDTO requestDTO = new TransactionRequestDTO(
+                row[0],
+                new BigDecimal("15.00"),
+                TransactionType.valueOf(row[1]),
+                "Count " + row[1]
+            );
+            mockMvc.perform(post("/api/v1/transactions")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(requestDTO)))
+                    .andExpect(status().isCreated());
+        }
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/transactions/statistics/count-matching")
+                .param("accountNumber", "1234567890")
+                .param("type", "DEBIT", "FEE", "WITHDRAWAL"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("2"));
+        mockMvc.perform(get("/api/v1/transactions/statistics/count-matching")
+                .param("type", "DEBIT,FEE"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("3"));
+        mockMvc.perform(get("/api/v1/transactions/search")
+                .param("type", "DEBIT", "FEE"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(3)));
+    }
+
+    @Test
+    void getAmountSummary_ShouldSummarizeAmountsWithinTheBounds() throws Exception {
+        // Given
+        for (String amount : new String[] {"5.00", "12.50", "99.99", "250.00"}) {
+            TransactionRequestDTO requestDTO = new TransactionRequestDTO(
+                "1234567890",
+                new BigDecimal(amount),
+                TransactionType.PAYMENT,
+                "Summary " + amount
+            );
+            mockMvc.perform(post("/api/v1/transactions")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(requestDTO)))
+                    .andExpect(status().isCreated());
+        }
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/transactions/statistics/amount-summary")
+                .param("minAmount", "10")
+                .param("maxAmount", "100"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(2))
+                .andExpect(jsonPath("$.sum").value(112.49))
+                .andExpect(jsonPath("$.min").value(12.50))
+                .andExpect(jsonPath("$.max").value(99.99));
+        mockMvc.perform(get("/api/v1/transactions/statistics/amount-summary")
+                .param("minAmount", "100")
+                .param("maxAmount", "10"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getTimeSeries_ShouldReturnOneBucketPerHourOfTheRange() throws Exception {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        for (String amount : new String[] {"10.00", "20.00", "30.00"}) {
+            TransactionRequestDTO requestDTO = new TransactionRequestDTO(
+                "1234567890",
+                new BigDecimal(amount),
+                TransactionType.DEPOSIT,
+                "Series " + amount
+            );
+            mockMvc.perform(post("/api/v1/transactions")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(requestDTO)))
+                    .andExpect(status().isCreated());
+        }
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/transactions/statistics/time-series")
+                .param("granularity", "HOUR")
+                .param("startDate", now.minusHours(2).toString())
+                .param("endDate", now.plusHours(1).toString())
+                .param("type", "DEPOSIT"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(4)))
+                .andExpect(jsonPath("$[2].count").value(3))
+                .andExpect(jsonPath("$[2].totalAmount").value(60.00))
+                .andExpect(jsonPath("$[0].count").value(0));
+        mockMvc.perform(get("/api/v1/transactions/statistics/time-series")
+                .param("granularity", "MINUTE")
+                .param("startDate", now.minusDays(30).toString())
+                .param("endDate", now.toString()))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,1126 @@
+package com.hsbc.transaction.repository;
+
+import com.hsbc.transaction.model.Transaction;
+import com.hsbc.transaction.model.TransactionType;
+import com.hsbc.transaction.repository.query.SearchResult;
+import com.hsbc.transaction.repository.query.SortOrder;
+import com.hsbc.transaction.repository.query.TransactionQuery;
+import com.hsbc.transaction.repository.rollup.Granularity;
+import com.hsbc.transaction.repository.rollup.TimeBucket;
+import com.hsbc.transaction.repository.rollup.TimeSeriesQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Behaviour every TransactionStore engine must share. Each engine runs it through a subclass
+// that supplies a fresh store; TransactionRepository is the reference implementation.
+public abstract class TransactionStoreConformanceTest {
+
+    protected TransactionStore transactionStore;
+    private Transaction testTransaction;
+
+    protected abstract TransactionStore createStore() throws Exception;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        transactionStore = createStore();
+        testTransaction = new Transaction(
+            null,
+            "1234567890",
+            new BigDecimal("100.50"),
+            TransactionType.CREDIT,
+            "Test transaction"
+        );
+    }
+
+    @Test
+    void save_ShouldSaveTransactionWithGeneratedId() {
+        // When
+        Transaction savedTransaction = transactionStore.save(testTransaction);
+
+        // Then
+        assertNotNull(savedTransaction.getId());
+        assertEquals(testTransaction.getAccountNumber(), savedTransaction.getAccountNumber());
+        assertEquals(testTransaction.getAmount(), savedTransaction.getAmount());
+        assertEquals(testTransaction.getType(), savedTransaction.getType());
+        assertEquals(testTransaction.getDescription(), savedTransaction.getDescription());
+    }
+
+    @Test
+    void save_ShouldUpdateExistingTransaction() {
+        // Given
+        Transaction savedTransaction = transactionStore.save(testTransaction);
+        Long transactionId = savedTransaction.getId();
+        
+        // When
+        savedTransaction.setDescription("Updated description");
+        Transaction updatedTransaction = transactionStore.save(savedTransaction);
+
+        // Then
+        assertEquals(transactionId, updatedTransaction.getId());
+        assertEquals("Updated description", updatedTransaction.getDescription());
+    }
+
+    @Test
+    void save_WithExplicitId_ShouldNotReuseIdForNextTransaction() {
+        // Given
+        testTransaction.setId(42L);
+        transactionStore.save(testTransaction);
+
+        // When
+        Transaction nextTransaction = transactionStore.save(new Transaction(
+            null,
+            "0987654321",
+            new BigDecimal("200.00"),
+            TransactionType.DEBIT,
+            "Next transaction"
+        ));
+
+        // Then
+        assertTrue(nextTransaction.getId() > 42L, "Next id should not reuse or precede the explicit id");
+        assertEquals(2, transactionStore.count());
+    }
+
+    @Test
+    void findById_ShouldReturnTransaction() {
+        // Given
+        Transaction savedTransaction = transactionStore.save(testTransaction);
+        Long transactionId = savedTransaction.getId();
+
+        // When
+        Optional<Transaction> foundTransaction = transactionStore.findById(transactionId);
+
+        // Then
+        assertTrue(foundTransaction.isPresent());
+        assertEquals(transactionId, foundTransaction.get().getId());
+    }
+
+    @Test
+    void findById_ShouldReturnEmptyOptional() {
+        // When
+        Optional<Transaction> foundTransaction = transactionStore.findById(999L);
+
+        // Then
+        assertFalse(foundTransaction.isPresent());
+    }
+
+    @Test
+    void findAll_ShouldReturnAllTransactions() {
+        // Given
+        transactionStore.save(testTransaction);
+        Transaction transaction2 = new Transaction(
+            null,
+            "0987654321",
+            new BigDecimal("200.00"),
+            TransactionType.DEBIT,
+            "Another transaction"
+        );
+        transactionStore.save(transaction2);
+
+        // When
+        List<Transaction> allTransactions = transactionStore.findAll();
+
+        // Then
+        assertEquals(2, allTransactions.size());
+    }
+
+    @Test
+    void findAll_WithPagination_ShouldReturnPagedResults() {
+        // Given
+        for (int i = 0; i < 25; i++) {
+            Transaction transaction = new Transaction(
+                null,
+                "123456789" + i,
+                new BigDecimal("100.00"),
+                TransactionType.CREDIT,
+                "Transaction " + i
+            );
+            transactionStore.save(transaction);
+        }
+
+        // When
+        List<Transaction> firstPage = transactionStore.findAll(0, 10);
+        List<Transaction> secondPage = transactionStore.findAll(1, 10);
+
+        // Then
+        assertEquals(10, firstPage.size());
+        assertEquals(10, secondPage.size());
+    }
+
+    @Test
+    void findAll_WithPagination_ShouldReturnNewestFirstAcrossPages() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 5; i++) {
+            Transaction transaction = new Transaction(
+                null,
+                "1234567890",
+                new BigDecimal("100.00"),
+                TransactionType.CREDIT,
+                "Transaction " + i
+            );
+            transaction.setTransactionDate(now.minusMinutes(i));
+            transactionStore.save(transaction);
+        }
+
+        // When
+        List<Transaction> firstPage = transactionStore.findAll(0, 2);
+        List<Transaction> lastPage = transactionStore.findAll(2, 2);
+
+        // Then
+        assertEquals("Transaction 0", firstPage.get(0).getDescription());
+        assertEquals("Transaction 1", firstPage.get(1).getDescription());
+        assertEquals(1, lastPage.size());
+        assertEquals("Transaction 4", lastPage.get(0).getDescription());
+    }
+
+    @Test
+    void findAll_WithPagination_ShouldReturnEmptyListWhenPageOutOfBounds() {
+        // Given
+        transactionStore.save(testTransaction);
+
+        // When
+        List<Transaction> outOfBoundsPage = transactionStore.findAll(10, 10);
+
+        // Then
+        assertTrue(outOfBoundsPage.isEmpty());
+    }
+
+    @Test
+    void findByAccountNumber_ShouldReturnTransactionsForAccount() {
+        // Given
+        String accountNumber = "1234567890";
+        transactionStore.save(testTransaction);
+        
+        Transaction transaction2 = new Transaction(
+            null,
+            accountNumber,
+            new BigDecimal("200.00"),
+            TransactionType.DEBIT,
+            "Another transaction"
+        );
+        transactionStore.save(transaction2);
+
+        Transaction transaction3 = new Transaction(
+            null,
+            "0987654321",
+            new BigDecimal("300.00"),
+            TransactionType.TRANSFER,
+            "Different account"
+        );
+        transactionStore.save(transaction3);
+
+        // When
+        List<Transaction> accountTransactions = transactionStore.findByAccountNumber(accountNumber);
+
+        // Then
+        assertEquals(2, accountTransactions.size());
+        accountTransactions.forEach(t -> assertEquals(accountNumber, t.getAccountNumber()));
+    }
+
+    @Test
+    void findByType_ShouldReturnTransactionsOfType() {
+        // Given
+        transactionStore.save(testTransaction);
+        
+        Transaction transaction2 = new Transaction(
+            null,
+            "0987654321",
+            new BigDecimal("200.00"),
+            TransactionType.CREDIT,
+            "Another credit"
+        );
+        transactionStore.save(transaction2);
+
+        Transaction transaction3 = new Transaction(
+            null,
+            "1111111111",
+            new BigDecimal("300.00"),
+            TransactionType.DEBIT,
+            "A debit"
+        );
+        transactionStore.save(transaction3);
+
+        // When
+        List<Transaction> creditTransactions = transactionStore.findByType(TransactionType.CREDIT);
+
+        // Then
+        assertEquals(2, creditTransactions.size());
+        creditTransactions.forEach(t -> assertEquals(TransactionType.CREDIT, t.getType()));
+    }
+
+    @Test
+    void findByAmountBetween_ShouldReturnTransactionsInRange() {
+        // Given
+        transactionStore.save(testTransaction); // 100.50
+        
+        Transaction transaction2 = new Transaction(
+            null,
+            "0987654321",
+            new BigDecimal("50.00"),
+            TransactionType.CREDIT,
+            "Low amount"
+        );
+        transactionStore.save(transaction2);
+
+        Transaction transaction3 = new Transaction(
+            null,
+            "1111111111",
+            new BigDecimal("200.00"),
+            TransactionType.DEBIT,
+            "High amount"
+        );
+        transactionStore.save(transaction3);
+
+        // When
+        List<Transaction> rangeTransactions = transactionStore.findByAmountBetween(
+            new BigDecimal("75.00"), new BigDecimal("150.00")
+        );
+
+        // Then
+        assertEquals(1, rangeTransactions.size());
+        assertEquals(testTransaction.getId(), rangeTransactions.get(0).getId());
+    }
+
+    @Test
+    void findByAmountBetween_ShouldIncludeBoundsAndFollowUpdates() {
+        // Given
+        Transaction savedTransaction = transactionStore.save(testTransaction); // 100.50
+        transactionStore.save(new Transaction(
+            null,
+            "0987654321",
+            new BigDecimal("150.00"),
+            TransactionType.CREDIT,
+            "Upper bound"
+        ));
+
+        // When
+        savedTransaction.setAmount(new BigDecimal("500.00"));
+        transactionStore.save(savedTransaction);
+        List<Transaction> rangeTransactions = transactionStore.findByAmountBetween(
+            new BigDecimal("100.50"), new BigDecimal("150.00")
+        );
+
+        // Then
+        assertEquals(1, rangeTransactions.size());
+        assertEquals(new BigDecimal("150.00"), rangeTransactions.get(0).getAmount());
+        assertEquals(1, transactionStore.estimateCountByAmountBetween(
+            new BigDecimal("400.00"), new BigDecimal("600.00")));
+    }
+
+    @Test
+    void findByDateBetween_ShouldReturnTransactionsInDateRange() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        testTransaction.setTransactionDate(now.minusHours(2));
+        transactionStore.save(testTransaction);
+
+        Transaction transaction2 = new Transaction(
+            null,
+            "0987654321",
+            new BigDecimal("200.00"),
+            TransactionType.CREDIT,
+            "Recent transaction"
+        );
+        transaction2.setTransactionDate(now.minusMinutes(30));
+        transactionStore.save(transaction2);
+
+        Transaction transaction3 = new Transaction(
+            null,
+            "1111111111",
+            new BigDecimal("300.00"),
+            TransactionType.DEBIT,
+            "Old transaction"
+        );
+        transaction3.setTransactionDate(now.minusDays(1));
+        transactionStore.save(transaction3);
+
+        // When
+        List<Transaction> dateRangeTransactions = transactionStore.findByDateBetween(
+            now.minusHours(3), now.minusHours(1)
+        );
+
+        // Then
+        assertEquals(1, dateRangeTransactions.size());
+        assertEquals(testTransaction.getId(), dateRangeTransactions.get(0).getId());
+    }
+
+    @Test
+    void findByAccountNumberAndType_ShouldReturnMatchingTransactions() {
+        // Given
+        String accountNumber = "1234567890";
+        transactionStore.save(testTransaction);
+        
+        Transaction transaction2 = new Transaction(
+            null,
+            accountNumber,
+            new BigDecimal("200.00"),
+            TransactionType.DEBIT,
+            "Different type"
+        );
+        transactionStore.save(transaction2);
+
+        Transaction transaction3 = new Transaction(
+            null,
+            "0987654321",
+            new BigDecimal("300.00"),
+            TransactionType.CREDIT,
+            "Different account"
+        );
+        transactionStore.save(transaction3);
+
+        // When
+        List<Transaction> matchingTransactions = transactionStore.findByAccountNumberAndType(
+            accountNumber, TransactionType.CREDIT
+        );
+
+        // Then
+        assertEquals(1, matchingTransactions.size());
+        assertEquals(testTransaction.getId(), matchingTransactions.get(0).getId());
+    }
+
+    @Test
+    void save_ShouldMoveTransactionToNewAccount() {
+        // Given
+        Transaction savedTransaction = transactionStore.save(testTransaction);
+        
+        // When
+        savedTransaction.setAccountNumber("0987654321");
+        transactionStore.save(savedTransaction);
+
+        // Then
+        assertTrue(transactionStore.findByAccountNumber("1234567890").isEmpty());
+        assertEquals(1, transactionStore.findByAccountNumber("0987654321").size());
+        assertEquals(0, BigDecimal.ZERO.compareTo(transactionStore.getTotalAmountByAccountNumber("1234567890")));
+        assertNull(transactionStore.countByAccountNumber().get("1234567890"));
+        assertEquals(new BigDecimal("100.50"), transactionStore.getTotalAmountByAccountNumber("0987654321"));
+    }
+
+    @Test
+    void deleteById_ShouldRemoveTransactionFromAccountQueries() {
+        // Given
+        Transaction savedTransaction = transactionStore.save(testTransaction);
+
+        // When
+        transactionStore.deleteById(savedTransaction.getId());
+
+        // Then
+        assertTrue(transactionStore.findByAccountNumber("1234567890").isEmpty());
+        assertTrue(transactionStore.findByAccountNumberAndType("1234567890", TransactionType.CREDIT).isEmpty());
+    }
+
+    @Test
+    void existsById_ShouldReturnTrueWhenExists() {
+        // Given
+        Transaction savedTransaction = transactionStore.save(testTransaction);
+
+        // When
+        boolean exists = transactionStore.existsById(savedTransaction.getId());
+
+        // Then
+        assertTrue(exists);
+    }
+
+    @Test
+    void existsById_ShouldReturnFalseWhenNotExists() {
+        // When
+        boolean exists = transactionStore.existsById(999L);
+
+        // Then
+        assertFalse(exists);
+    }
+
+    @Test
+    void deleteById_ShouldDeleteTransaction() {
+        // Given
+        Transaction savedTransaction = transactionStore.save(testTransaction);
+        Long transactionId = savedTransaction.getId();
+
+        // When
+        transactionStore.deleteById(transactionId);
+
+        // Then
+        assertFalse(transactionStore.existsById(transactionId));
+    }
+
+    @Test
+    void deleteAll_ShouldDeleteAllTransactions() {
+        // Given
+        transactionStore.save(testTransaction);
+        transactionStore.save(new Transaction(
+            null,
+            "0987654321",
+            new BigDecimal("200.00"),
+            TransactionType.DEBIT,
+            "Another transaction"
+        ));
+
+        // When
+        transactionStore.deleteAll();
+
+        // Then
+        assertEquals(0, transactionStore.count());
+    }
+
+    @Test
+    void count_ShouldReturnCorrectCount() {
+        // Given
+        transactionStore.save(testTransaction);
+        transactionStore.save(new Transaction(
+            null,
+            "0987654321",
+            new BigDecimal("200.00"),
+            TransactionType.DEBIT,
+            "Another transaction"
+        ));
+
+        // When
+        long count = transactionStore.count();
+
+        // Then
+        assertEquals(2, count);
+    }
+
+    @Test
+    void countByType_ShouldReturnCorrectCounts() {
+        // Given
+        transactionStore.save(testTransaction); // CREDIT
+        transactionStore.save(new Transaction(
+            null,
+            "0987654321",
+            new BigDecimal("200.00"),
+            TransactionType.CREDIT,
+            "Another credit"
+        ));
+        transactionStore.save(new Transaction(
+            null,
+            "1111111111",
+            new BigDecimal("300.00"),
+            TransactionType.DEBIT,
+            "A debit"
+        ));
+
+        // When
+        Map<TransactionType, Long> countByType = transactionStore.countByType();
+
+        // Then
+        assertEquals(2L, countByType.get(TransactionType.CREDIT));
+        assertEquals(1L, countByType.get(TransactionType.DEBIT));
+    }
+
+    @Test
+    void save_ShouldMoveTransactionBetweenTypePartitions() {
+        // Given
+        Transaction savedTransaction = transactionStore.save(testTransaction); // CREDIT 100.50
+
+        // When
+        savedTransaction.setType(TransactionType.DEBIT);
+        savedTransaction.setAmount(new BigDecimal("40.00"));
+        transactionStore.save(savedTransaction);
+
+        // Then
+        assertTrue(transactionStore.findByType(TransactionType.CREDIT).isEmpty());
+        assertEquals(1, transactionStore.findByType(TransactionType.DEBIT).size());
+        assertNull(transactionStore.countByType().get(TransactionType.CREDIT));
+        assertEquals(1L, transactionStore.countByType().get(TransactionType.DEBIT));
+        assertEquals(0, BigDecimal.ZERO.compareTo(transactionStore.getTotalAmountByType(TransactionType.CREDIT)));
+        assertEquals(new BigDecimal("40.00"), transactionStore.getTotalAmountByType(TransactionType.DEBIT));
+    }
+
+    @Test
+    void countByAccountNumber_ShouldReturnCorrectCounts() {
+        // Given
+        String account1 = "1234567890";
+        String account2 = "0987654321";
+        
+        transactionStore.save(testTransaction); // account1
+        transactionStore.save(new Transaction(
+            null,
+            account1,
+            new BigDecimal("200.00"),
+            TransactionType.DEBIT,
+            "Another for account1"
+        ));
+        transactionStore.save(new Transaction(
+            null,
+            account2,
+            new BigDecimal("300.00"),
+            TransactionType.CREDIT,
+            "For account2"
+        ));
+
+        // When
+        Map<String, Long> countByAccount = transactionStore.countByAccountNumber();
+
+        // Then
+        assertEquals(2L, countByAccount.get(account1));
+        assertEquals(1L, countByAccount.get(account2));
+    }
+
+    @Test
+    void getTotalAmount_ShouldReturnCorrectTotal() {
+        // Given
+        transactionStore.save(testTransaction); // 100.50
+        transactionStore.save(new Transaction(
+            null,
+            "0987654321",
+            new BigDecimal("200.00"),
+            TransactionType.DEBIT,
+            "Another transaction"
+        ));
+
+        // When
+        BigDecimal totalAmount = transactionStore.getTotalAmount();
+
+        // Then
+        assertEquals(new BigDecimal("300.50"), totalAmount);
+    }
+
+    @Test
+    void getTotalAmount_ShouldTrackUpdatesAndDeletes() {
+        // Given
+        Transaction savedTransaction = transactionStore.save(testTransaction); // 100.50
+        Transaction transaction2 = transactionStore.save(new Transaction(
+            null,
+            "0987654321",
+            new BigDecimal("200.00"),
+            TransactionType.DEBIT,
+            "Another transaction"
+        ));
+
+        // When
+        savedTransaction.setAmount(new BigDecimal("150.25"));
+        transactionStore.save(savedTransaction);
+        transactionStore.deleteById(transaction2.getId());
+
+        // Then
+        assertEquals(new BigDecimal("150.25"), transactionStore.getTotalAmount());
+        assertEquals(new BigDecimal("150.25"), transactionStore.getTotalAmountByAccountNumber("1234567890"));
+        assertEquals(Map.of("1234567890", 1L), transactionStore.countByAccountNumber());
+    }
+
+    @Test
+    void findById_ShouldReturnCopyUnaffectedByChangesUntilSaved() {
+        // Given
+        Long id = transactionStore.save(testTransaction).getId();
+        Transaction found = transactionStore.findById(id).orElseThrow();
+
+        // When
+        found.setAmount(new BigDecimal("999.99"));
+        found.setDescription("Changed but not saved");
+
+        // Then
+        Transaction stored = transactionStore.findById(id).orElseThrow();
+        assertEquals(new BigDecimal("100.50"), stored.getAmount());
+        assertEquals("Test transaction", stored.getDescription());
+        assertEquals(new BigDecimal("100.50"), transactionStore.getTotalAmount());
+    }
+
+    @Test
+    void findPage_ShouldReturnPageWithTotalCount() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 5; i++) {
+            Transaction transaction = new Transaction(null, "1234567890", new BigDecimal("1.00"), TransactionType.FEE, "Fee " + i);
+            transaction.setTransactionDate(now.minusMinutes(i));
+            transactionStore.save(transaction);
+        }
+
+        // When
+        TransactionPage page = transactionStore.findPage(1, 2);
+
+        // Then
+        assertEquals(5, page.totalElements());
+        assertEquals(2, page.content().size());
+        assertEquals("Fee 2", page.content().get(0).getDescription());
+        assertEquals("Fee 3", page.content().get(1).getDescription());
+    }
+
+    @Test
+    void findAfter_ShouldVisitEveryRowOnceAcrossPagesWhenDatesCollide() {
+        // Given
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        for (int i = 0; i < 25; i++) {
+            Transaction transaction = new Transaction(null, "1234567890", new BigDecimal("1.00"), TransactionType.FEE, "Fee " + i);
+            transaction.setTransactionDate(now.minusMinutes(i % 5));
+            transactionStore.save(transaction);
+        }
+
+        // When
+        List<Transaction> walked = walk(TransactionFilter.all(), 4);
+
+        // Then
+        assertEquals(ids(expected(TransactionFilter.all())), ids(walked));
+        assertEquals(25, walked.stream().map(Transaction::getId).distinct().count());
+    }
+
+    @Test
+    void findAfter_ShouldApplyEachListingFilter() {
+        // Given
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        TransactionType[] types = {TransactionType.CREDIT, TransactionType.DEBIT, TransactionType.FEE};
+        for (int i = 0; i < 40; i++) {
+            Transaction transaction = new Transaction(null, i % 3 == 0 ? "1234567890" : "0987654321",
+                new BigDecimal(i + 1), types[i % types.length], "Row " + i);
+            transaction.setTransactionDate(now.minusHours(i % 7));
+            transactionStore.save(transaction);
+        }
+        List<TransactionFilter> filters = List.of(
+            TransactionFilter.account("1234567890"),
+            TransactionFilter.account("5555555555"),
+            TransactionFilter.type(TransactionType.DEBIT),
+            TransactionFilter.amountBetween(new BigDecimal("3.00"), new BigDecimal("4.50")),
+            TransactionFilter.amountBetween(new BigDecimal("2"), new BigDecimal("39")),
+            TransactionFilter.dateBetween(now.minusHours(5), now.minusHours(1)),
+            new TransactionFilter("0987654321", Set.of(TransactionType.CREDIT), new BigDecimal("10"), null, now.minusDays(1), null));
+
+        for (TransactionFilter filter : filters) {
+            // When
+            List<Transaction> walked = walk(filter, 3);
+
+            // Then
+            assertEquals(ids(expected(filter)), ids(walked), filter.toString());
+        }
+    }
+
+    @Test
+    void findAfter_ShouldResumeAfterCursorWhenNewerRowsAreInserted() {
+        // Given
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        for (int i = 0; i < 10; i++) {
+            Transaction transaction = new Transaction(null, "1234567890", new BigDecimal("1.00"), TransactionType.FEE, "Old " + i);
+            transaction.setTransactionDate(now.minusMinutes(i));
+            transactionStore.save(transaction);
+        }
+        List<Transaction> firstPage = transactionStore.findAfter(TransactionFilter.all(), null, 4);
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            Transaction transaction = new Transaction(null, "1234567890", new BigDecimal("1.00"), TransactionType.FEE, "New " + i);
+            transaction.setTransactionDate(now.plusMinutes(i + 1));
+            transactionStore.save(transaction);
+        }
+        List<Transaction> secondPage = transactionStore.findAfter(TransactionFilter.all(), PageCursor.of(firstPage.get(3)), 4);
+
+        // Then
+        assertEquals(List.of("Old 4", "Old 5", "Old 6", "Old 7"),
+            secondPage.stream().map(Transaction::getDescription).collect(Collectors.toList()));
+    }
+
+    @Test
+    void search_ShouldReturnMatchesInEverySortOrder() {
+        // Given
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        TransactionType[] types = {TransactionType.CREDIT, TransactionType.DEBIT, TransactionType.FEE, TransactionType.REFUND};
+        for (int i = 0; i < 60; i++) {
+            Transaction transaction = new Transaction(null, i % 4 == 0 ? "1234567890" : "0987654321",
+                new BigDecimal((i * 7) % 25 + 1), types[i % types.length], "Row " + i);
+            transaction.setTransactionDate(now.minusHours(i % 9));
+            transactionStore.save(transaction);
+        }
+        List<TransactionFilter> filters = List.of(
+            TransactionFilter.all(),
+            TransactionFilter.account("1234567890"),
+            new TransactionFilter("0987654321", Set.of(TransactionType.DEBIT), null, null, null, null),
+            new TransactionFilter(null, Set.of(TransactionType.FEE), new BigDecimal("5"), new BigDecimal("20"), null, null),
+            new TransactionFilter(null, null, new BigDecimal("10"), null, now.minusHours(6), now.minusHours(1)),
+            TransactionFilter.types(Set.of(TransactionType.DEBIT, TransactionType.FEE, TransactionType.WITHDRAWAL)),
+            new TransactionFilter("0987654321", Set.of(TransactionType.CREDIT, TransactionType.REFUND), null, new BigDecimal("15"), null, null),
+            TransactionFilter.account("5555555555"));
+
+        for (TransactionFilter filter : filters) {
+            for (SortOrder sort : SortOrder.values()) {
+                // When
+                SearchResult result = transactionStore.search(new TransactionQuery(filter, sort, 7));
+
+                // Then
+                List<Transaction> expected = transactionStore.findAll().stream()
+                    .filter(filter::matches)
+                    .sorted(sort.comparator())
+                    .limit(7)
+                    .collect(Collectors.toList());
+                assertEquals(ids(expected), ids(result.content()), filter + " " + sort);
+                assertNotNull(result.plan().accessPath());
+            }
+        }
+    }
+
+    @Test
+    void count_ShouldCountRowsOfAnAccountWithAnyOfSeveralTypes() {
+        // Given
+        TransactionType[] types = {TransactionType.CREDIT, TransactionType.DEBIT, TransactionType.FEE, TransactionType.WITHDRAWAL};
+        List<Transaction> saved = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            saved.add(transactionStore.save(new Transaction(null, i % 3 == 0 ? "1234567890" : "0987654321",
+                new BigDecimal(i % 40 + 1), types[i % types.length], "Row " + i)));
+        }
+        for (int i = 0; i < 200; i += 7) {
+            Transaction moved = saved.get(i);
+            moved.setType(TransactionType.FEE);
+            moved.setAccountNumber("0987654321");
+            transactionStore.save(moved);
+        }
+        for (int i = 1; i < 200; i += 11) {
+            transactionStore.deleteById(saved.get(i).getId());
+        }
+        List<TransactionFilter> filters = List.of(
+            TransactionFilter.all(),
+            TransactionFilter.account("1234567890"),
+            TransactionFilter.type(TransactionType.FEE),
+            TransactionFilter.types(Set.of(TransactionType.DEBIT, TransactionType.FEE, TransactionType.WITHDRAWAL)),
+            new TransactionFilter("0987654321", Set.of(TransactionType.DEBIT, TransactionType.FEE), null, null, null, null),
+            new TransactionFilter("1234567890", Set.of(TransactionType.CREDIT), new BigDecimal("10"), null, null, null),
+            TransactionFilter.amountBetween(new BigDecimal("5"), new BigDecimal("15")),
+            TransactionFilter.account("5555555555"));
+
+        for (TransactionFilter filter : filters) {
+            // When
+            long count = transactionStore.count(filter);
+
+            // Then
+            assertEquals(transactionStore.findAll().stream().filter(filter::matches).count(), count, filter.toString());
+        }
+    }
+
+    @Test
+    void summarize_ShouldMatchTheAmountsOfTheRowsOfEveryFilter() {
+        // Given: enough rows for several vector widths and a tail, some of them since updated or deleted
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        TransactionType[] types = {TransactionType.CREDIT, TransactionType.DEBIT, TransactionType.FEE};
+        List<Transaction> saved = new ArrayList<>();
+        for (int i = 0; i < 301; i++) {
+            Transaction transaction = new Transaction(null, i % 4 == 0 ? "1234567890" : "0987654321",
+                new BigDecimal(i * 37 % 500 - 100).movePointLeft(1), types[i % types.length], "Row " + i);
+            transaction.setTransactionDate(now.minusMinutes(i));
+            saved.add(transactionStore.save(transaction));
+        }
+        for (int i = 0; i < 301; i += 9) {
+            Transaction updated = saved.get(i);
+            updated.setAmount(updated.getAmount().add(new BigDecimal("1000.01")));
+            transactionStore.save(updated);
+        }
+        for (int i = 2; i < 301; i += 13) {
+            transactionStore.deleteById(saved.get(i).getId());
+        }
+        List<TransactionFilter> filters = List.of(
+            TransactionFilter.all(),
+            TransactionFilter.dateBetween(now.minusMinutes(200), now.minusMinutes(20)),
+            TransactionFilter.amountBetween(new BigDecimal("-5.5"), new BigDecimal("20")),
+            new TransactionFilter(null, null, new BigDecimal("0"), null, now.minusMinutes(250), null),
+            TransactionFilter.account("1234567890"),
+            new TransactionFilter("0987654321", Set.of(TransactionType.DEBIT, TransactionType.FEE), null, new BigDecimal("30"),
+                null, now.minusMinutes(10)),
+            TransactionFilter.amountBetween(new BigDecimal("5000"), new BigDecimal("6000")),
+            TransactionFilter.account("5555555555"));
+
+        for (TransactionFilter filter : filters) {
+            // When
+            AmountSummary summary = transactionStore.summarize(filter);
+
+            // Then
+            List<BigDecimal> amounts = transactionStore.findAll().stream()
+                .filter(filter::matches)
+                .map(Transaction::getAmount)
+                .collect(Collectors.toList());
+            assertEquals(amounts.size(), summary.count(), filter.toString());
+            assertEquals(0, amounts.stream().reduce(BigDecimal.ZERO, BigDecimal::add).compareTo(summary.sum()), filter.toString());
+            assertEquals(normalize(amounts.stream().min(BigDecimal::compareTo).orElse(null)), normalize(summary.min()), filter.toString());
+            assertEquals(normalize(amounts.stream().max(BigDecimal::compareTo).orElse(null)), normalize(summary.max()), filter.toString());
+        }
+    }
+
+    @Test
+    void summarize_ShouldNotOverflowWhenCentsExceedLongRange() {
+        // Given
+        BigDecimal amount = BigDecimal.valueOf(Long.MAX_VALUE / 2, 2);
+        for (int i = 0; i < 3; i++) {
+            transactionStore.save(new Transaction(null, "1234567890", amount, TransactionType.CREDIT, "Large " + i));
+        }
+
+        // When
+        AmountSummary summary = transactionStore.summarize(TransactionFilter.all());
+
+        // Then
+        assertEquals(3, summary.count());
+        assertEquals(amount.multiply(BigDecimal.valueOf(3)), summary.sum());
+        assertEquals(amount, summary.min());
+        assertEquals(amount, summary.max());
+    }
+
+    @Test
+    void summarize_ShouldReturnZeroSumAndNoRangeWhenNothingMatches() {
+        // Given
+        transactionStore.save(testTransaction);
+
+        // When
+        AmountSummary summary = transactionStore.summarize(TransactionFilter.type(TransactionType.REFUND));
+
+        // Then
+        assertEquals(0, summary.count());
+        assertEquals(new BigDecimal("0.00"), summary.sum());
+        assertNull(summary.min());
+        assertNull(summary.max());
+    }
+
+    @Test
+    void timeSeries_ShouldMatchTheRowsInEachBucketAfterUpdatesAndDeletes() {
+        // Given: rows every seven minutes over two days, then moved in time, between accounts and types, or deleted
+        LocalDateTime origin = LocalDateTime.of(2024, 3, 1, 0, 0);
+        TransactionType[] types = {TransactionType.CREDIT, TransactionType.DEBIT, TransactionType.FEE};
+        List<Transaction> saved = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            Transaction transaction = new Transaction(null, i % 3 == 0 ? "1234567890" : "0987654321",
+                new BigDecimal(i % 50 + 1).movePointLeft(1), types[i % types.length], "Row " + i);
+            transaction.setTransactionDate(origin.plusMinutes(7L * i).plusSeconds(i % 60));
+            saved.add(transactionStore.save(transaction));
+        }
+        for (int i = 0; i < 400; i += 6) {
+            Transaction moved = saved.get(i);
+            moved.setTransactionDate(moved.getTransactionDate().plusHours(5));
+            moved.setAccountNumber("0987654321");
+            moved.setType(TransactionType.FEE);
+            moved.setAmount(moved.getAmount().add(BigDecimal.ONE));
+            transactionStore.save(moved);
+        }
+        for (int i = 1; i < 400; i += 10) {
+            transactionStore.deleteById(saved.get(i).getId());
+        }
+        List<TimeSeriesQuery> queries = List.of(
+            new TimeSeriesQuery(Granularity.DAY, origin.minusDays(1), origin.plusDays(4), null, null),
+            new TimeSeriesQuery(Granularity.HOUR, origin.plusMinutes(30), origin.plusHours(30), null, TransactionType.FEE),
+            new TimeSeriesQuery(Granularity.HOUR, origin, origin.plusDays(3), "1234567890", null),
+            new TimeSeriesQuery(Granularity.MINUTE, origin.plusHours(10), origin.plusHours(14).plusSeconds(1), null, null),
+            new TimeSeriesQuery(Granularity.HOUR, origin, origin.plusDays(2), "0987654321", TransactionType.DEBIT),
+            new TimeSeriesQuery(Granularity.DAY, origin, origin.plusDays(2), "5555555555", null));
+
+        for (TimeSeriesQuery query : queries) {
+            // When
+            List<TimeBucket> series = transactionStore.timeSeries(query);
+
+            // Then
+            assertEquals(query.bucketCount(), series.size(), query.toString());
+            for (TimeBucket bucket : series) {
+                LocalDateTime end = bucket.start().plus(1, query.granularity() == Granularity.DAY ? ChronoUnit.DAYS
+                    : query.granularity() == Granularity.HOUR ? ChronoUnit.HOURS : ChronoUnit.MINUTES);
+                List<Transaction> rows = transactionStore.findAll().stream()
+                    .filter(t -> query.accountNumber() == null || query.accountNumber().equals(t.getAccountNumber()))
+                    .filter(t -> query.type() == null || query.type() == t.getType())
+                    .filter(t -> !t.getTransactionDate().isBefore(bucket.start()) && t.getTransactionDate().isBefore(end))
+                    .collect(Collectors.toList());
+                assertEquals(rows.size(), bucket.count(), query + " at " + bucket.start());
+                assertEquals(0, rows.stream().map(Transaction::getAmount).reduce(BigDecimal.ZERO, BigDecimal::add)
+                    .compareTo(bucket.sum()), query + " at " + bucket.start());
+            }
+        }
+        assertEquals(transactionStore.count(),
+            transactionStore.timeSeries(queries.get(0)).stream().mapToLong(TimeBucket::count).sum());
+    }
+
+    @Test
+    void timeSeries_ShouldBeEmptyAfterDeleteAll() {
+        // Given
+        transactionStore.save(testTransaction);
+        TimeSeriesQuery query = new TimeSeriesQuery(Granularity.DAY, testTransaction.getTransactionDate().minusDays(1),
+            testTransaction.getTransactionDate().plusDays(1), null, null);
+        assertEquals(1, transactionStore.timeSeries(query).stream().mapToLong(TimeBucket::count).sum());
+
+        // When
+        transactionStore.deleteAll();
+
+        // Then
+        assertTrue(transactionStore.timeSeries(query).stream().allMatch(bucket -> bucket.count() == 0
+            && bucket.sum().signum() == 0));
+    }
+
+    // Compares amounts by value, as stores may return them at a different scale than they were saved with.
+    private static BigDecimal normalize(BigDecimal amount) {
+        return amount == null ? null : amount.stripTrailingZeros();
+    }
+
+    // Follows encoded cursors page by page, as a client would.
+    private List<Transaction> walk(TransactionFilter filter, int size) {
+        List<Transaction> walked = new ArrayList<>();
+        PageCursor cursor = null;
+        while (true) {
+            List<Transaction> page = transactionStore.findAfter(filter, cursor, size);
+            walked.addAll(page);
+            if (page.size() < size) {
+                return walked;
+            }
+            cursor = PageCursor.decode(PageCursor.of(page.get(page.size() - 1)).encode());
+        }
+    }
+
+    private List<Transaction> expected(TransactionFilter filter) {
+        return transactionStore.findAll().stream()
+            .filter(filter::matches)
+            .sorted(PageCursor.NEWEST_FIRST)
+            .collect(Collectors.toList());
+    }
+
+    private static List<Long> ids(List<Transaction> transactions) {
+        return transactions.stream().map(Transaction::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    void getTotalAmount_ShouldNotOverflowWhenCentsExceedLongRange() {
+        // Given
+        BigDecimal amount = BigDecimal.valueOf(Long.MAX_VALUE / 2, 2);
+        for (int i = 0; i < 3; i++) {
+            transactionStore.save(new Transaction(null, "1234567890", amount, TransactionType.CREDIT, "Large " + i));
+        }
+        Transaction negative = transactionStore.save(new Transaction(null, "1234567890", amount.negate(), TransactionType.DEBIT, "Reversal"));
+
+        // When
+        transactionStore.deleteById(negative.getId());
+
+        // Then
+        BigDecimal expected = amount.multiply(BigDecimal.valueOf(3));
+        assertEquals(expected, transactionStore.getTotalAmount());
+        assertEquals(expected, transactionStore.getTotalAmountByType(TransactionType.CREDIT));
+        assertEquals(expected, transactionStore.getTotalAmountByAccountNumber("1234567890"));
+    }
+
+    @Test
+    void getTotalAmountByType_ShouldReturnCorrectTotal() {
+        // Given
+        transactionStore.save(testTransaction); // CREDIT 100.50
+        transactionStore.save(new Transaction(
+            null,
+            "0987654321",
+            new BigDecimal("200.00"),
+            TransactionType.CREDIT,
+            "Another credit"
+        ));
+        transactionStore.save(new Transaction(
+            null,
+            "1111111111",
+            new BigDecimal("300.00"),
+            TransactionType.DEBIT,
+            "A debit"
+        ));
+
+        // When
+        BigDecimal totalCreditAmount = transactionStore.getTotalAmountByType(TransactionType.CREDIT);
+
+        // Then
+        assertEquals(new BigDecimal("300.50"), totalCreditAmount);
+    }
+
+    @Test
+    void getTotalAmountByAccountNumber_ShouldReturnCorrectTotal() {
+        // Given
+        String accountNumber = "1234567890";
+        transactionStore.save(testTransaction); // account 100.50
+        transactionStore.save(new Transaction(
+            null,
+            accountNumber,
+            new BigDecimal("200.00"),
+            TransactionType.DEBIT,
+            "Another for same account"
+        ));
+        transactionStore.save(new Transaction(
+            null,
+            "0987654321",
+            new BigDecimal("300.00"),
+            TransactionType.CREDIT,
+            "Different account"
+        ));
+
+        // When
+        BigDecimal totalForAccount = transactionStore.getTotalAmountByAccountNumber(accountNumber);
+
+        // Then
+        assertEquals(new BigDecimal("300.50"), totalForAccount);
+    }
+
+    @Test
+    void concurrentSave_ShouldHandleConcurrentOperations() throws InterruptedException {
+        // Given
+        int threadCount = 10;
+        int transactionsPerThread = 10;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        CountDownLatch latch = new CountDownLatch(threadCount);
+
+        // When
+        for (int i = 0; i < threadCount; i++) {
+            final int threadIndex = i;
+            executor.submit(() -> {
+                try {
+                    for (int j = 0; j < transactionsPerThread; j++) {
+                        Transaction transaction = new Transaction(
+                            null,
+                            "123456789" + threadIndex,
+                            new BigDecimal("100.00"),
+                            TransactionType.CREDIT,
+                            "Transaction " + threadIndex + "-" + j
+                        );
+                        transactionStore.save(transaction);
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+
+        latch.await(5, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        // Then
+        assertEquals(threadCount * transactionsPerThread, transactionStore.count());
+    }
+
+    @Test
+    void concurrentReadWrite_ShouldHandleConcurrentOperations() throws InterruptedException {
+        // Given
+        Transaction savedTransaction = transactionStore.save(testTransaction);
+        int threadCount = 5;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        CountDownLatch latch = new CountDownLatch(threadCount);
+
+        // When
+        for (int i = 0; i < threadCount; i++) {
+            final int threadIndex = i;
+            executor.submit(() -> {
+                try {
+                    // Read operation
+                    Optional<Transaction> found = transactionStore.findById(savedTransaction.getId());
+                    assertTrue(found.isPresent());
+                    
+                    // Write operation
+                    Transaction newTransaction = new Transaction(
+                        null,
+                        "987654321" + threadIndex,
+                        new BigDecimal("200.00"),
+                        TransactionType.DEBIT,
+                        "Concurrent transaction " + threadIndex
+                    );
+                    transactionStore.save(newTransaction);
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+
+        latch.await(5, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        // Then
+        assertEquals(threadCount + 1, transactionStore.count()); // +1 for the initial transaction
+    }
+} 
\ No newline at end of file
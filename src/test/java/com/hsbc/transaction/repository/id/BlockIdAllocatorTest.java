@@ -0,0 +1,148 @@
+package com.hsbc.transaction.repository.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlockIdAllocatorTest {
+
+    @Test
+    void next_ShouldBeSequentialWithinOneThread() {
+        // Given
+        IdAllocator allocator = IdAllocator.sequential(1, 1, 4);
+
+        // When
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            ids.add(allocator.next());
+        }
+
+        // Then
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L), ids);
+        assertEquals(13L, allocator.nextId());
+    }
+
+    @Test
+    void next_ShouldStayUniqueAcrossThreads() throws Exception {
+        // Given
+        IdAllocator allocator = IdAllocator.sequential(1, 1, 16);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                long previous = 0;
+                for (int i = 0; i < 10_000; i++) {
+                    long id = allocator.next();
+                    assertTrue(id > previous, "Ids should increase within a thread");
+                    assertTrue(ids.add(id), "Id " + id + " was handed out twice");
+                    previous = id;
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // Then
+        assertEquals(80_000, ids.size());
+        assertTrue(allocator.nextId() > ids.stream().mapToLong(Long::longValue).max().orElseThrow());
+    }
+
+    @Test
+    void observe_ShouldMovePastExplicitIdAndDropReservedBlock() {
+        // Given
+        IdAllocator allocator = IdAllocator.sequential(1, 1, 64);
+        assertEquals(1L, allocator.next());
+
+        // When
+        allocator.observe(2);
+        allocator.observe(500);
+
+        // Then
+        assertEquals(501L, allocator.next());
+    }
+
+    @Test
+    void reset_ShouldRestartSequenceInEveryThread() throws Exception {
+        // Given
+        IdAllocator allocator = IdAllocator.sequential(1, 1, 64);
+        allocator.next();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.submit(allocator::next).get();
+
+        // When
+        allocator.reset();
+
+        // Then
+        assertEquals(1L, allocator.next());
+        assertEquals(65L, executor.submit(allocator::next).get());
+        executor.shutdown();
+    }
+
+    @Test
+    void advance_ShouldRoundUpToOwnStride() {
+        // Given
+        IdAllocator allocator = IdAllocator.sequential(3, 4, 8);
+
+        // When
+        allocator.advance(20);
+
+        // Then
+        assertEquals(23L, allocator.nextId());
+        assertEquals(23L, allocator.next());
+        assertEquals(27L, allocator.next());
+    }
+
+    @Test
+    void timeOrdered_ShouldEmbedNodeAndFollowClock() {
+        // Given
+        IdAllocator allocator = IdAllocator.timeOrdered(5, 32);
+        long before = System.currentTimeMillis();
+
+        // When
+        long first = allocator.next();
+        long second = allocator.next();
+
+        // Then
+        assertTrue(second > first);
+        assertEquals(5L, (first >>> 12) & 1023);
+        long millis = (first >>> 22) + IdLayout.TimeOrdered.EPOCH_MILLIS;
+        assertTrue(millis >= before && millis <= System.currentTimeMillis() + 1);
+    }
+
+    @Test
+    void timeOrdered_ShouldResumeAboveRecoveredNextId() {
+        // Given
+        IdAllocator original = IdAllocator.timeOrdered(1, 16);
+        long last = 0;
+        for (int i = 0; i < 100; i++) {
+            last = original.next();
+        }
+        IdAllocator recovered = IdAllocator.timeOrdered(1, 16);
+
+        // When
+        recovered.advance(original.nextId());
+        recovered.reset();
+        recovered.observe(last);
+
+        // Then
+        assertTrue(recovered.next() > last);
+    }
+
+    @Test
+    void timeOrdered_ShouldRejectNodeOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> IdAllocator.timeOrdered(1024, 16));
+    }
+}
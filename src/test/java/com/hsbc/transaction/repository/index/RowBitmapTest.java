@@ -0,0 +1,60 @@
+package com.hsbc.transaction.repository.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RowBitmapTest {
+
+    @Test
+    void addAndRemove_ShouldMatchABitSetAcrossChunkConversions() {
+        // Given
+        RowBitmap bitmap = new RowBitmap();
+        BitSet expected = new BitSet();
+        Random random = new Random(42);
+
+        // When: the first chunk fills past the array limit and empties again; the others stay sparse
+        for (int i = 0; i < 20_000; i++) {
+            int slot = i < 10_000 ? random.nextInt(8_192) : random.nextInt(300_000);
+            assertEquals(!expected.get(slot), bitmap.add(slot));
+            expected.set(slot);
+        }
+        for (int i = 0; i < 30_000; i++) {
+            int slot = random.nextInt(300_000);
+            assertEquals(expected.get(slot), bitmap.remove(slot));
+            expected.clear(slot);
+        }
+
+        // Then
+        assertEquals(expected.cardinality(), bitmap.cardinality());
+        for (int slot = 0; slot < 300_000; slot++) {
+            assertEquals(expected.get(slot), bitmap.contains(slot), "slot " + slot);
+        }
+        long[] words = new long[RowBitmap.CHUNK_WORDS];
+        for (char key : bitmap.keys()) {
+            Arrays.fill(words, 0);
+            assertTrue(bitmap.orInto(key, words));
+            assertEquals(BitSet.valueOf(words), expected.get(key << 16, (key + 1) << 16));
+        }
+    }
+
+    @Test
+    void remove_ShouldDropEmptyChunks() {
+        // Given
+        RowBitmap bitmap = new RowBitmap();
+        bitmap.add(5);
+        bitmap.add(70_000);
+
+        // When
+        bitmap.remove(5);
+
+        // Then
+        assertArrayEquals(new char[] {1}, bitmap.keys());
+        assertFalse(bitmap.orInto(0, new long[RowBitmap.CHUNK_WORDS]));
+        assertEquals(1, bitmap.cardinality());
+    }
+}
@@ -0,0 +1,60 @@
+package com.hsbc.transaction.repository.mvcc;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotRegistryTest {
+
+    @Test
+    void oldest_ShouldDropSlotsOfThreadsThatEnded() throws Exception {
+        // Given
+        SnapshotRegistry registry = new SnapshotRegistry();
+        for (int i = 0; i < 50; i++) {
+            Thread reader = new Thread(() -> registry.unpin(registry.pin(5)));
+            reader.start();
+            reader.join();
+        }
+        assertEquals(50, registry.slotCount());
+
+        // When
+        long oldest = registry.oldest(100);
+
+        // Then
+        assertEquals(100, oldest);
+        assertEquals(0, registry.slotCount());
+    }
+
+    @Test
+    void oldest_ShouldKeepThePinOfALiveReader() throws Exception {
+        // Given
+        SnapshotRegistry registry = new SnapshotRegistry();
+        CountDownLatch pinned = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread reader = new Thread(() -> {
+            SnapshotRegistry.Slot slot = registry.pin(7);
+            pinned.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            registry.unpin(slot);
+        });
+        reader.start();
+        pinned.await();
+
+        // When & Then
+        try {
+            assertEquals(7, registry.oldest(100));
+            assertEquals(1, registry.slotCount());
+        } finally {
+            release.countDown();
+            reader.join();
+        }
+        assertEquals(100, registry.oldest(100));
+        assertEquals(0, registry.slotCount());
+    }
+}
@@ -0,0 +1,34 @@
+package com.hsbc.transaction.repository.offheap;
+
+import com.hsbc.transaction.model.Transaction;
+import com.hsbc.transaction.model.TransactionType;
+import com.hsbc.transaction.repository.TransactionStore;
+import com.hsbc.transaction.repository.TransactionStoreConformanceTest;
+import com.hsbc.transaction.repository.id.IdAllocator;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapTransactionStoreTest extends TransactionStoreConformanceTest {
+
+    @Override
+    protected TransactionStore createStore() {
+        return new OffHeapTransactionStore();
+    }
+
+    @Test
+    void save_ShouldTakeIdsFromTheGivenAllocator() {
+        // Given
+        OffHeapTransactionStore store = new OffHeapTransactionStore(IdAllocator.timeOrdered(7, 64));
+
+        // When
+        Transaction saved = store.save(new Transaction(null, "1234567890", new BigDecimal("10.00"), TransactionType.CREDIT, "Time ordered"));
+
+        // Then
+        assertEquals(7, (saved.getId() >>> 12) & 1023, "id should carry the allocator's node");
+        assertTrue(store.nextId() > saved.getId());
+        assertTrue(store.findById(saved.getId()).isPresent());
+    }
+}
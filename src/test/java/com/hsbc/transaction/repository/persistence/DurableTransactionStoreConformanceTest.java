@@ -0,0 +1,28 @@
+package com.hsbc.transaction.repository.persistence;
+
+import com.hsbc.transaction.repository.TransactionRepository;
+import com.hsbc.transaction.repository.TransactionStore;
+import com.hsbc.transaction.repository.TransactionStoreConformanceTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+class DurableTransactionStoreConformanceTest extends TransactionStoreConformanceTest {
+
+    @TempDir
+    Path directory;
+
+    @Override
+    protected TransactionStore createStore() throws IOException {
+        WalOptions options = new WalOptions(directory, DurabilityMode.OS, Duration.ZERO, Duration.ofMillis(100), 1024 * 1024);
+        return DurableTransactionStore.open(new TransactionRepository(), options);
+    }
+
+    @AfterEach
+    void closeStore() throws IOException {
+        ((DurableTransactionStore) transactionStore).close();
+    }
+}
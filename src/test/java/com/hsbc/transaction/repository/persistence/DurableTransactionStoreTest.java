@@ -0,0 +1,235 @@
+package com.hsbc.transaction.repository.persistence;
+
+import com.hsbc.transaction.model.Transaction;
+import com.hsbc.transaction.model.TransactionType;
+import com.hsbc.transaction.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DurableTransactionStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void open_ShouldReplayCreatesUpdatesAndDeletes() throws IOException {
+        // Given
+        LocalDateTime date = LocalDateTime.of(2024, 1, 15, 10, 30, 0, 123_456_000);
+        Long updatedId;
+        Long deletedId;
+        try (DurableTransactionStore store = open(DurabilityMode.BATCH)) {
+            Transaction updated = store.save(transaction("1234567890", "100.50", TransactionType.CREDIT, date));
+            Transaction deleted = store.save(transaction("0987654321", "25.00", TransactionType.DEBIT, date));
+            updated.setDescription("Updated description");
+            updated.setAmount(new BigDecimal("150.75"));
+            store.save(updated);
+            store.deleteById(deleted.getId());
+            updatedId = updated.getId();
+            deletedId = deleted.getId();
+        }
+
+        // When
+        try (DurableTransactionStore recovered = open(DurabilityMode.BATCH)) {
+            // Then
+            assertEquals(1, recovered.count());
+            Transaction transaction = recovered.findById(updatedId).orElseThrow();
+            assertEquals("Updated description", transaction.getDescription());
+            assertEquals(0, new BigDecimal("150.75").compareTo(transaction.getAmount()));
+            assertEquals(date, transaction.getTransactionDate());
+            assertFalse(recovered.existsById(deletedId));
+            assertEquals(deletedId + 1, recovered.save(transaction("1234567890", "1.00", TransactionType.FEE, date)).getId());
+        }
+    }
+
+    @Test
+    void open_ShouldReplayDeleteAll() throws IOException {
+        // Given
+        try (DurableTransactionStore store = open(DurabilityMode.PERIODIC)) {
+            store.save(transaction("1234567890", "100.50", TransactionType.CREDIT, LocalDateTime.now()));
+            store.deleteAll();
+            store.save(transaction("0987654321", "25.00", TransactionType.DEBIT, LocalDateTime.now()));
+        }
+
+        // When
+        try (DurableTransactionStore recovered = open(DurabilityMode.PERIODIC)) {
+            // Then
+            List<Transaction> transactions = recovered.findAll();
+            assertEquals(1, transactions.size());
+            assertEquals("0987654321", transactions.get(0).getAccountNumber());
+            assertEquals(1L, transactions.get(0).getId());
+        }
+    }
+
+    @Test
+    void open_ShouldTruncateTornRecordAndKeepEarlierOnes() throws IOException {
+        // Given
+        try (DurableTransactionStore store = open(DurabilityMode.OS)) {
+            store.save(transaction("1234567890", "100.50", TransactionType.CREDIT, LocalDateTime.now()));
+            store.save(transaction("1234567890", "200.00", TransactionType.CREDIT, LocalDateTime.now()));
+        }
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.filter(path -> Files.isRegularFile(path) && fileSize(path) > 0).findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        // When
+        try (DurableTransactionStore recovered = open(DurabilityMode.OS)) {
+            recovered.save(transaction("0987654321", "5.00", TransactionType.FEE, LocalDateTime.now()));
+        }
+        try (DurableTransactionStore recovered = open(DurabilityMode.OS)) {
+            // Then
+            assertEquals(2, recovered.count());
+            assertEquals(0, new BigDecimal("105.50").compareTo(recovered.getTotalAmount()));
+        }
+    }
+
+    @Test
+    void open_ShouldReplayAcrossSegments() throws IOException {
+        // Given
+        WalOptions options = new WalOptions(directory, DurabilityMode.BATCH, Duration.ZERO, Duration.ofMillis(100), 256);
+        try (DurableTransactionStore store = DurableTransactionStore.open(new TransactionRepository(), options)) {
+            for (int i = 0; i < 20; i++) {
+                store.save(transaction("1234567890", "1.00", TransactionType.PAYMENT, LocalDateTime.now()));
+            }
+        }
+
+        // When
+        try (DurableTransactionStore recovered = DurableTransactionStore.open(new TransactionRepository(), options)) {
+            // Then
+            assertEquals(20, recovered.count());
+            assertEquals(0, new BigDecimal("20.00").compareTo(recovered.getTotalAmountByType(TransactionType.PAYMENT)));
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertTrue(files.count() > 1, "Small segment size should roll the log");
+        }
+    }
+
+    @Test
+    void open_ShouldLoadSnapshotAndReplayLogTail() throws IOException {
+        // Given
+        WalOptions options = new WalOptions(directory, DurabilityMode.BATCH, Duration.ZERO, Duration.ofMillis(100), 256);
+        Long deletedId;
+        try (DurableTransactionStore store = DurableTransactionStore.open(new TransactionRepository(), options)) {
+            for (int i = 0; i < 10; i++) {
+                store.save(transaction("1234567890", "1.00", TransactionType.PAYMENT, LocalDateTime.now()));
+            }
+            deletedId = store.save(transaction("1234567890", "1.00", TransactionType.PAYMENT, LocalDateTime.now())).getId();
+            store.deleteById(deletedId);
+            store.snapshot();
+            store.save(transaction("0987654321", "5.00", TransactionType.FEE, LocalDateTime.now()));
+            store.snapshot();
+            store.save(transaction("0987654321", "7.00", TransactionType.FEE, LocalDateTime.now()));
+        }
+
+        // When
+        try (DurableTransactionStore recovered = DurableTransactionStore.open(new TransactionRepository(), options)) {
+            // Then
+            assertEquals(12, recovered.count());
+            assertEquals(0, new BigDecimal("22.00").compareTo(recovered.getTotalAmount()));
+            // The snapshot records the id frontier, which is past any block reserved when it was taken.
+            Long nextId = recovered.save(transaction("1234567890", "1.00", TransactionType.FEE, LocalDateTime.now())).getId();
+            assertTrue(nextId > deletedId + 2, "Recovered store should not reuse ids");
+            assertEquals(13, recovered.count());
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertTrue(files.noneMatch(path -> path.getFileName().toString().equals(String.format("wal-%020d.log", 1))),
+                "Log segments covered by the older snapshot should be deleted");
+        }
+    }
+
+    @Test
+    void open_ShouldFallBackToPreviousSnapshotWhenNewestIsCorrupt() throws IOException {
+        // Given
+        WalOptions options = new WalOptions(directory, DurabilityMode.BATCH, Duration.ZERO, Duration.ofMillis(100), 1024 * 1024);
+        try (DurableTransactionStore store = DurableTransactionStore.open(new TransactionRepository(), options)) {
+            store.save(transaction("1234567890", "100.50", TransactionType.CREDIT, LocalDateTime.now()));
+            store.snapshot();
+            store.save(transaction("1234567890", "200.00", TransactionType.CREDIT, LocalDateTime.now()));
+            store.snapshot();
+        }
+        List<Path> snapshots = SnapshotFiles.list(directory);
+        Path newest = snapshots.get(snapshots.size() - 1);
+        byte[] bytes = Files.readAllBytes(newest);
+        bytes[bytes.length - 1] ^= 0x7F;
+        Files.write(newest, bytes);
+
+        // When
+        try (DurableTransactionStore recovered = DurableTransactionStore.open(new TransactionRepository(), options)) {
+            // Then
+            assertEquals(2, recovered.count());
+            assertEquals(0, new BigDecimal("300.50").compareTo(recovered.getTotalAmount()));
+        }
+    }
+
+    @Test
+    void open_ShouldReplayEveryAcknowledgedConcurrentCreateInEveryMode() throws Exception {
+        for (DurabilityMode mode : DurabilityMode.values()) {
+            // Given
+            WalOptions options = new WalOptions(Files.createDirectories(directory.resolve(mode.name())), mode,
+                Duration.ofMillis(1), Duration.ofMillis(10), 64 * 1024);
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            try (DurableTransactionStore store = DurableTransactionStore.open(new TransactionRepository(), options)) {
+                List<Future<?>> writers = new ArrayList<>();
+                for (int t = 0; t < 4; t++) {
+                    String accountNumber = String.format("12345%05d", t);
+                    writers.add(executor.submit(() -> {
+                        for (int i = 0; i < 100; i++) {
+                            store.save(transaction(accountNumber, "10.00", TransactionType.PAYMENT, LocalDateTime.now()));
+                        }
+                    }));
+                }
+                for (Future<?> writer : writers) {
+                    writer.get();
+                }
+            } finally {
+                executor.shutdown();
+            }
+
+            // When
+            try (DurableTransactionStore recovered = DurableTransactionStore.open(new TransactionRepository(), options)) {
+                // Then
+                assertEquals(400, recovered.count(), mode + " log should replay every acknowledged create");
+                assertEquals(0, new BigDecimal("4000.00").compareTo(recovered.getTotalAmount()));
+            }
+        }
+    }
+
+    private DurableTransactionStore open(DurabilityMode durability) throws IOException {
+        WalOptions options = new WalOptions(directory, durability, Duration.ofMillis(1), Duration.ofMillis(10), 1024 * 1024);
+        return DurableTransactionStore.open(new TransactionRepository(), options);
+    }
+
+    private static Transaction transaction(String accountNumber, String amount, TransactionType type, LocalDateTime date) {
+        Transaction transaction = new Transaction(null, accountNumber, new BigDecimal(amount), type, "Test transaction", "REF-1");
+        transaction.setTransactionDate(date);
+        return transaction;
+    }
+
+    private static long fileSize(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.hsbc.transaction.repository.query;
+
+import com.hsbc.transaction.model.TransactionType;
+import com.hsbc.transaction.repository.TransactionFilter;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryPlannerTest {
+
+    // 1,000,000 rows: 100 per account, 100,000 per type, 1% in any amount band, 10% in any date range.
+    // Accounts hold every type in proportion.
+    private final Cardinalities cardinalities = new Cardinalities() {
+        @Override
+        public long rows() {
+            return 1_000_000;
+        }
+
+        @Override
+        public long account(String accountNumber) {
+            return 100;
+        }
+
+        @Override
+        public long type(TransactionType type) {
+            return 100_000;
+        }
+
+        @Override
+        public long accountAndTypes(String accountNumber, Set<TransactionType> types) {
+            long rows = accountNumber == null ? rows() : account(accountNumber);
+            return types == null ? rows : rows * types.size() / 10;
+        }
+
+        @Override
+        public long amountBetween(long lowCents, long highCents) {
+            return 10_000;
+        }
+
+        @Override
+        public long dateBetween(LocalDateTime startDate, LocalDateTime endDate) {
+            return 100_000;
+        }
+    };
+
+    @Test
+    void plan_ShouldReadTheMostSelectiveIndex() {
+        // Given
+        TransactionFilter filter = new TransactionFilter("1234567890", Set.of(TransactionType.DEBIT),
+            new BigDecimal("10"), new BigDecimal("20"), null, null);
+
+        // When
+        QueryPlan plan = QueryPlanner.plan(new TransactionQuery(filter, SortOrder.LARGEST_FIRST, 10), cardinalities);
+
+        // Then
+        assertEquals(AccessPath.BITMAP_INDEX, plan.accessPath());
+        assertEquals(10, plan.estimatedRowsRead());
+        assertFalse(plan.sortedByIndex());
+        assertEquals(List.of("amount >= 10", "amount <= 20"), plan.residualPredicates());
+    }
+
+    @Test
+    void plan_ShouldWalkTheTimeIndexForTheNewestRowsOfSeveralTypes() {
+        // Given
+        TransactionFilter filter = TransactionFilter.types(
+            Set.of(TransactionType.DEBIT, TransactionType.WITHDRAWAL, TransactionType.FEE));
+
+        // When
+        QueryPlan plan = QueryPlanner.plan(new TransactionQuery(filter, SortOrder.NEWEST_FIRST, 10), cardinalities);
+
+        // Then
+        assertEquals(AccessPath.TIME_INDEX, plan.accessPath());
+        assertTrue(plan.sortedByIndex());
+        assertEquals(34, plan.estimatedRowsRead());
+        assertEquals(List.of("type IN (DEBIT, WITHDRAWAL, FEE)"), plan.residualPredicates());
+    }
+
+    @Test
+    void plan_ShouldUnionTypeBitmapsForSeveralTypes() {
+        // Given
+        TransactionFilter filter = TransactionFilter.types(
+            Set.of(TransactionType.DEBIT, TransactionType.WITHDRAWAL, TransactionType.FEE));
+
+        // When
+        QueryPlan plan = QueryPlanner.plan(new TransactionQuery(filter, SortOrder.LARGEST_FIRST, 100), cardinalities);
+
+        // Then
+        assertEquals(AccessPath.BITMAP_INDEX, plan.accessPath());
+        assertEquals(300_000, plan.estimatedRowsRead());
+        assertEquals(300_000, plan.estimatedMatches());
+        assertEquals(List.of(), plan.residualPredicates());
+    }
+
+    @Test
+    void plan_ShouldWalkTheTimeIndexWhenFewNewestRowsOfABroadFilterAreWanted() {
+        // Given
+        TransactionFilter filter = TransactionFilter.type(TransactionType.DEBIT);
+
+        // When
+        QueryPlan plan = QueryPlanner.plan(new TransactionQuery(filter, SortOrder.NEWEST_FIRST, 10), cardinalities);
+
+        // Then
+        assertEquals(AccessPath.TYPE_INDEX, plan.accessPath());
+        assertTrue(plan.sortedByIndex());
+        assertEquals(10, plan.estimatedRowsRead());
+        assertEquals(List.of(), plan.residualPredicates());
+    }
+
+    @Test
+    void plan_ShouldReadTheAmountIndexInOrderWhenSortedByAmount() {
+        // Given
+        TransactionFilter filter = new TransactionFilter(null, Set.of(TransactionType.FEE), new BigDecimal("1"), null, null, null);
+
+        // When
+        QueryPlan plan = QueryPlanner.plan(new TransactionQuery(filter, SortOrder.SMALLEST_FIRST, 10), cardinalities);
+
+        // Then
+        assertEquals(AccessPath.AMOUNT_INDEX, plan.accessPath());
+        assertTrue(plan.sortedByIndex());
+        assertEquals(List.of("type = FEE"), plan.residualPredicates());
+    }
+
+    @Test
+    void plan_ShouldPreferAnUnorderedIndexWhenTheOrderedWalkWouldReadMore() {
+        // Given
+        TransactionFilter filter = TransactionFilter.amountBetween(new BigDecimal("10"), new BigDecimal("20"));
+
+        // When
+        QueryPlan plan = QueryPlanner.plan(new TransactionQuery(filter, SortOrder.OLDEST_FIRST, 1_000), cardinalities);
+
+        // Then
+        assertEquals(AccessPath.AMOUNT_INDEX, plan.accessPath());
+        assertFalse(plan.sortedByIndex());
+        assertEquals(10_000, plan.estimatedMatches());
+        assertEquals(List.of(), plan.residualPredicates());
+    }
+
+    @Test
+    void plan_ShouldFallBackToTheTimeIndexWithoutPredicates() {
+        // When
+        QueryPlan plan = QueryPlanner.plan(new TransactionQuery(TransactionFilter.all(), SortOrder.NEWEST_FIRST, 50), cardinalities);
+
+        // Then
+        assertEquals(AccessPath.TIME_INDEX, plan.accessPath());
+        assertEquals(50, plan.estimatedRowsRead());
+        assertEquals(1_000_000, plan.estimatedMatches());
+    }
+}
@@ -0,0 +1,46 @@
+package com.hsbc.transaction.repository.rollup;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeSeriesQueryTest {
+
+    @Test
+    void buckets_ShouldRunFromTheBucketHoldingStartToTheOneBeforeAnAlignedEnd() {
+        // Given
+        LocalDateTime day = LocalDateTime.of(2024, 3, 1, 0, 0);
+
+        // When
+        TimeSeriesQuery aligned = new TimeSeriesQuery(Granularity.HOUR, day.plusMinutes(30), day.plusHours(3), null, null);
+        TimeSeriesQuery unaligned = new TimeSeriesQuery(Granularity.HOUR, day, day.plusHours(3).plusNanos(1), null, null);
+
+        // Then
+        assertEquals(day, Granularity.HOUR.startOf(aligned.firstBucket()));
+        assertEquals(day.plusHours(2), Granularity.HOUR.startOf(aligned.lastBucket()));
+        assertEquals(3, aligned.bucketCount());
+        assertEquals(4, unaligned.bucketCount());
+    }
+
+    @Test
+    void bucketOf_ShouldRoundDatesBeforeTheEpochDown() {
+        LocalDateTime date = LocalDateTime.of(1969, 12, 31, 23, 59, 30);
+
+        assertEquals(-1, Granularity.MINUTE.bucketOf(date));
+        assertEquals(LocalDateTime.of(1969, 12, 31, 0, 0), Granularity.DAY.startOf(Granularity.DAY.bucketOf(date)));
+    }
+
+    @Test
+    void constructor_ShouldRejectEmptyOrOversizedRanges() {
+        LocalDateTime now = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+        assertThrows(IllegalArgumentException.class, () -> new TimeSeriesQuery(Granularity.DAY, now, now, null, null));
+        assertThrows(IllegalArgumentException.class, () -> new TimeSeriesQuery(Granularity.DAY, now, now.minusDays(1), null, null));
+        assertThrows(IllegalArgumentException.class, () -> new TimeSeriesQuery(Granularity.MINUTE, now,
+            now.plusMinutes(TimeSeriesQuery.MAX_BUCKETS + 1), null, null));
+        assertEquals(TimeSeriesQuery.MAX_BUCKETS, new TimeSeriesQuery(Granularity.MINUTE, now,
+            now.plusMinutes(TimeSeriesQuery.MAX_BUCKETS), null, null).bucketCount());
+    }
+}
@@ -0,0 +1,88 @@
+package com.hsbc.transaction.repository.sharded;
+
+import com.hsbc.transaction.model.Transaction;
+import com.hsbc.transaction.model.TransactionType;
+import com.hsbc.transaction.repository.TransactionStore;
+import com.hsbc.transaction.repository.TransactionStoreConformanceTest;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedTransactionStoreTest extends TransactionStoreConformanceTest {
+
+    @Override
+    protected TransactionStore createStore() {
+        return new ShardedTransactionStore(4);
+    }
+
+    @Test
+    void save_ShouldGiveUniqueIdsAcrossShards() {
+        // Given
+        Set<Long> ids = new HashSet<>();
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            ids.add(transactionStore.save(transaction(String.format("12345%05d", i), "1.00", LocalDateTime.now())).getId());
+        }
+
+        // Then
+        assertEquals(100, ids.size());
+        ids.forEach(id -> assertTrue(transactionStore.existsById(id)));
+    }
+
+    @Test
+    void findByAccountNumber_ShouldFollowAccountMovedToAnotherShard() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        List<Transaction> moved = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            moved.add(transactionStore.save(transaction(String.format("12345%05d", i), "10.00", now.minusMinutes(i))));
+        }
+        transactionStore.save(transaction("9999999999", "5.00", now.plusMinutes(1)));
+
+        // When
+        moved.forEach(transaction -> {
+            transaction.setAccountNumber("9999999999");
+            transactionStore.save(transaction);
+        });
+
+        // Then
+        List<Transaction> found = transactionStore.findByAccountNumber("9999999999");
+        assertEquals(9, found.size());
+        assertEquals(new BigDecimal("5.00"), found.get(0).getAmount());
+        assertEquals(new BigDecimal("85.00"), transactionStore.getTotalAmountByAccountNumber("9999999999"));
+        assertEquals(9L, transactionStore.countByAccountNumber().get("9999999999"));
+        assertEquals(9, transactionStore.findByAccountNumberAndType("9999999999", TransactionType.PAYMENT).size());
+    }
+
+    @Test
+    void findAll_WithPagination_ShouldMergeShardsNewestFirst() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 40; i++) {
+            transactionStore.save(transaction(String.format("12345%05d", i), "1.00", now.minusSeconds(i)));
+        }
+
+        // When
+        List<Transaction> page = transactionStore.findAll(3, 7);
+
+        // Then
+        assertEquals(7, page.size());
+        for (int i = 0; i < page.size(); i++) {
+            assertEquals(now.minusSeconds(21 + i), page.get(i).getTransactionDate());
+        }
+    }
+
+    private static Transaction transaction(String accountNumber, String amount, LocalDateTime date) {
+        Transaction transaction = new Transaction(null, accountNumber, new BigDecimal(amount), TransactionType.PAYMENT, "Sharded transaction");
+        transaction.setTransactionDate(date);
+        return transaction;
+    }
+}
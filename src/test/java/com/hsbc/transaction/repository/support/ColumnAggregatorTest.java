@@ -0,0 +1,80 @@
+package com.hsbc.transaction.repository.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnAggregatorTest {
+
+    @Test
+    void aggregate_ShouldMatchAPlainLoopForEveryRangeAndBound() {
+        // Given
+        Random random = new Random(42);
+        long[] amounts = new long[1_000];
+        long[] micros = new long[amounts.length];
+        for (int row = 0; row < amounts.length; row++) {
+            amounts[row] = random.nextInt(20_001) - 10_000;
+            micros[row] = row % 50 == 0 ? Long.MIN_VALUE : 1_000_000L * row;
+        }
+        long[][] bounds = {
+            {Long.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE},
+            {100_000_000L, 700_000_000L, Long.MIN_VALUE, Long.MAX_VALUE},
+            {Long.MIN_VALUE, Long.MAX_VALUE, -2_500, 4_000},
+            {250_000_000L, 900_000_000L, 0, 0},
+            {Long.MIN_VALUE, Long.MAX_VALUE, 20_000, 30_000}};
+
+        for (ColumnAggregator aggregator : new ColumnAggregator[] {ColumnAggregator.scalar(), ColumnAggregator.fastest()}) {
+            for (int[] range : new int[][] {{0, 1_000}, {0, 0}, {3, 3}, {1, 6}, {7, 998}, {13, 500}}) {
+                for (long[] bound : bounds) {
+                    // When
+                    CentsAggregate actual = new CentsAggregate();
+                    aggregator.aggregate(amounts, micros, range[0], range[1], bound[0], bound[1], bound[2], bound[3], actual);
+
+                    // Then
+                    CentsAggregate expected = new CentsAggregate();
+                    for (int row = range[0]; row < range[1]; row++) {
+                        if (micros[row] > bound[0] && micros[row] < bound[1] && amounts[row] >= bound[2] && amounts[row] <= bound[3]) {
+                            expected.add(amounts[row]);
+                        }
+                    }
+                    String description = aggregator.getClass().getSimpleName() + " over " + range[0] + ".." + range[1];
+                    assertEquals(expected.count(), actual.count(), description);
+                    assertEquals(expected.sum(), actual.sum(), description);
+                    assertEquals(expected.min(), actual.min(), description);
+                    assertEquals(expected.max(), actual.max(), description);
+                }
+            }
+        }
+    }
+
+    @Test
+    void aggregate_ShouldSumExactlyPastTheLongRange() {
+        // Given
+        long[] amounts = new long[37];
+        long[] micros = new long[amounts.length];
+        Arrays.fill(amounts, Long.MAX_VALUE / 4);
+        amounts[5] = Long.MIN_VALUE / 4;
+
+        // When
+        CentsAggregate aggregate = new CentsAggregate();
+        ColumnAggregator.fastest().aggregate(amounts, micros, 0, amounts.length, Long.MIN_VALUE, Long.MAX_VALUE,
+            Long.MIN_VALUE, Long.MAX_VALUE, aggregate);
+
+        // Then
+        assertEquals(37, aggregate.count());
+        assertEquals(Cents.toAmount(Long.MAX_VALUE / 4).multiply(BigDecimal.valueOf(36)).add(Cents.toAmount(Long.MIN_VALUE / 4)),
+            aggregate.sum());
+        assertEquals(Cents.toAmount(Long.MIN_VALUE / 4), aggregate.min());
+        assertEquals(Cents.toAmount(Long.MAX_VALUE / 4), aggregate.max());
+    }
+
+    @Test
+    void fastest_ShouldUseTheVectorKernelWhenTheModuleIsPresent() {
+        boolean vectorModule = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+        assertEquals(vectorModule, ColumnAggregator.fastest() instanceof VectorColumnAggregator);
+    }
+}
@@ -1,15 +1,33 @@
 package com.hsbc.transaction.service;
 
+import com.hsbc.transaction.dto.AmountSummaryDTO;
+import com.hsbc.transaction.dto.CursorPageDTO;
 import com.hsbc.transaction.dto.PagedResponseDTO;
+import com.hsbc.transaction.dto.SearchResponseDTO;
+import com.hsbc.transaction.dto.TimeBucketDTO;
 import com.hsbc.transaction.dto.TransactionRequestDTO;
 import com.hsbc.transaction.dto.TransactionResponseDTO;
 import com.hsbc.transaction.exception.TransactionNotFoundException;
 import com.hsbc.transaction.model.Transaction;
 import com.hsbc.transaction.model.TransactionType;
+import com.hsbc.transaction.repository.AmountSummary;
+import com.hsbc.transaction.repository.PageCursor;
+import com.hsbc.transaction.repository.TransactionFilter;
+import com.hsbc.transaction.repository.TransactionPage;
 import com.hsbc.transaction.repository.TransactionRepository;
+import com.hsbc.transaction.repository.query.AccessPath;
+import com.hsbc.transaction.repository.query.QueryPlan;
+import com.hsbc.transaction.repository.query.SearchResult;
+import com.hsbc.transaction.repository.query.SortOrder;
+import com.hsbc.transaction.repository.query.TransactionQuery;
+import com.hsbc.transaction.repository.rollup.Granularity;
+import com.hsbc.transaction.repository.rollup.TimeBucket;
+import com.hsbc.transaction.repository.rollup.TimeSeriesQuery;
+import com.hsbc.transaction.service.cache.TransactionCacheInvalidator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -19,6 +37,7 @@ import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -31,6 +50,9 @@ class TransactionServiceTest {
     @Mock
     private TransactionRepository transactionRepository;
 
+    @Mock
+    private TransactionCacheInvalidator cacheInvalidator;
+
     @InjectMocks
     private TransactionService transactionService;
 
@@ -72,6 +94,7 @@ class TransactionServiceTest {
         assertEquals(testTransaction.getDescription(), result.getDescription());
         
         verify(transactionRepository).save(any(Transaction.class));
+        verify(cacheInvalidator).created(testTransaction);
     }
 
     @Test
@@ -112,8 +135,7 @@ class TransactionServiceTest {
         List<Transaction> transactions = Arrays.asList(testTransaction);
         long totalElements = 1L;
         
-        when(transactionRepository.findAll(page, size)).thenReturn(transactions);
-        when(transactionRepository.count()).thenReturn(totalElements);
+        when(transactionRepository.findPage(page, size)).thenReturn(new TransactionPage(transactions, totalElements));
 
         // When
         PagedResponseDTO<TransactionResponseDTO> result = transactionService.getAllTransactions(page, size);
@@ -127,8 +149,7 @@ class TransactionServiceTest {
         assertTrue(result.isFirst());
         assertTrue(result.isLast());
         
-        verify(transactionRepository).findAll(page, size);
-        verify(transactionRepository).count();
+        verify(transactionRepository).findPage(page, size);
     }
 
     @Test
@@ -164,6 +185,86 @@ class TransactionServiceTest {
             () -> transactionService.getAllTransactions(page, size));
     }
 
+    @Test
+    void getTransactionsAfter_ShouldReturnNextCursorWhenMoreRowsFollow() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        Transaction newer = new Transaction(2L, "1234567890", new BigDecimal("5.00"), TransactionType.DEBIT, "Newer");
+        newer.setTransactionDate(now);
+        testTransaction.setTransactionDate(now.minusMinutes(1));
+        when(transactionRepository.findAfter(TransactionFilter.all(), null, 2)).thenReturn(Arrays.asList(newer, testTransaction));
+
+        // When
+        CursorPageDTO<TransactionResponseDTO> result = transactionService.getTransactionsAfter(TransactionFilter.all(), "", 1);
+
+        // Then
+        assertEquals(1, result.getContent().size());
+        assertEquals(2L, result.getContent().get(0).getId());
+        assertTrue(result.isHasNext());
+        assertEquals(PageCursor.of(newer).encode(), result.getNextCursor());
+    }
+
+    @Test
+    void getTransactionsAfter_ShouldResumeAfterDecodedCursor() {
+        // Given
+        PageCursor cursor = new PageCursor(LocalDateTime.now(), 5L);
+        TransactionFilter filter = TransactionFilter.type(TransactionType.CREDIT);
+        when(transactionRepository.findAfter(filter, cursor, 11)).thenReturn(List.of(testTransaction));
+
+        // When
+        CursorPageDTO<TransactionResponseDTO> result = transactionService.getTransactionsAfter(filter, cursor.encode(), 10);
+
+        // Then
+        assertEquals(1, result.getContent().size());
+        assertFalse(result.isHasNext());
+        assertNull(result.getNextCursor());
+        verify(transactionRepository).findAfter(filter, cursor, 11);
+    }
+
+    @Test
+    void getTransactionsAfter_ShouldThrowIllegalArgumentException_WhenCursorIsInvalid() {
+        // When & Then
+        assertThrows(IllegalArgumentException.class,
+            () -> transactionService.getTransactionsAfter(TransactionFilter.all(), "not-a-cursor", 10));
+    }
+
+    @Test
+    void getTransactionsAfter_ShouldThrowIllegalArgumentException_WhenSizeExceedsLimit() {
+        // When & Then
+        assertThrows(IllegalArgumentException.class,
+            () -> transactionService.getTransactionsAfter(TransactionFilter.all(), "", TransactionService.MAX_CURSOR_PAGE_SIZE + 1));
+    }
+
+    @Test
+    void searchTransactions_ShouldReturnMatchesWithPlan() {
+        // Given
+        TransactionFilter filter = new TransactionFilter("1234567890", Set.of(TransactionType.CREDIT), null, null, null, null);
+        TransactionQuery query = new TransactionQuery(filter, SortOrder.LARGEST_FIRST, 20);
+        QueryPlan plan = new QueryPlan(AccessPath.ACCOUNT_INDEX, 3, 1, List.of("type = CREDIT"), false);
+        when(transactionRepository.search(query)).thenReturn(new SearchResult(List.of(testTransaction), plan, 3));
+
+        // When
+        SearchResponseDTO result = transactionService.searchTransactions(filter, SortOrder.LARGEST_FIRST, 20);
+
+        // Then
+        assertEquals(1, result.getContent().size());
+        assertEquals("ACCOUNT_INDEX", result.getPlan().getAccessPath());
+        assertEquals(List.of("type = CREDIT"), result.getPlan().getResidualPredicates());
+        assertEquals(3, result.getPlan().getRowsExamined());
+        verify(transactionRepository).search(query);
+    }
+
+    @Test
+    void searchTransactions_ShouldThrowIllegalArgumentException_WhenAmountRangeIsInverted() {
+        // Given
+        TransactionFilter filter = TransactionFilter.amountBetween(new BigDecimal("20"), new BigDecimal("10"));
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class,
+            () -> transactionService.searchTransactions(filter, SortOrder.NEWEST_FIRST, 10));
+        verify(transactionRepository, never()).search(any());
+    }
+
     @Test
     void getTransactionsByAccountNumber_ShouldReturnTransactionList() {
         // Given
@@ -288,6 +389,34 @@ class TransactionServiceTest {
         verify(transactionRepository).save(any(Transaction.class));
     }
 
+    @Test
+    void updateTransaction_ShouldSaveNewVersionWithoutMutatingFoundTransaction() {
+        // Given
+        Long transactionId = 1L;
+        LocalDateTime createdAt = testTransaction.getTransactionDate();
+        TransactionRequestDTO updateDTO = new TransactionRequestDTO(
+            "0987654321",
+            new BigDecimal("200.00"),
+            TransactionType.DEBIT,
+            "Updated transaction"
+        );
+        when(transactionRepository.findById(transactionId)).thenReturn(Optional.of(testTransaction));
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        transactionService.updateTransaction(transactionId, updateDTO);
+
+        // Then
+        ArgumentCaptor<Transaction> saved = ArgumentCaptor.forClass(Transaction.class);
+        verify(transactionRepository).save(saved.capture());
+        assertNotSame(testTransaction, saved.getValue());
+        assertEquals(transactionId, saved.getValue().getId());
+        assertEquals("0987654321", saved.getValue().getAccountNumber());
+        assertEquals(createdAt, saved.getValue().getTransactionDate());
+        assertEquals("1234567890", testTransaction.getAccountNumber());
+        verify(cacheInvalidator).updated(testTransaction, saved.getValue());
+    }
+
     @Test
     void updateTransaction_ShouldThrowTransactionNotFoundException() {
         // Given
@@ -306,28 +435,30 @@ class TransactionServiceTest {
     void deleteTransaction_ShouldDeleteTransaction() {
         // Given
         Long transactionId = 1L;
-        when(transactionRepository.existsById(transactionId)).thenReturn(true);
+        when(transactionRepository.findById(transactionId)).thenReturn(Optional.of(testTransaction));
 
         // When
         transactionService.deleteTransaction(transactionId);
 
         // Then
-        verify(transactionRepository).existsById(transactionId);
+        verify(transactionRepository).findById(transactionId);
         verify(transactionRepository).deleteById(transactionId);
+        verify(cacheInvalidator).deleted(testTransaction);
     }
 
     @Test
     void deleteTransaction_ShouldThrowTransactionNotFoundException() {
         // Given
         Long transactionId = 1L;
-        when(transactionRepository.existsById(transactionId)).thenReturn(false);
+        when(transactionRepository.findById(transactionId)).thenReturn(Optional.empty());
 
         // When & Then
         assertThrows(TransactionNotFoundException.class, 
             () -> transactionService.deleteTransaction(transactionId));
         
-        verify(transactionRepository).existsById(transactionId);
+        verify(transactionRepository).findById(transactionId);
         verify(transactionRepository, never()).deleteById(transactionId);
+        verifyNoInteractions(cacheInvalidator);
     }
 
     @Test
@@ -344,6 +475,82 @@ class TransactionServiceTest {
         verify(transactionRepository).count();
     }
 
+    @Test
+    void getTransactionCount_ShouldCountRowsMatchingTheFilter() {
+        // Given
+        TransactionFilter filter = new TransactionFilter("1234567890",
+            Set.of(TransactionType.DEBIT, TransactionType.FEE), null, null, null, null);
+        when(transactionRepository.count(filter)).thenReturn(3L);
+
+        // When
+        long result = transactionService.getTransactionCount(filter);
+
+        // Then
+        assertEquals(3L, result);
+        verify(transactionRepository).count(filter);
+    }
+
+    @Test
+    void getTransactionCount_ShouldThrowIllegalArgumentException_WhenAmountRangeIsInverted() {
+        // Given
+        TransactionFilter filter = TransactionFilter.amountBetween(new BigDecimal("500"), new BigDecimal("10"));
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> transactionService.getTransactionCount(filter));
+        verify(transactionRepository, never()).count(any());
+        verifyNoInteractions(cacheInvalidator);
+    }
+
+    @Test
+    void getAmountSummary_ShouldSummarizeRowsMatchingTheFilter() {
+        // Given
+        TransactionFilter filter = TransactionFilter.amountBetween(new BigDecimal("10"), new BigDecimal("500"));
+        when(transactionRepository.summarize(filter)).thenReturn(
+            new AmountSummary(4, new BigDecimal("620.50"), new BigDecimal("10.00"), new BigDecimal("400.00")));
+
+        // When
+        AmountSummaryDTO result = transactionService.getAmountSummary(filter);
+
+        // Then
+        assertEquals(4, result.getCount());
+        assertEquals(new BigDecimal("620.50"), result.getSum());
+        assertEquals(new BigDecimal("10.00"), result.getMin());
+        assertEquals(new BigDecimal("400.00"), result.getMax());
+        verify(transactionRepository).summarize(filter);
+    }
+
+    @Test
+    void getAmountSummary_ShouldThrowIllegalArgumentException_WhenDateRangeIsInverted() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        TransactionFilter filter = TransactionFilter.dateBetween(now, now.minusDays(1));
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> transactionService.getAmountSummary(filter));
+        verify(transactionRepository, never()).summarize(any());
+    }
+
+    @Test
+    void getTimeSeries_ShouldMapEveryBucket() {
+        // Given
+        LocalDateTime day = LocalDateTime.of(2024, 3, 1, 0, 0);
+        TimeSeriesQuery query = new TimeSeriesQuery(Granularity.DAY, day, day.plusDays(2), null, TransactionType.FEE);
+        when(transactionRepository.timeSeries(query)).thenReturn(List.of(
+            new TimeBucket(day, 2, new BigDecimal("7.50")),
+            new TimeBucket(day.plusDays(1), 0, new BigDecimal("0.00"))));
+
+        // When
+        List<TimeBucketDTO> result = transactionService.getTimeSeries(query);
+
+        // Then
+        assertEquals(2, result.size());
+        assertEquals(day, result.get(0).getBucketStart());
+        assertEquals(2, result.get(0).getCount());
+        assertEquals(new BigDecimal("7.50"), result.get(0).getTotalAmount());
+        assertEquals(0, result.get(1).getCount());
+        verify(transactionRepository).timeSeries(query);
+    }
+
     @Test
     void getTotalTransactionAmount_ShouldReturnTotalAmount() {
         // Given
@@ -423,5 +630,6 @@ class TransactionServiceTest {
 
         // Then
         verify(transactionRepository).deleteAll();
+        verify(cacheInvalidator).clearedAll();
     }
 } 
\ No newline at end of file
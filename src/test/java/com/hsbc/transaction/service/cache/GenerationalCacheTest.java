@@ -0,0 +1,313 @@
+package com.hsbc.transaction.service.cache;
+
+import com.hsbc.transaction.model.TransactionType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GenerationalCacheTest {
+
+    private CacheGenerations generations;
+    private GenerationalCache cache;
+
+    @BeforeEach
+    void setUp() {
+        generations = new CacheGenerations();
+        cache = new GenerationalCache(new ConcurrentMapCache("transactions"), generations);
+    }
+
+    @Test
+    void advanceAccount_ShouldMissOnlyThatAccountsEntries() {
+        // Given
+        cache.put("account-1234567890", "own listing");
+        cache.put("totalAmountByAccount-1234567890", "own total");
+        cache.put("account-0987654321", "other listing");
+        cache.put("type-CREDIT", "credits");
+        cache.put(7L, "row");
+
+        // When
+        generations.advanceAccount("1234567890");
+
+        // Then
+        assertNull(cache.get("account-1234567890"));
+        assertNull(cache.get("totalAmountByAccount-1234567890"));
+        assertEquals("other listing", cache.get("account-0987654321").get());
+        assertEquals("credits", cache.get("type-CREDIT", String.class));
+        assertEquals("row", cache.get(7L).get());
+        assertEquals(2, cache.staleReads());
+    }
+
+    @Test
+    void advanceType_ShouldMissThatTypesEntries() {
+        // Given
+        cache.put("type-DEBIT", "debits");
+        cache.put("totalAmountByType-DEBIT", "debit total");
+        cache.put("type-CREDIT", "credits");
+
+        // When
+        generations.advanceType(TransactionType.DEBIT);
+
+        // Then
+        assertNull(cache.get("type-DEBIT"));
+        assertNull(cache.get("totalAmountByType-DEBIT"));
+        assertNotNull(cache.get("type-CREDIT"));
+    }
+
+    @Test
+    void advanceAll_ShouldMissEveryEntryUntilPutAgain() {
+        // Given
+        cache.put("count", 5L);
+        cache.put("account-1234567890", "listing");
+
+        // When
+        generations.advanceAll();
+        cache.put("count", 6L);
+
+        // Then
+        assertEquals(6L, cache.get("count").get());
+        assertNull(cache.get("account-1234567890"));
+    }
+
+    @Test
+    void getWithLoader_ShouldReloadStaleValues() {
+        // Given
+        AtomicInteger loads = new AtomicInteger();
+        assertEquals(Integer.valueOf(1), cache.get("type-FEE", loads::incrementAndGet));
+        assertEquals(Integer.valueOf(1), cache.get("type-FEE", loads::incrementAndGet));
+
+        // When
+        generations.advanceType(TransactionType.FEE);
+
+        // Then
+        assertEquals(Integer.valueOf(2), cache.get("type-FEE", loads::incrementAndGet));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void putIfAbsent_ShouldReplaceStaleValues() {
+        // Given
+        cache.put("account-1234567890", "old");
+        generations.advanceAccount("1234567890");
+
+        // When
+        assertNull(cache.putIfAbsent("account-1234567890", "new"));
+
+        // Then
+        assertEquals("new", cache.putIfAbsent("account-1234567890", "newer").get());
+    }
+
+    @Test
+    void getWithLoader_ShouldShareOneLoadAmongConcurrentMisses() throws Exception {
+        // Given
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(9);
+        List<Future<Integer>> results = new ArrayList<>();
+
+        // When
+        try {
+            results.add(executor.submit(() -> cache.get("totalAmount", () -> {
+                release.await();
+                return loads.incrementAndGet();
+            })));
+            while (!cache.isLoading("totalAmount")) {
+                Thread.onSpinWait();
+            }
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> cache.get("totalAmount", loads::incrementAndGet)));
+            }
+            while (cache.coalescedLoads() < 8) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            // Then
+            for (Future<Integer> result : results) {
+                assertEquals(Integer.valueOf(1), result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+        assertEquals(8, cache.coalescedLoads());
+    }
+
+    @Test
+    void getWithLoader_ShouldNotJoinOrCacheALoadStartedBeforeAWrite() throws Exception {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> early = executor.submit(() -> cache.get("type-FEE", () -> {
+                release.await();
+                return "before";
+            }));
+            while (!cache.isLoading("type-FEE")) {
+                Thread.onSpinWait();
+            }
+
+            // When
+            generations.advanceType(TransactionType.FEE);
+            String late = cache.get("type-FEE", () -> "after");
+            release.countDown();
+
+            // Then
+            assertEquals("after", late);
+            assertEquals("before", early.get());
+            assertEquals("after", cache.get("type-FEE").get());
+            assertEquals(0, cache.coalescedLoads());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void getWithLoader_ShouldPassTheLoadFailureToTheCaller() {
+        // When & Then
+        RuntimeException failure = assertThrows(RuntimeException.class,
+            () -> cache.get("count", () -> { throw new IllegalStateException("scan failed"); }));
+        assertTrue(failure.getCause() instanceof IllegalStateException);
+        assertNull(cache.get("count"));
+        assertEquals(Integer.valueOf(3), cache.get("count", () -> 3));
+    }
+
+    @Test
+    void refreshAhead_ShouldServeAnEvictedValueWhileReloadingItInTheBackground() {
+        // Given
+        Queue<Runnable> refreshes = new ArrayDeque<>();
+        GenerationalCache stats = refreshAhead(Duration.ZERO, Duration.ofHours(1), refreshes::add);
+        stats.get("count", () -> 1L);
+        stats.evict("count");
+
+        // When
+        Long served = stats.get("count", () -> 2L);
+
+        // Then
+        assertEquals(1L, served);
+        assertNull(stats.get("count"));
+        assertEquals(1, refreshes.size());
+        refreshes.poll().run();
+        assertEquals(2L, stats.get("count").get());
+        assertEquals(1, stats.staleServed());
+    }
+
+    @Test
+    void refreshAhead_ShouldServeAPartitionsStaleValuesWithoutReloadingBeforeTheRefreshInterval() {
+        // Given
+        Queue<Runnable> refreshes = new ArrayDeque<>();
+        GenerationalCache stats = refreshAhead(Duration.ofHours(1), Duration.ofHours(2), refreshes::add);
+        stats.get("totalAmountByType-FEE", () -> "10.00");
+        generations.advanceType(TransactionType.FEE);
+
+        // When
+        String served = stats.get("totalAmountByType-FEE", () -> "12.00");
+
+        // Then
+        assertEquals("10.00", served);
+        assertTrue(refreshes.isEmpty());
+    }
+
+    @Test
+    void refreshAhead_ShouldCountStalenessFromTheWriteNotTheFirstRead() throws Exception {
+        // Given
+        Queue<Runnable> refreshes = new ArrayDeque<>();
+        GenerationalCache stats = refreshAhead(Duration.ZERO, Duration.ofMillis(200), refreshes::add);
+        stats.get("totalAmountByType-FEE", () -> "10.00");
+        generations.advanceType(TransactionType.FEE);
+
+        // When: the first read after the write comes once the bound has passed
+        Thread.sleep(400);
+        String served = stats.get("totalAmountByType-FEE", () -> "12.00");
+
+        // Then
+        assertEquals("12.00", served);
+        assertTrue(refreshes.isEmpty());
+        assertEquals(0, stats.staleServed());
+    }
+
+    @Test
+    void refreshAhead_ShouldCountStalenessFromTheFirstWriteToAnAccount() throws Exception {
+        // Given
+        Queue<Runnable> refreshes = new ArrayDeque<>();
+        GenerationalCache stats = refreshAhead(Duration.ZERO, Duration.ofMillis(200), refreshes::add);
+        stats.get("totalAmountByAccount-1234567890", () -> "10.00");
+        generations.advanceAccount("1234567890");
+        assertEquals("10.00", stats.get("totalAmountByAccount-1234567890", () -> "11.00"));
+
+        // When
+        Thread.sleep(400);
+        generations.advanceAccount("1234567890");
+        String served = stats.get("totalAmountByAccount-1234567890", () -> "12.00");
+
+        // Then
+        assertEquals("12.00", served);
+        assertEquals(1, stats.staleServed());
+    }
+
+    @Test
+    void refreshAhead_ShouldLoadOnTheCallerPastTheStalenessBound() throws Exception {
+        // Given
+        Queue<Runnable> refreshes = new ArrayDeque<>();
+        GenerationalCache stats = refreshAhead(Duration.ZERO, Duration.ofMillis(1), refreshes::add);
+        stats.get("count", () -> 1L);
+        stats.evict("count");
+        Thread.sleep(5);
+
+        // When
+        Long served = stats.get("count", () -> 2L);
+
+        // Then
+        assertEquals(2L, served);
+        assertTrue(refreshes.isEmpty());
+    }
+
+    @Test
+    void refreshAhead_ShouldNotServeValuesFromBeforeAReset() {
+        // Given
+        Queue<Runnable> refreshes = new ArrayDeque<>();
+        GenerationalCache stats = refreshAhead(Duration.ZERO, Duration.ofHours(1), refreshes::add);
+        stats.get("count", () -> 5L);
+
+        // When
+        generations.advanceAll();
+
+        // Then
+        assertEquals(0L, stats.get("count", () -> 0L));
+        assertTrue(refreshes.isEmpty());
+    }
+
+    @Test
+    void refreshAhead_ShouldKeepServingTheStaleValueWhenTheExecutorIsFull() {
+        // Given
+        GenerationalCache stats = refreshAhead(Duration.ZERO, Duration.ofHours(1), task -> {
+            throw new RejectedExecutionException("full");
+        });
+        stats.get("count", () -> 1L);
+        stats.evict("count");
+
+        // When & Then
+        assertEquals(1L, stats.get("count", () -> 2L));
+        assertFalse(stats.isLoading("count"));
+        assertEquals(1L, stats.get("count", () -> 3L));
+    }
+
+    private GenerationalCache refreshAhead(Duration refreshAfter, Duration maxStaleness, Executor executor) {
+        return new GenerationalCache(new ConcurrentMapCache("transactionStats"), generations,
+            new RefreshAhead(refreshAfter, maxStaleness, executor));
+    }
+}
@@ -0,0 +1,45 @@
+package com.hsbc.transaction.service.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntervalRegistryTest {
+
+    @Test
+    void containing_ShouldFindEveryIntervalHoldingTheValueIncludingItsBounds() {
+        // Given
+        IntervalRegistry<Integer, String> registry = new IntervalRegistry<>();
+        registry.add(0, 10, "a");
+        registry.add(5, 5, "b");
+        registry.add(6, 20, "c");
+        registry.add(null, 3, "below");
+        registry.add(8, null, "above");
+
+        // When & Then
+        assertEquals(Set.of("a", "below"), Set.copyOf(registry.containing(0)));
+        assertEquals(Set.of("a", "b"), Set.copyOf(registry.containing(5)));
+        assertEquals(Set.of("a", "c", "above"), Set.copyOf(registry.containing(10)));
+        assertEquals(Set.of("above"), Set.copyOf(registry.containing(21)));
+        assertEquals(List.of("below"), registry.containing(-100));
+    }
+
+    @Test
+    void removeIf_ShouldDropMatchingKeys() {
+        // Given
+        IntervalRegistry<Integer, String> registry = new IntervalRegistry<>();
+        registry.add(0, 10, "keep");
+        registry.add(0, 10, "drop");
+        registry.add(null, null, "drop-open");
+
+        // When
+        registry.removeIf(key -> key.startsWith("drop"));
+
+        // Then
+        assertEquals(1, registry.size());
+        assertEquals(List.of("keep"), registry.containing(4));
+    }
+}
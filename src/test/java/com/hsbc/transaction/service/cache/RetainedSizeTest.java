@@ -0,0 +1,70 @@
+package com.hsbc.transaction.service.cache;
+
+import com.hsbc.transaction.dto.PagedResponseDTO;
+import com.hsbc.transaction.dto.TransactionResponseDTO;
+import com.hsbc.transaction.model.Transaction;
+import com.hsbc.transaction.model.TransactionType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetainedSizeTest {
+
+    @Test
+    void of_ShouldWeighAListAsItsElementsPlusTheBackingArray() {
+        // Given
+        TransactionResponseDTO one = dto(1L);
+        List<TransactionResponseDTO> thousand = new ArrayList<>();
+        for (long id = 1; id <= 1000; id++) {
+            thousand.add(dto(id));
+        }
+
+        // When
+        long single = RetainedSize.of(one);
+        long list = RetainedSize.of(thousand);
+
+        // Then
+        assertTrue(single > 200 && single < 400, "one DTO weighs " + single);
+        assertTrue(list >= 1000 * single, "a thousand DTOs weigh " + list);
+        assertTrue(list < 1000 * single + 8 * 1024, "a thousand DTOs weigh " + list);
+    }
+
+    @Test
+    void of_ShouldWeighPagesAndStampedValuesByWhatTheyHold() {
+        // Given
+        List<TransactionResponseDTO> content = List.of(dto(1L), dto(2L));
+        PagedResponseDTO<TransactionResponseDTO> page = new PagedResponseDTO<>(content, 0, 2, 10);
+        CacheGenerations.Stamped stamped = new CacheGenerations().stamp("all-0-2", page);
+
+        // When & Then
+        assertTrue(RetainedSize.of(page) > RetainedSize.of(content));
+        assertTrue(RetainedSize.of(stamped) > RetainedSize.of(page));
+        assertTrue(RetainedSize.of(stamped) < RetainedSize.of(page) + 64);
+    }
+
+    @Test
+    void of_ShouldNotWeighSharedValues() {
+        // Given
+        Map<TransactionType, Long> counts = new EnumMap<>(TransactionType.class);
+        counts.put(TransactionType.DEBIT, 3L);
+
+        // When & Then
+        assertEquals(0, RetainedSize.of(null));
+        assertEquals(0, RetainedSize.of(TransactionType.FEE));
+        assertEquals(0, RetainedSize.of(Boolean.TRUE));
+        assertTrue(RetainedSize.of(counts) > 0);
+        assertTrue(RetainedSize.of(new BigDecimal("123456789012345678901234567890.00"))
+                > RetainedSize.of(new BigDecimal("10.00")));
+    }
+
+    private static TransactionResponseDTO dto(long id) {
+        return new TransactionResponseDTO(new Transaction(id, "1234567890", new BigDecimal("10.00"),
+                TransactionType.PAYMENT, "Payment " + id, "REF-" + id));
+    }
+}
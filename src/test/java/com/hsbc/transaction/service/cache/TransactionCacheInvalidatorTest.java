@@ -0,0 +1,204 @@
+package com.hsbc.transaction.service.cache;
+
+import com.hsbc.transaction.model.Transaction;
+import com.hsbc.transaction.model.TransactionType;
+import com.hsbc.transaction.repository.TransactionFilter;
+import com.hsbc.transaction.repository.rollup.Granularity;
+import com.hsbc.transaction.repository.rollup.TimeSeriesQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionCacheInvalidatorTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 3, 1, 12, 30);
+
+    private Cache transactions;
+    private Cache stats;
+    private TransactionCacheInvalidator invalidator;
+
+    @BeforeEach
+    void setUp() {
+        CacheGenerations generations = new CacheGenerations();
+        transactions = new GenerationalCache(new ConcurrentMapCache(TransactionCacheInvalidator.TRANSACTIONS), generations);
+        stats = new GenerationalCache(new ConcurrentMapCache(TransactionCacheInvalidator.STATS), generations);
+        CacheManager cacheManager = new CacheManager() {
+            @Override
+            public Cache getCache(String name) {
+                return name.equals(TransactionCacheInvalidator.TRANSACTIONS) ? transactions : stats;
+            }
+
+            @Override
+            public Collection<String> getCacheNames() {
+                return List.of(TransactionCacheInvalidator.TRANSACTIONS, TransactionCacheInvalidator.STATS);
+            }
+        };
+        invalidator = new TransactionCacheInvalidator(cacheManager, generations);
+    }
+
+    @Test
+    void created_ShouldEvictOnlyEntriesTheNewRowBelongsTo() {
+        // Given
+        cacheRead(transactions, 7L);
+        cacheRead(transactions, "account-1234567890");
+        cacheRead(transactions, "account-0987654321");
+        cacheRead(transactions, "type-CREDIT");
+        cacheRead(transactions, "type-DEBIT");
+        invalidator.trackPage(0, 20);
+        cacheRead(transactions, "all-0-20");
+        invalidator.trackAmountRange(new BigDecimal("50"), new BigDecimal("150"));
+        cacheRead(transactions, "amount-50-150");
+        invalidator.trackAmountRange(new BigDecimal("200"), new BigDecimal("300"));
+        cacheRead(transactions, "amount-200-300");
+        invalidator.trackDateRange(NOW.minusHours(1), NOW.plusHours(1));
+        cacheRead(transactions, "date-" + NOW.minusHours(1) + "-" + NOW.plusHours(1));
+        invalidator.trackDateRange(NOW.minusDays(3), NOW.minusDays(2));
+        cacheRead(transactions, "date-" + NOW.minusDays(3) + "-" + NOW.minusDays(2));
+        cacheRead(stats, "count");
+        cacheRead(stats, "totalAmountByType-CREDIT");
+        cacheRead(stats, "totalAmountByType-DEBIT");
+        cacheRead(stats, "totalAmountByAccount-0987654321");
+        TransactionFilter ownAccount = TransactionFilter.account("1234567890");
+        TransactionFilter otherAccount = TransactionFilter.account("0987654321");
+        invalidator.trackFilteredStat("count", ownAccount);
+        cacheRead(stats, "count-" + ownAccount);
+        invalidator.trackFilteredStat("summary", otherAccount);
+        cacheRead(stats, "summary-" + otherAccount);
+        TimeSeriesQuery today = new TimeSeriesQuery(Granularity.HOUR, NOW.withHour(0), NOW.withHour(23), null, TransactionType.CREDIT);
+        TimeSeriesQuery yesterday = new TimeSeriesQuery(Granularity.HOUR, NOW.minusDays(1), NOW.minusHours(20), null, null);
+        invalidator.trackTimeSeries(today);
+        cacheRead(stats, "series-" + today);
+        invalidator.trackTimeSeries(yesterday);
+        cacheRead(stats, "series-" + yesterday);
+
+        // When
+        invalidator.created(row(8L, "1234567890", "100.00", TransactionType.CREDIT, NOW));
+
+        // Then
+        assertEquals(Set.of(7L, "account-0987654321", "type-DEBIT", "amount-200-300",
+            "date-" + NOW.minusDays(3) + "-" + NOW.minusDays(2)), keys(transactions));
+        assertEquals(Set.of("totalAmountByType-DEBIT", "totalAmountByAccount-0987654321",
+            "summary-" + otherAccount, "series-" + yesterday), keys(stats));
+    }
+
+    @Test
+    void updated_ShouldEvictEntriesOfTheOldAndNewValues() {
+        // Given
+        Transaction before = row(7L, "1234567890", "100.00", TransactionType.CREDIT, NOW);
+        Transaction after = row(7L, "0987654321", "250.00", TransactionType.DEBIT, NOW);
+        cacheRead(transactions, 7L);
+        cacheRead(transactions, "account-1234567890");
+        cacheRead(transactions, "account-0987654321");
+        cacheRead(transactions, "account-5555555555");
+        cacheRead(transactions, "type-CREDIT");
+        cacheRead(transactions, "type-DEBIT");
+        invalidator.trackAmountRange(new BigDecimal("0"), new BigDecimal("120"));
+        cacheRead(transactions, "amount-0-120");
+        invalidator.trackAmountRange(new BigDecimal("240"), new BigDecimal("260"));
+        cacheRead(transactions, "amount-240-260");
+        cacheRead(stats, "totalAmountByAccount-1234567890");
+        cacheRead(stats, "totalAmountByAccount-0987654321");
+        cacheRead(stats, "totalAmountByAccount-5555555555");
+
+        // When
+        invalidator.updated(before, after);
+
+        // Then
+        assertEquals(Set.of("account-5555555555"), keys(transactions));
+        assertEquals(Set.of("totalAmountByAccount-5555555555"), keys(stats));
+    }
+
+    @Test
+    void updated_ShouldKeepStatisticsWhenOnlyTheDescriptionChanges() {
+        // Given
+        Transaction before = row(7L, "1234567890", "100.00", TransactionType.CREDIT, NOW);
+        Transaction after = row(7L, "1234567890", "100.0", TransactionType.CREDIT, NOW);
+        after.setDescription("Corrected description");
+        cacheRead(transactions, 7L);
+        cacheRead(stats, "count");
+        cacheRead(stats, "totalAmount");
+
+        // When
+        invalidator.updated(before, after);
+
+        // Then
+        assertTrue(keys(transactions).isEmpty());
+        assertEquals(Set.of("count", "totalAmount"), keys(stats));
+    }
+
+    @Test
+    void clearedAll_ShouldMakeEveryEntryAMiss() {
+        // Given
+        cacheRead(transactions, 7L);
+        cacheRead(transactions, "account-1234567890");
+        cacheRead(stats, "count");
+
+        // When
+        invalidator.clearedAll();
+
+        // Then
+        assertTrue(keys(transactions).isEmpty());
+        assertTrue(keys(stats).isEmpty());
+    }
+
+    @Test
+    void trackedKeys_ShouldStillBeEvictedWhenCachedAgainAfterAnEarlierWrite() {
+        // Given: a range entry evicted by one write and cached again before the next
+        invalidator.trackAmountRange(new BigDecimal("50"), new BigDecimal("150"));
+        cacheRead(transactions, "amount-50-150");
+        invalidator.created(row(1L, "1234567890", "100.00", TransactionType.CREDIT, NOW));
+        cacheRead(transactions, "amount-50-150");
+
+        // When
+        invalidator.deleted(row(1L, "1234567890", "100.00", TransactionType.CREDIT, NOW));
+
+        // Then
+        assertNull(transactions.get("amount-50-150"));
+    }
+
+    @Test
+    void trackPage_ShouldKeepKeysStillCachedWhenPruning() {
+        // Given
+        for (int page = 0; page <= TransactionCacheInvalidator.MAX_TRACKED_KEYS; page++) {
+            invalidator.trackPage(page, 10);
+        }
+        cacheRead(transactions, "all-0-10");
+
+        // When
+        invalidator.trackPage(0, 10);
+        invalidator.created(row(1L, "1234567890", "1.00", TransactionType.FEE, NOW));
+
+        // Then
+        assertNull(transactions.get("all-0-10"));
+    }
+
+    private static void cacheRead(Cache cache, Object key) {
+        cache.put(key, "cached");
+    }
+
+    // Keys that still read as hits; entries of an advanced generation stay in the map until overwritten.
+    @SuppressWarnings("unchecked")
+    private static Set<Object> keys(Cache cache) {
+        return ((Map<Object, Object>) cache.getNativeCache()).keySet().stream()
+            .filter(key -> cache.get(key) != null)
+            .collect(Collectors.toSet());
+    }
+
+    private static Transaction row(Long id, String accountNumber, String amount, TransactionType type, LocalDateTime date) {
+        Transaction transaction = new Transaction(id, accountNumber, new BigDecimal(amount), type, "Row " + id);
+        transaction.setTransactionDate(date);
+        return transaction;
+    }
+}
@@ -0,0 +1,114 @@
+package com.hsbc.transaction.stress;
+
+import com.hsbc.transaction.model.Transaction;
+import com.hsbc.transaction.model.TransactionType;
+import com.hsbc.transaction.repository.support.Cents;
+import com.hsbc.transaction.repository.support.CentsAggregate;
+import com.hsbc.transaction.repository.support.ColumnAggregator;
+import com.hsbc.transaction.repository.support.EpochMicros;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("benchmark")
+class AmountAggregationBenchmarkTest {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 2_000_000);
+    // Transactions cost a few hundred bytes each, so the stream baseline runs over a prefix of the rows.
+    private static final int STREAM_ROWS = Math.min(ROWS, Integer.getInteger("benchmark.stream-rows", 1_000_000));
+    private static final int ITERATIONS = Integer.getInteger("benchmark.scans", 10);
+
+    @Test
+    void compareStreamScalarAndVectorAggregation() {
+        // Given: a week of rows, summarized over the middle five days and amounts between 10.00 and 5,000.00
+        Random random = new Random(42);
+        LocalDateTime start = LocalDateTime.now().withNano(0).minusDays(7);
+        long[] amounts = new long[ROWS];
+        long[] micros = new long[ROWS];
+        List<Transaction> transactions = new ArrayList<>(STREAM_ROWS);
+        for (int row = 0; row < ROWS; row++) {
+            LocalDateTime date = start.plusSeconds((long) row * 604_800 / ROWS);
+            amounts[row] = 1 + random.nextInt(1_000_000);
+            micros[row] = EpochMicros.floor(date);
+            if (row < STREAM_ROWS) {
+                Transaction transaction = new Transaction((long) row + 1, "1234567890", Cents.toAmount(amounts[row]),
+                    TransactionType.PAYMENT, "Row " + row);
+                transaction.setTransactionDate(date);
+                transactions.add(transaction);
+            }
+        }
+        LocalDateTime from = start.plusDays(1);
+        LocalDateTime to = start.plusDays(6);
+        BigDecimal minAmount = new BigDecimal("10.00");
+        BigDecimal maxAmount = new BigDecimal("5000.00");
+        long after = EpochMicros.floor(from);
+        long before = EpochMicros.ceil(to);
+        long minCents = Cents.ceil(minAmount);
+        long maxCents = Cents.floor(maxAmount);
+
+        Supplier<BigDecimal[]> stream = () -> {
+            List<BigDecimal> matching = transactions.stream()
+                .filter(t -> t.getTransactionDate().isAfter(from) && t.getTransactionDate().isBefore(to))
+                .map(Transaction::getAmount)
+                .filter(amount -> amount.compareTo(minAmount) >= 0 && amount.compareTo(maxAmount) <= 0)
+                .toList();
+            return new BigDecimal[] {
+                BigDecimal.valueOf(matching.size()),
+                matching.stream().reduce(BigDecimal.ZERO, BigDecimal::add),
+                matching.stream().min(BigDecimal::compareTo).orElse(null),
+                matching.stream().max(BigDecimal::compareTo).orElse(null)};
+        };
+
+        // When
+        System.out.println("=== Amount Aggregation (" + ROWS + " rows, stream over " + STREAM_ROWS + ") ===");
+        System.out.println("Vector kernel: " + ColumnAggregator.fastest().getClass().getSimpleName());
+        BigDecimal[] streamResult = stream.get();
+        double streamRate = STREAM_ROWS / seconds(stream::get);
+        double scalarRate = ROWS / seconds(() -> aggregate(ColumnAggregator.scalar(), amounts, micros, ROWS, after, before, minCents, maxCents));
+        double vectorRate = ROWS / seconds(() -> aggregate(ColumnAggregator.fastest(), amounts, micros, ROWS, after, before, minCents, maxCents));
+        System.out.println(String.format("Stream over BigDecimal: %,15.0f rows/s", streamRate));
+        System.out.println(String.format("Scalar over cents:      %,15.0f rows/s", scalarRate));
+        System.out.println(String.format("Vector over cents:      %,15.0f rows/s", vectorRate));
+        System.out.println(String.format("Speedup vector / stream: %.1fx, vector / scalar: %.1fx", vectorRate / streamRate, vectorRate / scalarRate));
+
+        // Then
+        CentsAggregate prefix = aggregate(ColumnAggregator.fastest(), amounts, micros, STREAM_ROWS, after, before, minCents, maxCents);
+        assertEquals(streamResult[0].longValueExact(), prefix.count());
+        assertEquals(0, streamResult[1].compareTo(prefix.sum()));
+        assertEquals(streamResult[2], prefix.min());
+        assertEquals(streamResult[3], prefix.max());
+        CentsAggregate scalar = aggregate(ColumnAggregator.scalar(), amounts, micros, ROWS, after, before, minCents, maxCents);
+        CentsAggregate vector = aggregate(ColumnAggregator.fastest(), amounts, micros, ROWS, after, before, minCents, maxCents);
+        assertEquals(scalar.count(), vector.count());
+        assertEquals(scalar.sum(), vector.sum());
+        assertEquals(scalar.min(), vector.min());
+        assertEquals(scalar.max(), vector.max());
+    }
+
+    private static CentsAggregate aggregate(ColumnAggregator aggregator, long[] amounts, long[] micros, int rows,
+                                            long after, long before, long minCents, long maxCents) {
+        CentsAggregate aggregate = new CentsAggregate();
+        aggregator.aggregate(amounts, micros, 0, rows, after, before, minCents, maxCents, aggregate);
+        return aggregate;
+    }
+
+    // Average over ITERATIONS runs after as many warm-up runs.
+    private static double seconds(Supplier<?> run) {
+        for (int i = 0; i < ITERATIONS; i++) {
+            run.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            run.get();
+        }
+        return (System.nanoTime() - start) / 1e9 / ITERATIONS;
+    }
+}
@@ -0,0 +1,119 @@
+package com.hsbc.transaction.stress;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.hsbc.transaction.dto.TransactionRequestDTO;
+import com.hsbc.transaction.model.TransactionType;
+import com.hsbc.transaction.service.TransactionService;
+import com.hsbc.transaction.service.cache.GenerationalCache;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs the same mixed read/write workload through the service twice: once clearing both caches after every
+// write, as the service did before writes evicted only the entries they affect, and once with targeted eviction.
+// Refresh-ahead is off, so outdated statistics count as misses.
+@SpringBootTest(properties = "transaction.cache.stats.max-staleness=0s")
+@Tag("benchmark")
+class CacheHitRateBenchmarkTest {
+
+    private static final int OPERATIONS = Integer.getInteger("benchmark.ops", 100_000);
+    private static final int WRITE_PERCENT = Integer.getInteger("benchmark.write-percent", 5);
+    private static final int ACCOUNTS = 200;
+    private static final int SEED_ROWS = 5_000;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Test
+    void compareHitRatesOfEvictAllAndTargetedInvalidation() {
+        System.out.println("=== Cache Hit Rate (" + OPERATIONS + " operations, " + WRITE_PERCENT + "% writes) ===");
+        double evictAll = run(true);
+        double targeted = run(false);
+        System.out.println(String.format("Evict all on write: %5.1f%% hits", evictAll * 100));
+        System.out.println(String.format("Targeted eviction:  %5.1f%% hits", targeted * 100));
+        assertTrue(targeted > evictAll);
+    }
+
+    private double run(boolean evictAllOnWrite) {
+        transactionService.deleteAllTransactions();
+        Random random = new Random(42);
+        long[] ids = new long[SEED_ROWS];
+        for (int i = 0; i < SEED_ROWS; i++) {
+            ids[i] = transactionService.createTransaction(request(random)).getId();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        CacheStats transactionsBefore = stats("transactions");
+        CacheStats statsBefore = stats("transactionStats");
+        long staleBefore = staleReads("transactions") + staleReads("transactionStats");
+
+        for (int i = 0; i < OPERATIONS; i++) {
+            int operation = random.nextInt(100);
+            if (operation < WRITE_PERCENT) {
+                if (random.nextBoolean()) {
+                    transactionService.createTransaction(request(random));
+                } else {
+                    transactionService.updateTransaction(ids[random.nextInt(SEED_ROWS)], request(random));
+                }
+                if (evictAllOnWrite) {
+                    cacheManager.getCache("transactions").clear();
+                    cacheManager.getCache("transactionStats").clear();
+                }
+            } else if (operation < 40) {
+                transactionService.getTransactionById(ids[random.nextInt(SEED_ROWS)]);
+            } else if (operation < 65) {
+                transactionService.getTransactionsByAccountNumber(account(random));
+            } else if (operation < 75) {
+                transactionService.getTotalAmountByAccount(account(random));
+            } else if (operation < 82) {
+                transactionService.getTransactionsByType(type(random));
+            } else if (operation < 88) {
+                transactionService.getTotalAmountByType(type(random));
+            } else if (operation < 92) {
+                int low = random.nextInt(20) * 50;
+                transactionService.getTransactionsByAmountRange(BigDecimal.valueOf(low), BigDecimal.valueOf(low + 50));
+            } else if (operation < 96) {
+                transactionService.getTransactionsByDateRange(now.minusDays(30 + random.nextInt(5)), now.minusDays(29));
+            } else {
+                transactionService.getTotalTransactionCount();
+            }
+        }
+
+        CacheStats reads = stats("transactions").minus(transactionsBefore).plus(stats("transactionStats").minus(statsBefore));
+        long stale = staleReads("transactions") + staleReads("transactionStats") - staleBefore;
+        return (double) (reads.hitCount() - stale) / reads.requestCount();
+    }
+
+    // Stale entries read as misses but Caffeine records them as hits.
+    private CacheStats stats(String name) {
+        return ((com.github.benmanes.caffeine.cache.Cache<?, ?>) cacheManager.getCache(name).getNativeCache()).stats();
+    }
+
+    private long staleReads(String name) {
+        return ((GenerationalCache) cacheManager.getCache(name)).staleReads();
+    }
+
+    private static TransactionRequestDTO request(Random random) {
+        return new TransactionRequestDTO(account(random), BigDecimal.valueOf(1 + random.nextInt(100_000), 2),
+            type(random), "Benchmark transaction");
+    }
+
+    private static String account(Random random) {
+        return String.format("98765%05d", random.nextInt(ACCOUNTS));
+    }
+
+    private static TransactionType type(Random random) {
+        TransactionType[] types = TransactionType.values();
+        return types[random.nextInt(types.length)];
+    }
+}
@@ -0,0 +1,196 @@
+package com.hsbc.transaction.stress;
+
+import com.hsbc.transaction.dto.TransactionRequestDTO;
+import com.hsbc.transaction.model.TransactionType;
+import com.hsbc.transaction.repository.TransactionStore;
+import com.hsbc.transaction.service.TransactionService;
+import com.hsbc.transaction.service.cache.GenerationalCache;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Bursts of concurrent reads right after a write, counting the store calls they make: once through the service,
+// whose caches share one load per key, and once the way a get-then-put cache serves misses. The store's total is
+// kept incrementally, so during a burst each call is held until every reader is either calling the store or
+// waiting on another reader's load; that makes the counts the same on every run. Refresh-ahead is off, as it
+// would serve these reads the outdated total instead of loading it.
+@SpringBootTest(properties = "transaction.cache.stats.max-staleness=0s")
+class CacheStampedeStressTest {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 1_000);
+    private static final int READERS = Integer.getInteger("benchmark.readers", 32);
+    private static final int BURSTS = Integer.getInteger("benchmark.bursts", 20);
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private TransactionStore transactionStore;
+
+    @Test
+    void concurrentMissesAfterAWriteShouldShareOneScan() throws Exception {
+        System.out.println("=== Cache Stampede (" + ROWS + " rows, " + READERS + " readers, " + BURSTS + " bursts) ===");
+        transactionService.deleteAllTransactions();
+        for (int i = 0; i < ROWS; i++) {
+            transactionService.createTransaction(new TransactionRequestDTO(String.format("12345%05d", i % 10_000),
+                new BigDecimal("10.00"), TransactionType.PAYMENT, "Row " + i));
+        }
+        Cache stats = cacheManager.getCache("transactionStats");
+
+        GenerationalCache generational = (GenerationalCache) stats;
+        ScanCounting.coalesced = generational::coalescedLoads;
+
+        Burst uncoalesced = bursts(() -> {
+            Cache.ValueWrapper cached = stats.get("totalAmount");
+            if (cached != null) {
+                return cached.get();
+            }
+            BigDecimal total = transactionStore.getTotalAmount();
+            stats.put("totalAmount", total);
+            return total;
+        });
+        long coalescedBefore = generational.coalescedLoads();
+        Burst coalesced = bursts(transactionService::getTotalTransactionAmount);
+        long coalescedReads = generational.coalescedLoads() - coalescedBefore;
+
+        System.out.println(String.format("Get then put:  %5.1f scans per burst", uncoalesced.scansPerBurst()));
+        System.out.println(String.format("Single flight: %5.1f scans per burst, %d reads coalesced",
+            coalesced.scansPerBurst(), coalescedReads));
+        assertEquals(READERS, uncoalesced.scansPerBurst());
+        assertEquals(1.0, coalesced.scansPerBurst());
+        assertTrue(coalescedReads > 0);
+        assertEquals((long) (READERS - 1) * BURSTS, coalescedReads);
+    }
+
+    // Each burst follows a write and starts every reader at once.
+    private Burst bursts(Supplier<Object> read) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(READERS);
+        long scans = 0;
+        try {
+            for (int burst = 0; burst < BURSTS; burst++) {
+                transactionService.createTransaction(new TransactionRequestDTO("9999999999",
+                    new BigDecimal("1.00"), TransactionType.FEE, "Write before burst " + burst));
+                long scansBefore = scans();
+                ScanCounting.startBurst(READERS);
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Object>> reads = new ArrayList<>();
+                for (int i = 0; i < READERS; i++) {
+                    reads.add(executor.submit(() -> {
+                        start.await();
+                        return read.get();
+                    }));
+                }
+                start.countDown();
+                for (Future<Object> result : reads) {
+                    assertNotNull(result.get());
+                }
+                ScanCounting.endBurst();
+                scans += scans() - scansBefore;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return new Burst(scans);
+    }
+
+    private static long scans() {
+        return ScanCounting.SCANS.get();
+    }
+
+    @TestConfiguration
+    static class ScanCounting {
+
+        static final AtomicLong SCANS = new AtomicLong();
+        static final AtomicInteger CALLING = new AtomicInteger();
+
+        static volatile LongSupplier coalesced = () -> 0;
+        private static volatile int readers;
+        private static volatile long coalescedAtStart;
+
+        static void startBurst(int burstReaders) {
+            CALLING.set(0);
+            coalescedAtStart = coalesced.getAsLong();
+            readers = burstReaders;
+        }
+
+        static void endBurst() {
+            readers = 0;
+        }
+
+        // Holds a call until every reader of the burst is calling the store or waiting on a load, or fails it
+        // if they do not get there.
+        private static void awaitReaders() throws TimeoutException {
+            int expected = readers;
+            if (expected == 0) {
+                return;
+            }
+            CALLING.incrementAndGet();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (CALLING.get() + coalesced.getAsLong() - coalescedAtStart < expected) {
+                if (System.nanoTime() > deadline) {
+                    throw new TimeoutException("Readers did not all reach the store or a shared load");
+                }
+                LockSupport.parkNanos(100_000);
+            }
+        }
+
+        // Counts getTotalAmount calls on the store the service uses and holds them during a burst.
+        @Bean
+        static BeanPostProcessor countingTransactionStore() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!beanName.equals("transactionStore") || !(bean instanceof TransactionStore store)) {
+                        return bean;
+                    }
+                    return Proxy.newProxyInstance(TransactionStore.class.getClassLoader(), new Class<?>[] {TransactionStore.class},
+                        (proxy, method, args) -> {
+                            if (method.getName().equals("getTotalAmount")) {
+                                SCANS.incrementAndGet();
+                                awaitReaders();
+                            }
+                            try {
+                                return method.invoke(store, args);
+                            } catch (InvocationTargetException ex) {
+                                throw ex.getCause();
+                            }
+                        });
+                }
+            };
+        }
+    }
+
+    private record Burst(long scans) {
+
+        double scansPerBurst() {
+            return (double) scans / BURSTS;
+        }
+    }
+}
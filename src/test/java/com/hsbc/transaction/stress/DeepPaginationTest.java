@@ -0,0 +1,76 @@
+package com.hsbc.transaction.stress;
+
+import com.hsbc.transaction.model.Transaction;
+import com.hsbc.transaction.model.TransactionType;
+import com.hsbc.transaction.repository.PageCursor;
+import com.hsbc.transaction.repository.TransactionFilter;
+import com.hsbc.transaction.repository.TransactionRepository;
+import com.hsbc.transaction.repository.TransactionStore;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("benchmark")
+class DeepPaginationTest {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 500_000);
+    private static final int PAGE_SIZE = Integer.getInteger("benchmark.page-size", 100);
+
+    @Test
+    void compareOffsetPagesWithCursorPagesAtDepth() {
+        System.out.println("=== Deep Pagination (" + ROWS + " rows, pages of " + PAGE_SIZE + ") ===");
+        TransactionStore store = new TransactionRepository();
+        LocalDateTime start = LocalDateTime.now().minusDays(30);
+        for (int i = 0; i < ROWS; i++) {
+            Transaction transaction = new Transaction(null, String.format("12345%05d", i % 10_000),
+                new BigDecimal("10.00"), TransactionType.PAYMENT, "Row " + i);
+            transaction.setTransactionDate(start.plusSeconds(i));
+            store.save(transaction);
+        }
+
+        // A full cursor walk, as a reconciliation job would do it.
+        long walkStart = System.nanoTime();
+        long walked = 0;
+        PageCursor cursor = null;
+        List<Transaction> page;
+        do {
+            page = store.findAfter(TransactionFilter.all(), cursor, PAGE_SIZE);
+            walked += page.size();
+            if (!page.isEmpty()) {
+                cursor = PageCursor.of(page.get(page.size() - 1));
+            }
+        } while (page.size() == PAGE_SIZE);
+        long walkNanos = System.nanoTime() - walkStart;
+        assertEquals(ROWS, walked);
+        System.out.println("Cursor walk: " + String.format("%,.0f", walked / (walkNanos / 1e9)) + " rows/s");
+
+        int lastPage = (ROWS - 1) / PAGE_SIZE;
+        for (int pageNumber : new int[] {0, lastPage / 4, lastPage / 2, lastPage}) {
+            List<Transaction> byOffset = store.findAll(pageNumber, PAGE_SIZE);
+            PageCursor before = pageNumber == 0 ? null : PageCursor.of(store.findAll(pageNumber - 1, PAGE_SIZE).get(PAGE_SIZE - 1));
+            List<Transaction> byCursor = store.findAfter(TransactionFilter.all(), before, PAGE_SIZE);
+            assertEquals(byOffset.get(0).getId(), byCursor.get(0).getId());
+
+            double offsetMicros = time(() -> store.findAll(pageNumber, PAGE_SIZE));
+            double cursorMicros = time(() -> store.findAfter(TransactionFilter.all(), before, PAGE_SIZE));
+            System.out.println(String.format("Page %,9d: offset %10.1f us, cursor %8.1f us", pageNumber, offsetMicros, cursorMicros));
+        }
+    }
+
+    private static double time(Runnable query) {
+        for (int i = 0; i < 5; i++) {
+            query.run();
+        }
+        int runs = 20;
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            query.run();
+        }
+        return (System.nanoTime() - start) / 1e3 / runs;
+    }
+}
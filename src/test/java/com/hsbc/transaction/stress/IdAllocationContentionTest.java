@@ -0,0 +1,61 @@
+package com.hsbc.transaction.stress;
+
+import com.hsbc.transaction.repository.id.IdAllocator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("benchmark")
+class IdAllocationContentionTest {
+
+    private static final int THREADS = Integer.getInteger("benchmark.threads", 20);
+    private static final int IDS_PER_THREAD = Integer.getInteger("benchmark.ops", 1_000_000);
+
+    @Test
+    void compareSharedCounterWithThreadLocalBlocks() throws Exception {
+        System.out.println("=== Id Allocation (" + THREADS + " threads x " + IDS_PER_THREAD + " ids) ===");
+        AtomicLong shared = new AtomicLong(1);
+        double atomic = measure("Shared AtomicLong", shared::getAndIncrement);
+        double blocks = measure("Sequential blocks of 64", IdAllocator.sequential(1, 1, 64)::next);
+        double timeOrdered = measure("Time-ordered blocks of 64", IdAllocator.timeOrdered(0, 64)::next);
+        System.out.println("Blocks / AtomicLong: " + String.format("%.2f", blocks / atomic)
+            + ", time-ordered / AtomicLong: " + String.format("%.2f", timeOrdered / atomic));
+    }
+
+    private double measure(String name, LongSupplier allocator) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch latch = new CountDownLatch(THREADS);
+        AtomicLong checksum = new AtomicLong();
+
+        long start = System.nanoTime();
+        for (int t = 0; t < THREADS; t++) {
+            executor.submit(() -> {
+                try {
+                    long sum = 0;
+                    for (int i = 0; i < IDS_PER_THREAD; i++) {
+                        sum += allocator.getAsLong();
+                    }
+                    checksum.addAndGet(sum);
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        assertTrue(latch.await(5, TimeUnit.MINUTES));
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+
+        assertTrue(checksum.get() != 0);
+        double perSecond = (long) THREADS * IDS_PER_THREAD * 1_000_000_000.0 / elapsed;
+        System.out.println(name + ": " + String.format("%,.0f", perSecond) + " ids/s");
+        return perSecond;
+    }
+}
@@ -0,0 +1,83 @@
+package com.hsbc.transaction.stress;
+
+import com.hsbc.transaction.repository.TransactionRepository;
+import com.hsbc.transaction.repository.TransactionStore;
+import com.hsbc.transaction.repository.sharded.ShardedTransactionStore;
+import com.hsbc.transaction.service.TransactionService;
+import com.hsbc.transaction.service.cache.CacheGenerations;
+import com.hsbc.transaction.service.cache.TransactionCacheInvalidator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The concurrent creation workload of TransactionStressTest, run through the service as writers go from one to one
+// per core: on the heap store, and on a sharded store with one shard per writer. Fails if the sharded store with a
+// writer per core falls short of benchmark.min-speedup times its throughput with one writer.
+@Tag("benchmark")
+class ShardedWriteScalingTest {
+
+    private static final int CORES = Runtime.getRuntime().availableProcessors();
+    private static final int TRANSACTIONS_PER_THREAD = Integer.getInteger("benchmark.ops", 20_000);
+    private static final double MIN_SPEEDUP = Double.parseDouble(System.getProperty("benchmark.min-speedup", "1.0"));
+
+    @Test
+    void createThroughputShouldGrowWithCores() throws Exception {
+        System.out.println("=== Sharded Write Scaling (" + TRANSACTIONS_PER_THREAD + " creates per writer, " + CORES + " cores) ===");
+        double singleSharded = 0;
+        double sharded = 0;
+        for (int threads = 1; threads <= CORES; threads = threads < CORES ? Math.min(threads * 2, CORES) : threads + 1) {
+            double heap = measure(threads, writers -> new TransactionRepository());
+            sharded = measure(threads, ShardedTransactionStore::new);
+            if (threads == 1) {
+                singleSharded = sharded;
+            }
+            System.out.println(String.format(
+                "%3d cores: heap %,12.0f creates/s  sharded %,12.0f creates/s  speedup x%.2f  efficiency %3.0f%%",
+                threads, heap, sharded, sharded / singleSharded, sharded / singleSharded / threads * 100));
+        }
+        if (CORES > 1) {
+            assertTrue(sharded >= singleSharded * MIN_SPEEDUP,
+                "Sharded creates should scale with cores, got x" + String.format("%.2f", sharded / singleSharded));
+        }
+    }
+
+    private double measure(int threads, IntFunction<TransactionStore> engine) throws Exception {
+        TransactionStore store = engine.apply(threads);
+        TransactionService service = new TransactionService(store, new TransactionCacheInvalidator(
+            new ConcurrentMapCacheManager(TransactionCacheInvalidator.TRANSACTIONS, TransactionCacheInvalidator.STATS),
+            new CacheGenerations()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch latch = new CountDownLatch(threads);
+
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            int threadIndex = t;
+            executor.submit(() -> {
+                try {
+                    for (int i = 0; i < TRANSACTIONS_PER_THREAD; i++) {
+                        service.createTransaction(TransactionStressTest.randomTransactionRequest(
+                            ThreadLocalRandom.current(), threadIndex, i));
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        assertTrue(latch.await(5, TimeUnit.MINUTES));
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+
+        long creates = (long) threads * TRANSACTIONS_PER_THREAD;
+        assertEquals(creates, store.count());
+        return creates * 1_000_000_000.0 / elapsed;
+    }
+}
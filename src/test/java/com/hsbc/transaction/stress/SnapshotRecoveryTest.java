@@ -0,0 +1,103 @@
+package com.hsbc.transaction.stress;
+
+import com.hsbc.transaction.model.Transaction;
+import com.hsbc.transaction.model.TransactionType;
+import com.hsbc.transaction.repository.TransactionRepository;
+import com.hsbc.transaction.repository.persistence.DurabilityMode;
+import com.hsbc.transaction.repository.persistence.DurableTransactionStore;
+import com.hsbc.transaction.repository.persistence.SnapshotFiles;
+import com.hsbc.transaction.repository.persistence.WalOptions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("benchmark")
+class SnapshotRecoveryTest {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 200_000);
+    private static final int UPDATES_PER_ROW = Integer.getInteger("benchmark.updates", 4);
+    private static final int WRITERS = Integer.getInteger("benchmark.threads", 4);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void compareLogReplayWithSnapshotRecovery() throws Exception {
+        System.out.println("=== Snapshot Recovery (" + ROWS + " rows, " + UPDATES_PER_ROW + " updates per row) ===");
+        WalOptions options = new WalOptions(directory, DurabilityMode.OS, Duration.ZERO, Duration.ofMillis(100),
+            64L * 1024 * 1024);
+        long expectedRows;
+        try (DurableTransactionStore store = DurableTransactionStore.open(new TransactionRepository(), options)) {
+            for (int i = 0; i < ROWS; i++) {
+                store.save(transaction(i));
+            }
+            for (int update = 1; update <= UPDATES_PER_ROW; update++) {
+                for (long id = 1; id <= ROWS; id++) {
+                    Transaction transaction = store.findById(id).orElseThrow();
+                    transaction.setAmount(new BigDecimal(10 + update));
+                    store.save(transaction);
+                }
+            }
+            expectedRows = store.count();
+        }
+
+        long replayStart = System.nanoTime();
+        try (DurableTransactionStore recovered = DurableTransactionStore.open(new TransactionRepository(), options)) {
+            long replayNanos = System.nanoTime() - replayStart;
+            assertEquals(expectedRows, recovered.count());
+            System.out.println("Full log replay: " + TimeUnit.NANOSECONDS.toMillis(replayNanos) + " ms");
+
+            // Writers keep running while the snapshot is taken.
+            AtomicBoolean running = new AtomicBoolean(true);
+            AtomicLong concurrentWrites = new AtomicLong();
+            ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+            Future<?>[] writers = new Future<?>[WRITERS];
+            for (int t = 0; t < WRITERS; t++) {
+                writers[t] = executor.submit(() -> {
+                    while (running.get()) {
+                        recovered.save(transaction((int) concurrentWrites.getAndIncrement()));
+                    }
+                });
+            }
+            long snapshotStart = System.nanoTime();
+            SnapshotFiles.Snapshot snapshot = recovered.snapshot();
+            long snapshotNanos = System.nanoTime() - snapshotStart;
+            running.set(false);
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+            executor.shutdown();
+            expectedRows = recovered.count();
+
+            System.out.println("Snapshot write: " + snapshot.rows() + " rows, " + snapshot.bytes() / (1024 * 1024) + " MB in "
+                + TimeUnit.NANOSECONDS.toMillis(snapshotNanos) + " ms ("
+                + String.format("%.1f", snapshot.bytes() / (1024.0 * 1024.0) / (snapshotNanos / 1e9)) + " MB/s, "
+                + String.format("%,.0f", snapshot.rows() / (snapshotNanos / 1e9)) + " rows/s)");
+            System.out.println("Writes accepted while the snapshot was taken: " + concurrentWrites.get());
+        }
+
+        long recoveryStart = System.nanoTime();
+        try (DurableTransactionStore recovered = DurableTransactionStore.open(new TransactionRepository(), options)) {
+            long recoveryNanos = System.nanoTime() - recoveryStart;
+            assertEquals(expectedRows, recovered.count());
+            System.out.println("Snapshot + log tail recovery: " + TimeUnit.NANOSECONDS.toMillis(recoveryNanos) + " ms");
+        }
+    }
+
+    private static Transaction transaction(int i) {
+        return new Transaction(null, String.format("12345%05d", i % 1000), new BigDecimal("10.00"),
+            TransactionType.PAYMENT, "Snapshot " + i, "REF-" + i);
+    }
+}
@@ -0,0 +1,70 @@
+package com.hsbc.transaction.stress;
+
+import com.hsbc.transaction.repository.TransactionRepository;
+import com.hsbc.transaction.repository.TransactionStore;
+import com.hsbc.transaction.repository.columnar.ColumnarTransactionStore;
+import com.hsbc.transaction.repository.offheap.OffHeapTransactionStore;
+import com.hsbc.transaction.repository.persistence.DurabilityMode;
+import com.hsbc.transaction.repository.persistence.DurableTransactionStore;
+import com.hsbc.transaction.repository.persistence.WalOptions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.Closeable;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("benchmark")
+class StorageEngineBenchmarkTest {
+
+    // Restrict the run with -Dbenchmark.engines=heap,columnar
+    private static final List<String> ENGINES = Arrays.asList(
+        System.getProperty("benchmark.engines", "heap,columnar,offheap,heap+wal").split(","));
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void runEveryEngineThroughTheSameWorkload() throws Exception {
+        TransactionStoreBenchmark.Workload workload = TransactionStoreBenchmark.Workload.fromSystemProperties();
+        TransactionStoreBenchmark benchmark = new TransactionStoreBenchmark(workload);
+        System.out.println("=== Storage Engine Benchmark (" + workload + ") ===");
+
+        for (Map.Entry<String, EngineFactory> engine : engines().entrySet()) {
+            if (!ENGINES.contains(engine.getKey())) {
+                continue;
+            }
+            TransactionStore store = engine.getValue().create();
+            try {
+                TransactionStoreBenchmark.Result result = benchmark.run(engine.getKey(), store);
+                result.print();
+                assertTrue(store.count() >= workload.rows(), engine.getKey() + " should keep every preloaded row");
+            } finally {
+                if (store instanceof Closeable closeable) {
+                    closeable.close();
+                }
+            }
+        }
+    }
+
+    private Map<String, EngineFactory> engines() {
+        Map<String, EngineFactory> engines = new LinkedHashMap<>();
+        engines.put("heap", TransactionRepository::new);
+        engines.put("columnar", ColumnarTransactionStore::new);
+        engines.put("offheap", OffHeapTransactionStore::new);
+        engines.put("heap+wal", () -> DurableTransactionStore.open(new TransactionRepository(),
+            new WalOptions(directory, DurabilityMode.BATCH, Duration.ofMillis(1), Duration.ofMillis(100), 64L * 1024 * 1024)));
+        return engines;
+    }
+
+    private interface EngineFactory {
+        TransactionStore create() throws Exception;
+    }
+}
@@ -0,0 +1,145 @@
+package com.hsbc.transaction.stress;
+
+import com.hsbc.transaction.model.Transaction;
+import com.hsbc.transaction.model.TransactionType;
+import com.hsbc.transaction.repository.TransactionRepository;
+import com.hsbc.transaction.repository.TransactionStore;
+import com.hsbc.transaction.repository.columnar.ColumnarTransactionStore;
+import com.hsbc.transaction.repository.offheap.OffHeapTransactionStore;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("benchmark")
+class StorageEngineComparisonTest {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 200_000);
+    private static final int SCAN_ITERATIONS = Integer.getInteger("benchmark.scans", 20);
+
+    @Test
+    void compareStorageEngines() throws InterruptedException {
+        // Given
+        ScanQuery streamScan = store -> store.findAll().stream()
+            .filter(t -> t.getType() == TransactionType.PAYMENT)
+            .map(Transaction::getAmount)
+            .reduce(BigDecimal.ZERO, BigDecimal::add);
+        ScanQuery engineScan = store -> store.getTotalAmountByType(TransactionType.PAYMENT);
+
+        // When
+        EngineResult heap = measure("ConcurrentHashMap", TransactionRepository::new, streamScan);
+        EngineResult columnar = measure("Columnar", ColumnarTransactionStore::new, engineScan);
+        EngineResult offHeap = measure("Off-heap", OffHeapTransactionStore::new, engineScan);
+
+        // Then
+        System.out.println("=== Storage Engine Comparison (" + ROWS + " rows) ===");
+        heap.print();
+        columnar.print();
+        offHeap.print();
+        System.out.println("Heap memory ratio (heap / columnar): " + String.format("%.2f", (double) heap.heapBytesPerRow / columnar.heapBytesPerRow));
+        System.out.println("Heap memory ratio (heap / off-heap): " + String.format("%.2f", (double) heap.heapBytesPerRow / offHeap.heapBytesPerRow));
+        System.out.println("Scan speedup (columnar / heap): " + String.format("%.2f", columnar.rowsPerSecond / heap.rowsPerSecond));
+
+        assertEquals(0, heap.scanResult.compareTo(columnar.scanResult), "Columnar store should aggregate to the same total");
+        assertEquals(0, heap.scanResult.compareTo(offHeap.scanResult), "Off-heap store should aggregate to the same total");
+        assertTrue(offHeap.heapBytesPerRow < heap.heapBytesPerRow, "Off-heap store should retain less Java heap per row");
+    }
+
+    private EngineResult measure(String name, Supplier<TransactionStore> factory, ScanQuery scan) throws InterruptedException {
+        long before = usedMemoryAfterGc();
+        long gcBefore = totalGcMillis();
+        TransactionStore store = factory.get();
+        Random random = new Random(42);
+        LocalDateTime start = LocalDateTime.now().minusDays(30);
+        long loadStart = System.nanoTime();
+        for (int i = 0; i < ROWS; i++) {
+            Transaction transaction = new Transaction(
+                null,
+                String.format("12345%05d", random.nextInt(20_000)),
+                BigDecimal.valueOf(1 + random.nextInt(1_000_000), 2),
+                TransactionType.values()[random.nextInt(TransactionType.values().length)],
+                "Benchmark transaction " + i,
+                random.nextBoolean() ? "REF-" + i : null
+            );
+            transaction.setTransactionDate(start.plusSeconds(i));
+            store.save(transaction);
+        }
+        long loadNanos = System.nanoTime() - loadStart;
+        long loadGcMillis = totalGcMillis() - gcBefore;
+
+        long fullGcStart = System.nanoTime();
+        long after = usedMemoryAfterGc();
+        long fullGcMillis = (System.nanoTime() - fullGcStart) / 1_000_000;
+        long oldGen = oldGenUsed();
+
+        BigDecimal result = scan.run(store);
+        long scanStart = System.nanoTime();
+        for (int i = 0; i < SCAN_ITERATIONS; i++) {
+            result = scan.run(store);
+        }
+        long scanNanos = System.nanoTime() - scanStart;
+
+        assertEquals(ROWS, store.count());
+        return new EngineResult(name,
+            Math.max(1, (after - before) / ROWS),
+            oldGen,
+            loadGcMillis,
+            fullGcMillis,
+            ROWS / (loadNanos / 1e9),
+            (double) ROWS * SCAN_ITERATIONS / (scanNanos / 1e9),
+            result);
+    }
+
+    private static long usedMemoryAfterGc() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long totalGcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, collector.getCollectionTime());
+        }
+        return total;
+    }
+
+    private static long oldGenUsed() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            String poolName = pool.getName();
+            if (poolName.contains("Old Gen") || poolName.contains("Tenured")) {
+                used += pool.getUsage().getUsed();
+            }
+        }
+        return used;
+    }
+
+    private interface ScanQuery {
+        BigDecimal run(TransactionStore store);
+    }
+
+    private record EngineResult(String name, long heapBytesPerRow, long oldGenBytes, long loadGcMillis,
+                                long fullGcMillis, double loadsPerSecond, double rowsPerSecond,
+                                BigDecimal scanResult) {
+        void print() {
+            System.out.println(name + ": ~" + heapBytesPerRow + " heap bytes/row, "
+                + (oldGenBytes / 1024 / 1024) + " MB old gen, "
+                + loadGcMillis + " ms GC during load, "
+                + fullGcMillis + " ms for full GC, "
+                + String.format("%.0f", loadsPerSecond) + " inserts/second, "
+                + String.format("%.0f", rowsPerSecond) + " rows scanned/second");
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.hsbc.transaction.stress;
+
+import com.hsbc.transaction.model.Transaction;
+import com.hsbc.transaction.model.TransactionType;
+import com.hsbc.transaction.repository.TransactionStore;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Throughput and latency harness shared by every TransactionStore engine. The data shape and the
+// operation mix come from system properties so engines can be compared on production-like workloads:
+//   -Dbenchmark.rows=100000 -Dbenchmark.accounts=10000 -Dbenchmark.threads=4 -Dbenchmark.ops=20000
+//   -Dbenchmark.mix=create:20,get:40,update:10,account:20,stats:10
+public class TransactionStoreBenchmark {
+
+    public enum Operation {
+        CREATE, GET, UPDATE, ACCOUNT, STATS
+    }
+
+    public record Workload(int rows, int accounts, int threads, int opsPerThread, Map<Operation, Integer> mix) {
+
+        public static Workload fromSystemProperties() {
+            return new Workload(
+                Integer.getInteger("benchmark.rows", 100_000),
+                Integer.getInteger("benchmark.accounts", 10_000),
+                Integer.getInteger("benchmark.threads", 4),
+                Integer.getInteger("benchmark.ops", 20_000),
+                parseMix(System.getProperty("benchmark.mix", "create:20,get:40,update:10,account:20,stats:10")));
+        }
+
+        private static Map<Operation, Integer> parseMix(String mix) {
+            Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+            for (String entry : mix.split(",")) {
+                String[] parts = entry.trim().split(":");
+                weights.put(Operation.valueOf(parts[0].trim().toUpperCase()), Integer.parseInt(parts[1].trim()));
+            }
+            return weights;
+        }
+
+        @Override
+        public String toString() {
+            return rows + " rows, " + accounts + " accounts, " + threads + " threads x " + opsPerThread + " ops, mix " + mix;
+        }
+    }
+
+    public record OperationResult(Operation operation, long count, double opsPerSecond,
+                                  long p50Nanos, long p99Nanos, long p999Nanos, long maxNanos) {
+    }
+
+    public record Result(String engine, double opsPerSecond, List<OperationResult> operations) {
+
+        public void print() {
+            System.out.println(engine + ": " + String.format("%,.0f", opsPerSecond) + " ops/s");
+            for (OperationResult op : operations) {
+                System.out.println(String.format("  %-8s %9d ops %12s ops/s  p50 %8.1f us  p99 %8.1f us  p99.9 %8.1f us  max %9.1f us",
+                    op.operation(), op.count(), String.format("%,.0f", op.opsPerSecond()),
+                    op.p50Nanos() / 1e3, op.p99Nanos() / 1e3, op.p999Nanos() / 1e3, op.maxNanos() / 1e3));
+            }
+        }
+    }
+
+    private final Workload workload;
+    private final Operation[] schedule;
+
+    public TransactionStoreBenchmark(Workload workload) {
+        this.workload = workload;
+        List<Operation> slots = new ArrayList<>();
+        workload.mix().forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                slots.add(operation);
+            }
+        });
+        this.schedule = slots.toArray(new Operation[0]);
+    }
+
+    public Result run(String engine, TransactionStore store) throws Exception {
+        LocalDateTime start = LocalDateTime.now().minusDays(30);
+        for (int i = 0; i < workload.rows(); i++) {
+            Transaction transaction = newTransaction(ThreadLocalRandom.current());
+            transaction.setTransactionDate(start.plusSeconds(i));
+            store.save(transaction);
+        }
+        // One untimed pass lets the JIT compile every path before latencies are recorded.
+        measure(store, Math.min(workload.opsPerThread(), 5_000));
+        return summarize(engine, measure(store, workload.opsPerThread()));
+    }
+
+    private Recorded measure(TransactionStore store, int opsPerThread) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(workload.threads());
+        try {
+            List<Future<Samples>> futures = new ArrayList<>();
+            long startNanos = System.nanoTime();
+            for (int t = 0; t < workload.threads(); t++) {
+                futures.add(executor.submit(() -> runThread(store, opsPerThread)));
+            }
+            List<Samples> perThread = new ArrayList<>();
+            for (Future<Samples> future : futures) {
+                perThread.add(future.get());
+            }
+            return new Recorded(perThread, System.nanoTime() - startNanos);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private Samples runThread(TransactionStore store, int ops) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Samples samples = new Samples(ops);
+        long maxId = Math.max(1, workload.rows());
+        for (int i = 0; i < ops; i++) {
+            Operation operation = schedule[random.nextInt(schedule.length)];
+            long begin = System.nanoTime();
+            switch (operation) {
+                case CREATE -> store.save(newTransaction(random));
+                case GET -> store.findById(1 + random.nextLong(maxId));
+                case UPDATE -> {
+                    Optional<Transaction> found = store.findById(1 + random.nextLong(maxId));
+                    found.ifPresent(transaction -> {
+                        transaction.setAmount(randomAmount(random));
+                        store.save(transaction);
+                    });
+                }
+                case ACCOUNT -> store.findByAccountNumber(account(random));
+                case STATS -> store.getTotalAmountByType(randomType(random));
+            }
+            samples.record(operation, System.nanoTime() - begin);
+        }
+        return samples;
+    }
+
+    private Result summarize(String engine, Recorded recorded) {
+        double seconds = recorded.elapsedNanos() / 1e9;
+        long total = 0;
+        List<OperationResult> results = new ArrayList<>();
+        for (Operation operation : Operation.values()) {
+            int count = 0;
+            for (Samples samples : recorded.perThread()) {
+                count += samples.counts[operation.ordinal()];
+            }
+            if (count == 0) {
+                continue;
+            }
+            long[] merged = new long[count];
+            int offset = 0;
+            for (Samples samples : recorded.perThread()) {
+                int threadCount = samples.counts[operation.ordinal()];
+                System.arraycopy(samples.latencies[operation.ordinal()], 0, merged, offset, threadCount);
+                offset += threadCount;
+            }
+            Arrays.sort(merged);
+            results.add(new OperationResult(operation, count, count / seconds,
+                percentile(merged, 0.50), percentile(merged, 0.99), percentile(merged, 0.999), merged[count - 1]));
+            total += count;
+        }
+        return new Result(engine, total / seconds, results);
+    }
+
+    private Transaction newTransaction(ThreadLocalRandom random) {
+        return new Transaction(null, account(random), randomAmount(random), randomType(random),
+            "Benchmark transaction", random.nextBoolean() ? "REF-" + random.nextInt(1_000_000) : null);
+    }
+
+    private String account(ThreadLocalRandom random) {
+        return String.format("12345%05d", random.nextInt(workload.accounts()));
+    }
+
+    private static BigDecimal randomAmount(ThreadLocalRandom random) {
+        return BigDecimal.valueOf(1 + random.nextInt(1_000_000), 2);
+    }
+
+    private static TransactionType randomType(ThreadLocalRandom random) {
+        TransactionType[] types = TransactionType.values();
+        return types[random.nextInt(types.length)];
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(quantile * sorted.length) - 1)];
+    }
+
+    // Latencies recorded by one thread, one array per operation.
+    private static final class Samples {
+        final long[][] latencies = new long[Operation.values().length][];
+        final int[] counts = new int[Operation.values().length];
+
+        Samples(int ops) {
+            for (int i = 0; i < latencies.length; i++) {
+                latencies[i] = new long[ops];
+            }
+        }
+
+        void record(Operation operation, long nanos) {
+            latencies[operation.ordinal()][counts[operation.ordinal()]++] = nanos;
+        }
+    }
+
+    private record Recorded(List<Samples> perThread, long elapsedNanos) {
+    }
+}
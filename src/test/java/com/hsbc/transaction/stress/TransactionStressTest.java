@@ -325,6 +325,11 @@ class TransactionStressTest {
     }
 
     private TransactionRequestDTO createRandomTransactionRequest(int threadIndex, int transactionIndex) {
+        return randomTransactionRequest(random, threadIndex, transactionIndex);
+    }
+
+    // Shared with ShardedWriteScalingTest, which runs the concurrent creation workload against each engine.
+    static TransactionRequestDTO randomTransactionRequest(Random random, int threadIndex, int transactionIndex) {
         String accountNumber = String.format("12345%05d", (threadIndex * 1000 + transactionIndex) % 99999);
         BigDecimal amount = new BigDecimal(String.format("%.2f", 1 + random.nextDouble() * 9999));
         TransactionType type = TransactionType.values()[random.nextInt(TransactionType.values().length)];
@@ -0,0 +1,86 @@
+package com.hsbc.transaction.stress;
+
+import com.hsbc.transaction.model.Transaction;
+import com.hsbc.transaction.model.TransactionType;
+import com.hsbc.transaction.repository.TransactionRepository;
+import com.hsbc.transaction.repository.persistence.DurabilityMode;
+import com.hsbc.transaction.repository.persistence.DurableTransactionStore;
+import com.hsbc.transaction.repository.persistence.WalOptions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Recovery of what each mode acknowledged is covered by DurableTransactionStoreTest.
+@Tag("benchmark")
+class WriteAheadLogThroughputTest {
+
+    private static final int THREADS = Integer.getInteger("benchmark.threads", 16);
+    private static final int WRITES_PER_THREAD = Integer.getInteger("benchmark.writes", 2_000);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void compareDurabilityModes() throws Exception {
+        System.out.println("=== Write-Ahead Log Throughput (" + THREADS + " writers x " + WRITES_PER_THREAD + " creates) ===");
+        double inMemory = measure("In-memory (no log)", null);
+        for (DurabilityMode mode : DurabilityMode.values()) {
+            double throughput = measure(mode.name(), mode);
+            System.out.println(mode.name() + " / in-memory: " + String.format("%.2f", throughput / inMemory));
+        }
+    }
+
+    private double measure(String name, DurabilityMode mode) throws Exception {
+        Path walDirectory = Files.createDirectories(directory.resolve(name.replace(' ', '-')));
+        WalOptions options = new WalOptions(walDirectory, mode == null ? DurabilityMode.OS : mode,
+            Duration.ofMillis(1), Duration.ofMillis(50), 64L * 1024 * 1024);
+        TransactionRepository repository = new TransactionRepository();
+        DurableTransactionStore store = mode == null ? null : DurableTransactionStore.open(repository, options);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch latch = new CountDownLatch(THREADS);
+
+        long start = System.nanoTime();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            executor.submit(() -> {
+                try {
+                    for (int i = 0; i < WRITES_PER_THREAD; i++) {
+                        Transaction transaction = new Transaction(null, String.format("12345%05d", thread),
+                            new BigDecimal("10.00"), TransactionType.PAYMENT, "Throughput " + i, "REF-" + i);
+                        if (store == null) {
+                            repository.save(transaction);
+                        } else {
+                            store.save(transaction);
+                        }
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        assertTrue(latch.await(5, TimeUnit.MINUTES));
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+        if (store != null) {
+            store.close();
+        }
+
+        long writes = (long) THREADS * WRITES_PER_THREAD;
+        double perSecond = writes * 1_000_000_000.0 / elapsed;
+        System.out.println(name + ": " + String.format("%,.0f", perSecond) + " creates/s");
+        assertEquals(writes, repository.count());
+        return perSecond;
+    }
+}